@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 import za.ac.cput.api.response.ApiResponseWrapper;
 import za.ac.cput.controllers.FileController;
+import za.ac.cput.controllers.security.JwksController;
 import za.ac.cput.utils.SecurityUtils;
 
 /**
@@ -31,9 +33,10 @@ public class ApiResponseWrapperAdvice implements ResponseBodyAdvice<Object> {
     /**
      * Determines if this advice should be applied.
      * It will NOT apply if:
-     * 1. The method is in the FileController.
+     * 1. The method is in the FileController or the JwksController.
      * 2. The return type is already an ApiResponse.
      * 3. The return type is a Resource (for file streaming).
+     * 4. The body is raw bytes, e.g. a pre-serialized response from the car catalog cache that already carries the envelope.
      *
      * @param returnType    The return type of the controller method.
      * @param converterType The selected HttpMessageConverter.
@@ -49,6 +52,12 @@ public class ApiResponseWrapperAdvice implements ResponseBodyAdvice<Object> {
             return false;
         }
 
+        // A JSON Web Key Set must keep its standard shape for gateways and other verifiers.
+        if (returnType.getContainingClass().equals(JwksController.class)) {
+            log.trace("Skipping ApiResponse wrapping: Method is in JwksController.");
+            return false;
+        }
+
         // --- Alternative/Additional Checks for robustness ---
 
         // Exclude if the method's return type is Resource or a subclass of Resource.
@@ -57,6 +66,12 @@ public class ApiResponseWrapperAdvice implements ResponseBodyAdvice<Object> {
             return false;
         }
 
+        // Raw bytes are written as-is; cached catalog responses are serialized with their envelope.
+        if (ByteArrayHttpMessageConverter.class.isAssignableFrom(converterType)) {
+            log.trace("Skipping ApiResponse wrapping: Body is pre-serialized bytes.");
+            return false;
+        }
+
         // Avoid wrapping if the return type is already ApiResponse
         if (ApiResponseWrapper.class.isAssignableFrom(returnType.getParameterType())) {
             log.trace("Skipping ApiResponse wrapping: Return type is already ApiResponse.");
@@ -3,6 +3,7 @@ package za.ac.cput.api.advice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -153,6 +154,40 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new ApiResponseWrapper<>(Collections.singletonList(error)), HttpStatus.UNAUTHORIZED);
     }
 
+    /**
+     * Handles custom {@link ServiceUnavailableException}, raised when a bounded resource such as the
+     * password hashing pool is saturated. Responds with HTTP 503 and a Retry-After hint.
+     *
+     * @param ex The caught {@link ServiceUnavailableException}.
+     * @return A ResponseEntity containing an {@link ApiResponseWrapper} with the error.
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiResponseWrapper<Object>> handleServiceUnavailableApi(ServiceUnavailableException ex) {
+        String requesterId = SecurityUtils.getRequesterIdentifier();
+        FieldErrorDto error = new FieldErrorDto("server", ex.getMessage());
+        log.warn("Requester [{}]: ServiceUnavailableException: {}", requesterId, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponseWrapper<>(Collections.singletonList(error)));
+    }
+
+    /**
+     * Handles custom {@link TooManyRequestsException}, raised when a client exceeds a rate limit.
+     * Responds with HTTP 429 and a Retry-After header.
+     *
+     * @param ex The caught {@link TooManyRequestsException}.
+     * @return A ResponseEntity containing an {@link ApiResponseWrapper} with the error.
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponseWrapper<Object>> handleTooManyRequestsApi(TooManyRequestsException ex) {
+        String requesterId = SecurityUtils.getRequesterIdentifier();
+        FieldErrorDto error = new FieldErrorDto("rateLimit", ex.getMessage());
+        log.warn("Requester [{}]: TooManyRequestsException: {}", requesterId, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiResponseWrapper<>(Collections.singletonList(error)));
+    }
+
     // Generic fallback handler
 
     /**
@@ -0,0 +1,42 @@
+package za.ac.cput.config;
+
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * FlywayConfig.java
+ * Configures the schema migrations in {@code za.ac.cput.migration}. Tables are still created and extended by
+ * Hibernate ({@code ddl-auto=update}); the migrations only make the changes it cannot, such as dropping columns
+ * and constraints of an existing database. They run before Hibernate touches the schema.
+ * <p>
+ * Existing databases have no Flyway history yet, so they are baselined at version 0 and every migration runs
+ * on them; each migration checks the current schema first and does nothing on a fresh database.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Configuration
+public class FlywayConfig {
+
+    static final String MIGRATION_LOCATION = "classpath:za/ac/cput/migration";
+
+    /**
+     * Applies the migration settings to a Flyway configuration; shared by the application and the upgrade tests.
+     *
+     * @param configuration The configuration to adjust.
+     * @return The same configuration.
+     */
+    public static FluentConfiguration configure(FluentConfiguration configuration) {
+        return configuration
+                .locations(MIGRATION_LOCATION)
+                .baselineOnMigrate(true)
+                .baselineVersion("0");
+    }
+
+    @Bean
+    public FlywayConfigurationCustomizer flywayConfigurationCustomizer() {
+        return FlywayConfig::configure;
+    }
+}
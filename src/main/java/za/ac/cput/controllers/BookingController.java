@@ -16,8 +16,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import za.ac.cput.domain.dto.request.BookingBatchRequestDTO;
 import za.ac.cput.domain.dto.request.BookingRequestDTO;
 import za.ac.cput.domain.dto.request.BookingUpdateDTO;
+import za.ac.cput.domain.dto.response.BookingBatchItemResponseDTO;
 import za.ac.cput.domain.dto.response.BookingResponseDTO;
 import za.ac.cput.domain.dto.response.CarResponseDTO;
 import za.ac.cput.domain.dto.response.UserResponseDTO;
@@ -37,6 +39,7 @@ import za.ac.cput.utils.SecurityUtils;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * BookingController.java
@@ -114,6 +117,35 @@ public class BookingController {
         return ResponseEntity.status(HttpStatus.CREATED).body(BookingMapper.toDto(createdBookingEntity, fileStorageService, publicApiUrl));
     }
 
+    /**
+     * Allows an authenticated user to create several bookings at once (e.g., a fleet hire for an event).
+     * All items are booked for the current user in a single transaction; each item is reported as created
+     * or rejected, so one unavailable car does not fail the rest of the batch.
+     *
+     * @param batchRequestDTO The DTO containing the bookings to create.
+     * @return A ResponseEntity containing one result per submitted booking, in the same order.
+     */
+    @Operation(summary = "Create a batch of bookings", description = "Creates up to 100 bookings for the authenticated user in one request and reports success or failure per item.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed; see the per-item results"),
+            @ApiResponse(responseCode = "400", description = "The batch is empty, too large or contains malformed items")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchItemResponseDTO>> createBookings(@Valid @RequestBody BookingBatchRequestDTO batchRequestDTO) {
+        String requesterId = SecurityUtils.getRequesterIdentifier();
+        log.info("Requester [{}]: Attempting to create a batch of {} bookings.", requesterId, batchRequestDTO.getBookings().size());
+
+        User currentUser = userService.read(requesterId);
+        List<Booking> bookingsToCreate = batchRequestDTO.getBookings().stream()
+                .map(dto -> BookingMapper.toEntity(dto, currentUser, new Car.Builder().setUuid(dto.getCarUuid()).build(), null))
+                .collect(Collectors.toList());
+        List<IBookingService.BatchItemResult> results = bookingService.createAll(bookingsToCreate);
+
+        log.info("Requester [{}]: Batch booking processed; {} of {} created.", requesterId,
+                results.stream().filter(IBookingService.BatchItemResult::isSuccess).count(), results.size());
+        return ResponseEntity.ok(BookingMapper.toBatchItemDtoList(results, fileStorageService, publicApiUrl));
+    }
+
     /**
      * Retrieves a specific booking by its UUID.
      * Access is restricted to the user who owns the booking or an administrator.
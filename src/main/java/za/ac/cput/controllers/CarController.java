@@ -7,18 +7,27 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import za.ac.cput.domain.dto.request.CarSearchRequestDTO;
 import za.ac.cput.domain.dto.response.CarResponseDTO;
+import za.ac.cput.domain.dto.response.CarSearchResponseDTO;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.enums.PriceGroup;
 import za.ac.cput.domain.mapper.CarMapper;
 import za.ac.cput.exception.BadRequestException;
 import za.ac.cput.service.ICarService;
 import za.ac.cput.service.IFileStorageService;
+import za.ac.cput.service.impl.CarCatalogCache;
 import za.ac.cput.utils.SecurityUtils;
 
 import java.time.LocalDate;
@@ -32,6 +41,10 @@ import java.util.stream.Collectors;
  * Controller for public access to car information.
  * Provides endpoints to list all cars, list available cars, filter by price group,
  * and retrieve details of a specific car by UUID.
+ * <p>
+ * The unfiltered catalog, the price-group listings and single-car lookups are served from the
+ * {@link CarCatalogCache} as pre-serialized JSON with an ETag, so polling clients revalidating
+ * with {@code If-None-Match} receive a 304 without touching the database.
  *
  * @author Peter Buckingham (220165289)
  * @version 2.0
@@ -45,6 +58,7 @@ public class CarController {
     private final ICarService carService;
     private final IFileStorageService fileStorageService;
     private final String publicApiUrl; // <-- Add this field
+    private final CarCatalogCache catalogCache;
 
 
     /**
@@ -52,37 +66,64 @@ public class CarController {
      *
      * @param carService         The service for car data operations.
      * @param fileStorageService The service for generating image URLs.
+     * @param catalogCache       The cache of serialized catalog responses.
      */
     @Autowired
     public CarController(ICarService carService,
                          IFileStorageService fileStorageService,
-                         @Value("${app.public-api-url}") String publicApiUrl // <-- Inject the property
+                         @Value("${app.public-api-url}") String publicApiUrl, // <-- Inject the property
+                         CarCatalogCache catalogCache
     ) {
         this.carService = carService;
         this.fileStorageService = fileStorageService;
         this.publicApiUrl = publicApiUrl;
+        this.catalogCache = catalogCache;
         log.info("CarController initialized.");
     }
 
     /**
      * Retrieves a list of all cars in the system.
      *
-     * @return A ResponseEntity containing a list of all car DTOs.
+     * @return A ResponseEntity containing the serialized list of all car DTOs.
      */
     @Operation(summary = "Get all cars", description = "Retrieves a list of all cars in the system, including unavailable ones.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved car list"),
-            @ApiResponse(responseCode = "204", description = "No cars found in the system")
+            @ApiResponse(responseCode = "204", description = "No cars found in the system"),
+            @ApiResponse(responseCode = "304", description = "The car list has not changed since the ETag sent in If-None-Match")
     })
     @GetMapping
-    public ResponseEntity<List<CarResponseDTO>> getAllCars() {
+    public ResponseEntity<byte[]> getAllCars() {
         String requesterId = SecurityUtils.getRequesterIdentifier();
         log.info("Requester [{}]: Request to get all cars (unfiltered).", requesterId);
-        List<Car> cars = carService.getAll();
-        if (cars.isEmpty()) {
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.ok(CarMapper.toDtoList(cars, fileStorageService, publicApiUrl));
+        return toResponse(catalogCache.get("all", () -> toDtoListOrNull(carService.getAll())));
+    }
+
+    /**
+     * Retrieves one page of cars. Follow {@code nextCursor} with {@code after} for further pages; {@code page} is only
+     * accepted for shallow pages.
+     *
+     * @param availableOnly Whether to list only available cars.
+     * @param after         The {@code nextCursor} of the previous page.
+     * @param includeTotal  Whether to include the total number of cars (costs a count query).
+     * @param pageable      Page size ({@code size}), shallow page number ({@code page}) and {@code sort}, e.g. {@code year,desc}.
+     * @return A ResponseEntity containing the page of car DTOs and the cursor of the next page.
+     */
+    @Operation(summary = "Get a page of cars", description = "Retrieves cars sorted by id, year, make or priceGroup. Pass nextCursor as 'after' to fetch the next page; set includeTotal for the total count.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Unsupported sort, unknown cursor or too deep an offset page")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<CarResponseDTO>> getCarsPage(
+            @Parameter(description = "Only list available cars") @RequestParam(defaultValue = "false") boolean availableOnly,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) Integer after,
+            @Parameter(description = "Include the total number of cars") @RequestParam(defaultValue = "false") boolean includeTotal,
+            @ParameterObject @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+        String requesterId = SecurityUtils.getRequesterIdentifier();
+        log.info("Requester [{}]: Request to get cars page (after: {}, pageable: {}).", requesterId, after, pageable);
+        return ResponseEntity.ok(CarMapper.toDtoPage(
+                carService.getPage(availableOnly, pageable, after, includeTotal), fileStorageService, publicApiUrl));
     }
 
     /**
@@ -117,41 +158,94 @@ public class CarController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved cars for the price group"),
             @ApiResponse(responseCode = "204", description = "No available cars found for the specified price group"),
+            @ApiResponse(responseCode = "304", description = "The listing has not changed since the ETag sent in If-None-Match"),
             @ApiResponse(responseCode = "400", description = "Invalid price group provided")
     })
     @GetMapping("/available/price-group/{groupString}")
-    public ResponseEntity<List<CarResponseDTO>> getAvailableCarsByPriceGroup(
+    public ResponseEntity<byte[]> getAvailableCarsByPriceGroup(
             @Parameter(description = "Price group string (e.g., 'LUXURY', 'ECONOMY'). Case-insensitive.", required = true) @PathVariable String groupString) {
         String requesterId = SecurityUtils.getRequesterIdentifier();
         log.info("Requester [{}]: Request to get available cars by price group: '{}'", requesterId, groupString);
         PriceGroup priceGroupEnum = parsePriceGroup(groupString, requesterId);
 
-        List<Car> cars = carService.getAvailableCarsByPrice(priceGroupEnum);
-        if (cars.isEmpty()) {
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.ok(CarMapper.toDtoList(cars, fileStorageService, publicApiUrl));
+        return toResponse(catalogCache.get("price-group:" + priceGroupEnum,
+                () -> toDtoListOrNull(carService.getAvailableCarsByPrice(priceGroupEnum))));
+    }
+
+    /**
+     * Searches available cars by any combination of category, price group, make, model, year range and dates.
+     *
+     * @param criteria The search criteria bound from the query parameters.
+     * @param after    The {@code nextCursor} of the previous page.
+     * @param size     The page size.
+     * @return A ResponseEntity containing one page of matching car DTOs and the facet counts of all matches.
+     */
+    @Operation(summary = "Search available cars", description = "Finds available cars matching all given filters and returns one page of them, ordered by ID, with per-facet counts of all matches. Pass nextCursor as 'after' to fetch the next page. Dates, when given, must be given together and exclude cars booked in that range.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Search completed; the car list may be empty"),
+            @ApiResponse(responseCode = "400", description = "Only one date given, or an inverted date or year range")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<CarSearchResponseDTO> searchCars(
+            @ParameterObject @ModelAttribute CarSearchRequestDTO criteria,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) Integer after,
+            @Parameter(description = "Page size, at most 100") @RequestParam(defaultValue = "20") int size) {
+        String requesterId = SecurityUtils.getRequesterIdentifier();
+        log.info("Requester [{}]: Request to search cars with criteria: {} (after: {}, size: {})", requesterId, criteria, after, size);
+
+        ICarService.SearchResult result = carService.search(criteria, after, size);
+        return ResponseEntity.ok(CarSearchResponseDTO.builder()
+                .cars(CarMapper.toDtoList(result.cars(), fileStorageService, publicApiUrl))
+                .facets(result.facets())
+                .nextCursor(result.nextCursor())
+                .hasMore(result.hasMore())
+                .totalItems(result.totalItems())
+                .build());
     }
 
     /**
      * Retrieves a specific car by its UUID.
      *
      * @param carUuid The UUID of the car to retrieve.
-     * @return A ResponseEntity containing the car's DTO.
+     * @return A ResponseEntity containing the car's serialized DTO.
      */
     @Operation(summary = "Get car by UUID", description = "Retrieves a specific car by its unique identifier (UUID).")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved the car"),
+            @ApiResponse(responseCode = "304", description = "The car has not changed since the ETag sent in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Car with the specified UUID was not found")
     })
     @GetMapping("/{carUuid}")
-    public ResponseEntity<CarResponseDTO> getCarByUuid(
+    public ResponseEntity<byte[]> getCarByUuid(
             @Parameter(description = "UUID of the car to retrieve", required = true) @PathVariable UUID carUuid) {
         String requesterId = SecurityUtils.getRequesterIdentifier();
         log.info("Requester [{}]: Request to get car by UUID: {}", requesterId, carUuid);
 
-        Car car = carService.read(carUuid); // Throws ResourceNotFoundException if not found
-        return ResponseEntity.ok(CarMapper.toDto(car, fileStorageService, publicApiUrl));
+        // carService.read throws ResourceNotFoundException if not found; misses are never cached.
+        return toResponse(catalogCache.get("car:" + carUuid,
+                () -> CarMapper.toDto(carService.read(carUuid), fileStorageService, publicApiUrl)));
+    }
+
+    /**
+     * Maps cars to DTOs, or returns {@code null} so that an empty result is answered with 204 No Content.
+     */
+    private List<CarResponseDTO> toDtoListOrNull(List<Car> cars) {
+        return cars.isEmpty() ? null : CarMapper.toDtoList(cars, fileStorageService, publicApiUrl);
+    }
+
+    /**
+     * Builds the response for a cached catalog entry. Clients must revalidate before reusing it; when their
+     * {@code If-None-Match} matches the ETag, Spring MVC answers 304 Not Modified without the body.
+     */
+    private ResponseEntity<byte[]> toResponse(CarCatalogCache.CachedResponse cached) {
+        if (cached.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(cached.eTag())
+                .body(cached.body());
     }
 
     /**
@@ -6,19 +6,23 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 import org.springframework.http.*;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import za.ac.cput.service.IFileStorageService;
+import za.ac.cput.service.IFileStorageService.FileMetadata;
+import za.ac.cput.service.IImageVariantService;
 import za.ac.cput.utils.SecurityUtils;
 
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -27,6 +31,15 @@ import java.util.concurrent.TimeUnit;
  * Controller responsible for serving static files like images from the configured storage system.
  * It acts as a secure proxy, fetching files from the active storage backend (local or MinIO)
  * and streaming them to the client. This prevents direct exposure of the storage system.
+ * <p>
+ * Responses carry a strong ETag and Last-Modified taken from the storage metadata, so revalidation
+ * with {@code If-None-Match} or {@code If-Modified-Since} is answered with a 304 without touching the
+ * file content, and a single byte range may be requested with {@code Range} (optionally guarded by
+ * an {@code If-Range} ETag). Car images can be requested resized or re-encoded with {@code w} and
+ * {@code fmt}; the variant is produced once by {@link IImageVariantService} and served like any other file.
+ * <p>
+ * Files kept on the local filesystem are handed to Tomcat's sendfile when the connector supports it, so the
+ * kernel copies them to the socket without passing through the application; otherwise they are streamed.
  *
  * @author Peter Buckingham (220165289)
  * @version 3.0
@@ -37,68 +50,171 @@ import java.util.concurrent.TimeUnit;
 public class FileController {
 
     private static final Logger log = LoggerFactory.getLogger(FileController.class);
+    // Request attributes through which Tomcat offers sendfile and is told what to send.
+    static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
     private final IFileStorageService fileStorageService;
+    private final IImageVariantService imageVariantService;
 
     /**
      * Constructs the FileController with the required FileStorageService.
      *
-     * @param fileStorageService The service used to load files from the active storage backend.
+     * @param fileStorageService  The service used to load files from the active storage backend.
+     * @param imageVariantService The service that resolves resized or re-encoded image variants.
      */
     @Autowired
-    public FileController(IFileStorageService fileStorageService) {
+    public FileController(IFileStorageService fileStorageService, IImageVariantService imageVariantService) {
         this.fileStorageService = fileStorageService;
+        this.imageVariantService = imageVariantService;
         log.info("FileController initialized.");
     }
 
     /**
-     * Serves a file from the storage system using a combined key.
+     * Serves a file, or a byte range of it, from the storage system using a combined key.
      * This endpoint is publicly accessible to allow browsers and clients to load images and other files.
-     * It includes aggressive browser caching headers for performance.
+     * It includes aggressive browser caching headers for performance, except when a requested variant
+     * could not be produced and the original is served instead, which is marked {@code no-store}.
      *
-     * @param folder   The sub-directory within the base storage (e.g., "cars", "selfies").
-     * @param filename The name of the file to be served, including its extension.
-     * @return A {@link ResponseEntity} containing the file {@link Resource} if found,
-     * or a 404 Not Found status if the file does not exist.
+     * @param folder      The sub-directory within the base storage (e.g., "cars", "selfies").
+     * @param filename    The name of the file to be served, including its extension.
+     * @param width       Optional width in pixels of a resized variant of a car image.
+     * @param format      Optional format ("jpg" or "png") of a re-encoded variant of a car image.
+     * @param rangeHeader The optional {@code Range} header; only single byte ranges are honoured.
+     * @param webRequest  The current request, used to evaluate the conditional headers.
+     * @return A {@link ResponseEntity} streaming the file (200) or the requested range (206), or without a body
+     * when the container sends the file with sendfile,
+     * {@code null} if a 304 or 412 has already been written, or a 416 if the range cannot be satisfied.
+     * @throws ResponseStatusException with 404 Not Found if the file does not exist.
+     * @throws za.ac.cput.exception.BadRequestException if an unsupported variant is requested.
      */
-    @Operation(summary = "Serve a file by path", description = "Serves a file (e.g., an image) from the storage system. The path combines a folder and filename.")
+    @Operation(summary = "Serve a file by path", description = "Serves a file (e.g., an image) from the storage system. The path combines a folder and filename. Supports conditional requests and single byte ranges.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "File served successfully",
                     content = @Content(mediaType = "application/octet-stream")), // Use a generic content type for binary data
-            @ApiResponse(responseCode = "404", description = "File not found")
+            @ApiResponse(responseCode = "206", description = "Requested byte range served",
+                    content = @Content(mediaType = "application/octet-stream")),
+            @ApiResponse(responseCode = "304", description = "File not modified since the client's copy"),
+            @ApiResponse(responseCode = "400", description = "Unsupported image variant requested"),
+            @ApiResponse(responseCode = "404", description = "File not found"),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
     })
     @GetMapping("/{folder}/{filename:.+}")
-    public ResponseEntity<Resource> serveFile(
+    public ResponseEntity<StreamingResponseBody> serveFile(
             @Parameter(description = "The folder where the file is located (e.g., 'cars', 'selfies')", required = true) @PathVariable String folder,
-            @Parameter(description = "The name of the file including its extension (e.g., 'image.jpg')", required = true) @PathVariable String filename) {
+            @Parameter(description = "The name of the file including its extension (e.g., 'image.jpg')", required = true) @PathVariable String filename,
+            @Parameter(description = "Width in pixels of a resized car image variant (e.g., 320)") @RequestParam(value = "w", required = false) Integer width,
+            @Parameter(description = "Format of a re-encoded car image variant ('jpg' or 'png')") @RequestParam(value = "fmt", required = false) String format,
+            @Parameter(description = "An optional single byte range, e.g. 'bytes=0-1023'") @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            ServletWebRequest webRequest) {
 
         String requesterId = SecurityUtils.getRequesterIdentifier();
-        String key = folder + "/" + filename;
-        log.info("Requester [{}]: Request received to serve file with key '{}'.", requesterId, key);
+        String originalKey = folder + "/" + filename;
+        log.info("Requester [{}]: Request received to serve file with key '{}' (w={}, fmt={}).", requesterId, originalKey, width, format);
+        String key = imageVariantService.resolveVariant(originalKey, width, format);
 
-        Optional<Resource> resourceOptional = fileStorageService.loadAsResource(key);
-
-        if (resourceOptional.isEmpty()) {
+        FileMetadata metadata = fileStorageService.getMetadata(key).orElseThrow(() -> {
             log.warn("File not found for key: {}", key);
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found: " + filename);
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found: " + filename);
+        });
+
+        String eTag = metadata.eTag() != null ? "\"" + metadata.eTag() + "\"" : null;
+        long lastModified = metadata.lastModified() != null ? metadata.lastModified().toEpochMilli() : -1;
+        // Also writes the ETag and Last-Modified headers to the response.
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            log.debug("File with key '{}' not modified; answering with status {}.", key, webRequest.getResponse().getStatus());
+            return null;
         }
 
-        Resource resource = resourceOptional.get();
-        String contentType = determineContentType(filename);
+        String servedFilename = StringUtils.getFilename(key);
+        String contentType = determineContentType(servedFilename);
         log.debug("Determined content type for key '{}' is '{}'.", key, contentType);
 
-        // Set aggressive browser caching instructions for static assets.
-        CacheControl cacheControl = CacheControl
-                .maxAge(365, TimeUnit.DAYS)
-                .noTransform()
-                .mustRevalidate();
+        // Set aggressive browser caching instructions for static assets. When a variant was requested but the
+        // original is served in its place (the variant could not be produced in time), the response must not be
+        // cached under the variant's URL, or clients and CDNs would keep the full-size image as the thumbnail.
+        boolean variantFallback = (width != null || StringUtils.hasText(format)) && key.equals(originalKey);
+        CacheControl cacheControl = variantFallback
+                ? CacheControl.noStore()
+                : CacheControl.maxAge(365, TimeUnit.DAYS).noTransform().mustRevalidate();
 
-        log.info("Successfully serving file with key '{}' and content type '{}'.", key, contentType);
+        long fileLength = metadata.contentLength();
+        HttpRange range = requestedRange(rangeHeader, webRequest.getHeader(HttpHeaders.IF_RANGE), eTag);
+        long start = 0;
+        long length = fileLength;
+        HttpStatus status = HttpStatus.OK;
+        if (range != null) {
+            if (fileLength == 0 || !isSatisfiable(range, fileLength)) {
+                log.warn("Unsatisfiable range '{}' requested for key '{}' of length {}.", rangeHeader, key, fileLength);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength)
+                        .build();
+            }
+            start = range.getRangeStart(fileLength);
+            length = range.getRangeEnd(fileLength) - start + 1;
+            status = HttpStatus.PARTIAL_CONTENT;
+        }
 
-        return ResponseEntity.ok()
+        log.info("Successfully serving {} byte(s) of file with key '{}' and content type '{}'.", length, key, contentType);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
                 .cacheControl(cacheControl)
                 .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+                .contentLength(length)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + servedFilename + "\"");
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + length - 1) + "/" + fileLength);
+        }
+        if (length == 0) {
+            return response.build();
+        }
+        Optional<Path> localFile = Boolean.TRUE.equals(webRequest.getRequest().getAttribute(SENDFILE_SUPPORTED_ATTR))
+                ? fileStorageService.localPath(key) : Optional.empty();
+        if (localFile.isPresent()) {
+            HttpServletRequest request = webRequest.getRequest();
+            request.setAttribute(SENDFILE_FILENAME_ATTR, localFile.get().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + length); // Exclusive
+            log.debug("Handing file with key '{}' to the container's sendfile.", key);
+            return response.build();
+        }
+        long offset = start;
+        long count = length;
+        return response.body(out -> fileStorageService.copyTo(key, offset, count, out));
+    }
+
+    /**
+     * Picks the byte range to serve. Malformed and multi-range requests are served in full, as is a range
+     * whose {@code If-Range} validator no longer matches the file's strong ETag.
+     *
+     * @param rangeHeader   The {@code Range} header, or {@code null}.
+     * @param ifRangeHeader The {@code If-Range} header, or {@code null}.
+     * @param eTag          The quoted ETag of the file, or {@code null}.
+     * @return The single range to serve, or {@code null} to serve the whole file.
+     */
+    private HttpRange requestedRange(String rangeHeader, String ifRangeHeader, String eTag) {
+        if (rangeHeader == null || rangeHeader.isBlank()) return null;
+        if (ifRangeHeader != null && (eTag == null || !ifRangeHeader.trim().equals(eTag))) return null;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed Range header '{}': {}", rangeHeader, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return {@code true} if the range overlaps the file, as required by RFC 9110 for a 206 response.
+     */
+    private boolean isSatisfiable(HttpRange range, long fileLength) {
+        try {
+            return range.getRangeStart(fileLength) < fileLength;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
 
     /**
@@ -1,5 +1,6 @@
 package za.ac.cput.controllers.admin;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,10 +14,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import za.ac.cput.domain.dto.request.BookingRequestDTO;
 import za.ac.cput.domain.dto.request.BookingUpdateDTO;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
 import za.ac.cput.domain.dto.response.BookingResponseDTO;
 import za.ac.cput.domain.entity.Booking;
 import za.ac.cput.domain.entity.Car;
@@ -49,6 +53,7 @@ public class AdminBookingController {
     private final ICarService carService;
     private final IDriverService driverService;
     private final IFileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
     private final String publicApiUrl; // <-- Add this field
 
 
@@ -60,10 +65,12 @@ public class AdminBookingController {
      * @param carService         The car service.
      * @param driverService      The driver service.
      * @param fileStorageService The service for generating image URLs.
+     * @param objectMapper       The JSON mapper used to write the NDJSON export.
      */
     @Autowired
     public AdminBookingController(IBookingService bookingService, IUserService userService,
                                   ICarService carService, IDriverService driverService, IFileStorageService fileStorageService,
+                                  ObjectMapper objectMapper,
                                   @Value("${app.public-api-url}") String publicApiUrl
     ) {
         this.bookingService = bookingService;
@@ -71,6 +78,7 @@ public class AdminBookingController {
         this.carService = carService;
         this.driverService = driverService;
         this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
         this.publicApiUrl = publicApiUrl; // Initialize the public API URL
         log.info("AdminBookingController initialized.");
     }
@@ -95,6 +103,40 @@ public class AdminBookingController {
         return ResponseEntity.ok(BookingMapper.toDtoList(bookings, fileStorageService, publicApiUrl));
     }
 
+    /**
+     * Retrieves one page of bookings using keyset pagination, so deep pages cost the same as the first.
+     *
+     * @param after The {@code nextCursor} of the previous page, or 0 for the first page.
+     * @param size  The page size, capped at {@value KeysetPaging#MAX_PAGE_SIZE}.
+     * @return A ResponseEntity containing the page of BookingResponseDTOs and the cursor of the next page.
+     */
+    @Operation(summary = "Get a page of bookings", description = "Retrieves bookings in ID order using keyset pagination. Pass nextCursor as 'after' to fetch the next page.")
+    @ApiResponses(@ApiResponse(responseCode = "200", description = "Page retrieved successfully"))
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<BookingResponseDTO>> getBookingsPage(
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(defaultValue = "0") int after,
+            @Parameter(description = "Page size (max " + KeysetPaging.MAX_PAGE_SIZE + ")") @RequestParam(defaultValue = "" + KeysetPaging.DEFAULT_PAGE_SIZE) int size) {
+        log.info("Admin request to get bookings page after ID {} (size {}).", after, size);
+        return ResponseEntity.ok(KeysetPaging.page(bookingService::getPage, Booking::getId,
+                page -> BookingMapper.toDtoList(page, fileStorageService, publicApiUrl), after, size));
+    }
+
+    /**
+     * Streams every booking as newline-delimited JSON, reading them in keyset chunks so memory use does not
+     * grow with the table.
+     *
+     * @return A ResponseEntity streaming one BookingResponseDTO per line.
+     */
+    @Operation(summary = "Export all bookings as NDJSON", description = "Streams all bookings as newline-delimited JSON without buffering the full result.")
+    @ApiResponses(@ApiResponse(responseCode = "200", description = "Export stream started"))
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBookings() {
+        log.info("Admin request to export all bookings as NDJSON.");
+        StreamingResponseBody body = KeysetPaging.ndjson(bookingService::getPage, Booking::getId,
+                booking -> BookingMapper.toDto(booking, fileStorageService, publicApiUrl), objectMapper);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Allows an admin to create a new booking on behalf of a user.
      *
@@ -1,12 +1,16 @@
 package za.ac.cput.controllers.admin;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,12 +18,14 @@ import org.springframework.web.multipart.MultipartFile;
 import za.ac.cput.domain.dto.request.CarCreateDTO;
 import za.ac.cput.domain.dto.request.CarUpdateDTO;
 import za.ac.cput.domain.dto.response.CarResponseDTO;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.entity.CarImage;
 import za.ac.cput.domain.mapper.CarMapper;
 import za.ac.cput.exception.BadRequestException;
 import za.ac.cput.service.ICarService;
 import za.ac.cput.service.IFileStorageService;
+import za.ac.cput.service.IImageVariantService;
 
 import java.util.List;
 import java.util.Optional;
@@ -33,6 +39,7 @@ public class AdminCarController {
     private static final Logger log = LoggerFactory.getLogger(AdminCarController.class);
     private final ICarService carService;
     private final IFileStorageService fileStorageService;
+    private final IImageVariantService imageVariantService;
     private final String publicApiUrl; // <-- Add this field
 
     /**
@@ -40,16 +47,19 @@ public class AdminCarController {
      *
      * @param carService         The service for car business logic.
      * @param fileStorageService The service for handling file storage operations.
+     * @param imageVariantService The service that removes resized variants along with a deleted image.
      * @param publicApiUrl       The public base URL of the API, injected from application properties.
      */
     @Autowired
     public AdminCarController(
             ICarService carService,
             IFileStorageService fileStorageService,
+            IImageVariantService imageVariantService,
             @Value("${app.public-api-url}") String publicApiUrl // <-- Inject the property
     ) {
         this.carService = carService;
         this.fileStorageService = fileStorageService;
+        this.imageVariantService = imageVariantService;
         this.publicApiUrl = publicApiUrl; // <-- Initialize it
         log.info("AdminCarController initialized.");
     }
@@ -75,6 +85,18 @@ public class AdminCarController {
         return ResponseEntity.ok(CarMapper.toDtoList(cars, fileStorageService, publicApiUrl));
     }
 
+    @Operation(summary = "Get a page of cars (Admin)", description = "Retrieves cars sorted by id, year, make or priceGroup. Pass nextCursor as 'after' to fetch the next page; set includeTotal for the total count.")
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<CarResponseDTO>> getCarsPageForAdmin(
+            @Parameter(description = "Only list available cars") @RequestParam(defaultValue = "false") boolean availableOnly,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) Integer after,
+            @Parameter(description = "Include the total number of cars") @RequestParam(defaultValue = "false") boolean includeTotal,
+            @ParameterObject @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+        log.info("Admin request to get cars page (after: {}, pageable: {}).", after, pageable);
+        return ResponseEntity.ok(CarMapper.toDtoPage(
+                carService.getPage(availableOnly, pageable, after, includeTotal), fileStorageService, publicApiUrl));
+    }
+
     @Operation(summary = "Get car by UUID (Admin)")
     @GetMapping("/{carUuid}")
     public ResponseEntity<CarResponseDTO> getCarByUuidAdmin(@PathVariable UUID carUuid) {
@@ -130,6 +152,7 @@ public class AdminCarController {
             existingCar.getImages().remove(image);
             carService.update(existingCar);
             fileStorageService.delete(keyToDelete);
+            imageVariantService.deleteVariants(keyToDelete);
             log.info("Successfully deleted image UUID {} and its file with key '{}'", imageUuid, keyToDelete);
             return ResponseEntity.noContent().build();
         } else {
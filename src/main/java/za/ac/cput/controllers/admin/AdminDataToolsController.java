@@ -49,12 +49,11 @@ public class AdminDataToolsController {
     }
 
     /**
-     * Retrieves statistics about the file storage system.
-     * Note: This operation can be slow on cloud storage backends.
+     * Retrieves statistics about the file storage system from the storage usage ledger.
      *
      * @return A map containing file counts and total size.
      */
-    @Operation(summary = "Get file storage statistics", description = "Retrieves statistics about file storage, including total file count and size. WARNING: This can be a slow operation on cloud storage.")
+    @Operation(summary = "Get file storage statistics", description = "Retrieves statistics about file storage, including total file count and size, from the storage usage ledger. The ledger is updated on every upload and delete and recounted periodically.")
     @ApiResponses(@ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"))
     @GetMapping("/files/stats")
     public ResponseEntity<Map<String, Object>> getFileSystemStats() {
@@ -64,12 +63,11 @@ public class AdminDataToolsController {
     }
 
     /**
-     * Retrieves storage usage statistics per folder for chart visualization.
-     * Note: This operation can be slow on cloud storage backends.
+     * Retrieves storage usage statistics per folder for chart visualization from the storage usage ledger.
      *
      * @return A map of folder names to their total size in bytes.
      */
-    @Operation(summary = "Get storage usage per folder", description = "Retrieves storage usage statistics per folder for chart visualization. WARNING: This can be a slow operation on cloud storage.")
+    @Operation(summary = "Get storage usage per folder", description = "Retrieves storage usage statistics per folder for chart visualization, from the storage usage ledger.")
     @ApiResponses(@ApiResponse(responseCode = "200", description = "Storage usage data retrieved successfully"))
     @GetMapping("/files/usage-chart")
     public ResponseEntity<Map<String, Long>> getStorageUsageChartData() {
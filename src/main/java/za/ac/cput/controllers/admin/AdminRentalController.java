@@ -1,6 +1,8 @@
 package za.ac.cput.controllers.admin;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,10 +14,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import za.ac.cput.domain.dto.request.RentalRequestDTO;
 import za.ac.cput.domain.dto.request.RentalUpdateDTO;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
 import za.ac.cput.domain.dto.response.RentalResponseDTO;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.entity.Driver;
@@ -47,6 +52,7 @@ public class AdminRentalController {
     private final ICarService carService;
     private final IDriverService driverService;
     private final IFileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
     private final String publicApiUrl;
 
     /**
@@ -57,16 +63,19 @@ public class AdminRentalController {
      * @param carService         The service for car lookups.
      * @param driverService      The service for driver lookups.
      * @param fileStorageService The service for generating image URLs.
+     * @param objectMapper       The JSON mapper used to write the NDJSON export.
      */
     @Autowired
     public AdminRentalController(IRentalService rentalService, IUserService userService,
                                  ICarService carService, IDriverService driverService, IFileStorageService fileStorageService,
+                                 ObjectMapper objectMapper,
                                  @Value("${app.public-api-url}") String publicApiUrl) {
         this.rentalService = rentalService;
         this.userService = userService;
         this.carService = carService;
         this.driverService = driverService;
         this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
         this.publicApiUrl = publicApiUrl;
         log.info("AdminRentalController initialized.");
     }
@@ -117,6 +126,40 @@ public class AdminRentalController {
         return ResponseEntity.ok(RentalMapper.toDtoList(rentals, fileStorageService, publicApiUrl));
     }
 
+    /**
+     * Retrieves one page of rentals using keyset pagination, so deep pages cost the same as the first.
+     *
+     * @param after The {@code nextCursor} of the previous page, or 0 for the first page.
+     * @param size  The page size, capped at {@value KeysetPaging#MAX_PAGE_SIZE}.
+     * @return A ResponseEntity containing the page of RentalResponseDTOs and the cursor of the next page.
+     */
+    @Operation(summary = "Get a page of rentals", description = "Retrieves rentals in ID order using keyset pagination. Pass nextCursor as 'after' to fetch the next page.")
+    @ApiResponses(@ApiResponse(responseCode = "200", description = "Page retrieved successfully"))
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<RentalResponseDTO>> getRentalsPage(
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(defaultValue = "0") int after,
+            @Parameter(description = "Page size (max " + KeysetPaging.MAX_PAGE_SIZE + ")") @RequestParam(defaultValue = "" + KeysetPaging.DEFAULT_PAGE_SIZE) int size) {
+        log.info("Admin [{}]: Request to get rentals page after ID {} (size {}).", SecurityUtils.getRequesterIdentifier(), after, size);
+        return ResponseEntity.ok(KeysetPaging.page(rentalService::getPage, Rental::getId,
+                page -> RentalMapper.toDtoList(page, fileStorageService, publicApiUrl), after, size));
+    }
+
+    /**
+     * Streams every rental as newline-delimited JSON, reading them in keyset chunks so memory use does not
+     * grow with the table.
+     *
+     * @return A ResponseEntity streaming one RentalResponseDTO per line.
+     */
+    @Operation(summary = "Export all rentals as NDJSON", description = "Streams all rentals as newline-delimited JSON without buffering the full result.")
+    @ApiResponses(@ApiResponse(responseCode = "200", description = "Export stream started"))
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRentals() {
+        log.info("Admin [{}]: Request to export all rentals as NDJSON.", SecurityUtils.getRequesterIdentifier());
+        StreamingResponseBody body = KeysetPaging.ndjson(rentalService::getPage, Rental::getId,
+                rental -> RentalMapper.toDto(rental, fileStorageService, publicApiUrl), objectMapper);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Retrieves all currently active rentals.
      *
@@ -0,0 +1,88 @@
+package za.ac.cput.controllers.admin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * KeysetPaging.java
+ * The keyset-paged listing and NDJSON export shared by the admin controllers. Both walk a table in ID
+ * order through a service method that returns the rows after a given ID, so deep pages cost the same as
+ * the first and an export never holds more than one chunk in memory.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+final class KeysetPaging {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int EXPORT_CHUNK_SIZE = 500;
+
+    /**
+     * Reads up to {@code limit} rows whose ID is greater than {@code lastSeenId}, in ascending ID order,
+     * e.g. {@code IRentalService::getPage}.
+     */
+    @FunctionalInterface
+    interface PageReader<E> {
+        List<E> read(int lastSeenId, int limit);
+    }
+
+    private KeysetPaging() {
+    }
+
+    /**
+     * Reads one page after the given cursor. One row more than the page size is read to tell whether
+     * another page exists.
+     *
+     * @param reader The service method that reads rows after an ID.
+     * @param idOf   The ID of a row, used as the cursor of the next page.
+     * @param toDtos Maps the rows of the page to their DTOs.
+     * @param after  The {@code nextCursor} of the previous page, or 0 for the first page.
+     * @param size   The requested page size, clamped to 1..{@value #MAX_PAGE_SIZE}.
+     * @return The page of DTOs and the cursor of the next page.
+     */
+    static <E, D> CursorPageDTO<D> page(PageReader<E> reader, ToIntFunction<E> idOf, Function<List<E>, List<D>> toDtos,
+                                        int after, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<E> rows = reader.read(after, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<E> page = hasMore ? rows.subList(0, pageSize) : rows;
+        return CursorPageDTO.<D>builder()
+                .items(toDtos.apply(page))
+                .nextCursor(hasMore ? idOf.applyAsInt(page.get(page.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Streams every row as newline-delimited JSON. Rows are read in chunks of {@value #EXPORT_CHUNK_SIZE}
+     * and each chunk is written and flushed before the next is read.
+     *
+     * @param reader       The service method that reads rows after an ID.
+     * @param idOf         The ID of a row, used as the cursor of the next chunk.
+     * @param toDto        Maps a row to the DTO written on its line.
+     * @param objectMapper The JSON mapper used to write each line.
+     * @return A response body writing one DTO per line.
+     */
+    static <E> StreamingResponseBody ndjson(PageReader<E> reader, ToIntFunction<E> idOf, Function<E, ?> toDto,
+                                            ObjectMapper objectMapper) {
+        return out -> {
+            int lastSeenId = 0;
+            List<E> chunk;
+            do {
+                chunk = reader.read(lastSeenId, EXPORT_CHUNK_SIZE);
+                for (E row : chunk) {
+                    out.write(objectMapper.writeValueAsBytes(toDto.apply(row)));
+                    out.write('\n');
+                    lastSeenId = idOf.applyAsInt(row);
+                }
+                out.flush();
+            } while (chunk.size() == EXPORT_CHUNK_SIZE);
+        };
+    }
+}
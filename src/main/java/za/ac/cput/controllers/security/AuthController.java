@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import za.ac.cput.api.response.ApiResponseWrapper;
 import za.ac.cput.domain.dto.request.LoginDto;
@@ -26,7 +27,9 @@ import za.ac.cput.domain.dto.response.AuthResponseDto;
 import za.ac.cput.domain.dto.response.TokenRefreshResponseDto;
 import za.ac.cput.domain.entity.security.RoleName;
 import za.ac.cput.domain.entity.security.User;
+import za.ac.cput.exception.ResourceNotFoundException;
 import za.ac.cput.service.IAuthService;
+import za.ac.cput.service.IUserService;
 import za.ac.cput.service.impl.AuthServiceImpl;
 import za.ac.cput.utils.SecurityUtils;
 
@@ -44,13 +47,15 @@ public class AuthController {
 
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
     private final IAuthService authService;
+    private final IUserService userService;
 
     @Value("${jwt.expiration}")
     private Long accessTokenExpirationMs;
 
     @Autowired
-    public AuthController(IAuthService authService) {
+    public AuthController(IAuthService authService, IUserService userService) {
         this.authService = authService;
+        this.userService = userService;
         log.info("AuthController initialized.");
     }
 
@@ -122,25 +127,47 @@ public class AuthController {
         return ResponseEntity.ok(responseDto);
     }
 
-    @Operation(summary = "Log out the current user", description = "Invalidates the user's session and clears authentication cookies.", security = @SecurityRequirement(name = "bearerAuth"))
+    @Operation(summary = "Log out the current user", description = "Signs out the current device, or every device of the user when allDevices is true, and clears authentication cookies.", security = @SecurityRequirement(name = "bearerAuth"))
     @ApiResponses(value = @ApiResponse(responseCode = "200", description = "Logout successful"))
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponseWrapper<String>> logout(HttpServletResponse httpServletResponse) {
+    public ResponseEntity<ApiResponseWrapper<String>> logout(
+            @Parameter(description = "The refresh token cookie identifying the device to sign out.", in = ParameterIn.COOKIE, name = "${app.security.refresh-cookie.name}")
+            @CookieValue(name = "${app.security.refresh-cookie.name}", required = false) String refreshTokenFromCookie,
+            @Parameter(description = "Sign out every device of the user instead of only this one.")
+            @RequestParam(defaultValue = "false") boolean allDevices,
+            HttpServletResponse httpServletResponse) {
         String requesterId = SecurityUtils.getRequesterIdentifier();
         log.info("Requester [{}]: Attempting to logout.", requesterId);
         String logoutMessage;
 
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (principal instanceof User user) {
-            authService.logoutUser(user.getId(), httpServletResponse);
+            authService.logoutUser(user.getId(), allDevices ? null : refreshTokenFromCookie, httpServletResponse);
+            logoutMessage = "Logout successful.";
+        } else if (principal instanceof UserDetails userDetails
+                && findUser(userDetails.getUsername()) instanceof User claimedUser) { // Principal built from token claims
+            authService.logoutUser(claimedUser.getId(), allDevices ? null : refreshTokenFromCookie, httpServletResponse);
             logoutMessage = "Logout successful.";
-        } else {
+        } else { // No principal, or the account behind the token claims no longer exists
             authService.clearAuthCookies(httpServletResponse);
             logoutMessage = "No active user session found. Cookies cleared if any.";
         }
         return ResponseEntity.ok(new ApiResponseWrapper<>(logoutMessage));
     }
 
+    /**
+     * Looks up the account named by the claims of an access token, which may have been deleted since the token was issued.
+     *
+     * @return The user, or {@code null} if no active account has that email.
+     */
+    private User findUser(String email) {
+        try {
+            return userService.read(email);
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
     // --- DTO Records for Password Reset ---
     public record ForgotPasswordRequest(
             @Schema(description = "The email address of the user who forgot their password.", example = "user@example.com") String email) {
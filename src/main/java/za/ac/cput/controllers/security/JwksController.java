@@ -0,0 +1,48 @@
+package za.ac.cput.controllers.security;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import za.ac.cput.security.JwtKeyRing;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * JwksController.java
+ * Publishes the public keys of the JWT key ring as a JSON Web Key Set, so gateways and other
+ * services can verify access tokens locally. The document is served unwrapped, as clients expect.
+ *
+ * @author Peter Buckingham (220165289)
+ * @version 1.0
+ */
+@RestController
+@Tag(name = "JWKS", description = "Public keys for verifying access tokens.")
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    public JwksController(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    /**
+     * Returns the JSON Web Key Set of every key that may have signed a still-valid token.
+     * The set is empty while tokens are signed with the shared HS512 secret.
+     *
+     * @return The key set, cacheable for five minutes.
+     */
+    @Operation(summary = "Get the JSON Web Key Set", description = "Public keys, identified by kid, that verify access tokens issued by this application.")
+    @ApiResponse(responseCode = "200", description = "Key set returned")
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(keyRing.toJwks());
+    }
+}
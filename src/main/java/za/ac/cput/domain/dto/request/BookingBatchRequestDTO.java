@@ -0,0 +1,21 @@
+package za.ac.cput.domain.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingBatchRequestDTO {
+    @NotEmpty(message = "A batch must contain at least one booking")
+    @Size(max = 100, message = "A batch cannot contain more than 100 bookings")
+    private List<@Valid BookingRequestDTO> bookings;
+}
@@ -0,0 +1,36 @@
+package za.ac.cput.domain.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import za.ac.cput.domain.enums.PriceGroup;
+
+import java.time.LocalDate;
+
+/**
+ * CarSearchRequestDTO.java
+ * The criteria of a public car search, bound from query parameters. Every criterion is optional and
+ * all given criteria must match. Text criteria are compared case-insensitively; the year range is
+ * inclusive; when both dates are given, cars booked on any day of the range are excluded.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarSearchRequestDTO {
+    private String category;
+    private PriceGroup priceGroup;
+    private String make;
+    private String model;
+    private Integer yearFrom;
+    private Integer yearTo;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+}
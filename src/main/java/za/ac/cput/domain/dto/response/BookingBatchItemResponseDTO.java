@@ -0,0 +1,17 @@
+package za.ac.cput.domain.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingBatchItemResponseDTO {
+    private int index; // Position of the item in the submitted batch
+    private boolean success;
+    private BookingResponseDTO booking; // Set when the item was created
+    private String error; // Set when the item was rejected
+}
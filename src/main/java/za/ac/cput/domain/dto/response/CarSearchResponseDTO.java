@@ -0,0 +1,30 @@
+package za.ac.cput.domain.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CarSearchResponseDTO.java
+ * One page of a public car search: the matching cars of the page and, per facet ({@code category},
+ * {@code priceGroup}, {@code make}, {@code model}, {@code year}), how many of all matches carry each value.
+ * Pass {@code nextCursor} back as the {@code after} parameter to fetch the following page.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarSearchResponseDTO {
+    private List<CarResponseDTO> cars;
+    private Map<String, Map<String, Integer>> facets;
+    private Integer nextCursor;
+    private boolean hasMore;
+    private long totalItems;
+}
@@ -0,0 +1,30 @@
+package za.ac.cput.domain.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * CursorPageDTO.java
+ * One page of a keyset-paginated listing. Pass {@code nextCursor} back as the {@code after}
+ * parameter to fetch the following page; it is {@code null} once the listing is exhausted.
+ * {@code totalItems} is only filled in (and serialized) when the client asked for it, as it costs a count query.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private Integer nextCursor;
+    private boolean hasMore;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalItems;
+}
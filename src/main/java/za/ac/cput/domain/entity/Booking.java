@@ -11,6 +11,10 @@ import java.util.UUID;
 
 @Getter
 @Entity
+// Car images and user roles are collections, so they are left out of the graph (a join fetch would repeat
+// them for every row sharing the car or user) and are batch-loaded instead.
+@NamedEntityGraph(name = "Booking.withDetails",
+        attributeNodes = {@NamedAttributeNode("user"), @NamedAttributeNode("car"), @NamedAttributeNode("driver")})
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
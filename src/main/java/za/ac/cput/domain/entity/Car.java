@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import za.ac.cput.domain.enums.PriceGroup;
 
 import java.time.LocalDateTime;
@@ -23,6 +24,7 @@ import java.util.UUID;
 @Getter
 @NoArgsConstructor
 @Entity
+@NamedEntityGraph(name = "Car.withImages", attributeNodes = @NamedAttributeNode("images"))
 public class Car {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -51,12 +53,15 @@ public class Car {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Lazy: read paths that need the images declare the "Car.withImages" graph; anything else
+    // initializes them in batches instead of one select per car.
     @OneToMany(
             mappedBy = "car",
             cascade = CascadeType.ALL,
             orphanRemoval = true,
-            fetch = FetchType.EAGER
+            fetch = FetchType.LAZY
     )
+    @BatchSize(size = 100)
     private List<CarImage> images = new ArrayList<>();
 
     private Car(Builder builder) {
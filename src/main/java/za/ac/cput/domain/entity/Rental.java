@@ -22,6 +22,10 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+// Car images and user roles are collections, so they are left out of the graph (a join fetch would repeat
+// them for every row sharing the car or user) and are batch-loaded instead.
+@NamedEntityGraph(name = "Rental.withDetails",
+        attributeNodes = {@NamedAttributeNode("user"), @NamedAttributeNode("car"), @NamedAttributeNode("driver")})
 public class Rental {
 
     @Id
@@ -0,0 +1,52 @@
+package za.ac.cput.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * StorageUsage.java
+ * One row of the storage usage ledger: the number and total size of the files stored under a top-level
+ * folder (e.g. "cars", "selfies", "variants"). Rows are adjusted on every save and delete and overwritten
+ * by the periodic reconciliation, so reading usage never has to walk the storage itself.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Entity
+@Table(name = "storage_usage")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageUsage {
+
+    /**
+     * The top-level folder the row totals, i.e. the key prefix before the first '/'.
+     */
+    @Id
+    @Column(length = 64)
+    private String folder;
+
+    /**
+     * The number of files stored under the folder.
+     */
+    @Column(name = "file_count", nullable = false)
+    private long fileCount;
+
+    /**
+     * The total size of the files under the folder, in bytes.
+     */
+    @Column(name = "total_bytes", nullable = false)
+    private long totalBytes;
+
+    /**
+     * When the row was last recounted from storage, or {@code null} if it has only been adjusted incrementally.
+     */
+    @Column(name = "reconciled_at")
+    private Instant reconciledAt;
+}
@@ -6,32 +6,53 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_refresh_token_expiry_date", columnList = "expiry_date"), // Used by the expired-token purge
+        @Index(name = "idx_refresh_token_family_id", columnList = "family_id"), // Used to revoke a family in bulk
+        @Index(name = "idx_refresh_token_previous_token_hash", columnList = "previous_token_hash") // Used by reuse detection
+})
 public class RefreshToken {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
 
-    @OneToOne // Or ManyToOne if a user can have multiple active refresh tokens (e.g., from different devices)
-    // For simplicity, OneToOne assumes one active refresh token per user at a time.
-    // If ManyToOne, then delete old ones or have a mechanism to manage them.
+    // A user has one row per signed-in device, so logging in on one device leaves the others signed in.
+    // The unique key the former one-to-one mapping left on user_id is dropped by V2__RefreshTokenPerDevice.
+    @ManyToOne
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
-    @Column(nullable = false, unique = true)
+    // Every token rotated from the same login shares the family id; revoking a device deletes its family.
+    @Column(name = "family_id", nullable = false, updatable = false)
+    private UUID familyId;
+
+    // Only the SHA-256 hash (hex) of the token is stored, so a leaked table cannot be replayed.
+    // The raw token column of older databases is dropped by V1__HashRefreshTokens.
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // The hash this token replaced on its last rotation. Seeing it presented again means the family was stolen.
+    @Column(name = "previous_token_hash", length = 64)
+    private String previousTokenHash;
+
+    // The raw token; only set on a freshly issued or rotated instance, so it can be sent to the client.
+    @Transient
     private String token;
 
     @Column(nullable = false)
     private Instant expiryDate;
 
-    public RefreshToken(User user, String token, Instant expiryDate) {
+    public RefreshToken(User user, UUID familyId, String tokenHash, Instant expiryDate) {
         this.user = user;
-        this.token = token;
+        this.familyId = familyId;
+        this.tokenHash = tokenHash;
         this.expiryDate = expiryDate;
     }
-}
\ No newline at end of file
+}
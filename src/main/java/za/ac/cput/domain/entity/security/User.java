@@ -3,6 +3,7 @@ package za.ac.cput.domain.entity.security;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.BatchSize;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
@@ -34,6 +35,7 @@ import java.util.stream.Collectors;
 @NoArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Table(name = "user")
+@NamedEntityGraph(name = "User.withRoles", attributeNodes = @NamedAttributeNode("roles"))
 public class User implements Serializable, UserDetails {
     private static final Logger log = LoggerFactory.getLogger(User.class);
 
@@ -55,7 +57,10 @@ public class User implements Serializable, UserDetails {
     @Column(nullable = false)
     String password;
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.MERGE})
+    // Lazy: user lookups declare the "User.withRoles" graph; users reached through bookings and
+    // rentals initialize their roles in batches instead of one select per user.
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.MERGE})
+    @BatchSize(size = 100)
     List<Role> roles;
 
     String googleId;
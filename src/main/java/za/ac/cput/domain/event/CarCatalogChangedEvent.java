@@ -0,0 +1,17 @@
+package za.ac.cput.domain.event;
+
+import java.util.UUID;
+
+/**
+ * CarCatalogChangedEvent.java
+ * Published whenever a change to a car is visible in the public catalog: a car is created, updated,
+ * soft-deleted, gains images, or its availability flips because a rental starts or ends.
+ * Listeners such as the catalog response cache drop what they derived from the old state.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ *
+ * @param carUuid The UUID of the changed car, or {@code null} if unknown.
+ */
+public record CarCatalogChangedEvent(UUID carUuid) {
+}
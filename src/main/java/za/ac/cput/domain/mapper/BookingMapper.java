@@ -2,6 +2,7 @@ package za.ac.cput.domain.mapper;
 
 import za.ac.cput.domain.dto.request.BookingRequestDTO;
 import za.ac.cput.domain.dto.request.BookingUpdateDTO;
+import za.ac.cput.domain.dto.response.BookingBatchItemResponseDTO;
 import za.ac.cput.domain.dto.response.BookingResponseDTO;
 import za.ac.cput.domain.dto.response.CarResponseDTO;
 import za.ac.cput.domain.dto.response.UserResponseDTO;
@@ -10,8 +11,10 @@ import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.entity.Driver;
 import za.ac.cput.domain.entity.security.User;
 import za.ac.cput.domain.enums.BookingStatus;
+import za.ac.cput.service.IBookingService;
 import za.ac.cput.service.IFileStorageService;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -63,8 +66,32 @@ public class BookingMapper {
     public static List<BookingResponseDTO> toDtoList(List<Booking> bookings, IFileStorageService fileStorageService, String publicApiUrl) {
         if (bookings == null) return Collections.emptyList();
 
-        return bookings.stream()
-                .map(booking -> toDto(booking, fileStorageService, publicApiUrl))
+        List<BookingResponseDTO> dtos = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            dtos.add(toDto(booking, fileStorageService, publicApiUrl));
+        }
+        return dtos;
+    }
+
+    /**
+     * Converts the per-item results of a batch booking to their DTO representation.
+     *
+     * @param results            The results returned by {@link IBookingService#createAll(List)}.
+     * @param fileStorageService The service for file operations.
+     * @param publicApiUrl       The base public URL of the API.
+     * @return A list of BookingBatchItemResponseDTOs, in batch order.
+     */
+    public static List<BookingBatchItemResponseDTO> toBatchItemDtoList(List<IBookingService.BatchItemResult> results,
+                                                                       IFileStorageService fileStorageService, String publicApiUrl) {
+        if (results == null) return Collections.emptyList();
+
+        return results.stream()
+                .map(result -> BookingBatchItemResponseDTO.builder()
+                        .index(result.index())
+                        .success(result.isSuccess())
+                        .booking(toDto(result.booking(), fileStorageService, publicApiUrl))
+                        .error(result.error())
+                        .build())
                 .collect(Collectors.toList());
     }
 
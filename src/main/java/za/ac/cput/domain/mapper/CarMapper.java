@@ -3,12 +3,14 @@ package za.ac.cput.domain.mapper;
 import za.ac.cput.domain.dto.request.CarCreateDTO;
 import za.ac.cput.domain.dto.request.CarUpdateDTO;
 import za.ac.cput.domain.dto.response.CarResponseDTO;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
 import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.entity.CarImage;
 import za.ac.cput.service.IFileStorageService;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * CarMapper.java
@@ -20,6 +22,8 @@ import java.util.stream.Collectors;
  */
 public class CarMapper {
 
+    private static final String FILES_PATH = "/api/v1/files/";
+
     /**
      * Converts a Car entity to a CarResponseDTO, including generating fully qualified URLs for its images.
      *
@@ -33,17 +37,8 @@ public class CarMapper {
             return null;
         }
 
-        List<String> imageUrls = Collections.emptyList();
-        // The publicApiUrl must be provided to generate image URLs.
-        if (publicApiUrl != null && !publicApiUrl.isBlank() && car.getImages() != null && !car.getImages().isEmpty()) {
-            imageUrls = car.getImages().stream()
-                    .map(image -> {
-                        String key = image.getImageType() + "/" + image.getFileName();
-                        // THE FIX: Construct a URL to our own API proxy, not MinIO directly.
-                        return publicApiUrl + "/api/v1/files/" + key;
-                    })
-                    .collect(Collectors.toList());
-        }
+        // URLs point at our own API proxy, not MinIO directly.
+        List<String> imageUrls = imageUrls(car.getImages(), publicApiUrl);
 
         return CarResponseDTO.builder()
                 .uuid(car.getUuid())
@@ -59,6 +54,25 @@ public class CarMapper {
                 .build();
     }
 
+    /**
+     * Builds the public URLs of a car's images through the application's file proxy, in image order,
+     * with one string per image and no intermediate collections.
+     *
+     * @return An immutable list of URLs; empty if there are no images or no public API URL.
+     */
+    private static List<String> imageUrls(List<CarImage> images, String publicApiUrl) {
+        if (publicApiUrl == null || publicApiUrl.isBlank() || images == null || images.isEmpty()) {
+            return List.of();
+        }
+        String prefix = publicApiUrl + FILES_PATH;
+        String[] urls = new String[images.size()];
+        for (int i = 0; i < urls.length; i++) {
+            CarImage image = images.get(i);
+            urls[i] = prefix + image.getImageType() + "/" + image.getFileName();
+        }
+        return List.of(urls);
+    }
+
     /**
      * Converts a list of Car entities to a list of CarResponseDTOs.
      *
@@ -71,9 +85,28 @@ public class CarMapper {
         if (cars == null) {
             return Collections.emptyList();
         }
-        return cars.stream()
-                .map(car -> toDto(car, fileStorageService, publicApiUrl))
-                .collect(Collectors.toList());
+        List<CarResponseDTO> dtos = new ArrayList<>(cars.size());
+        for (Car car : cars) {
+            dtos.add(toDto(car, fileStorageService, publicApiUrl));
+        }
+        return dtos;
+    }
+
+    /**
+     * Converts a page of Car entities to a page of CarResponseDTOs, keeping its cursor and total.
+     *
+     * @param page               The page of Car entities.
+     * @param fileStorageService The service for file operations.
+     * @param publicApiUrl       The base public URL of the API.
+     * @return The page of CarResponseDTOs.
+     */
+    public static CursorPageDTO<CarResponseDTO> toDtoPage(CursorPageDTO<Car> page, IFileStorageService fileStorageService, String publicApiUrl) {
+        return CursorPageDTO.<CarResponseDTO>builder()
+                .items(toDtoList(page.getItems(), fileStorageService, publicApiUrl))
+                .nextCursor(page.getNextCursor())
+                .hasMore(page.isHasMore())
+                .totalItems(page.getTotalItems())
+                .build();
     }
 
     /**
@@ -13,9 +13,9 @@ import za.ac.cput.domain.entity.security.User;
 import za.ac.cput.domain.enums.RentalStatus;
 import za.ac.cput.service.IFileStorageService;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class RentalMapper {
 
@@ -64,10 +64,11 @@ public class RentalMapper {
     public static List<RentalResponseDTO> toDtoList(List<Rental> rentals, IFileStorageService fileStorageService, String publicApiUrl) {
         if (rentals == null) return Collections.emptyList();
 
-        return rentals.stream()
-                // Pass the necessary parameters down for each conversion
-                .map(rental -> toDto(rental, fileStorageService, publicApiUrl))
-                .collect(Collectors.toList());
+        List<RentalResponseDTO> dtos = new ArrayList<>(rentals.size());
+        for (Rental rental : rentals) {
+            dtos.add(toDto(rental, fileStorageService, publicApiUrl));
+        }
+        return dtos;
     }
 
     /**
@@ -9,6 +9,7 @@ import za.ac.cput.domain.entity.security.User;
 import za.ac.cput.exception.BadRequestException;
 import za.ac.cput.service.IFileStorageService;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -67,9 +68,11 @@ public class UserMapper {
         if (users == null) {
             return Collections.emptyList();
         }
-        return users.stream()
-                .map(user -> toDto(user, fileStorageService, publicApiUrl))
-                .collect(Collectors.toList());
+        List<UserResponseDTO> dtos = new ArrayList<>(users.size());
+        for (User user : users) {
+            dtos.add(toDto(user, fileStorageService, publicApiUrl));
+        }
+        return dtos;
     }
 
     /**
@@ -0,0 +1,17 @@
+package za.ac.cput.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a request cannot be served right now because a bounded resource is saturated.
+ * The client should retry after a short delay.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
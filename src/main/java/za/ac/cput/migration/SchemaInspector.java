@@ -0,0 +1,104 @@
+package za.ac.cput.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SchemaInspector.java
+ * Reads the current schema through JDBC metadata, so migrations can tell an existing database that needs
+ * upgrading from a fresh one Hibernate has not created yet. Names are matched case-insensitively, as MySQL
+ * reports them in lower case and H2 in upper case.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+final class SchemaInspector {
+
+    private final Connection connection;
+    private final DatabaseMetaData metaData;
+
+    SchemaInspector(Connection connection) throws SQLException {
+        this.connection = connection;
+        this.metaData = connection.getMetaData();
+    }
+
+    boolean tableExists(String table) throws SQLException {
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), null, new String[]{"TABLE"})) {
+            while (tables.next()) {
+                if (table.equalsIgnoreCase(tables.getString("TABLE_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    boolean columnExists(String table, String column) throws SQLException {
+        try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), actualName(table), null)) {
+            while (columns.next()) {
+                if (column.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the unique constraints of a table that cover exactly the given column. On MySQL these are the
+     * unique indexes, dropped with {@link #dropUniqueConstraint(String, String)}.
+     */
+    List<String> uniqueConstraintsOn(String table, String column) throws SQLException {
+        String sql = "SELECT tc.CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc "
+                + "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE k ON k.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA "
+                + "AND k.CONSTRAINT_NAME = tc.CONSTRAINT_NAME AND k.TABLE_NAME = tc.TABLE_NAME "
+                + "WHERE tc.CONSTRAINT_TYPE = 'UNIQUE' AND tc.TABLE_SCHEMA = ? AND LOWER(tc.TABLE_NAME) = ? "
+                + "GROUP BY tc.CONSTRAINT_NAME HAVING COUNT(*) = 1 AND MAX(LOWER(k.COLUMN_NAME)) = ?";
+        List<String> constraints = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, isMySql() ? connection.getCatalog() : connection.getSchema());
+            statement.setString(2, table.toLowerCase(Locale.ROOT));
+            statement.setString(3, column.toLowerCase(Locale.ROOT));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    constraints.add(result.getString(1));
+                }
+            }
+        }
+        return constraints;
+    }
+
+    void dropUniqueConstraint(String table, String constraint) throws SQLException {
+        execute(isMySql()
+                ? "ALTER TABLE " + table + " DROP INDEX `" + constraint + "`"
+                : "ALTER TABLE " + table + " DROP CONSTRAINT \"" + constraint + "\"");
+    }
+
+    boolean indexExists(String table, String index) throws SQLException {
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), actualName(table), false, false)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isMySql() throws SQLException {
+        return metaData.getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+    }
+
+    void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private String actualName(String table) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) return table.toUpperCase(Locale.ROOT);
+        if (metaData.storesLowerCaseIdentifiers()) return table.toLowerCase(Locale.ROOT);
+        return table;
+    }
+}
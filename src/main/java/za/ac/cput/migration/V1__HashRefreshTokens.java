@@ -0,0 +1,30 @@
+package za.ac.cput.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * V1__HashRefreshTokens.java
+ * Refresh tokens are stored as SHA-256 hashes in {@code token_hash}. Databases created before that still have
+ * the raw {@code token} column, NOT NULL and UNIQUE, which Hibernate's {@code ddl-auto=update} never drops, so
+ * every new token insert would fail. This migration deletes the old tokens, whose raw values must not be kept,
+ * and drops the column together with its unique index.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+public class V1__HashRefreshTokens extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        SchemaInspector schema = new SchemaInspector(context.getConnection());
+        if (!schema.tableExists("refresh_token") || !schema.columnExists("refresh_token", "token")) {
+            return;
+        }
+        schema.execute("DELETE FROM refresh_token");
+        for (String constraint : schema.uniqueConstraintsOn("refresh_token", "token")) {
+            schema.dropUniqueConstraint("refresh_token", constraint);
+        }
+        schema.execute("ALTER TABLE refresh_token DROP COLUMN token");
+    }
+}
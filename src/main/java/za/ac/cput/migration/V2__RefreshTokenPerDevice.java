@@ -0,0 +1,38 @@
+package za.ac.cput.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.util.List;
+
+/**
+ * V2__RefreshTokenPerDevice.java
+ * A user now has one refresh token family per signed-in device. Databases created while a user had a single
+ * token still carry the unique constraint the former one-to-one mapping put on {@code user_id}, which would
+ * reject a second device's login, and Hibernate's {@code ddl-auto=update} never drops it. This migration replaces
+ * it with a plain index (MySQL needs one for the user foreign key) and, where the {@code family_id} column does not
+ * exist yet, deletes the existing tokens: they belong to no family, and the column is added as NOT NULL.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+public class V2__RefreshTokenPerDevice extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        SchemaInspector schema = new SchemaInspector(context.getConnection());
+        if (!schema.tableExists("refresh_token")) {
+            return;
+        }
+        if (!schema.columnExists("refresh_token", "family_id")) {
+            schema.execute("DELETE FROM refresh_token");
+        }
+        List<String> uniqueOnUser = schema.uniqueConstraintsOn("refresh_token", "user_id");
+        if (!uniqueOnUser.isEmpty() && !schema.indexExists("refresh_token", "idx_refresh_token_user_id")) {
+            schema.execute("CREATE INDEX idx_refresh_token_user_id ON refresh_token (user_id)");
+        }
+        for (String constraint : uniqueOnUser) {
+            schema.dropUniqueConstraint("refresh_token", constraint);
+        }
+    }
+}
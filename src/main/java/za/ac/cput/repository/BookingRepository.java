@@ -1,5 +1,7 @@
 package za.ac.cput.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,6 +10,7 @@ import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.enums.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,6 +22,7 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      * @param userId The internal integer ID of the user.
      * @return A list of {@link Booking} entities associated with the specified user ID.
      */
+    @EntityGraph("Booking.withDetails")
     List<Booking> findByUserId(int userId);
 
     /**
@@ -28,6 +32,7 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      * @param status The status of the booking (e.g., CONFIRMED, CANCELLED).
      * @return A list of {@link Booking} entities associated with the specified car ID and status.
      */
+    @EntityGraph("Booking.withDetails")
     List<Booking> findByCarIdAndStatus(int carId, String status);
 
 
@@ -39,6 +44,7 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      * @param userId The internal integer ID of the user.
      * @return A list of {@link Booking} entities associated with the specified user ID that are not soft-deleted.
      */
+    @EntityGraph("Booking.withDetails")
     List<Booking> findBookingByUserId(int userId);
 
     /**
@@ -47,14 +53,27 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      * @param bookingId The internal integer ID of the booking.
      * @return An {@link Optional} containing the {@link Booking} entity if found and not soft-deleted, otherwise empty.
      */
+    @EntityGraph("Booking.withDetails")
     Optional<Booking> findByIdAndDeletedFalse(int bookingId);
 
+    /**
+     * Finds the UUID of the car a non-deleted booking is for, as a scalar projection that neither
+     * hydrates the {@link Booking} nor places it in the persistence context. Used to find the car lock
+     * to take before the booking itself is read for an update.
+     *
+     * @param bookingId The internal integer ID of the booking.
+     * @return An {@link Optional} containing the car's UUID if the booking exists and is not soft-deleted, otherwise empty.
+     */
+    @Query("SELECT b.car.uuid FROM Booking b WHERE b.id = :bookingId AND b.deleted = false")
+    Optional<UUID> findCarUuidByIdAndDeletedFalse(@Param("bookingId") int bookingId);
+
     /**
      * Finds bookings by the user ID that are not soft-deleted.
      *
      * @param userId The internal integer ID of the user.
      * @return A list of {@link Booking} entities associated with the specified user ID that are not soft-deleted.
      */
+    @EntityGraph("Booking.withDetails")
     List<Booking> findByUserIdAndDeletedFalse(int userId);
 
     /**
@@ -62,8 +81,20 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      *
      * @return A list of all non-deleted {@link Booking} entities. Can be empty.
      */
+    @EntityGraph("Booking.withDetails")
     List<Booking> findByDeletedFalse();
 
+    /**
+     * Keyset pagination over non-deleted bookings: returns the next bookings after the given ID, in ID order.
+     * Unlike offset paging, the cost of a page does not grow with how far into the table it is.
+     *
+     * @param lastSeenId The ID of the last booking of the previous page (0 for the first page).
+     * @param limit      The maximum number of bookings to return.
+     * @return Up to {@code limit} non-deleted {@link Booking} entities with an ID greater than {@code lastSeenId}.
+     */
+    @EntityGraph("Booking.withDetails")
+    List<Booking> findByIdGreaterThanAndDeletedFalseOrderByIdAsc(int lastSeenId, Limit limit);
+
     /**
      * Finds bookings by the car ID and status, ensuring they are not soft-deleted.
      *
@@ -71,6 +102,7 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      * @param confirmed The status of the booking (e.g., CONFIRMED).
      * @return A list of {@link Booking} entities associated with the specified car ID and status that are not soft-deleted.
      */
+    @EntityGraph("Booking.withDetails")
     List<Booking> findByCarIdAndStatusAndDeletedFalse(int carId, String confirmed);
 
     /**
@@ -83,6 +115,7 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      * @param endDate   The end date of the period to check for overlaps.
      * @return A list of {@link Booking} entities that match the criteria.
      */
+    @EntityGraph("Booking.withDetails")
     List<Booking> findByCarAndStatusAndEndDateAfterAndStartDateBeforeAndDeletedFalse(Car car, String confirmed, LocalDateTime startDate, LocalDateTime endDate);
 
     /**
@@ -91,6 +124,7 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      * @param id The UUID of the booking.
      * @return An {@link Optional} containing the {@link Booking} entity if found and not soft-deleted, otherwise empty.
      */
+    @EntityGraph("Booking.withDetails")
     Optional<Booking> findByUuidAndDeletedFalse(UUID id);
 
 
@@ -106,7 +140,10 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      * @param proposedStartDate The start datetime of the period to check for overlaps.
      * @param proposedEndDate   The end datetime of the period to check for overlaps.
      * @return A list of {@link Booking} entities that overlap with the given criteria.
+     * @see #existsOverlappingBooking
+     * @see #findOverlappingBookingIds
      */
+    @EntityGraph("Booking.withDetails")
     @Query("SELECT b FROM Booking b " +
             "WHERE b.car.id = :carId " +          // Filter by car ID
             "AND b.status = :status " +           // Filter by booking status
@@ -119,6 +156,57 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
                                           @Param("proposedStartDate") LocalDateTime proposedStartDate,
                                           @Param("proposedEndDate") LocalDateTime proposedEndDate);
 
+    /**
+     * Checks whether any non-deleted booking for the car, in the given status, overlaps the proposed
+     * period, using the same overlap rule as {@link #findOverlappingBookings}. This is a scalar query:
+     * no {@link Booking} entities (or their eager user, car and driver graphs) are loaded.
+     *
+     * @param carId             The internal integer ID of the {@link za.ac.cput.domain.entity.Car}.
+     * @param status            The {@link BookingStatus} to filter by (e.g., CONFIRMED).
+     * @param proposedStartDate The start datetime of the period to check for overlaps.
+     * @param proposedEndDate   The end datetime of the period to check for overlaps.
+     * @param excludeBookingId  A booking ID to ignore (e.g., the booking being updated), or {@code null}.
+     * @return {@code true} if at least one overlapping booking exists.
+     */
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Booking b " +
+            "WHERE b.car.id = :carId " +
+            "AND b.status = :status " +
+            "AND b.deleted = false " +
+            "AND b.startDate < :proposedEndDate " +
+            "AND b.endDate > :proposedStartDate " +
+            "AND (:excludeBookingId IS NULL OR b.id <> :excludeBookingId)")
+    boolean existsOverlappingBooking(@Param("carId") Integer carId,
+                                     @Param("status") BookingStatus status,
+                                     @Param("proposedStartDate") LocalDateTime proposedStartDate,
+                                     @Param("proposedEndDate") LocalDateTime proposedEndDate,
+                                     @Param("excludeBookingId") Integer excludeBookingId);
+
+    /**
+     * Finds the IDs of non-deleted bookings for the car, in the given status, that overlap the proposed
+     * period. Like {@link #existsOverlappingBooking}, this is a scalar projection that never hydrates
+     * {@link Booking} entities.
+     *
+     * @param carId             The internal integer ID of the {@link za.ac.cput.domain.entity.Car}.
+     * @param status            The {@link BookingStatus} to filter by (e.g., CONFIRMED).
+     * @param proposedStartDate The start datetime of the period to check for overlaps.
+     * @param proposedEndDate   The end datetime of the period to check for overlaps.
+     * @param excludeBookingId  A booking ID to ignore (e.g., the booking being updated), or {@code null}.
+     * @return The IDs of the overlapping bookings, in ascending order. Can be empty.
+     */
+    @Query("SELECT b.id FROM Booking b " +
+            "WHERE b.car.id = :carId " +
+            "AND b.status = :status " +
+            "AND b.deleted = false " +
+            "AND b.startDate < :proposedEndDate " +
+            "AND b.endDate > :proposedStartDate " +
+            "AND (:excludeBookingId IS NULL OR b.id <> :excludeBookingId) " +
+            "ORDER BY b.id")
+    List<Integer> findOverlappingBookingIds(@Param("carId") Integer carId,
+                                            @Param("status") BookingStatus status,
+                                            @Param("proposedStartDate") LocalDateTime proposedStartDate,
+                                            @Param("proposedEndDate") LocalDateTime proposedEndDate,
+                                            @Param("excludeBookingId") Integer excludeBookingId);
+
     /**
      * Finds bookings by status and a date range, ensuring they are not soft-deleted.
      * This method retrieves bookings that match the specified status
@@ -128,6 +216,7 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
      * * @param endOfDay      The end of the day for the date range.
      * * @return A list of {@link Booking} entities that match the criteria and are not soft-deleted.
      */
+    @EntityGraph("Booking.withDetails")
     List<Booking> findByStatusAndStartDateBetweenAndDeletedFalse(BookingStatus bookingStatus, LocalDateTime startOfDay, LocalDateTime endOfDay);
 
     /**
@@ -142,4 +231,55 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
     @Query("SELECT b.car.id FROM Booking b WHERE b.status = 'CONFIRMED' AND (b.startDate < :endDate AND b.endDate > :startDate)")
     List<Integer> findBookedCarIdsByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
+    /**
+     * Loads the car and period of every non-deleted booking in the given status as a lightweight
+     * scalar projection, without hydrating {@link Booking} entities or their associations.
+     * Used to (re)build the in-memory booking availability index.
+     *
+     * @param status The {@link BookingStatus} to filter by (e.g., CONFIRMED).
+     * @return A list of {@link BookingInterval} projections. Can be empty.
+     */
+    @Query("SELECT b.id AS id, b.car.id AS carId, b.startDate AS startDate, b.endDate AS endDate " +
+            "FROM Booking b " +
+            "WHERE b.status = :status " +
+            "AND b.deleted = false " +
+            "AND b.car IS NOT NULL " +
+            "AND b.startDate IS NOT NULL " +
+            "AND b.endDate IS NOT NULL")
+    List<BookingInterval> findIntervalsByStatus(@Param("status") BookingStatus status);
+
+    /**
+     * Loads, as scalar projections, every non-deleted booking in the given status for any of the given cars
+     * whose period overlaps the window. Lets a batch of bookings be conflict-checked with a single query.
+     *
+     * @param carIds The internal IDs of the cars to check.
+     * @param status The {@link BookingStatus} to filter by (e.g., CONFIRMED).
+     * @param from   The start of the window covering every proposed booking.
+     * @param to     The end of the window covering every proposed booking.
+     * @return A list of {@link BookingInterval} projections. Can be empty.
+     */
+    @Query("SELECT b.id AS id, b.car.id AS carId, b.startDate AS startDate, b.endDate AS endDate " +
+            "FROM Booking b " +
+            "WHERE b.car.id IN :carIds " +
+            "AND b.status = :status " +
+            "AND b.deleted = false " +
+            "AND b.startDate < :to " +
+            "AND b.endDate > :from")
+    List<BookingInterval> findIntervalsByCarIdsOverlapping(@Param("carIds") Collection<Integer> carIds,
+                                                          @Param("status") BookingStatus status,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
+
+    /**
+     * Scalar projection of a booking's car and period.
+     */
+    interface BookingInterval {
+        Integer getId();
+
+        Integer getCarId();
+
+        LocalDateTime getStartDate();
+
+        LocalDateTime getEndDate();
+    }
 }
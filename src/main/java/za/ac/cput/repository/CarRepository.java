@@ -6,22 +6,30 @@ package za.ac.cput.repository;
  * Date: 29 March 2021
  */
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.enums.PriceGroup;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 //O R M
 
-public interface CarRepository extends JpaRepository<Car, Integer> {
+public interface CarRepository extends JpaRepository<Car, Integer>, JpaSpecificationExecutor<Car> {
     /**
      * Finds all cars that are available and not deleted.
      * * @return A list of available {@link Car} entities that are not marked as deleted.
      * * This method retrieves all cars that are currently available for booking or rental,
      * * excluding those that have been soft-deleted.
      */
+    @EntityGraph("Car.withImages")
     List<Car> findByPriceGroupAndDeletedFalse(PriceGroup priceGroup);
     //List<Car> findAvailableCars();
 
@@ -47,6 +55,7 @@ public interface CarRepository extends JpaRepository<Car, Integer> {
      * * @return A list of all {@link Car} entities that are not marked as deleted.
      * * This method retrieves all cars from the database, excluding those that have been soft-deleted.
      */
+    @EntityGraph("Car.withImages")
     List<Car> findByDeletedFalse();
 
     /**
@@ -54,6 +63,7 @@ public interface CarRepository extends JpaRepository<Car, Integer> {
      * * @return A list of all {@link Car} entities that are marked as deleted.
      * * This method retrieves all cars from the database that have been soft-deleted.
      */
+    @EntityGraph("Car.withImages")
     List<Car> findByDeletedTrue();
 
     /**
@@ -62,14 +72,24 @@ public interface CarRepository extends JpaRepository<Car, Integer> {
      * * @return An {@link Optional} containing the {@link Car} entity if found and not deleted,
      * * otherwise an empty Optional.
      */
+    @EntityGraph("Car.withImages")
     Optional<Car> findByUuidAndDeletedFalse(UUID id);
 
+    /**
+     * Finds all non-deleted cars with the given UUIDs in a single query.
+     * * @param uuids The UUIDs of the cars to find.
+     * * @return A list of the matching {@link Car} entities; UUIDs with no match are simply absent.
+     */
+    @EntityGraph("Car.withImages")
+    List<Car> findByUuidInAndDeletedFalse(Collection<UUID> uuids);
+
     /**
      * Finds a car by its UUID.
      * * @param uuid The UUID of the car to find.
      * * @return An {@link Optional} containing the {@link Car} entity if found,
      * * otherwise an empty Optional.
      */
+    @EntityGraph("Car.withImages")
     Optional<Car> findByUuid(UUID uuid);
 
     /**
@@ -78,6 +98,7 @@ public interface CarRepository extends JpaRepository<Car, Integer> {
      * * This method retrieves all cars that are currently available for booking or rental,
      * * excluding those that have been soft-deleted.
      */
+    @EntityGraph("Car.withImages")
     List<Car> findAllByAvailableTrueAndDeletedFalse();
 
     /**
@@ -85,6 +106,7 @@ public interface CarRepository extends JpaRepository<Car, Integer> {
      * * @param category The category of the cars to find.
      * * @return A list of available {@link Car} entities that are not marked as deleted and belong to the specified category.
      */
+    @EntityGraph("Car.withImages")
     List<Car> findAllByAvailableTrueAndDeletedFalseAndCategory(String category);
 
     /**
@@ -92,6 +114,7 @@ public interface CarRepository extends JpaRepository<Car, Integer> {
      * * @param priceGroup The price group of the cars to find.
      * * @return A list of available {@link Car} entities that are not marked as deleted and belong to the specified price group.
      */
+    @EntityGraph("Car.withImages")
     List<Car> findAllByAvailableTrueAndDeletedFalseAndPriceGroup(PriceGroup priceGroup);
 
     /**
@@ -100,6 +123,7 @@ public interface CarRepository extends JpaRepository<Car, Integer> {
      * * @return An {@link Optional} containing the {@link Car} entity if found and not deleted,
      * * otherwise an empty Optional.
      */
+    @EntityGraph("Car.withImages")
     Optional<Car> findByIdAndDeletedFalse(Integer id);
 
     /**
@@ -111,6 +135,7 @@ public interface CarRepository extends JpaRepository<Car, Integer> {
      */
 
     // Keep this one for the date-only search
+    @EntityGraph("Car.withImages")
     List<Car> findByAvailableTrueAndDeletedFalseAndIdNotIn(List<Integer> excludedCarIds);
 
     // --- NEW METHODS FOR COMBINED FILTERS ---
@@ -118,10 +143,56 @@ public interface CarRepository extends JpaRepository<Car, Integer> {
     /**
      * Finds available cars of a specific category, excluding those with conflicting bookings.
      */
+    @EntityGraph("Car.withImages")
     List<Car> findByAvailableTrueAndDeletedFalseAndCategoryAndIdNotIn(String category, List<Integer> excludedCarIds);
 
     /**
      * Finds available cars of a specific price group, excluding those with conflicting bookings.
      */
+    @EntityGraph("Car.withImages")
     List<Car> findByAvailableTrueAndDeletedFalseAndPriceGroupAndIdNotIn(PriceGroup priceGroup, List<Integer> excludedCarIds);
-}
\ No newline at end of file
+
+    /**
+     * Offset pagination over non-deleted cars in the order of the pageable. Returns a {@link Slice}, so no
+     * count query is run; call {@link #countByDeletedFalse()} only when a total is actually needed.
+     * Images are not fetched here (a collection fetch cannot be limited in SQL) but load in batches.
+     *
+     * @param pageable The page number, size and sort.
+     * @return The requested slice of non-deleted cars.
+     */
+    Slice<Car> findByDeletedFalse(Pageable pageable);
+
+    /**
+     * Offset pagination over available, non-deleted cars; see {@link #findByDeletedFalse(Pageable)}.
+     *
+     * @param pageable The page number, size and sort.
+     * @return The requested slice of available, non-deleted cars.
+     */
+    Slice<Car> findByAvailableTrueAndDeletedFalse(Pageable pageable);
+
+    /**
+     * @return The number of non-deleted cars.
+     */
+    long countByDeletedFalse();
+
+    /**
+     * @return The number of available, non-deleted cars.
+     */
+    long countByAvailableTrueAndDeletedFalse();
+
+    /**
+     * Finds the available, non-deleted cars among the given IDs, e.g. the matches of the car search index.
+     *
+     * @param ids The internal IDs of the cars to find.
+     * @return The matching cars ordered by ID; cars that are no longer rentable are absent.
+     */
+    @EntityGraph("Car.withImages")
+    List<Car> findByIdInAndAvailableTrueAndDeletedFalseOrderByIdAsc(Collection<Integer> ids);
+
+    /**
+     * Finds the cars matching a specification, e.g. {@link CarSpecifications#matching}, with their images.
+     */
+    @Override
+    @EntityGraph("Car.withImages")
+    List<Car> findAll(Specification<Car> spec, Sort sort);
+}
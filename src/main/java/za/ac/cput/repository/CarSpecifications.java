@@ -0,0 +1,138 @@
+package za.ac.cput.repository;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+import za.ac.cput.domain.dto.request.CarSearchRequestDTO;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.service.impl.CarSearchIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CarSpecifications.java
+ * JPA {@link Specification}s for {@link Car} searches. {@link #matching} selects the same cars as
+ * {@link CarSearchIndex#search} and is used whenever the in-memory index cannot answer; {@link #listed}
+ * and {@link #after} implement keyset pagination over car listings.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+public final class CarSpecifications {
+
+    /**
+     * The properties car listings can be sorted by.
+     */
+    public static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "year", "make", "priceGroup");
+
+    private CarSpecifications() {
+    }
+
+    /**
+     * Builds a specification for the non-deleted cars, optionally only the available ones.
+     *
+     * @param availableOnly Whether to restrict the listing to available cars.
+     * @return The specification.
+     */
+    public static Specification<Car> listed(boolean availableOnly) {
+        return (root, query, cb) -> availableOnly
+                ? cb.and(cb.isTrue(root.get("available")), cb.isFalse(root.get("deleted")))
+                : cb.isFalse(root.get("deleted"));
+    }
+
+    /**
+     * The full order of a car listing sorted by {@code order}, with ties broken by ascending ID. {@link #after}
+     * expects {@code null} values to sort lowest (first ascending, last descending), as MySQL and H2 do; Hibernate
+     * cannot apply an explicit null precedence to Criteria queries.
+     *
+     * @param order The requested order, on one of {@link #SORTABLE_PROPERTIES}.
+     * @return The sort to run the listing with.
+     */
+    public static Sort keysetSort(Sort.Order order) {
+        if ("id".equals(order.getProperty())) {
+            return Sort.by(order);
+        }
+        return Sort.by(order, Sort.Order.asc("id"));
+    }
+
+    /**
+     * Builds a keyset predicate selecting the cars that come after {@code lastSeen} in {@link #keysetSort} order.
+     * Unlike an offset, the predicate is answered from an index however deep into the listing the page is.
+     *
+     * @param order    The order of the listing, on one of {@link #SORTABLE_PROPERTIES}.
+     * @param lastSeen The last car of the previous page.
+     * @return The specification.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Car> after(Sort.Order order, Car lastSeen) {
+        return (root, query, cb) -> {
+            Expression<Integer> id = root.get("id");
+            if ("id".equals(order.getProperty())) {
+                return order.isAscending() ? cb.greaterThan(id, lastSeen.getId()) : cb.lessThan(id, lastSeen.getId());
+            }
+            Expression<Comparable> column = root.get(order.getProperty());
+            Comparable value = sortValue(lastSeen, order.getProperty());
+            Predicate tieAfter = cb.greaterThan(id, lastSeen.getId());
+            if (value == null) {
+                Predicate nullTieAfter = cb.and(cb.isNull(column), tieAfter);
+                return order.isAscending() ? cb.or(nullTieAfter, cb.isNotNull(column)) : nullTieAfter;
+            }
+            Predicate beyond = order.isAscending() ? cb.greaterThan(column, value) : cb.lessThan(column, value);
+            Predicate sameValueAfter = cb.and(cb.equal(column, value), tieAfter);
+            return order.isAscending() ? cb.or(beyond, sameValueAfter) : cb.or(beyond, sameValueAfter, cb.isNull(column));
+        };
+    }
+
+    private static Comparable<?> sortValue(Car car, String property) {
+        return switch (property) {
+            case "year" -> car.getYear();
+            case "make" -> car.getMake();
+            case "priceGroup" -> car.getPriceGroup();
+            default -> throw new IllegalArgumentException("Cars cannot be sorted by " + property);
+        };
+    }
+
+    /**
+     * Builds a specification for available, non-deleted cars matching every given criterion.
+     * Text criteria are compared trimmed and case-insensitively; the dates of the criteria are not evaluated,
+     * callers pass the cars booked in the requested range as {@code excludedCarIds} instead.
+     *
+     * @param criteria       The search criteria; {@code null} or blank criteria are ignored.
+     * @param excludedCarIds IDs of cars to leave out; may be empty.
+     * @return The specification.
+     */
+    public static Specification<Car> matching(CarSearchRequestDTO criteria, Collection<Integer> excludedCarIds) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isTrue(root.get("available")));
+            predicates.add(cb.isFalse(root.get("deleted")));
+            if (StringUtils.hasText(criteria.getCategory())) {
+                predicates.add(cb.equal(cb.lower(cb.trim(root.get("category"))), CarSearchIndex.key(criteria.getCategory())));
+            }
+            if (criteria.getPriceGroup() != null) {
+                predicates.add(cb.equal(root.get("priceGroup"), criteria.getPriceGroup()));
+            }
+            if (StringUtils.hasText(criteria.getMake())) {
+                predicates.add(cb.equal(cb.lower(cb.trim(root.get("make"))), CarSearchIndex.key(criteria.getMake())));
+            }
+            if (StringUtils.hasText(criteria.getModel())) {
+                predicates.add(cb.equal(cb.lower(cb.trim(root.get("model"))), CarSearchIndex.key(criteria.getModel())));
+            }
+            if (criteria.getYearFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("year"), criteria.getYearFrom()));
+            }
+            if (criteria.getYearTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("year"), criteria.getYearTo()));
+            }
+            if (excludedCarIds != null && !excludedCarIds.isEmpty()) {
+                predicates.add(cb.not(root.get("id").in(excludedCarIds)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
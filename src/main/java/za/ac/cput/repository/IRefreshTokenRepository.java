@@ -1,23 +1,66 @@
 package za.ac.cput.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import za.ac.cput.domain.entity.security.RefreshToken;
 import za.ac.cput.domain.entity.security.User;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface IRefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
 
-    Optional<RefreshToken> findByUser(User user); // Useful if one active token per user
+    /**
+     * Finds the token that was rotated away from the given hash, i.e. the current token of the family
+     * an already-used token belonged to.
+     */
+    Optional<RefreshToken> findByPreviousTokenHash(String previousTokenHash);
+
+    /**
+     * Lists the tokens (one per signed-in device) of a user, most recently signed in first.
+     */
+    List<RefreshToken> findByUserOrderByIdDesc(User user);
+
+    /**
+     * Rotates a token in place, remembering the old hash for reuse detection. Matches only while the
+     * old hash is current and unexpired, so of two requests presenting the same token only one can rotate it.
+     *
+     * @return The number of rows updated: 1 if rotated, 0 if the token was already used or has expired.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE RefreshToken r SET r.previousTokenHash = r.tokenHash, r.tokenHash = :newHash, r.expiryDate = :expiryDate " +
+            "WHERE r.tokenHash = :oldHash AND r.expiryDate > :now")
+    int rotate(@Param("oldHash") String oldHash, @Param("newHash") String newHash,
+               @Param("expiryDate") Instant expiryDate, @Param("now") Instant now);
+
+    /**
+     * Finds the ids of expired tokens, oldest first, one purge chunk at a time.
+     */
+    @Query("SELECT r.id FROM RefreshToken r WHERE r.expiryDate < :now ORDER BY r.id")
+    List<Long> findExpiredIds(@Param("now") Instant now, Limit limit);
 
     @Modifying
         // Required for delete or update operations
     int deleteByUser(User user);
 
-    void deleteByToken(String token); // If you implement token rotation
-}
\ No newline at end of file
+    @Modifying
+    int deleteByTokenHash(String tokenHash);
+
+    /**
+     * Revokes every token of one login family in a single statement.
+     *
+     * @return The number of tokens deleted.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM RefreshToken r WHERE r.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") UUID familyId);
+}
@@ -1,5 +1,7 @@
 package za.ac.cput.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import za.ac.cput.domain.entity.Rental;
@@ -29,6 +31,7 @@ public interface RentalRepository extends JpaRepository<Rental, Integer> {
      * @param id The ID of the rental.
      * @return An {@link Optional} containing the rental if found and not deleted, otherwise empty.
      */
+    @EntityGraph("Rental.withDetails")
     Optional<Rental> findByIdAndDeletedFalse(Integer id);
 
     /**
@@ -37,6 +40,7 @@ public interface RentalRepository extends JpaRepository<Rental, Integer> {
      * @param uuid The UUID of the rental.
      * @return An {@link Optional} containing the rental if found and not deleted, otherwise empty.
      */
+    @EntityGraph("Rental.withDetails")
     Optional<Rental> findByUuidAndDeletedFalse(UUID uuid);
 
     /**
@@ -44,8 +48,20 @@ public interface RentalRepository extends JpaRepository<Rental, Integer> {
      *
      * @return A list of non-deleted rentals.
      */
+    @EntityGraph("Rental.withDetails")
     List<Rental> findAllByDeletedFalse();
 
+    /**
+     * Keyset pagination over non-deleted rentals: returns the next rentals after the given ID, in ID order.
+     * Unlike offset paging, the cost of a page does not grow with how far into the table it is.
+     *
+     * @param lastSeenId The ID of the last rental of the previous page (0 for the first page).
+     * @param limit      The maximum number of rentals to return.
+     * @return Up to {@code limit} non-deleted rentals with an ID greater than {@code lastSeenId}.
+     */
+    @EntityGraph("Rental.withDetails")
+    List<Rental> findByIdGreaterThanAndDeletedFalseOrderByIdAsc(int lastSeenId, Limit limit);
+
     /**
      * Checks if a non-deleted rental exists by its internal integer ID.
      *
@@ -61,6 +77,7 @@ public interface RentalRepository extends JpaRepository<Rental, Integer> {
      * @param userId The internal integer ID of the user.
      * @return A list of matching active {@link Rental} entities for the user.
      */
+    @EntityGraph("Rental.withDetails")
     List<Rental> findByUserIdAndReturnedDateIsNullAndDeletedFalse(Integer userId);
 
     /**
@@ -70,6 +87,7 @@ public interface RentalRepository extends JpaRepository<Rental, Integer> {
      * @param userId The internal integer ID of the user.
      * @return A list of all non-deleted {@link Rental} entities for the user.
      */
+    @EntityGraph("Rental.withDetails")
     List<Rental> findByUserIdAndDeletedFalse(Integer userId);
 
 
@@ -85,6 +103,7 @@ public interface RentalRepository extends JpaRepository<Rental, Integer> {
      * @param status         The required current status of the rental (e.g., {@link RentalStatus#ACTIVE}).
      * @return A list of matching rentals.
      */
+    @EntityGraph("Rental.withDetails")
     List<Rental> findByExpectedReturnDateBetweenAndStatusAndReturnedDateIsNullAndDeletedFalse(
             LocalDateTime startDateRange, LocalDateTime endDateRange, RentalStatus status
     );
@@ -99,6 +118,7 @@ public interface RentalRepository extends JpaRepository<Rental, Integer> {
      * @param status         The required current status of the rental (e.g., {@link RentalStatus#ACTIVE}).
      * @return A list of matching overdue rentals.
      */
+    @EntityGraph("Rental.withDetails")
     List<Rental> findByExpectedReturnDateBeforeAndStatusAndReturnedDateIsNullAndDeletedFalse(
             LocalDateTime dateTimeCutoff, RentalStatus status
     );
@@ -111,7 +131,9 @@ public interface RentalRepository extends JpaRepository<Rental, Integer> {
      * @param status The required current status of the rental.
      * @return A list of matching {@link Rental} entities.
      */
+    @EntityGraph("Rental.withDetails")
     List<Rental> findByUserIdAndStatusAndReturnedDateIsNullAndDeletedFalse(Integer userId, RentalStatus status);
 
+    @EntityGraph("Rental.withDetails")
     List<Rental> findByStatusAndReturnedDateIsNullAndDeletedFalse(RentalStatus rentalStatus);
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package za.ac.cput.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import za.ac.cput.domain.entity.StorageUsage;
+
+import java.time.Instant;
+
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, String> {
+
+    /**
+     * Adds to the totals of a folder, creating its row on first use. A single upsert statement, so concurrent
+     * uploads to the same folder neither lose updates nor race to insert the row.
+     *
+     * @return The number of rows affected.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO storage_usage (folder, file_count, total_bytes) VALUES (:folder, :files, :bytes) " +
+            "ON DUPLICATE KEY UPDATE file_count = file_count + :files, total_bytes = total_bytes + :bytes",
+            nativeQuery = true)
+    int addUsage(@Param("folder") String folder, @Param("files") long files, @Param("bytes") long bytes);
+
+    /**
+     * Stamps every folder as recounted at the given time.
+     *
+     * @return The number of rows affected.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE StorageUsage u SET u.reconciledAt = :reconciledAt")
+    int markReconciled(@Param("reconciledAt") Instant reconciledAt);
+}
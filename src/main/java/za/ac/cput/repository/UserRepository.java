@@ -2,9 +2,15 @@ package za.ac.cput.repository;
 
 /*import com.ons.securitylayerJwt.models.User;*/
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import za.ac.cput.domain.entity.security.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,27 +19,50 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     Boolean existsByEmail(String email);
 
+    @EntityGraph("User.withRoles")
     Optional<User> findByEmail(String email);
 
+    @EntityGraph("User.withRoles")
     User findUserByEmail(String email);
 
     @Override
+    @EntityGraph("User.withRoles")
     Optional<User> findById(Integer integer);
 
+    @EntityGraph("User.withRoles")
     Optional<User> findByGoogleId(String googleId);
 
+    @EntityGraph("User.withRoles")
     Optional<User> findByEmailAndDeletedFalse(String email);
 
+    @EntityGraph("User.withRoles")
     Optional<User> findByIdAndDeletedFalse(Integer id);
 
+    @EntityGraph("User.withRoles")
     List<User> findByDeletedFalse();
 
+    @EntityGraph("User.withRoles")
     Optional<User> findByUuidAndDeletedFalse(UUID uuid);
 
+    @EntityGraph("User.withRoles")
+    List<User> findByUuidInAndDeletedFalse(Collection<UUID> uuids);
+
     boolean existsByEmailAndIdNot(String email, int userId);
 
+    @EntityGraph("User.withRoles")
     Optional<User> findByPasswordResetToken(String token);
 
+    /**
+     * Replaces a password hash with an upgraded hash of the same password, unless the password
+     * was changed in the meantime.
+     *
+     * @return The number of rows updated: 0 if the stored hash no longer matches {@code oldHash}.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int upgradePasswordHash(@Param("id") Integer id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
 
 }
 
@@ -0,0 +1,70 @@
+package za.ac.cput.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * AuthRateLimitFilter.java
+ * Rejects login and refresh requests from a client IP that has used up its {@link AuthRateLimiter} budget
+ * with HTTP 429 and a {@code Retry-After} header, before the request reaches BCrypt or the database.
+ * Every other request passes straight through. Per-account login limits are applied in
+ * {@link za.ac.cput.service.impl.AuthServiceImpl#loginUser}, where the email has already been parsed.
+ * <p>
+ * The client IP is {@link HttpServletRequest#getRemoteAddr()}; behind a proxy set
+ * {@code server.forward-headers-strategy} so it reflects the forwarded client address.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthRateLimitFilter.class);
+    static final String LOGIN_PATH = "/api/v1/auth/login";
+    static final String REFRESH_PATH = "/api/v1/auth/refresh";
+
+    private final AuthRateLimiter authRateLimiter;
+
+    public AuthRateLimitFilter(AuthRateLimiter authRateLimiter) {
+        this.authRateLimiter = authRateLimiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) return true;
+        String path = pathOf(request);
+        return !LOGIN_PATH.equals(path) && !REFRESH_PATH.equals(path);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String clientIp = request.getRemoteAddr();
+        long waitMs = LOGIN_PATH.equals(pathOf(request))
+                ? authRateLimiter.acquireLoginForIp(clientIp)
+                : authRateLimiter.acquireRefreshForIp(clientIp);
+        if (waitMs > 0) {
+            log.warn("Rate limit exceeded for {} from IP {}. Retry in {} ms.", request.getRequestURI(), clientIp, waitMs);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.ceilDiv(waitMs, 1000L)));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
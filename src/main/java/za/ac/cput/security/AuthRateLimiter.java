@@ -0,0 +1,103 @@
+package za.ac.cput.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * AuthRateLimiter.java
+ * Rate limits for the authentication endpoints, which are the only ones that run BCrypt and are reachable
+ * without a token. Logins are limited per client IP and per account email, refreshes per client IP,
+ * each with its own {@link TokenBucketRateLimiter}. Rejections are counted as {@code auth.rate_limit.rejected}
+ * tagged with the endpoint and the kind of key.
+ * <p>
+ * Limits are configured under {@code app.security.rate-limit} as a capacity (burst size) refilled evenly
+ * over a period, e.g. {@code login.ip.capacity=20} and {@code login.ip.period=PT1M}.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class AuthRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthRateLimiter.class);
+
+    private final boolean enabled;
+    private final TokenBucketRateLimiter loginByIp;
+    private final TokenBucketRateLimiter loginByAccount;
+    private final TokenBucketRateLimiter refreshByIp;
+    private final Counter loginIpRejections;
+    private final Counter loginAccountRejections;
+    private final Counter refreshIpRejections;
+
+    public AuthRateLimiter(@Value("${app.security.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.security.rate-limit.login.ip.capacity:20}") int loginIpCapacity,
+                           @Value("${app.security.rate-limit.login.ip.period:PT1M}") Duration loginIpPeriod,
+                           @Value("${app.security.rate-limit.login.account.capacity:10}") int loginAccountCapacity,
+                           @Value("${app.security.rate-limit.login.account.period:PT5M}") Duration loginAccountPeriod,
+                           @Value("${app.security.rate-limit.refresh.ip.capacity:60}") int refreshIpCapacity,
+                           @Value("${app.security.rate-limit.refresh.ip.period:PT1M}") Duration refreshIpPeriod,
+                           @Value("${app.security.rate-limit.max-keys:100000}") int maxKeys,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.loginByIp = new TokenBucketRateLimiter(loginIpCapacity, loginIpPeriod, maxKeys);
+        this.loginByAccount = new TokenBucketRateLimiter(loginAccountCapacity, loginAccountPeriod, maxKeys);
+        this.refreshByIp = new TokenBucketRateLimiter(refreshIpCapacity, refreshIpPeriod, maxKeys);
+        this.loginIpRejections = rejectionCounter(meterRegistry, "login", "ip");
+        this.loginAccountRejections = rejectionCounter(meterRegistry, "login", "account");
+        this.refreshIpRejections = rejectionCounter(meterRegistry, "refresh", "ip");
+        log.info("Auth rate limiting {}. Login: {}/{} per IP, {}/{} per account. Refresh: {}/{} per IP.",
+                enabled ? "enabled" : "disabled", loginIpCapacity, loginIpPeriod, loginAccountCapacity, loginAccountPeriod,
+                refreshIpCapacity, refreshIpPeriod);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String endpoint, String key) {
+        return Counter.builder("auth.rate_limit.rejected")
+                .description("Authentication requests rejected by the rate limiter")
+                .tag("endpoint", endpoint)
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a login attempt from the client IP's bucket.
+     *
+     * @return 0 if allowed, otherwise the milliseconds until the client may retry.
+     */
+    public long acquireLoginForIp(String clientIp) {
+        return acquire(loginByIp, clientIp, loginIpRejections);
+    }
+
+    /**
+     * Takes a login attempt from the account's bucket, so one account cannot be guessed at from many IPs.
+     *
+     * @return 0 if allowed, otherwise the milliseconds until the client may retry.
+     */
+    public long acquireLoginForAccount(String email) {
+        return email == null ? 0L : acquire(loginByAccount, email.trim().toLowerCase(Locale.ROOT), loginAccountRejections);
+    }
+
+    /**
+     * Takes a token refresh from the client IP's bucket.
+     *
+     * @return 0 if allowed, otherwise the milliseconds until the client may retry.
+     */
+    public long acquireRefreshForIp(String clientIp) {
+        return acquire(refreshByIp, clientIp, refreshIpRejections);
+    }
+
+    private long acquire(TokenBucketRateLimiter limiter, String key, Counter rejections) {
+        if (!enabled) return 0L;
+        long waitMs = limiter.tryAcquire(key);
+        if (waitMs > 0) {
+            rejections.increment();
+        }
+        return waitMs;
+    }
+}
@@ -0,0 +1,191 @@
+package za.ac.cput.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import za.ac.cput.exception.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BoundedPasswordEncoder.java
+ * A {@link PasswordEncoder} that runs every hash on a dedicated, bounded pool of threads, so a burst of
+ * logins cannot occupy every core. At most {@code threads} hashes run at once and at most {@code queueCapacity}
+ * wait; a call that finds the queue full, or waits longer than {@code maxWait}, fails with a
+ * {@link ServiceUnavailableException} (HTTP 503) instead of piling up.
+ * <p>
+ * Hashes are written through a {@link DelegatingPasswordEncoder} as {@code {bcrypt}...}. Hashes stored
+ * without an id prefix are still matched as BCrypt. After a successful login,
+ * {@link #upgradeEncodingInBackground(String, String, Consumer)} rehashes a password whose hash has an
+ * outdated algorithm or cost. The rehash is only handed to the pool while a hashing thread is idle and nothing is
+ * queued, so during a burst of logins, when every legacy hash would ask for one, upgrades are skipped rather than
+ * queued ahead of the logins; they are retried on a later login.
+ * <p>
+ * Every hash is timed as {@code password.hash} tagged with operation, algorithm and cost.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+    private static final String ENCODING_ID = "bcrypt";
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMs;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+    private final String encodeCost;
+
+    public BoundedPasswordEncoder(int bcryptStrength, int threads, int queueCapacity, Duration maxWait, MeterRegistry meterRegistry) {
+        this(newDelegatingEncoder(bcryptStrength), String.valueOf(bcryptStrength), threads, queueCapacity, maxWait, meterRegistry);
+    }
+
+    BoundedPasswordEncoder(PasswordEncoder delegate, String encodeCost, int threads, int queueCapacity,
+                           Duration maxWait, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.encodeCost = encodeCost;
+        this.maxWaitMs = maxWait.toMillis();
+        this.meterRegistry = meterRegistry;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.rejected = Counter.builder("password.hash.rejected")
+                .description("Password hashes refused because the hashing pool was saturated")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queued", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        log.info("Password hashing pool initialized. Threads: {}, queue capacity: {}, max wait: {} ms, BCrypt cost: {}",
+                poolSize, queueCapacity, maxWaitMs, encodeCost);
+    }
+
+    private static PasswordEncoder newDelegatingEncoder(int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(ENCODING_ID, Map.of(ENCODING_ID, bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt); // Hashes stored before the {bcrypt} prefix was used
+        return delegating;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return runBounded(() -> timed("encode", ENCODING_ID, encodeCost, () -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return runBounded(() -> timed("matches", algorithmOf(encodedPassword), costOf(encodedPassword),
+                () -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encodedPassword != null && delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Rehashes a just-verified password whose stored hash uses an outdated algorithm or cost.
+     * Runs on the hashing pool only if a thread is idle and no hash is queued; otherwise the upgrade is skipped
+     * and retried on a later login.
+     *
+     * @param rawPassword     The password the user just logged in with.
+     * @param encodedPassword The stored hash it was matched against.
+     * @param store           Persists the new hash.
+     */
+    public void upgradeEncodingInBackground(String rawPassword, String encodedPassword, Consumer<String> store) {
+        if (!upgradeEncoding(encodedPassword)) return;
+        if (executor.getActiveCount() >= executor.getMaximumPoolSize() || !executor.getQueue().isEmpty()) {
+            log.debug("Password hashing pool is busy; skipping hash upgrade until the next login.");
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    store.accept(timed("upgrade", ENCODING_ID, encodeCost, () -> delegate.encode(rawPassword)));
+                    log.debug("Upgraded a {} (cost {}) password hash.", algorithmOf(encodedPassword), costOf(encodedPassword));
+                } catch (Exception e) {
+                    log.warn("Could not upgrade a password hash: {}", e.getMessage(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Password hashing pool is busy; skipping hash upgrade until the next login.");
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T runBounded(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw busy("queue is full");
+        }
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false); // Still queued: it will not run. Already running: let it finish.
+            throw busy("waited longer than " + maxWaitMs + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private ServiceUnavailableException busy(String reason) {
+        rejected.increment();
+        log.warn("Password hashing pool saturated ({}). Active: {}, queued: {}.", reason, executor.getActiveCount(), executor.getQueue().size());
+        return new ServiceUnavailableException("The server is busy processing sign-ins. Please try again shortly.");
+    }
+
+    private <T> T timed(String operation, String algorithm, String cost, Callable<T> hash) throws Exception {
+        return Timer.builder("password.hash")
+                .description("Time spent computing password hashes")
+                .tag("operation", operation)
+                .tag("algorithm", algorithm)
+                .tag("cost", cost)
+                .register(meterRegistry)
+                .recordCallable(hash);
+    }
+
+    static String algorithmOf(String encodedPassword) {
+        if (encodedPassword != null && encodedPassword.startsWith("{")) {
+            int end = encodedPassword.indexOf('}');
+            if (end > 0) return encodedPassword.substring(1, end);
+        }
+        return ENCODING_ID;
+    }
+
+    static String costOf(String encodedPassword) {
+        if (encodedPassword == null) return "unknown";
+        String hash = encodedPassword.startsWith("{") ? encodedPassword.substring(encodedPassword.indexOf('}') + 1) : encodedPassword;
+        Matcher matcher = BCRYPT_COST.matcher(hash);
+        return matcher.find() ? String.valueOf(Integer.parseInt(matcher.group(1))) : "unknown";
+    }
+}
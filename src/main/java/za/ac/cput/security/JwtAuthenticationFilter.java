@@ -1,13 +1,16 @@
 package za.ac.cput.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,6 +18,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * JwtAuthenticationFilter.java
@@ -23,6 +29,11 @@ import java.io.IOException;
  * and sets the {@link org.springframework.security.core.Authentication} object in the
  * {@link SecurityContextHolder}. This filter runs once per request.
  * <p>
+ * With {@code app.security.jwt.auth-mode=claims} the principal is built from the token's
+ * {@code email} and {@code roles} claims instead of being loaded from the database; revoked
+ * tokens are then rejected through the {@link TokenDenyList}. The default mode, {@code database},
+ * loads the user on every request.
+ * <p>
  * Author: Peter Buckingham (220165289)
  * Date: [Original Date - Please specify if known]
  * Updated by: Peter Buckingham
@@ -36,11 +47,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtilities jwtUtilities;
     private final CustomerUserDetailsService customerUserDetailsService;
+    private final TokenDenyList tokenDenyList;
+    private final boolean claimsOnly;
 
     // Constructor injection is preferred
-    public JwtAuthenticationFilter(JwtUtilities jwtUtilities, CustomerUserDetailsService customerUserDetailsService) {
+    public JwtAuthenticationFilter(JwtUtilities jwtUtilities, CustomerUserDetailsService customerUserDetailsService,
+                                   TokenDenyList tokenDenyList,
+                                   @Value("${app.security.jwt.auth-mode:database}") String authMode) {
         this.jwtUtilities = jwtUtilities;
         this.customerUserDetailsService = customerUserDetailsService;
+        this.tokenDenyList = tokenDenyList;
+        this.claimsOnly = "claims".equalsIgnoreCase(authMode);
+        log.info("JwtAuthenticationFilter initialized. Authentication mode: {}", claimsOnly ? "claims" : "database");
     }
 
     /**
@@ -74,16 +92,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (token != null) {
             log.debug("Token found in request to URI: {}", requestURI);
-            if (jwtUtilities.validateToken(token)) { // Validates signature and expiration
-                String email = jwtUtilities.extractUserEmail(token);
+            Claims claims = jwtUtilities.verifyToken(token); // Parses once; validates signature and expiration
+            if (claims != null) {
+                String email = claims.get("email", String.class);
                 log.debug("Token validated successfully. Email extracted: {}", email);
 
                 if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    log.trace("Security context is null for user: {}. Attempting to load UserDetails.", email);
-                    UserDetails userDetails = customerUserDetailsService.loadUserByUsername(email);
+                    UserDetails userDetails;
+                    if (claimsOnly) {
+                        userDetails = userDetailsFromClaims(claims, email);
+                    } else {
+                        log.trace("Security context is null for user: {}. Attempting to load UserDetails.", email);
+                        userDetails = customerUserDetailsService.loadUserByUsername(email);
+                    }
 
                     // Double check token against UserDetails (e.g., if userDetails could have changed since token issuance)
-                    if (jwtUtilities.validateToken(token, userDetails)) { // This check is good practice
+                    if (userDetails != null && email.equals(userDetails.getUsername())) { // The claims above are already verified
                         UsernamePasswordAuthenticationToken authenticationToken =
                                 new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                         // Set details from the request (e.g., IP address, session ID if any)
@@ -108,4 +132,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Builds the principal from verified token claims without touching the database.
+     *
+     * @param claims The verified token claims.
+     * @param email  The email claim of the token.
+     * @return The principal, or {@code null} if the token lacks a user UUID or has been revoked.
+     */
+    private UserDetails userDetailsFromClaims(Claims claims, String email) {
+        String uuid = claims.get("uuid", String.class);
+        if (uuid == null || tokenDenyList.isDenied(UUID.fromString(uuid), JwtUtilities.issuedAt(claims))) {
+            log.debug("Token for user '{}' is missing a UUID or has been revoked.", email);
+            return null;
+        }
+        List<?> roles = claims.get("roles", List.class);
+        List<SimpleGrantedAuthority> authorities = roles == null ? List.of() : roles.stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .collect(Collectors.toList());
+        return org.springframework.security.core.userdetails.User.withUsername(email)
+                .password("")
+                .authorities(authorities)
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,268 @@
+package za.ac.cput.security;
+
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.*;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * JwtKeyRing.java
+ * The asymmetric keys used to sign and verify access tokens, each identified by a {@code kid}.
+ * Only the node that issues tokens needs a private key; anyone holding the public keys, which
+ * are published as a JWKS document, can verify tokens without calling this application.
+ * <p>
+ * {@code app.security.jwt.algorithm} selects {@code HS512} (the shared {@code jwt.secret}, the default),
+ * {@code RS256} or {@code EdDSA} (Ed25519). For the asymmetric algorithms keys are either:
+ * <ul>
+ *     <li>loaded from {@code app.security.jwt.key-dir}, holding {@code <kid>.pub.pem} (X.509) and, for keys this
+ *     node may sign with, {@code <kid>.key.pem} (PKCS#8). {@code app.security.jwt.active-kid} names the signing key,
+ *     otherwise the last kid in name order with a private key is used. Rotate by adding a key and restarting.</li>
+ *     <li>generated in memory and rotated every {@code app.security.jwt.rotation-period}. A retired key stays
+ *     published until the last token it signed has expired.</li>
+ * </ul>
+ * {@code key-dir} is the production setting: every instance loads the same keys, and tokens survive a restart.
+ * Generated keys exist only in the memory of the node that made them, so a token is rejected by every other node
+ * and by the same node after a restart. They are meant for development and a single instance; startup fails when
+ * {@code app.security.jwt.instances} says more than one instance serves the API, and logs a warning otherwise.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    /**
+     * A key of the ring. The private key is {@code null} for keys this node only verifies with.
+     */
+    public record KeyEntry(String kid, PrivateKey privateKey, PublicKey publicKey, Instant createdAt, Instant retiresAt) {
+    }
+
+    private final String algorithm;
+    private final Duration rotationPeriod;
+    private final long tokenTtlMs;
+    private final Clock clock;
+    private final boolean generated;
+    private final Map<String, KeyEntry> keys = new ConcurrentHashMap<>();
+    private volatile KeyEntry active;
+
+    public JwtKeyRing(@Value("${app.security.jwt.algorithm:HS512}") String algorithm,
+                      @Value("${app.security.jwt.key-dir:}") String keyDir,
+                      @Value("${app.security.jwt.active-kid:}") String activeKid,
+                      @Value("${app.security.jwt.rotation-period:PT24H}") Duration rotationPeriod,
+                      @Value("${jwt.expiration}") long tokenTtlMs,
+                      @Value("${app.security.jwt.instances:1}") int instances) {
+        this(algorithm, keyDir, activeKid, rotationPeriod, tokenTtlMs, instances, Clock.systemUTC());
+    }
+
+    JwtKeyRing(String algorithm, String keyDir, String activeKid, Duration rotationPeriod, long tokenTtlMs, Clock clock) {
+        this(algorithm, keyDir, activeKid, rotationPeriod, tokenTtlMs, 1, clock);
+    }
+
+    JwtKeyRing(String algorithm, String keyDir, String activeKid, Duration rotationPeriod, long tokenTtlMs,
+               int instances, Clock clock) {
+        this.algorithm = algorithm;
+        this.rotationPeriod = rotationPeriod;
+        this.tokenTtlMs = tokenTtlMs;
+        this.clock = clock;
+        this.generated = !StringUtils.hasText(keyDir);
+        if (!isAsymmetric()) {
+            if (!"HS512".equalsIgnoreCase(algorithm)) {
+                throw new IllegalStateException("Unsupported JWT algorithm: " + algorithm + ". Use HS512, RS256 or EdDSA.");
+            }
+            return;
+        }
+        if (generated) {
+            if (instances > 1) {
+                throw new IllegalStateException("Generated JWT keys are per node, but app.security.jwt.instances is " + instances
+                        + ". Set app.security.jwt.key-dir to keys shared by every instance.");
+            }
+            log.warn("JWT keys are generated in memory: tokens will not verify on other instances or after a restart. "
+                    + "Set app.security.jwt.key-dir in production.");
+            rotate();
+        } else {
+            loadKeys(Path.of(keyDir), activeKid);
+        }
+        log.info("JWT key ring initialized. Algorithm: {}, keys: {}, active kid: {}", algorithm, keys.keySet(), active.kid());
+    }
+
+    /**
+     * @return {@code true} when tokens are signed with RS256 or EdDSA rather than the shared HS512 secret.
+     */
+    public boolean isAsymmetric() {
+        return "RS256".equalsIgnoreCase(algorithm) || "EdDSA".equalsIgnoreCase(algorithm);
+    }
+
+    /**
+     * @return The jjwt algorithm matching {@code app.security.jwt.algorithm}.
+     */
+    public SignatureAlgorithm signatureAlgorithm() {
+        return "RS256".equalsIgnoreCase(algorithm) ? Jwts.SIG.RS256 : Jwts.SIG.EdDSA;
+    }
+
+    /**
+     * Returns the key new tokens are signed with, first rotating generated keys that have reached the rotation period.
+     *
+     * @return The active key entry.
+     */
+    public KeyEntry activeKey() {
+        KeyEntry current = active;
+        if (generated && !clock.instant().isBefore(current.createdAt().plus(rotationPeriod))) {
+            synchronized (this) {
+                if (active == current) rotate();
+                current = active;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Resolves the public key named by the {@code kid} header of a signed token.
+     * Used as the parser's key locator, so one parser serves every key of the ring.
+     *
+     * @param header The token header.
+     * @return The verification key.
+     * @throws UnsupportedJwtException if the token names no key or a key outside the ring.
+     */
+    public Key locate(Header header) {
+        String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+        KeyEntry entry = kid != null ? keys.get(kid) : null;
+        if (entry == null || isExpired(entry)) {
+            throw new UnsupportedJwtException("Unknown JWT key id: " + kid);
+        }
+        return entry.publicKey();
+    }
+
+    /**
+     * Builds the JSON Web Key Set of all keys that may still have valid tokens outstanding.
+     *
+     * @return A map with a single {@code keys} entry, ready to be serialized as JSON.
+     */
+    public Map<String, Object> toJwks() {
+        List<Map<String, Object>> jwks = keys.values().stream()
+                .filter(entry -> !isExpired(entry))
+                .sorted(Comparator.comparing(KeyEntry::kid))
+                .map(this::toJwk)
+                .toList();
+        return Map.of("keys", jwks);
+    }
+
+    Collection<KeyEntry> keys() {
+        return keys.values();
+    }
+
+    private Map<String, Object> toJwk(KeyEntry entry) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", entry.kid());
+        jwk.put("use", "sig");
+        if (entry.publicKey() instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("alg", "RS256");
+            jwk.put("n", base64Url(rsa.getModulus()));
+            jwk.put("e", base64Url(rsa.getPublicExponent()));
+        } else {
+            // An X.509-encoded Ed25519 key is a fixed 12-byte prefix followed by the 32-byte public key.
+            byte[] encoded = entry.publicKey().getEncoded();
+            jwk.put("kty", "OKP");
+            jwk.put("alg", "EdDSA");
+            jwk.put("crv", "Ed25519");
+            jwk.put("x", Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length)));
+        }
+        return jwk;
+    }
+
+    private void rotate() {
+        Instant now = clock.instant();
+        KeyPair pair = generateKeyPair();
+        KeyEntry next = new KeyEntry(UUID.randomUUID().toString(), pair.getPrivate(), pair.getPublic(), now, null);
+        KeyEntry previous = active;
+        if (previous != null) {
+            keys.put(previous.kid(), new KeyEntry(previous.kid(), null, previous.publicKey(), previous.createdAt(), now.plusMillis(tokenTtlMs)));
+        }
+        keys.values().removeIf(this::isExpired);
+        keys.put(next.kid(), next);
+        active = next;
+        log.info("Rotated JWT signing key. New kid: {}, previous kid: {}", next.kid(), previous != null ? previous.kid() : null);
+    }
+
+    private boolean isExpired(KeyEntry entry) {
+        return entry.retiresAt() != null && entry.retiresAt().isBefore(clock.instant());
+    }
+
+    private KeyPair generateKeyPair() {
+        try {
+            if ("RS256".equalsIgnoreCase(algorithm)) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                return generator.generateKeyPair();
+            }
+            return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate a " + algorithm + " key pair", e);
+        }
+    }
+
+    private void loadKeys(Path keyDir, String activeKid) {
+        try (Stream<Path> files = Files.list(keyDir)) {
+            for (Path publicFile : files.filter(path -> path.getFileName().toString().endsWith(".pub.pem")).toList()) {
+                String name = publicFile.getFileName().toString();
+                String kid = name.substring(0, name.length() - ".pub.pem".length());
+                Path privateFile = keyDir.resolve(kid + ".key.pem");
+                KeyFactory factory = KeyFactory.getInstance("RS256".equalsIgnoreCase(algorithm) ? "RSA" : "Ed25519");
+                PublicKey publicKey = factory.generatePublic(new X509EncodedKeySpec(readPem(publicFile)));
+                PrivateKey privateKey = Files.exists(privateFile)
+                        ? factory.generatePrivate(new PKCS8EncodedKeySpec(readPem(privateFile))) : null;
+                keys.put(kid, new KeyEntry(kid, privateKey, publicKey, clock.instant(), null));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read JWT keys from " + keyDir, e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid JWT key in " + keyDir, e);
+        }
+        active = StringUtils.hasText(activeKid) ? keys.get(activeKid) : keys.values().stream()
+                .filter(entry -> entry.privateKey() != null)
+                .max(Comparator.comparing(KeyEntry::kid))
+                .orElse(null);
+        if (active == null || active.privateKey() == null) {
+            throw new IllegalStateException("No JWT signing key with a private key found in " + keyDir);
+        }
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        String base64 = Files.readString(file)
+                .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) { // drop the sign byte of the two's-complement encoding
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
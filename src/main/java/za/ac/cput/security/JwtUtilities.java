@@ -4,9 +4,11 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
@@ -16,6 +18,7 @@ import org.springframework.util.StringUtils;
 import za.ac.cput.domain.entity.security.User;
 
 import javax.crypto.SecretKey;
+import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
@@ -39,6 +42,9 @@ public class JwtUtilities {
 
     private static final Logger log = LoggerFactory.getLogger(JwtUtilities.class); // Manual SLF4J Logger
 
+    // The standard iat claim only has second precision, too coarse to order a token against a revocation.
+    static final String ISSUED_AT_MS_CLAIM = "iat_ms";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -62,9 +68,32 @@ public class JwtUtilities {
     // @Value("${jwt.refresh-token.expiration-ms}") // This is used by RefreshTokenService/UserService for DB entry
     // private Long refreshTokenDurationMs;         // This utility would use it if generating refresh token cookie here.
 
+    @Value("${app.security.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    // Decoded once; the secret does not change while the application runs, and the parser is thread-safe.
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private VerifiedTokenCache verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        if (keyRing.isAsymmetric()) {
+            // One parser for the whole ring: the locator picks the cached public key named by the token's kid.
+            this.parser = Jwts.parser().keyLocator(keyRing::locate).build();
+        } else {
+            this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+            this.parser = Jwts.parser().verifyWith(signingKey).build();
+        }
+        this.verifiedTokens = new VerifiedTokenCache(verifiedCacheSize, Clock.systemUTC());
+        log.info("JWT signing key initialized. Verified-token cache size: {}", verifiedCacheSize);
+    }
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     /**
@@ -113,11 +142,7 @@ public class JwtUtilities {
      */
     public Claims extractAllClaims(String token) {
         log.trace("Attempting to extract all claims from token.");
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token) // Changed from parseClaimsJws to parseSignedClaims for modern API
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
@@ -155,12 +180,24 @@ public class JwtUtilities {
      * @return {@code true} if the token is valid for the user, {@code false} otherwise.
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String emailFromToken = extractUserEmail(token);
-        boolean isValid = emailFromToken.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        final Claims claims = verifyToken(token); // Signature and expiration are checked here
+        boolean isValid = claims != null && userDetails.getUsername().equals(claims.get("email", String.class));
         log.debug("Validating token for user '{}'. Token valid: {}", userDetails.getUsername(), isValid);
         return isValid;
     }
 
+    /**
+     * Returns when a token was issued, to the millisecond. Tokens issued before the {@code iat_ms} claim
+     * was added fall back to the second-precision {@code iat} claim.
+     *
+     * @param claims The verified token claims.
+     * @return The issue time, or {@code null} if the token carries neither claim.
+     */
+    public static Date issuedAt(Claims claims) {
+        Long issuedAtMs = claims.get(ISSUED_AT_MS_CLAIM, Long.class);
+        return issuedAtMs != null ? new Date(issuedAtMs) : claims.getIssuedAt();
+    }
+
     /**
      * Checks if the JWT token has expired.
      *
@@ -175,7 +212,7 @@ public class JwtUtilities {
 
     /**
      * Generates a JWT access token for a given user with specified roles.
-     * Includes user's UUID, email, and roles as claims.
+     * Includes user's UUID, email, roles and the millisecond issue time as claims.
      *
      * @param user  The {@link User} entity for whom the token is generated.
      * @param roles A list of role names (Strings) to include in the token.
@@ -184,15 +221,22 @@ public class JwtUtilities {
     public String generateToken(User user, List<String> roles) {
         log.info("Generating JWT access token for user: {}", user.getEmail());
         Instant now = Instant.now();
-        String token = Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(user.getEmail()) // Standard subject, often the username/email
                 .claim("uuid", user.getUuid().toString()) // Store UUID as string
                 .claim("email", user.getEmail())
                 .claim("roles", roles) // Changed from "role" to "roles" for list
+                .claim(ISSUED_AT_MS_CLAIM, now.toEpochMilli())
                 .issuedAt(Date.from(now))
-                .expiration(Date.from(now.plus(jwtExpirationMs, ChronoUnit.MILLIS)))
-                .signWith(getSigningKey(), Jwts.SIG.HS512) // Specify algorithm explicitly
-                .compact();
+                .expiration(Date.from(now.plus(jwtExpirationMs, ChronoUnit.MILLIS)));
+        if (keyRing.isAsymmetric()) {
+            JwtKeyRing.KeyEntry key = keyRing.activeKey();
+            builder.header().keyId(key.kid()).and()
+                    .signWith(key.privateKey(), keyRing.signatureAlgorithm());
+        } else {
+            builder.signWith(getSigningKey(), Jwts.SIG.HS512); // Specify algorithm explicitly
+        }
+        String token = builder.compact();
         log.debug("Generated access token (partial for logging): {}...", token.substring(0, Math.min(20, token.length())));
         return token;
     }
@@ -204,13 +248,27 @@ public class JwtUtilities {
      * @return {@code true} if the token is structurally valid, signed correctly, and not expired; {@code false} otherwise.
      */
     public boolean validateToken(String token) {
+        return verifyToken(token) != null;
+    }
+
+    /**
+     * Parses and verifies a JWT token once, returning its claims. Tokens verified earlier are served
+     * from a bounded cache until they expire, so repeat requests with the same token skip the signature check.
+     *
+     * @param token The JWT token string to verify.
+     * @return The verified claims, or {@code null} if the token is malformed, wrongly signed, or expired.
+     */
+    public Claims verifyToken(String token) {
+        Claims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            log.trace("Token found in verified-token cache.");
+            return cached;
+        }
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            verifiedTokens.put(token, claims);
             log.trace("Token validation successful.");
-            return true;
+            return claims;
         } catch (ExpiredJwtException e) {
             log.warn("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
@@ -225,7 +283,7 @@ public class JwtUtilities {
             log.warn("Invalid JWT token: {}", e.getMessage());
         }
         log.debug("Token validation failed.");
-        return false;
+        return null;
     }
 
     /**
@@ -0,0 +1,138 @@
+package za.ac.cput.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.CorsUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * PrecomputedCorsPolicy.java
+ * The application's CORS policy, used by Spring Security's {@link org.springframework.web.filter.CorsFilter}
+ * both as its {@link CorsConfigurationSource} and as its {@link CorsProcessor}.
+ * <p>
+ * The allow-list ({@code app.cors.allowed-origins}, by default the frontend URL and the local dev server) is
+ * compiled once into a hash set, and every header value is built at startup. An allowed request therefore costs
+ * one set lookup and a few header writes with no allocation. Preflights are answered directly with a long
+ * {@code Access-Control-Max-Age} ({@code app.cors.max-age}), so browsers rarely need to repeat them. Every
+ * response carries {@code Vary: Origin} because its CORS headers depend on the origin.
+ * Requests from other cross origins are rejected with 403.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class PrecomputedCorsPolicy implements CorsConfigurationSource, CorsProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(PrecomputedCorsPolicy.class);
+    private static final String VARY_ORIGIN = HttpHeaders.ORIGIN;
+    private static final String VARY_PREFLIGHT = String.join(", ", HttpHeaders.ORIGIN,
+            HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS);
+    private static final byte[] REJECTION_BODY = "Invalid CORS request".getBytes(StandardCharsets.UTF_8);
+
+    private final Set<String> allowedOrigins;
+    private final Set<String> allowedMethods;
+    private final Set<String> allowedHeaders; // lower case
+    private final String allowMethodsValue;
+    private final String allowHeadersValue;
+    private final String exposeHeadersValue;
+    private final String maxAgeValue;
+    private final CorsConfiguration configuration;
+
+    public PrecomputedCorsPolicy(@Value("${app.cors.allowed-origins:${app.frontend.url},http://localhost:5173}") List<String> allowedOrigins,
+                                 @Value("${app.cors.allowed-methods:GET,POST,PUT,PATCH,DELETE,OPTIONS}") List<String> allowedMethods,
+                                 @Value("${app.cors.allowed-headers:Authorization,Content-Type,Accept,Origin,X-Requested-With,If-None-Match,Range}") List<String> allowedHeaders,
+                                 @Value("${app.cors.exposed-headers:ETag,Retry-After,Content-Disposition}") List<String> exposedHeaders,
+                                 @Value("${app.cors.max-age:PT24H}") Duration maxAge) {
+        this.allowedOrigins = allowedOrigins.stream()
+                .map(String::trim)
+                .filter(origin -> !origin.isEmpty())
+                .map(origin -> origin.endsWith("/") ? origin.substring(0, origin.length() - 1) : origin)
+                .collect(Collectors.toUnmodifiableSet());
+        this.allowedMethods = allowedMethods.stream().map(method -> method.trim().toUpperCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+        this.allowedHeaders = allowedHeaders.stream().map(header -> header.trim().toLowerCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+        this.allowMethodsValue = String.join(", ", allowedMethods.stream().map(String::trim).toList());
+        this.allowHeadersValue = String.join(", ", allowedHeaders.stream().map(String::trim).toList());
+        this.exposeHeadersValue = exposedHeaders.isEmpty() ? null : String.join(", ", exposedHeaders.stream().map(String::trim).toList());
+        this.maxAgeValue = String.valueOf(maxAge.toSeconds());
+
+        // The same policy in Spring's form, for anything that asks the CorsConfigurationSource directly.
+        CorsConfiguration config = new CorsConfiguration();
+        config.setAllowedOrigins(List.copyOf(this.allowedOrigins));
+        config.setAllowedMethods(List.copyOf(this.allowedMethods));
+        config.setAllowedHeaders(allowedHeaders.stream().map(String::trim).toList());
+        config.setExposedHeaders(exposedHeaders.stream().map(String::trim).toList());
+        config.setAllowCredentials(true);
+        config.setMaxAge(maxAge);
+        this.configuration = config;
+        log.info("CORS policy initialized. Allowed origins: {}, max age: {}s", this.allowedOrigins, maxAgeValue);
+    }
+
+    @Override
+    public CorsConfiguration getCorsConfiguration(@NonNull HttpServletRequest request) {
+        return configuration; // One policy for every path, so no per-request path matching
+    }
+
+    @Override
+    public boolean processRequest(@Nullable CorsConfiguration config, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        boolean preflight = origin != null && HttpMethod.OPTIONS.matches(request.getMethod())
+                && request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD) != null;
+        response.addHeader(HttpHeaders.VARY, preflight ? VARY_PREFLIGHT : VARY_ORIGIN);
+        if (origin == null || response.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN) != null) {
+            return true;
+        }
+        if (!allowedOrigins.contains(origin)) {
+            if (!CorsUtils.isCorsRequest(request)) return true; // Same-origin request that happens to send Origin
+            log.debug("Rejecting CORS request from origin '{}' not in the allow-list.", origin);
+            return reject(response);
+        }
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+        if (!preflight) {
+            if (exposeHeadersValue != null) response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, exposeHeadersValue);
+            return true;
+        }
+        if (!allowedMethods.contains(request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD))
+                || !headersAllowed(request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS))) {
+            return reject(response);
+        }
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, allowMethodsValue);
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, allowHeadersValue);
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_MAX_AGE, maxAgeValue);
+        return true;
+    }
+
+    private boolean headersAllowed(@Nullable String requestedHeaders) {
+        if (requestedHeaders == null || requestedHeaders.isBlank()) return true;
+        for (String header : requestedHeaders.split(",")) {
+            String name = header.trim().toLowerCase(Locale.ROOT);
+            if (!name.isEmpty() && !allowedHeaders.contains(name)) return false;
+        }
+        return true;
+    }
+
+    private static boolean reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        response.getOutputStream().write(REJECTION_BODY);
+        response.flushBuffer();
+        return false;
+    }
+}
@@ -1,7 +1,9 @@
 package za.ac.cput.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -11,13 +13,14 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.web.filter.CorsFilter;
 import za.ac.cput.security.oauth.CustomOAuth2UserService;
 import za.ac.cput.security.oauth.OAuth2AuthenticationSuccessHandler;
 
+import java.time.Duration;
+
 import static org.springframework.security.config.Customizer.withDefaults;
 
 /**
@@ -34,6 +37,7 @@ import static org.springframework.security.config.Customizer.withDefaults;
 public class SpringSecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AuthRateLimitFilter authRateLimitFilter;
     // --- NEW: Inject the custom OAuth2 handlers ---
     private final CustomOAuth2UserService customOAuth2UserService;
     private final OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
@@ -58,6 +62,7 @@ public class SpringSecurityConfig {
                         // Define all public endpoints, including the new OAuth2 endpoints
                         .requestMatchers(
                                 "/api/v1/auth/**",
+                                "/.well-known/jwks.json",
                                 "/oauth2/**", // <-- Important for the OAuth2 flow
                                 "/api/v1/cars/**",
                                 "/api/v1/files/**",
@@ -94,10 +99,23 @@ public class SpringSecurityConfig {
 
         // Add the custom JWT filter before the standard username/password filter
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        // Throttle login/refresh bursts before any token parsing or password hashing
+        http.addFilterBefore(authRateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * Provides the CORS filter picked up by {@code http.cors()}. It is named {@code corsFilter} so Spring Security
+     * uses it as-is, with the precomputed policy as both its configuration source and its processor.
+     */
+    @Bean
+    public CorsFilter corsFilter(PrecomputedCorsPolicy corsPolicy) {
+        CorsFilter corsFilter = new CorsFilter(corsPolicy);
+        corsFilter.setCorsProcessor(corsPolicy);
+        return corsFilter;
+    }
+
     /**
      * Provides the AuthenticationManager bean, required for the authentication process.
      */
@@ -108,9 +126,16 @@ public class SpringSecurityConfig {
 
     /**
      * Provides the PasswordEncoder bean, using BCrypt for secure password hashing.
+     * Hashing runs on a bounded pool so login bursts queue, or get a 503, instead of saturating every core.
+     * Raising {@code bcrypt-strength} upgrades existing hashes in the background as users log in.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${app.security.password-hashing.bcrypt-strength:10}") int bcryptStrength,
+            @Value("${app.security.password-hashing.threads:0}") int threads, // 0 = one per available core
+            @Value("${app.security.password-hashing.queue-capacity:200}") int queueCapacity,
+            @Value("${app.security.password-hashing.max-wait:PT5S}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(bcryptStrength, threads, queueCapacity, maxWait, meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package za.ac.cput.security;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * TokenBucketRateLimiter.java
+ * Lock-free token buckets, one per key (e.g. a client IP or an account email). Each bucket holds up to
+ * {@code capacity} tokens and refills one token every {@code refillPeriod / capacity}; a request takes one token.
+ * <p>
+ * A bucket is stored as the single {@code long} "theoretical arrival time" of the generic cell rate algorithm,
+ * which behaves exactly like a token bucket but is updated with one compare-and-set and no allocation, so the
+ * common path costs a map lookup and a CAS. The map holds at most {@code maxKeys} buckets: when it is full,
+ * buckets that have refilled completely are dropped, as they are indistinguishable from a new bucket. A bucket that
+ * still holds debt is never dropped, since that would hand its key a fresh burst. While every stored bucket holds debt,
+ * new keys share a single overflow bucket of the same capacity until one of the stored buckets refills.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+public class TokenBucketRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflowBucket;
+    private long nextRefillNanos; // Earliest moment a stored bucket refills completely; guarded by this
+
+    public TokenBucketRateLimiter(int capacity, Duration refillPeriod, int maxKeys) {
+        this(capacity, refillPeriod, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(int capacity, Duration refillPeriod, int maxKeys, LongSupplier nanoClock) {
+        if (capacity <= 0) throw new IllegalArgumentException("Rate limit capacity must be positive");
+        this.emissionIntervalNanos = refillPeriod.toNanos() / capacity;
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+        this.overflowBucket = new AtomicLong(nanoClock.getAsLong());
+        this.nextRefillNanos = overflowBucket.get();
+    }
+
+    /**
+     * Takes a token from the key's bucket.
+     *
+     * @param key The bucket key.
+     * @return 0 if the request is allowed, otherwise the number of milliseconds until a token is available (at least 1).
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.size() < maxKeys || evictRefilled(now)
+                    ? buckets.computeIfAbsent(key, k -> new AtomicLong(now))
+                    : overflowBucket;
+        }
+        while (true) {
+            long arrival = bucket.get();
+            long earliest = arrival - now > 0 ? arrival : now; // An idle bucket is full, not in credit
+            long waitNanos = earliest - now - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return Math.max(1L, waitNanos / 1_000_000L);
+            }
+            if (bucket.compareAndSet(arrival, earliest + emissionIntervalNanos)) {
+                return 0L;
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Drops the buckets that have refilled completely. The scan is skipped until the earliest moment a bucket
+     * seen by the previous scan can have refilled, so a map full of indebted buckets is not rescanned on every new key.
+     *
+     * @return {@code true} if there is room for a new bucket.
+     */
+    private synchronized boolean evictRefilled(long now) {
+        if (buckets.size() < maxKeys) return true;
+        if (nextRefillNanos - now > 0) return false;
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        long next = now + emissionIntervalNanos + burstToleranceNanos; // A new bucket cannot owe more than a full burst
+        for (AtomicLong bucket : buckets.values()) {
+            long arrival = bucket.get();
+            if (arrival - next < 0) next = arrival;
+        }
+        nextRefillNanos = next;
+        return buckets.size() < maxKeys;
+    }
+}
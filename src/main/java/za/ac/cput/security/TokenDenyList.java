@@ -0,0 +1,77 @@
+package za.ac.cput.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TokenDenyList.java
+ * In-memory list of users whose access tokens issued up to a given moment must no longer be accepted.
+ * When authentication is built from token claims alone there is no per-request database lookup to
+ * notice a logout, a deleted account or changed roles, so those events record the user here instead.
+ * <p>
+ * An entry only needs to outlive the longest-lived access token issued before it ({@code jwt.expiration}),
+ * after which it is purged; the list therefore stays small. Tokens are compared on their millisecond issue time
+ * ({@link JwtUtilities#issuedAt}), and a token issued in the same millisecond as the deny event is rejected too.
+ * Older tokens that only carry the second-precision {@code iat} claim are rejected if issued in the second of the
+ * deny event or earlier, so a revoked token is never accepted.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class TokenDenyList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenDenyList.class);
+
+    private final Map<UUID, Long> deniedAtByUser = new ConcurrentHashMap<>();
+    private final long accessTokenTtlMs;
+    private final Clock clock;
+
+    public TokenDenyList(@Value("${jwt.expiration}") long accessTokenTtlMs) {
+        this(accessTokenTtlMs, Clock.systemUTC());
+    }
+
+    TokenDenyList(long accessTokenTtlMs, Clock clock) {
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Rejects every access token issued to the user up to now.
+     *
+     * @param userUuid The UUID of the user whose tokens are revoked.
+     */
+    public void deny(UUID userUuid) {
+        if (userUuid == null) return;
+        long now = clock.millis();
+        deniedAtByUser.put(userUuid, now);
+        deniedAtByUser.values().removeIf(deniedAt -> deniedAt + accessTokenTtlMs < now);
+        log.debug("Access tokens of user UUID {} issued up to {} are now denied.", userUuid, now);
+    }
+
+    /**
+     * Checks whether a token issued to the user at the given time has been revoked, i.e. was issued
+     * no later than the user's latest deny event.
+     *
+     * @param userUuid The UUID claim of the token.
+     * @param issuedAt The issue time of the token, see {@link JwtUtilities#issuedAt}.
+     * @return {@code true} if the token must be rejected.
+     */
+    public boolean isDenied(UUID userUuid, Date issuedAt) {
+        Long deniedAt = deniedAtByUser.get(userUuid);
+        if (deniedAt == null) return false;
+        return issuedAt == null || issuedAt.getTime() <= deniedAt;
+    }
+
+    int size() {
+        return deniedAtByUser.size();
+    }
+}
@@ -0,0 +1,121 @@
+package za.ac.cput.security;
+
+import io.jsonwebtoken.Claims;
+import za.ac.cput.utils.SecurityUtils;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * VerifiedTokenCache.java
+ * A bounded, expiry-aware cache of access tokens whose signature has already been verified.
+ * Clients send the same bearer token on every request until it expires, so remembering the
+ * parsed claims lets repeat requests skip parsing and signature verification entirely.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the whole token ({@link SecurityUtils#sha256Hex}), so a
+ * hit means the exact token was verified before, and raw tokens are never held in memory. Hashing a
+ * token costs about a microsecond, far less than the signature check it saves. Reads go through a
+ * {@link ConcurrentHashMap} without locking; entries are dropped once the token's own expiration
+ * passes, and when the cache grows past its bound a single thread evicts expired entries and then
+ * the least recently used ones.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong ticks = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private static final class Entry {
+        private final Claims claims;
+        private final long expiresAtMs;
+        private volatile long lastUsed;
+
+        private Entry(Claims claims, long expiresAtMs, long lastUsed) {
+            this.claims = claims;
+            this.expiresAtMs = expiresAtMs;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    VerifiedTokenCache(int maxEntries, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the claims of a previously verified token, or {@code null} if the token is unknown or has expired.
+     *
+     * @param token The raw JWT string.
+     * @return The cached claims, or {@code null}.
+     */
+    Claims get(String token) {
+        if (maxEntries <= 0) return null;
+        String key = SecurityUtils.sha256Hex(token);
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAtMs <= clock.millis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        entry.lastUsed = ticks.incrementAndGet();
+        return entry.claims;
+    }
+
+    /**
+     * Remembers the claims of a token whose signature has just been verified.
+     * Tokens without an expiration claim are not cached.
+     *
+     * @param token  The raw JWT string.
+     * @param claims The verified claims of the token.
+     */
+    void put(String token, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (maxEntries <= 0 || expiration == null) return;
+        entries.put(SecurityUtils.sha256Hex(token), new Entry(claims, expiration.getTime(), ticks.incrementAndGet()));
+        evict();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Brings the cache back within its bound. Only one thread sweeps at a time; the others carry on,
+     * since the sweeping thread checks the size again and removes their surplus too. The bound can
+     * therefore be overshot by at most the entries inserted while the last sweep was finishing.
+     * Sweeps go a tenth below the bound so that a full cache is not scanned again on the next insert.
+     */
+    private void evict() {
+        while (entries.size() > maxEntries && evictionLock.tryLock()) {
+            try {
+                long now = clock.millis();
+                entries.values().removeIf(entry -> entry.expiresAtMs <= now);
+                int excess = entries.size() - (maxEntries - maxEntries / 10);
+                if (excess <= 0) continue;
+                // Readers keep touching entries during the sweep, so rank a snapshot of the last-use ticks
+                // and evict up to the threshold; an entry used since the snapshot ranks above it and stays.
+                long[] lastUses = entries.values().stream().mapToLong(entry -> entry.lastUsed).sorted().toArray();
+                if (lastUses.length == 0) continue;
+                long threshold = lastUses[Math.min(excess, lastUses.length) - 1];
+                Iterator<Entry> iterator = entries.values().iterator();
+                for (int removed = 0; removed < excess && iterator.hasNext(); ) {
+                    if (iterator.next().lastUsed <= threshold) {
+                        iterator.remove();
+                        removed++;
+                    }
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+}
@@ -62,6 +62,17 @@ public interface IAuthService {
      */
     boolean logoutUser(int userId, HttpServletResponse httpServletResponse);
 
+    /**
+     * Logs out the device holding the given refresh token, leaving the user's other devices signed in.
+     * Without a refresh token every device of the user is logged out.
+     *
+     * @param userId                 The internal ID of the user logging out.
+     * @param refreshTokenFromCookie The refresh token of the device logging out, or {@code null}.
+     * @param httpServletResponse    The response object to clear cookies from.
+     * @return true if logout was successful, false otherwise.
+     */
+    boolean logoutUser(int userId, String refreshTokenFromCookie, HttpServletResponse httpServletResponse);
+
     /**
      * Clears authentication-related cookies from the client.
      *
@@ -3,6 +3,7 @@ package za.ac.cput.service;
 import org.springframework.transaction.annotation.Transactional;
 import za.ac.cput.domain.entity.Booking;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -31,6 +32,17 @@ public interface IBookingService {
     @Transactional
     Booking createBooking(Booking booking);
 
+    /**
+     * Creates a batch of bookings in a single transaction.
+     * Cars and users are resolved in bulk, and every item is checked against existing CONFIRMED
+     * bookings and against the earlier items of the same batch. Items that fail validation or
+     * conflict are reported and skipped; the remaining items are persisted together.
+     *
+     * @param bookings The {@link Booking} entities to create, each referencing its user and car by UUID.
+     * @return One {@link BatchItemResult} per input booking, in the same order.
+     */
+    List<BatchItemResult> createAll(List<Booking> bookings);
+
     /**
      * Confirms an existing booking.
      * This typically changes the booking's status and may trigger other business logic
@@ -104,6 +116,16 @@ public interface IBookingService {
      */
     List<Booking> getAll();
 
+    /**
+     * Retrieves one page of non-deleted bookings using keyset pagination, ordered by internal ID.
+     * Pass the ID of the last booking of a page to fetch the next one.
+     *
+     * @param lastSeenId The internal ID of the last booking already seen (0 to start from the beginning).
+     * @param limit      The maximum number of bookings to return.
+     * @return Up to {@code limit} bookings with an ID greater than {@code lastSeenId}. Empty when exhausted.
+     */
+    List<Booking> getPage(int lastSeenId, int limit);
+
     /**
      * Retrieves all bookings that are scheduled for collection today.
      * This is useful for operations that need to process today's bookings.
@@ -111,4 +133,50 @@ public interface IBookingService {
      * @return A list of {@link Booking} entities that are scheduled for collection today.
      */
     List<Booking> findBookingsForCollectionToday();
-}
\ No newline at end of file
+
+    /**
+     * Checks whether a car has a CONFIRMED, non-deleted booking overlapping the given period.
+     * This is a lean existence check: no {@link Booking} entities are loaded.
+     *
+     * @param carId            The internal integer ID of the car.
+     * @param startDate        The start of the period to check.
+     * @param endDate          The end of the period to check.
+     * @param excludeBookingId A booking ID to ignore (e.g., the booking being updated), or {@code null}.
+     * @return {@code true} if the car is already booked for any part of the period.
+     */
+    boolean hasConflictingBooking(int carId, LocalDateTime startDate, LocalDateTime endDate, Integer excludeBookingId);
+
+    /**
+     * Finds the IDs of CONFIRMED, non-deleted bookings of a car that overlap the given period,
+     * without loading the {@link Booking} entities.
+     *
+     * @param carId            The internal integer ID of the car.
+     * @param startDate        The start of the period to check.
+     * @param endDate          The end of the period to check.
+     * @param excludeBookingId A booking ID to ignore (e.g., the booking being updated), or {@code null}.
+     * @return The IDs of the conflicting bookings. Empty if the car is free for the period.
+     */
+    int[] findConflictingBookingIds(int carId, LocalDateTime startDate, LocalDateTime endDate, Integer excludeBookingId);
+
+    /**
+     * Outcome of one item of {@link #createAll(List)}: either the created booking or the reason it was rejected.
+     *
+     * @param index   The position of the item in the submitted batch.
+     * @param booking The persisted booking, or {@code null} if the item was rejected.
+     * @param error   The reason the item was rejected, or {@code null} on success.
+     */
+    record BatchItemResult(int index, Booking booking, String error) {
+
+        public static BatchItemResult success(int index, Booking booking) {
+            return new BatchItemResult(index, booking, null);
+        }
+
+        public static BatchItemResult failure(int index, String error) {
+            return new BatchItemResult(index, null, error);
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
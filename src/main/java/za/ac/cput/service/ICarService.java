@@ -1,12 +1,16 @@
 package za.ac.cput.service;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import za.ac.cput.domain.dto.request.CarSearchRequestDTO;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.enums.PriceGroup;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -141,4 +145,45 @@ public interface ICarService extends IService<Car, Integer> {
 
     @Transactional(readOnly = true)
     List<Car> findAvailableCarsByDateRange(LocalDate startDate, LocalDate endDate);
-}
\ No newline at end of file
+
+    /**
+     * One page of a car search, with the facet counts and total of all its matches.
+     *
+     * @param cars       The matching cars of this page, ordered by ID.
+     * @param facets     Facet name ({@code category}, {@code priceGroup}, {@code make}, {@code model}, {@code year})
+     *                   to a map of value to the number of matching cars with that value. Text values are
+     *                   trimmed and lower-cased, the way the search compares them.
+     * @param nextCursor The ID to pass as {@code after} for the next page, or {@code null} on the last page.
+     * @param hasMore    Whether another page follows.
+     * @param totalItems The number of matching cars across all pages.
+     */
+    record SearchResult(List<Car> cars, Map<String, Map<String, Integer>> facets,
+                        Integer nextCursor, boolean hasMore, long totalItems) {
+    }
+
+    /**
+     * Searches the available, non-deleted cars by any combination of category, price group, make, model,
+     * year range and, when both dates are given, freedom from bookings in that date range.
+     *
+     * @param criteria The search criteria; absent criteria are ignored.
+     * @param after    The {@code nextCursor} of the previous page, or {@code null} for the first page.
+     * @param size     The page size, capped at 100.
+     * @return One page of the matching cars with the facet counts of all matches.
+     * @throws za.ac.cput.exception.BadRequestException if only one date is given or a range is inverted.
+     */
+    SearchResult search(CarSearchRequestDTO criteria, Integer after, int size);
+
+    /**
+     * Retrieves one page of non-deleted cars, sorted by {@code id}, {@code year}, {@code make} or {@code priceGroup}.
+     * With a cursor the page is read by keyset (constant cost however deep); without one, {@code pageable}'s page
+     * number is used as an offset, which is only allowed for shallow pages.
+     *
+     * @param availableOnly Whether to list only available cars.
+     * @param pageable      The page size and sort; the page number is ignored when {@code after} is given.
+     * @param after         The {@code nextCursor} of the previous page, or {@code null}.
+     * @param includeTotal  Whether to run a count query for {@code totalItems}.
+     * @return The page of cars with the cursor of the next page.
+     * @throws za.ac.cput.exception.BadRequestException for an unsupported sort, an unknown cursor or too deep an offset.
+     */
+    CursorPageDTO<Car> getPage(boolean availableOnly, Pageable pageable, Integer after, boolean includeTotal);
+}
@@ -3,7 +3,12 @@ package za.ac.cput.service;
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -16,6 +21,25 @@ import java.util.Optional;
  */
 public interface IFileStorageService {
 
+    /**
+     * Metadata of a stored file, as needed to answer conditional and range requests.
+     *
+     * @param contentLength The size of the file in bytes.
+     * @param lastModified  When the file was last written, or {@code null} if unknown.
+     * @param eTag          An opaque, unquoted validator that changes whenever the content does.
+     */
+    record FileMetadata(long contentLength, Instant lastModified, String eTag) {
+    }
+
+    /**
+     * The number and total size of the files under one top-level folder.
+     *
+     * @param fileCount  The number of files.
+     * @param totalBytes Their total size in bytes.
+     */
+    record FolderUsage(long fileCount, long totalBytes) {
+    }
+
     /**
      * Saves a file to the storage system within a specified logical directory.
      *
@@ -25,6 +49,16 @@ public interface IFileStorageService {
      */
     String save(MultipartFile file, String directory);
 
+    /**
+     * Saves content under an exact key chosen by the caller, replacing any existing file with that key.
+     * Used for files derived from stored ones, such as resized image variants.
+     *
+     * @param key         The key to store the content under (e.g., "variants/cars/uuid-w320.jpg").
+     * @param content     The file content.
+     * @param contentType The MIME type of the content.
+     */
+    void store(String key, byte[] content, String contentType);
+
     /**
      * Retrieves a file as a Spring Resource, wrapped in an Optional.
      *
@@ -33,6 +67,36 @@ public interface IFileStorageService {
      */
     Optional<Resource> loadAsResource(String key);
 
+    /**
+     * Reads a file's metadata from the storage system without reading its content.
+     *
+     * @param key The unique key of the file (e.g., "cars/uuid.jpg").
+     * @return An Optional containing the metadata, or empty if not found.
+     */
+    Optional<FileMetadata> getMetadata(String key);
+
+    /**
+     * Writes a byte range of a file to the given stream.
+     *
+     * @param key    The unique key of the file.
+     * @param offset The position of the first byte to write.
+     * @param length The number of bytes to write.
+     * @param out    The stream to write to; it is not closed.
+     * @throws IOException if the file cannot be read or the stream cannot be written.
+     */
+    void copyTo(String key, long offset, long length, OutputStream out) throws IOException;
+
+    /**
+     * Returns where a file lives on the local filesystem, for backends that keep files there, so the servlet
+     * container can send it with sendfile instead of copying it through {@link #copyTo}.
+     *
+     * @param key The unique key of the file.
+     * @return The absolute path of the file, or empty if the file is not a local file.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
     /**
      * Deletes a file from the storage system.
      *
@@ -41,6 +105,16 @@ public interface IFileStorageService {
      */
     boolean delete(String key);
 
+    /**
+     * Deletes a file whose size the caller already knows, e.g. from {@link #listFiles(String)}, so that
+     * the storage usage ledger can be kept without looking the file up first.
+     *
+     * @param key  The unique key of the file to delete.
+     * @param size The size of the file in bytes.
+     * @return true if the file was deleted or did not exist; false if an error occurred.
+     */
+    boolean delete(String key, long size);
+
     /**
      * Checks if a file exists in the storage system.
      *
@@ -49,6 +123,22 @@ public interface IFileStorageService {
      */
     boolean fileExists(String key);
 
+    /**
+     * Lists all files stored under a prefix with their sizes, with a single listing rather than one check per file.
+     *
+     * @param prefix The prefix to list (e.g., "cars/"); it may end in the middle of a file name.
+     * @return The full key of each file under the prefix (e.g., "cars/uuid.jpg") mapped to its size in bytes.
+     */
+    Map<String, Long> listFiles(String prefix);
+
+    /**
+     * Counts every stored file, walking the whole storage once. This is expensive on large stores and
+     * is only used to reconcile the storage usage ledger, never to answer a request.
+     *
+     * @return The usage per top-level folder (e.g., "cars", "selfies").
+     */
+    Map<String, FolderUsage> scanUsage();
+
     /**
      * Gets a publicly accessible URL for a file.
      *
@@ -0,0 +1,33 @@
+package za.ac.cput.service;
+
+/**
+ * IImageVariantService.java
+ * Produces resized and re-encoded variants of stored images, so clients that only need a thumbnail
+ * are not sent the multi-megabyte original. Variants are generated on first request and stored
+ * through {@link IFileStorageService} under a key derived from the original's, then served from there.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+public interface IImageVariantService {
+
+    /**
+     * Returns the key of the file to serve for an image request, generating and storing the variant if needed.
+     * When the variant cannot be produced in time (the pool is saturated, or the original is missing or not a
+     * readable image) the original key is returned instead.
+     *
+     * @param key    The key of the original image (e.g., "cars/uuid.jpg").
+     * @param width  The requested width in pixels, or {@code null} to keep the original width.
+     * @param format The requested format ("jpg" or "png"), or {@code null} to keep the original's.
+     * @return The key of the variant, or {@code key} itself when no variant was requested or it could not be produced.
+     * @throws za.ac.cput.exception.BadRequestException if the folder, width or format is not supported.
+     */
+    String resolveVariant(String key, Integer width, String format);
+
+    /**
+     * Deletes every stored variant of an image. Call this when the original is deleted.
+     *
+     * @param key The key of the original image.
+     */
+    void deleteVariants(String key);
+}
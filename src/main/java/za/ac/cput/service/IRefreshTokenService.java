@@ -26,16 +26,24 @@ public interface IRefreshTokenService {
     Optional<RefreshToken> findByToken(String token);
 
     /**
-     * Creates or updates a refresh token for a given user ID.
-     * If an existing token is found, it's typically updated (e.g., new token string, new expiry).
-     * Otherwise, a new token is created.
+     * Creates a refresh token starting a new token family, one per signed-in device.
+     * Tokens the user holds on other devices remain valid.
      *
      * @param userId The internal integer ID of the user.
-     * @return The created or updated {@link RefreshToken}.
+     * @return The created {@link RefreshToken}; {@link RefreshToken#getToken()} holds the raw token for the client.
      * @throws za.ac.cput.exception.ResourceNotFoundException if the user with userId is not found.
      */
     RefreshToken createRefreshToken(Integer userId);
 
+    /**
+     * Rotates a verified refresh token: the presented token stops working and a new one is returned.
+     *
+     * @param token The verified {@link RefreshToken} being used.
+     * @return The rotated token; {@link RefreshToken#getToken()} holds the new raw token for the client.
+     * @throws za.ac.cput.exception.TokenRefreshException if the token was already used or has expired.
+     */
+    RefreshToken rotateRefreshToken(RefreshToken token);
+
     /**
      * Verifies the validity of a refresh token, primarily checking its expiration.
      * May include other checks like device verification in future implementations.
@@ -64,6 +72,13 @@ public interface IRefreshTokenService {
      */
     void deleteByToken(String token);
 
+    /**
+     * Revokes the token family of the device holding the given token, signing out that device only.
+     *
+     * @param token The raw refresh token string.
+     */
+    void revokeFamily(String token);
+
     /**
      * Deletes all refresh tokens associated with a given {@link User} object.
      * Preferred when the User object is already available to avoid an extra database lookup for the user.
@@ -71,4 +86,11 @@ public interface IRefreshTokenService {
      * @param user The {@link User} entity whose refresh tokens are to be deleted.
      */
     void deleteByUser(User user);
-}
\ No newline at end of file
+
+    /**
+     * Deletes all expired refresh tokens.
+     *
+     * @return The number of tokens deleted.
+     */
+    int purgeExpiredTokens();
+}
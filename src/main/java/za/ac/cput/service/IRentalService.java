@@ -59,6 +59,16 @@ public interface IRentalService extends IService<Rental, Integer> {
      */
     List<Rental> getAll();
 
+    /**
+     * Retrieves one page of non-deleted rentals using keyset pagination, ordered by internal ID.
+     * Pass the ID of the last rental of a page to fetch the next one.
+     *
+     * @param lastSeenId The internal ID of the last rental already seen (0 to start from the beginning).
+     * @param limit      The maximum number of rentals to return.
+     * @return Up to {@code limit} rentals with an ID greater than {@code lastSeenId}. Empty when exhausted.
+     */
+    List<Rental> getPage(int lastSeenId, int limit);
+
     /**
      * Checks if a user is currently renting any car (i.e., has an active rental with no return date).
      *
@@ -46,18 +46,22 @@ public interface IStorageManagementService {
     void deleteCarImageAssociation(UUID imageUuid);
 
     /**
-     * Calculates statistics about the file storage system.
-     * Note: This can be an expensive operation on cloud object storage.
+     * Reads statistics about the file storage system from the storage usage ledger.
      *
      * @return A map containing file count and formatted total size.
      */
     Map<String, Object> getFileSystemStats();
 
     /**
-     * Calculates the storage size used by each major folder.
-     * Note: This can be an expensive operation on cloud object storage.
+     * Reads the storage size used by each major folder from the storage usage ledger.
      *
      * @return A map where the key is the folder name and the value is the size in bytes.
      */
     Map<String, Long> getStorageUsagePerFolder();
+
+    /**
+     * Recounts every stored file and replaces the storage usage ledger with the result.
+     * Note: This walks the whole storage and is meant to run periodically in the background.
+     */
+    void reconcileStorageUsage();
 }
\ No newline at end of file
@@ -14,7 +14,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import za.ac.cput.domain.entity.security.RefreshToken;
@@ -25,9 +24,13 @@ import za.ac.cput.exception.BadRequestException;
 import za.ac.cput.exception.EmailAlreadyExistsException;
 import za.ac.cput.exception.InvalidTokenException;
 import za.ac.cput.exception.TokenRefreshException;
+import za.ac.cput.exception.TooManyRequestsException;
 import za.ac.cput.repository.IRoleRepository;
 import za.ac.cput.repository.UserRepository;
+import za.ac.cput.security.AuthRateLimiter;
+import za.ac.cput.security.BoundedPasswordEncoder;
 import za.ac.cput.security.JwtUtilities;
+import za.ac.cput.security.TokenDenyList;
 import za.ac.cput.service.IAuthService;
 import za.ac.cput.service.IEmailService;
 import za.ac.cput.service.IRefreshTokenService;
@@ -60,11 +63,13 @@ public class AuthServiceImpl implements IAuthService {
     private final IUserService userService;
     private final UserRepository userRepository;
     private final IRoleRepository roleRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final BoundedPasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtilities jwtUtilities;
     private final IRefreshTokenService refreshTokenService;
     private final IEmailService emailService; // <-- INJECT THE EMAIL SERVICE
+    private final TokenDenyList tokenDenyList;
+    private final AuthRateLimiter authRateLimiter;
 
 
     @Value("${jwt.refresh-token.expiration-ms}")
@@ -87,20 +92,24 @@ public class AuthServiceImpl implements IAuthService {
      *
      * @param userService           Service for user data operations (e.g., checking email existence, creating user).
      * @param roleRepository        Repository for role data access (e.g., finding default roles).
-     * @param passwordEncoder       Encoder for hashing user passwords.
+     * @param passwordEncoder       Encoder for hashing user passwords; also upgrades outdated hashes after login.
      * @param authenticationManager Spring's authentication manager for validating credentials.
      * @param jwtUtilities          Utility for JWT generation and cookie creation.
      * @param refreshTokenService   Service for managing the lifecycle of refresh tokens.
+     * @param tokenDenyList         Revokes outstanding access tokens on logout.
+     * @param authRateLimiter       Limits login attempts per account.
      */
     @Autowired
     public AuthServiceImpl(IUserService userService,
                            UserRepository userRepository,
                            IRoleRepository roleRepository,
-                           PasswordEncoder passwordEncoder,
+                           BoundedPasswordEncoder passwordEncoder,
                            AuthenticationManager authenticationManager,
                            JwtUtilities jwtUtilities,
                            IRefreshTokenService refreshTokenService,
-                           IEmailService emailService
+                           IEmailService emailService,
+                           TokenDenyList tokenDenyList,
+                           AuthRateLimiter authRateLimiter
     ) {
         this.userService = userService;
         this.userRepository = userRepository;
@@ -110,6 +119,8 @@ public class AuthServiceImpl implements IAuthService {
         this.jwtUtilities = jwtUtilities;
         this.refreshTokenService = refreshTokenService;
         this.emailService = emailService;
+        this.tokenDenyList = tokenDenyList;
+        this.authRateLimiter = authRateLimiter;
         log.info("AuthServiceImpl initialized. Secure cookie flag: {}, Refresh token cookie name: '{}', Path: '{}', Duration: {}ms",
                 secureCookie, refreshTokenCookieName, refreshTokenCookiePath, refreshTokenDurationMs);
     }
@@ -230,6 +241,12 @@ public class AuthServiceImpl implements IAuthService {
     @Override
     public AuthDetails loginUser(String email, String plainPassword, HttpServletResponse httpServletResponse) {
         log.info("AuthService: Attempting to authenticate user with email: '{}'", email);
+        long retryAfterMs = authRateLimiter.acquireLoginForAccount(email);
+        if (retryAfterMs > 0) {
+            log.warn("AuthService: Too many login attempts for '{}'. Retry in {} ms.", email, retryAfterMs);
+            throw new TooManyRequestsException("Too many login attempts for this account. Please try again later.",
+                    Math.ceilDiv(retryAfterMs, 1000L));
+        }
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(email, plainPassword)
@@ -251,6 +268,11 @@ public class AuthServiceImpl implements IAuthService {
                     .map(Role::getRoleName) // Uses Role.getRoleName() which returns String
                     .collect(Collectors.toList());
 
+            // Rehash with the current algorithm/cost off the request thread if the stored hash is outdated
+            String storedHash = user.getPassword();
+            passwordEncoder.upgradeEncodingInBackground(plainPassword, storedHash,
+                    newHash -> userRepository.upgradePasswordHash(user.getId(), storedHash, newHash));
+
             String accessToken = jwtUtilities.generateToken(user, roleNames);
             RefreshToken refreshTokenEntity = refreshTokenService.createRefreshToken(user.getId()); // Manages DB persistence
 
@@ -291,11 +313,10 @@ public class AuthServiceImpl implements IAuthService {
                     log.debug("AuthService: User ID: {} (Email: '{}') verified for token refresh. Proceeding to rotate refresh token.",
                             user.getId(), user.getEmail());
 
-                    refreshTokenService.deleteByToken(refreshTokenFromCookie); // Invalidate (delete) the used refresh token
-                    log.debug("AuthService: Old refresh token (ending ...{}) invalidated/deleted from DB.",
+                    // Replaces the used refresh token in one UPDATE; throws if it was already used concurrently
+                    RefreshToken newRefreshTokenEntity = refreshTokenService.rotateRefreshToken(validRefreshTokenEntity);
+                    log.debug("AuthService: Old refresh token (ending ...{}) invalidated by rotation.",
                             refreshTokenFromCookie.substring(Math.max(0, refreshTokenFromCookie.length() - 6)));
-
-                    RefreshToken newRefreshTokenEntity = refreshTokenService.createRefreshToken(user.getId()); // Create a new one
                     ResponseCookie newRefreshTokenCookie = generateHttpOnlyRefreshTokenCookie(newRefreshTokenEntity.getToken());
                     httpServletResponse.addHeader(HttpHeaders.SET_COOKIE, newRefreshTokenCookie.toString());
                     log.info("AuthService: New refresh token cookie set for user ID: {}.", user.getId());
@@ -319,11 +340,25 @@ public class AuthServiceImpl implements IAuthService {
      */
     @Override
     public boolean logoutUser(int userId, HttpServletResponse httpServletResponse) {
+        return logoutUser(userId, null, httpServletResponse);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean logoutUser(int userId, String refreshTokenFromCookie, HttpServletResponse httpServletResponse) {
         log.info("AuthService: Performing logout for user ID: {}", userId);
         try {
-            // Step 1: Invalidate server-side refresh token(s) for the user
-            refreshTokenService.deleteByUserId(userId);
-            log.debug("AuthService: Server-side refresh tokens potentially invalidated for user ID: {}.", userId);
+            // Step 1: Invalidate server-side refresh token(s): the device's family only, or every device
+            if (refreshTokenFromCookie != null && !refreshTokenFromCookie.isEmpty()) {
+                refreshTokenService.revokeFamily(refreshTokenFromCookie);
+                log.debug("AuthService: Refresh token family of the current device invalidated for user ID: {}.", userId);
+            } else {
+                refreshTokenService.deleteByUserId(userId);
+                log.debug("AuthService: Server-side refresh tokens potentially invalidated for user ID: {}.", userId);
+            }
+            userRepository.findById(userId).ifPresent(user -> tokenDenyList.deny(user.getUuid())); // Revoke access tokens too
 
             // Step 2: Instruct client to clear its authentication cookies
             clearAuthCookies(httpServletResponse);
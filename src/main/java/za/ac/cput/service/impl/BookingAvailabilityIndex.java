@@ -0,0 +1,404 @@
+package za.ac.cput.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import za.ac.cput.domain.entity.Booking;
+import za.ac.cput.domain.enums.BookingStatus;
+import za.ac.cput.repository.BookingRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * BookingAvailabilityIndex.java
+ * In-memory index of CONFIRMED, non-deleted bookings, grouped per car, used to answer
+ * "does this period overlap an existing booking?" without a database round trip.
+ * <p>
+ * Each car holds an immutable snapshot of its booking intervals sorted by start time, together
+ * with a running maximum of the end times. A lookup is a binary search for the last interval
+ * starting before the proposed end, followed by a short backwards walk that stops as soon as the
+ * running maximum falls behind the proposed start. Snapshots are replaced copy-on-write, so reads
+ * never lock; writes are serialized on the index.
+ * <p>
+ * Alongside the per-car intervals the index keeps an occupancy calendar: one {@link BitSet} per day,
+ * with bit {@code carId} set when the car has a booking touching that day. "Which cars are booked
+ * between A and B" is then the bitwise OR of the days in the range, which callers AND-NOT against
+ * their candidate fleet instead of sending a {@code NOT IN (...)} list to the database.
+ * <p>
+ * The index mirrors the rows matched by {@link BookingRepository#findOverlappingBookings}. It is
+ * rebuilt from the database once the application is ready and kept in sync by {@link BookingServiceImpl}
+ * after each transaction commits. Requests are served before the application is ready, so changes committed
+ * while the rebuild reads the database are recorded and replayed over the snapshot it installs; otherwise a
+ * booking confirmed in that window would be missing from an index that reports itself ready. Until the rebuild has completed (or when the index is disabled via
+ * {@code app.booking.availability-index.enabled=false}, e.g. when running several replicas against one
+ * database) {@link #isReady()} returns {@code false} and callers must fall back to the database.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class BookingAvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingAvailabilityIndex.class);
+    private static final CarIntervals EMPTY = new CarIntervals(new long[0], new long[0], new long[0], new int[0]);
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    private final BookingRepository bookingRepository;
+    private final boolean enabled;
+
+    private final Map<Integer, CarIntervals> intervalsByCar = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> carByBooking = new ConcurrentHashMap<>();
+    // Epoch day -> IDs of cars booked on that day. Published bitsets are never mutated.
+    private final NavigableMap<Long, BitSet> bookedCarsByDay = new ConcurrentSkipListMap<>();
+    private volatile boolean ready = false;
+    // Changes applied while a rebuild is reading the database, or null when none is; guarded by this.
+    private List<Runnable> changesDuringRebuild;
+
+    public BookingAvailabilityIndex(BookingRepository bookingRepository,
+                                    @Value("${app.booking.availability-index.enabled:true}") boolean enabled) {
+        this.bookingRepository = bookingRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Loads every CONFIRMED, non-deleted booking into the index once the application context is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Booking availability index is disabled; overlap checks will query the database.");
+            return;
+        }
+        startRecordingChanges();
+        try {
+            rebuild(bookingRepository.findIntervalsByStatus(BookingStatus.CONFIRMED));
+        } catch (RuntimeException e) {
+            stopRecordingChanges();
+            log.error("Failed to build booking availability index; overlap checks will query the database.", e);
+        }
+    }
+
+    /**
+     * Starts recording the changes synced from now on, so that {@link #rebuild} can replay those its
+     * snapshot was read too early to contain. Replaying is safe for changes the snapshot already has,
+     * since each change puts or removes the booking as a whole.
+     */
+    synchronized void startRecordingChanges() {
+        changesDuringRebuild = new ArrayList<>();
+    }
+
+    private synchronized void stopRecordingChanges() {
+        changesDuringRebuild = null;
+    }
+
+    /**
+     * Replaces the whole index with the given intervals, replays the changes recorded since
+     * {@link #startRecordingChanges()} was called, if it was, and marks the index ready.
+     *
+     * @param intervals The CONFIRMED, non-deleted booking intervals to index.
+     */
+    public synchronized void rebuild(Collection<BookingRepository.BookingInterval> intervals) {
+        Map<Integer, List<BookingRepository.BookingInterval>> grouped = new HashMap<>();
+        for (BookingRepository.BookingInterval interval : intervals) {
+            grouped.computeIfAbsent(interval.getCarId(), k -> new ArrayList<>()).add(interval);
+        }
+
+        Map<Long, BitSet> days = new HashMap<>();
+        intervalsByCar.clear();
+        carByBooking.clear();
+        grouped.forEach((carId, list) -> {
+            long[] starts = new long[list.size()];
+            long[] ends = new long[list.size()];
+            int[] ids = new int[list.size()];
+            list.sort(Comparator.comparing(BookingRepository.BookingInterval::getStartDate));
+            for (int i = 0; i < list.size(); i++) {
+                BookingRepository.BookingInterval interval = list.get(i);
+                starts[i] = toMicros(interval.getStartDate());
+                ends[i] = toMicros(interval.getEndDate());
+                ids[i] = interval.getId();
+                carByBooking.put(interval.getId(), carId);
+                for (long day = firstDay(starts[i]); day <= lastDay(ends[i]); day++) {
+                    days.computeIfAbsent(day, k -> new BitSet()).set(carId);
+                }
+            }
+            intervalsByCar.put(carId, new CarIntervals(starts, ends, maxEnds(ends), ids));
+        });
+        bookedCarsByDay.clear();
+        bookedCarsByDay.putAll(days);
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.forEach(Runnable::run);
+            log.info("Replayed {} booking change(s) committed while the availability index was loading.", changesDuringRebuild.size());
+            changesDuringRebuild = null;
+        }
+        ready = true;
+        log.info("Booking availability index built with {} booking(s) across {} car(s).", carByBooking.size(), intervalsByCar.size());
+    }
+
+    /**
+     * @return {@code true} if the index has been built and may be trusted for overlap checks.
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Finds the IDs of indexed bookings for a car that overlap the proposed period.
+     * An overlap occurs if {@code booking.start < proposedEnd && booking.end > proposedStart}.
+     *
+     * @param carId            The internal ID of the car.
+     * @param proposedStart    The start of the period to check.
+     * @param proposedEnd      The end of the period to check.
+     * @param excludeBookingId A booking ID to ignore (e.g. the booking being updated), or {@code null}.
+     * @return The IDs of the overlapping bookings; empty if the period is free.
+     */
+    public int[] findConflicts(int carId, LocalDateTime proposedStart, LocalDateTime proposedEnd, Integer excludeBookingId) {
+        CarIntervals car = intervalsByCar.getOrDefault(carId, EMPTY);
+        long start = toMicros(proposedStart);
+        long end = toMicros(proposedEnd);
+
+        int[] conflicts = null;
+        int count = 0;
+        for (int i = car.lastStartingBefore(end); i >= 0 && car.maxEnds[i] > start; i--) {
+            if (car.ends[i] > start && (excludeBookingId == null || car.ids[i] != excludeBookingId)) {
+                if (conflicts == null) {
+                    conflicts = new int[Math.min(4, i + 1)];
+                } else if (count == conflicts.length) {
+                    conflicts = Arrays.copyOf(conflicts, count * 2);
+                }
+                conflicts[count++] = car.ids[i];
+            }
+        }
+        return conflicts == null ? new int[0] : Arrays.copyOf(conflicts, count);
+    }
+
+    /**
+     * @return {@code true} if any indexed booking other than {@code excludeBookingId} overlaps the period.
+     * @see #findConflicts(int, LocalDateTime, LocalDateTime, Integer)
+     */
+    public boolean hasConflict(int carId, LocalDateTime proposedStart, LocalDateTime proposedEnd, Integer excludeBookingId) {
+        return intervalsByCar.getOrDefault(carId, EMPTY)
+                .overlaps(toMicros(proposedStart), toMicros(proposedEnd), excludeBookingId);
+    }
+
+    /**
+     * Finds the IDs of all cars with an indexed booking touching any day from {@code startDate}
+     * to {@code endDate} inclusive, i.e. overlapping {@code [startDate 00:00, endDate + 1 day 00:00)}.
+     *
+     * @param startDate The first day of the period.
+     * @param endDate   The last day of the period (inclusive).
+     * @return A new {@link BitSet} with one bit set per booked car ID.
+     */
+    public BitSet findBookedCarIds(LocalDate startDate, LocalDate endDate) {
+        BitSet booked = new BitSet();
+        for (BitSet day : bookedCarsByDay.subMap(startDate.toEpochDay(), true, endDate.toEpochDay(), true).values()) {
+            booked.or(day);
+        }
+        return booked;
+    }
+
+    /**
+     * Brings the index in line with the given booking once the surrounding transaction commits,
+     * or immediately if no transaction is active. Rolled-back changes never reach the index.
+     *
+     * @param booking The booking as persisted.
+     */
+    public void syncAfterCommit(Booking booking) {
+        if (booking == null || booking.getCar() == null) {
+            return;
+        }
+        final int bookingId = booking.getId();
+        final int carId = booking.getCar().getId();
+        final boolean active = booking.getStatus() == BookingStatus.CONFIRMED && !booking.isDeleted();
+        final LocalDateTime start = booking.getStartDate();
+        final LocalDateTime end = booking.getEndDate();
+
+        Runnable change = () -> {
+            if (active && start != null && end != null) {
+                put(bookingId, carId, start, end);
+            } else {
+                remove(bookingId);
+            }
+        };
+        Runnable apply = () -> apply(change);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Applies a change now and, while a rebuild is loading, records it for replay.
+     */
+    private synchronized void apply(Runnable change) {
+        change.run();
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+    }
+
+    /**
+     * Adds or moves a booking interval, replacing any previous entry for the same booking.
+     */
+    synchronized void put(int bookingId, int carId, LocalDateTime start, LocalDateTime end) {
+        remove(bookingId);
+        CarIntervals current = intervalsByCar.getOrDefault(carId, EMPTY);
+        long s = toMicros(start);
+        int at = current.lastStartingBefore(s + 1) + 1; // insert after any interval with the same start
+        int n = current.ids.length;
+
+        long[] starts = new long[n + 1];
+        long[] ends = new long[n + 1];
+        int[] ids = new int[n + 1];
+        System.arraycopy(current.starts, 0, starts, 0, at);
+        System.arraycopy(current.ends, 0, ends, 0, at);
+        System.arraycopy(current.ids, 0, ids, 0, at);
+        starts[at] = s;
+        ends[at] = toMicros(end);
+        ids[at] = bookingId;
+        System.arraycopy(current.starts, at, starts, at + 1, n - at);
+        System.arraycopy(current.ends, at, ends, at + 1, n - at);
+        System.arraycopy(current.ids, at, ids, at + 1, n - at);
+
+        intervalsByCar.put(carId, new CarIntervals(starts, ends, maxEnds(ends), ids));
+        carByBooking.put(bookingId, carId);
+        for (long day = firstDay(starts[at]); day <= lastDay(ends[at]); day++) {
+            updateDay(day, carId, true);
+        }
+    }
+
+    /**
+     * Removes a booking from the index, if present.
+     */
+    synchronized void remove(int bookingId) {
+        Integer carId = carByBooking.remove(bookingId);
+        if (carId == null) {
+            return;
+        }
+        CarIntervals current = intervalsByCar.getOrDefault(carId, EMPTY);
+        int n = current.ids.length;
+        int at = -1;
+        for (int i = 0; i < n; i++) {
+            if (current.ids[i] == bookingId) {
+                at = i;
+                break;
+            }
+        }
+        if (at < 0) {
+            return;
+        }
+        CarIntervals remaining = EMPTY;
+        if (n == 1) {
+            intervalsByCar.remove(carId);
+        } else {
+            long[] starts = new long[n - 1];
+            long[] ends = new long[n - 1];
+            int[] ids = new int[n - 1];
+            System.arraycopy(current.starts, 0, starts, 0, at);
+            System.arraycopy(current.ends, 0, ends, 0, at);
+            System.arraycopy(current.ids, 0, ids, 0, at);
+            System.arraycopy(current.starts, at + 1, starts, at, n - at - 1);
+            System.arraycopy(current.ends, at + 1, ends, at, n - at - 1);
+            System.arraycopy(current.ids, at + 1, ids, at, n - at - 1);
+            remaining = new CarIntervals(starts, ends, maxEnds(ends), ids);
+            intervalsByCar.put(carId, remaining);
+        }
+        // Another booking of the same car may still cover some of the freed days.
+        for (long day = firstDay(current.starts[at]); day <= lastDay(current.ends[at]); day++) {
+            updateDay(day, carId, remaining.overlaps(day * MICROS_PER_DAY, (day + 1) * MICROS_PER_DAY, null));
+        }
+    }
+
+    /**
+     * Sets or clears a car's bit for one day by publishing a modified copy of that day's bitset.
+     */
+    private void updateDay(long day, int carId, boolean booked) {
+        BitSet current = bookedCarsByDay.get(day);
+        if (current != null && current.get(carId) == booked || current == null && !booked) {
+            return;
+        }
+        BitSet updated = current == null ? new BitSet() : (BitSet) current.clone();
+        updated.set(carId, booked);
+        if (updated.isEmpty()) {
+            bookedCarsByDay.remove(day);
+        } else {
+            bookedCarsByDay.put(day, updated);
+        }
+    }
+
+    private static long firstDay(long startMicros) {
+        return Math.floorDiv(startMicros, MICROS_PER_DAY);
+    }
+
+    private static long lastDay(long endMicros) {
+        return Math.floorDiv(endMicros - 1, MICROS_PER_DAY); // end is exclusive
+    }
+
+    private static long[] maxEnds(long[] ends) {
+        long[] maxEnds = new long[ends.length];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+        return maxEnds;
+    }
+
+    /**
+     * Converts a timestamp to microseconds, the finest precision a MySQL DATETIME column keeps.
+     */
+    private static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    /**
+     * Immutable, start-ordered booking intervals of a single car.
+     * {@code maxEnds[i]} is the latest end among intervals {@code 0..i}.
+     */
+    private record CarIntervals(long[] starts, long[] ends, long[] maxEnds, int[] ids) {
+
+        /**
+         * @return The index of the last interval whose start is strictly before {@code time}, or -1.
+         */
+        int lastStartingBefore(long time) {
+            int low = 0;
+            int high = starts.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        /**
+         * @return {@code true} if any interval other than {@code excludeId} overlaps {@code [start, end)}.
+         */
+        boolean overlaps(long start, long end, Integer excludeId) {
+            for (int i = lastStartingBefore(end); i >= 0 && maxEnds[i] > start; i--) {
+                if (ends[i] > start && (excludeId == null || ids[i] != excludeId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
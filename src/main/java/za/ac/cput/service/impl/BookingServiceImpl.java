@@ -2,11 +2,14 @@ package za.ac.cput.service.impl;
 
 // Use org.springframework.transaction.annotation.Transactional
 
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import za.ac.cput.domain.entity.Booking;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.entity.security.User;
@@ -15,6 +18,8 @@ import za.ac.cput.exception.CarNotAvailableException;
 import za.ac.cput.exception.InvalidDateRangeException;
 import za.ac.cput.exception.ResourceNotFoundException;
 import za.ac.cput.repository.BookingRepository;
+import za.ac.cput.repository.CarRepository;
+import za.ac.cput.repository.UserRepository;
 import za.ac.cput.service.IBookingService;
 import za.ac.cput.service.ICarService;
 import za.ac.cput.service.IUserService;
@@ -22,10 +27,19 @@ import za.ac.cput.service.IUserService;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-// import java.util.stream.Collectors; // Not used in current methods
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * BookingServiceImpl.java
@@ -45,21 +59,39 @@ public class BookingServiceImpl implements IBookingService {
     private static final Logger log = LoggerFactory.getLogger(BookingServiceImpl.class); // Logger for this class
 
     private final BookingRepository bookingRepository;
+    private final CarRepository carRepository; // Bulk car lookups for batch bookings
+    private final UserRepository userRepository; // Bulk user lookups for batch bookings
     private final ICarService carService; // Use ICarService for car operations
     private final IUserService userService; // If needed for user validation/fetching
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final CarBookingLocks carBookingLocks;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Constructs the BookingServiceImpl with necessary repository and service dependencies.
      *
      * @param bookingRepository The repository for booking persistence.
+     * @param carRepository     The repository used to resolve the cars of a batch in one query.
+     * @param userRepository    The repository used to resolve the users of a batch in one query.
      * @param carService        The service for car-related operations (e.g., reading car details, checking availability).
      * @param userService       The service for user-related operations.
+     * @param availabilityIndex The in-memory index of CONFIRMED bookings used for overlap checks.
+     * @param carBookingLocks   The striped per-car locks that serialize concurrent bookings of the same car.
+     * @param transactionTemplate Runs changes to existing bookings in a transaction started once their car is locked.
      */
     @Autowired
-    public BookingServiceImpl(BookingRepository bookingRepository, ICarService carService, IUserService userService) {
+    public BookingServiceImpl(BookingRepository bookingRepository, CarRepository carRepository, UserRepository userRepository,
+                              ICarService carService, IUserService userService,
+                              BookingAvailabilityIndex availabilityIndex, CarBookingLocks carBookingLocks,
+                              TransactionTemplate transactionTemplate) {
         this.bookingRepository = bookingRepository;
+        this.carRepository = carRepository;
+        this.userRepository = userRepository;
         this.carService = carService;
         this.userService = userService;
+        this.availabilityIndex = availabilityIndex;
+        this.carBookingLocks = carBookingLocks;
+        this.transactionTemplate = transactionTemplate;
         log.info("BookingServiceImpl initialized.");
     }
 
@@ -99,37 +131,49 @@ public class BookingServiceImpl implements IBookingService {
             throw new InvalidDateRangeException("Booking duration must be at least " + minimumDurationHours + " hour(s).");
         }
 
-        Car car = carService.read(bookingDetails.getCar().getUuid());
-        if (car == null) {
-            log.warn("Booking creation failed: Car with UUID {} not found.", bookingDetails.getCar().getUuid());
-            throw new ResourceNotFoundException("Car with UUID " + bookingDetails.getCar().getUuid() + " not found.");
-        }
+        // Serialize bookings for this car until commit so the overlap check below cannot race another request.
+        Lock carLock = carBookingLocks.acquire(bookingDetails.getCar().getUuid());
+        try {
+            Car car = carService.read(bookingDetails.getCar().getUuid());
+            if (car == null) {
+                log.warn("Booking creation failed: Car with UUID {} not found.", bookingDetails.getCar().getUuid());
+                throw new ResourceNotFoundException("Car with UUID " + bookingDetails.getCar().getUuid() + " not found.");
+            }
+            String unavailable = unavailableReason(car);
+            if (unavailable != null) {
+                log.warn("Booking creation failed: Car UUID {} is not available for booking.", car.getUuid());
+                throw new CarNotAvailableException(unavailable);
+            }
 
-        User user = userService.read(bookingDetails.getUser().getUuid());
-        if (user == null) {
-            log.warn("Booking creation failed: User with UUID {} not found.", bookingDetails.getUser().getUuid());
-            throw new ResourceNotFoundException("User with UUID " + bookingDetails.getUser().getUuid() + " not found.");
-        }
+            User user = userService.read(bookingDetails.getUser().getUuid());
+            if (user == null) {
+                log.warn("Booking creation failed: User with UUID {} not found.", bookingDetails.getUser().getUuid());
+                throw new ResourceNotFoundException("User with UUID " + bookingDetails.getUser().getUuid() + " not found.");
+            }
 
 
-        if (isCarDoubleBooked(car, startDate, endDate, null)) {
-            log.warn("Booking creation failed: Car UUID {} is already booked for the selected period ({} to {}).",
-                    car.getUuid(), startDate, endDate);
-            throw new CarNotAvailableException("Car " + car.getMake() + " " + car.getModel() + " is not available for the selected dates.");
-        }
-        log.debug("Car UUID {} availability confirmed for the period.", car.getUuid());
+            if (isCarDoubleBooked(car, startDate, endDate, null)) {
+                log.warn("Booking creation failed: Car UUID {} is already booked for the selected period ({} to {}).",
+                        car.getUuid(), startDate, endDate);
+                throw new CarNotAvailableException("Car " + car.getMake() + " " + car.getModel() + " is not available for the selected dates.");
+            }
+            log.debug("Car UUID {} availability confirmed for the period.", car.getUuid());
 
-        Booking bookingToSave = new Booking.Builder()
-                .copy(bookingDetails)
-                .setUser(user)
-                .setCar(car)
-                .setStatus(BookingStatus.CONFIRMED)
-                .build();
+            Booking bookingToSave = new Booking.Builder()
+                    .copy(bookingDetails)
+                    .setUser(user)
+                    .setCar(car)
+                    .setStatus(BookingStatus.CONFIRMED)
+                    .build();
 
-        Booking savedBooking = bookingRepository.save(bookingToSave);
-        log.info("Successfully created booking. ID: {}, UUID: '{}', Status: {}",
-                savedBooking.getId(), savedBooking.getUuid(), savedBooking.getStatus());
-        return savedBooking;
+            Booking savedBooking = bookingRepository.save(bookingToSave);
+            availabilityIndex.syncAfterCommit(savedBooking);
+            log.info("Successfully created booking. ID: {}, UUID: '{}', Status: {}",
+                    savedBooking.getId(), savedBooking.getUuid(), savedBooking.getStatus());
+            return savedBooking;
+        } finally {
+            carBookingLocks.releaseAtCompletion(carLock);
+        }
     }
 
     /**
@@ -150,95 +194,212 @@ public class BookingServiceImpl implements IBookingService {
             throw new IllegalArgumentException("Car UUID, User UUID, StartDate and EndDate must be provided.");
         }
 
-        Car car = carService.read(booking.getCar().getUuid());
-        if (car == null) {
-            throw new ResourceNotFoundException("Car not found with UUID: " + booking.getCar().getUuid());
-        }
-        User user = userService.read(booking.getUser().getUuid());
-        if (user == null) {
-            throw new ResourceNotFoundException("User not found with UUID: " + booking.getUser().getUuid());
-        }
+        // Serialize bookings for this car until commit so the overlap check below cannot race another request.
+        Lock carLock = carBookingLocks.acquire(booking.getCar().getUuid());
+        try {
+            Car car = carService.read(booking.getCar().getUuid());
+            if (car == null) {
+                throw new ResourceNotFoundException("Car not found with UUID: " + booking.getCar().getUuid());
+            }
+            String unavailable = unavailableReason(car);
+            if (unavailable != null) {
+                throw new CarNotAvailableException(unavailable);
+            }
+            User user = userService.read(booking.getUser().getUuid());
+            if (user == null) {
+                throw new ResourceNotFoundException("User not found with UUID: " + booking.getUser().getUuid());
+            }
 
-        // Simplified availability check - more robust check is in isCarDoubleBooked
-        // Note: This simplified check doesn't exclude a current booking ID if this method were used for updates.
-        List<Booking> activeBookings = bookingRepository.findOverlappingBookings(
-                car.getId(), BookingStatus.CONFIRMED, booking.getStartDate(), booking.getEndDate()
-        );
-        if (!activeBookings.isEmpty()) {
-            log.warn("Simplified createBooking: Car UUID {} is already booked for the selected period.", car.getUuid());
-            throw new CarNotAvailableException("Car is already booked for the selected period.");
-        }
+            // Note: This simplified check doesn't exclude a current booking ID if this method were used for updates.
+            if (isCarDoubleBooked(car, booking.getStartDate(), booking.getEndDate(), null)) {
+                log.warn("Simplified createBooking: Car UUID {} is already booked for the selected period.", car.getUuid());
+                throw new CarNotAvailableException("Car is already booked for the selected period.");
+            }
 
-        Booking bookingToSave = new Booking.Builder()
-                .copy(booking)
-                .setUser(user)
-                .setCar(car)
-                .setStatus(BookingStatus.CONFIRMED)
-                .build();
+            Booking bookingToSave = new Booking.Builder()
+                    .copy(booking)
+                    .setUser(user)
+                    .setCar(car)
+                    .setStatus(BookingStatus.CONFIRMED)
+                    .build();
 
-        Booking savedBooking = bookingRepository.save(bookingToSave);
-        log.info("Booking created via simplified method. ID: {}, UUID: '{}'", savedBooking.getId(), savedBooking.getUuid());
-        return savedBooking;
+            Booking savedBooking = bookingRepository.save(bookingToSave);
+            availabilityIndex.syncAfterCommit(savedBooking);
+            log.info("Booking created via simplified method. ID: {}, UUID: '{}'", savedBooking.getId(), savedBooking.getUuid());
+            return savedBooking;
+        } finally {
+            carBookingLocks.releaseAtCompletion(carLock);
+        }
     }
 
     /**
      * {@inheritDoc}
+     * Cars and users are loaded with one {@code IN} query each. Conflicts with existing bookings are answered
+     * from the {@link BookingAvailabilityIndex} when it is ready, otherwise from a single interval query
+     * covering every car in the batch. Accepted bookings are persisted with one {@code saveAll} call.
      */
     @Override
     @Transactional
-    public Booking confirmBooking(int bookingId) {
-        log.info("Attempting to confirm booking with ID: {}", bookingId);
-        Booking booking = read(bookingId);
-        if (booking == null) {
-            log.warn("Confirmation failed: Booking not found with ID: {}", bookingId);
-            throw new ResourceNotFoundException("Booking not found with ID: " + bookingId + " for confirmation.");
+    public List<BatchItemResult> createAll(List<Booking> bookings) {
+        log.info("Attempting to create a batch of {} bookings.", bookings.size());
+        BatchItemResult[] results = new BatchItemResult[bookings.size()];
+
+        List<Integer> candidates = new ArrayList<>();
+        Set<UUID> carUuids = new HashSet<>();
+        Set<UUID> userUuids = new HashSet<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            String error = validateBatchItem(booking);
+            if (error != null) {
+                results[i] = BatchItemResult.failure(i, error);
+                continue;
+            }
+            candidates.add(i);
+            carUuids.add(booking.getCar().getUuid());
+            userUuids.add(booking.getUser().getUuid());
         }
+        if (candidates.isEmpty()) {
+            log.warn("Batch booking rejected: none of the {} items passed validation.", bookings.size());
+            return Arrays.asList(results);
+        }
+
+        // Lock every car of the batch before reading, so no concurrent booking can slip in before commit.
+        List<Lock> carLocks = carBookingLocks.acquireAll(carUuids);
+        try {
+            Map<UUID, Car> carsByUuid = carRepository.findByUuidInAndDeletedFalse(carUuids).stream()
+                    .collect(Collectors.toMap(Car::getUuid, Function.identity()));
+            Map<UUID, User> usersByUuid = userRepository.findByUuidInAndDeletedFalse(userUuids).stream()
+                    .collect(Collectors.toMap(User::getUuid, Function.identity()));
+
+            Map<Integer, List<BookingRepository.BookingInterval>> existingByCar =
+                    availabilityIndex.isReady() ? null : loadConfirmedIntervals(bookings, candidates, carsByUuid);
+            Map<Integer, List<Integer>> acceptedByCar = new HashMap<>();
+            List<Booking> toSave = new ArrayList<>();
+            List<Integer> toSaveIndexes = new ArrayList<>();
+
+            for (int i : candidates) {
+                Booking booking = bookings.get(i);
+                Car car = carsByUuid.get(booking.getCar().getUuid());
+                User user = usersByUuid.get(booking.getUser().getUuid());
+                if (car == null) {
+                    results[i] = BatchItemResult.failure(i, "Car with UUID " + booking.getCar().getUuid() + " not found.");
+                    continue;
+                }
+                if (user == null) {
+                    results[i] = BatchItemResult.failure(i, "User with UUID " + booking.getUser().getUuid() + " not found.");
+                    continue;
+                }
+                String unavailable = unavailableReason(car);
+                if (unavailable != null) {
+                    results[i] = BatchItemResult.failure(i, unavailable);
+                    continue;
+                }
+
+                LocalDateTime startDate = booking.getStartDate();
+                LocalDateTime endDate = booking.getEndDate();
+                boolean bookedInDatabase = existingByCar == null
+                        ? availabilityIndex.hasConflict(car.getId(), startDate, endDate, null)
+                        : existingByCar.getOrDefault(car.getId(), List.of()).stream()
+                        .anyMatch(existing -> overlaps(existing.getStartDate(), existing.getEndDate(), startDate, endDate));
+                if (bookedInDatabase) {
+                    results[i] = BatchItemResult.failure(i, "Car " + car.getMake() + " " + car.getModel() + " is not available for the selected dates.");
+                    continue;
+                }
+                Integer clashingIndex = acceptedByCar.getOrDefault(car.getId(), List.of()).stream()
+                        .filter(j -> overlaps(bookings.get(j).getStartDate(), bookings.get(j).getEndDate(), startDate, endDate))
+                        .findFirst().orElse(null);
+                if (clashingIndex != null) {
+                    results[i] = BatchItemResult.failure(i, "Car " + car.getMake() + " " + car.getModel() + " is already booked by item " + clashingIndex + " of this batch for overlapping dates.");
+                    continue;
+                }
+
+                acceptedByCar.computeIfAbsent(car.getId(), id -> new ArrayList<>()).add(i);
+                toSaveIndexes.add(i);
+                toSave.add(new Booking.Builder()
+                        .copy(booking)
+                        .setUser(user)
+                        .setCar(car)
+                        .setStatus(BookingStatus.CONFIRMED)
+                        .build());
+            }
 
-        // A booking can be "confirmed" if it's already CONFIRMED (idempotent)
-        // or if it's in a state that allows confirmation (e.g., PENDING_CONFIRMATION, though not used in current flow)
-        if (booking.getStatus() == BookingStatus.USER_CANCELLED ||
-                booking.getStatus() == BookingStatus.ADMIN_CANCELLED ||
-                booking.getStatus() == BookingStatus.RENTAL_INITIATED ||
-                booking.getStatus() == BookingStatus.NO_SHOW) {
-            log.warn("Booking ID {} cannot be confirmed. Current status: {}", bookingId, booking.getStatus());
-            throw new IllegalStateException("Booking cannot be confirmed from status: " + booking.getStatus());
+            List<Booking> savedBookings = toSave.isEmpty() ? List.of() : bookingRepository.saveAll(toSave);
+            for (int k = 0; k < savedBookings.size(); k++) {
+                Booking savedBooking = savedBookings.get(k);
+                availabilityIndex.syncAfterCommit(savedBooking);
+                results[toSaveIndexes.get(k)] = BatchItemResult.success(toSaveIndexes.get(k), savedBooking);
+            }
+            log.info("Batch booking finished: {} of {} items created.", savedBookings.size(), bookings.size());
+            return Arrays.asList(results);
+        } finally {
+            carBookingLocks.releaseAllAtCompletion(carLocks);
         }
+    }
 
-        Booking updatedBooking = new Booking.Builder().copy(booking).setStatus(BookingStatus.CONFIRMED).build();
-        Booking savedBooking = bookingRepository.save(updatedBooking); // save returns the merged/updated entity
-        log.info("Booking ID: {} confirmed successfully. Status: {}", savedBooking.getId(), savedBooking.getStatus()); // Log status from saved entity
-        return savedBooking;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Booking confirmBooking(int bookingId) {
+        log.info("Attempting to confirm booking with ID: {}", bookingId);
+        return changeWithCarLocked(bookingId, null,
+                () -> {
+                    log.warn("Confirmation failed: Booking not found with ID: {}", bookingId);
+                    throw new ResourceNotFoundException("Booking not found with ID: " + bookingId + " for confirmation.");
+                },
+                booking -> {
+                    // A booking can be "confirmed" if it's already CONFIRMED (idempotent)
+                    // or if it's in a state that allows confirmation (e.g., PENDING)
+                    if (booking.getStatus() == BookingStatus.USER_CANCELLED ||
+                            booking.getStatus() == BookingStatus.ADMIN_CANCELLED ||
+                            booking.getStatus() == BookingStatus.RENTAL_INITIATED ||
+                            booking.getStatus() == BookingStatus.NO_SHOW) {
+                        log.warn("Booking ID {} cannot be confirmed. Current status: {}", bookingId, booking.getStatus());
+                        throw new IllegalStateException("Booking cannot be confirmed from status: " + booking.getStatus());
+                    }
+                    // A booking that is not yet CONFIRMED does not hold its period, so another may have taken it.
+                    if (booking.getStatus() != BookingStatus.CONFIRMED
+                            && isCarDoubleBooked(booking.getCar(), booking.getStartDate(), booking.getEndDate(), bookingId)) {
+                        log.warn("Booking ID {} cannot be confirmed: Car UUID {} is no longer available for its period.", bookingId, booking.getCar().getUuid());
+                        throw new CarNotAvailableException("Car " + booking.getCar().getMake() + " " + booking.getCar().getModel() + " is no longer available for the selected dates.");
+                    }
+
+                    Booking updatedBooking = new Booking.Builder().copy(booking).setStatus(BookingStatus.CONFIRMED).build();
+                    Booking savedBooking = bookingRepository.save(updatedBooking); // save returns the merged/updated entity
+                    availabilityIndex.syncAfterCommit(savedBooking);
+                    log.info("Booking ID: {} confirmed successfully. Status: {}", savedBooking.getId(), savedBooking.getStatus()); // Log status from saved entity
+                    return savedBooking;
+                });
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    @Transactional
     public Booking cancelBooking(int bookingId) {
         log.info("Attempting to cancel booking with ID: {}", bookingId);
-        Booking booking = read(bookingId);
-        if (booking == null) {
-            log.warn("Cancellation failed: Booking not found with ID: {}", bookingId);
-            throw new ResourceNotFoundException("Booking not found with ID: " + bookingId + " for cancellation.");
-        }
-
-        // Business rule: Can only cancel if not yet RENTAL_INITIATED.
-        // Other statuses like ADMIN_CANCELLED, USER_CANCELLED, NO_SHOW are also terminal for cancellation.
-        if (booking.getStatus() == BookingStatus.RENTAL_INITIATED ||
-                booking.getStatus() == BookingStatus.USER_CANCELLED || // Already cancelled
-                booking.getStatus() == BookingStatus.ADMIN_CANCELLED || // Already cancelled
-                booking.getStatus() == BookingStatus.NO_SHOW) {
-            log.warn("Booking ID {} cannot be cancelled. Current status: {}", bookingId, booking.getStatus());
-            throw new IllegalStateException("Booking cannot be cancelled from status: " + booking.getStatus());
-        }
-        // If it's CONFIRMED, a user can cancel it.
-        // If it's PENDING (if that status existed), it could also be cancelled.
-
-        Booking updatedBooking = new Booking.Builder().copy(booking).setStatus(BookingStatus.USER_CANCELLED).build();
-        Booking savedBooking = bookingRepository.save(updatedBooking); // save returns the merged/updated entity
-        log.info("Booking ID: {} cancelled successfully. Status: {}", savedBooking.getId(), savedBooking.getStatus()); // Log status from saved
-        return savedBooking;
+        return changeWithCarLocked(bookingId, null,
+                () -> {
+                    log.warn("Cancellation failed: Booking not found with ID: {}", bookingId);
+                    throw new ResourceNotFoundException("Booking not found with ID: " + bookingId + " for cancellation.");
+                },
+                booking -> {
+                    // Business rule: Can only cancel if not yet RENTAL_INITIATED.
+                    // Other statuses like ADMIN_CANCELLED, USER_CANCELLED, NO_SHOW are also terminal for cancellation.
+                    if (booking.getStatus() == BookingStatus.RENTAL_INITIATED ||
+                            booking.getStatus() == BookingStatus.USER_CANCELLED || // Already cancelled
+                            booking.getStatus() == BookingStatus.ADMIN_CANCELLED || // Already cancelled
+                            booking.getStatus() == BookingStatus.NO_SHOW) {
+                        log.warn("Booking ID {} cannot be cancelled. Current status: {}", bookingId, booking.getStatus());
+                        throw new IllegalStateException("Booking cannot be cancelled from status: " + booking.getStatus());
+                    }
+
+                    Booking updatedBooking = new Booking.Builder().copy(booking).setStatus(BookingStatus.USER_CANCELLED).build();
+                    Booking savedBooking = bookingRepository.save(updatedBooking); // save returns the merged/updated entity
+                    availabilityIndex.syncAfterCommit(savedBooking);
+                    log.info("Booking ID: {} cancelled successfully. Status: {}", savedBooking.getId(), savedBooking.getStatus()); // Log status from saved
+                    return savedBooking;
+                });
     }
 
     /**
@@ -273,7 +434,6 @@ public class BookingServiceImpl implements IBookingService {
      * {@inheritDoc}
      */
     @Override
-    @Transactional
     public Booking update(Booking bookingWithUpdates) {
         Integer bookingId = bookingWithUpdates.getId();
         log.info("Attempting to update booking with ID: {}", bookingId);
@@ -283,12 +443,15 @@ public class BookingServiceImpl implements IBookingService {
             throw new IllegalArgumentException("A valid Booking ID must be provided for update.");
         }
 
-        Booking existingBooking = bookingRepository.findByIdAndDeletedFalse(bookingId)
-                .orElseThrow(() -> {
-                    log.warn("Update failed: Booking not found or is deleted for ID: {}", bookingId);
-                    return new ResourceNotFoundException("Booking not found with ID: " + bookingId + " for update.");
-                });
+        UUID requestedCarUuid = bookingWithUpdates.getCar() != null ? bookingWithUpdates.getCar().getUuid() : null;
+        return changeWithCarLocked(bookingId, requestedCarUuid,
+                () -> {
+                    throw bookingNotFoundForUpdate(bookingId);
+                },
+                existingBooking -> updateLocked(bookingWithUpdates, bookingId, existingBooking));
+    }
 
+    private Booking updateLocked(Booking bookingWithUpdates, int bookingId, Booking existingBooking) {
         // Prevent status changes that should go through dedicated methods (e.g., cancel, confirm, initiate rental)
         // Admins might be allowed to change some fields, but status lifecycle should be respected.
         if (bookingWithUpdates.getStatus() != existingBooking.getStatus()) {
@@ -347,41 +510,90 @@ public class BookingServiceImpl implements IBookingService {
                 .build();
 
         Booking savedBooking = bookingRepository.save(entityToSave);
+        availabilityIndex.syncAfterCommit(savedBooking);
         log.info("Successfully updated booking. ID: {}, UUID: '{}'", savedBooking.getId(), savedBooking.getUuid());
         return savedBooking;
     }
 
+    /**
+     * Runs a change to an existing booking with the booking locks of its car, and of {@code otherCarUuid} if given,
+     * held from before the transaction of the change starts. Taking them inside the transaction would be too late:
+     * under MySQL's REPEATABLE READ the first read of a transaction fixes its snapshot, so an overlap check made
+     * after waiting for a lock could not see a booking committed by the previous holder.
+     * <p>
+     * The car is found with a scalar query outside the transaction; the booking itself is read inside it. Should the
+     * booking have moved to another car in between, that car is locked too, out of stripe order, which cannot block
+     * for longer than the lock timeout. A caller already inside a transaction is joined, and the locks are then
+     * held until it completes.
+     *
+     * @param bookingId    The internal ID of the booking to change.
+     * @param otherCarUuid The UUID of a car the booking moves to, or {@code null}.
+     * @param whenMissing  Supplies the result (or throws) when no non-deleted booking has this ID.
+     * @param change       Applies the change to the booking as read under the locks.
+     * @return The result of {@code change}, or of {@code whenMissing}.
+     */
+    private <T> T changeWithCarLocked(int bookingId, UUID otherCarUuid, Supplier<T> whenMissing, Function<Booking, T> change) {
+        Optional<UUID> carUuid = bookingRepository.findCarUuidByIdAndDeletedFalse(bookingId);
+        if (carUuid.isEmpty()) {
+            return whenMissing.get();
+        }
+        Set<UUID> lockedCarUuids = new HashSet<>(Arrays.asList(carUuid.get(), otherCarUuid));
+        lockedCarUuids.remove(null);
+        List<Lock> carLocks = new ArrayList<>(carBookingLocks.acquireAll(lockedCarUuids));
+        try {
+            return transactionTemplate.execute(status -> {
+                Optional<Booking> booking = bookingRepository.findByIdAndDeletedFalse(bookingId);
+                if (booking.isEmpty()) {
+                    return whenMissing.get();
+                }
+                UUID currentCarUuid = booking.get().getCar().getUuid();
+                if (!lockedCarUuids.contains(currentCarUuid)) {
+                    carLocks.add(carBookingLocks.acquire(currentCarUuid));
+                }
+                return change.apply(booking.get());
+            });
+        } finally {
+            carBookingLocks.releaseAllAtCompletion(carLocks);
+        }
+    }
+
+    private static ResourceNotFoundException bookingNotFoundForUpdate(int bookingId) {
+        log.warn("Update failed: Booking not found or is deleted for ID: {}", bookingId);
+        return new ResourceNotFoundException("Booking not found with ID: " + bookingId + " for update.");
+    }
+
 
     /**
      * {@inheritDoc}
      */
     @Override
-    @Transactional
     public boolean delete(int id) {
         log.info("Attempting to soft-delete booking with ID: {}", id);
-        Optional<Booking> bookingOpt = bookingRepository.findByIdAndDeletedFalse(id);
-        if (bookingOpt.isPresent()) {
-            Booking booking = bookingOpt.get();
-            // Business rule: For admin delete, might be more lenient or use ADMIN_CANCELLED
-            // If this delete is user-initiated, it should perhaps go through cancelBooking.
-            // For a generic admin delete, ADMIN_CANCELLED makes sense.
-            if (booking.getStatus() == BookingStatus.RENTAL_INITIATED) {
-                log.warn("Soft-delete failed for Booking ID {}: Cannot delete booking with status {}", id, booking.getStatus());
-                throw new IllegalStateException("Cannot delete a booking that has already been processed into a rental.");
-            }
-
-            Booking deletedBooking = new Booking.Builder().copy(booking)
-                    .setDeleted(true)
-                    // If not already cancelled, set to ADMIN_CANCELLED to reflect it was an admin action
-                    .setStatus(booking.getStatus() == BookingStatus.USER_CANCELLED || booking.getStatus() == BookingStatus.ADMIN_CANCELLED ?
-                            booking.getStatus() : BookingStatus.ADMIN_CANCELLED)
-                    .build();
-            bookingRepository.save(deletedBooking);
-            log.info("Successfully soft-deleted booking ID: {}", id);
-            return true;
-        }
-        log.warn("Soft-delete failed: Booking not found or already deleted for ID: {}", id);
-        return false;
+        return changeWithCarLocked(id, null,
+                () -> {
+                    log.warn("Soft-delete failed: Booking not found or already deleted for ID: {}", id);
+                    return false;
+                },
+                booking -> {
+                    // Business rule: For admin delete, might be more lenient or use ADMIN_CANCELLED
+                    // If this delete is user-initiated, it should perhaps go through cancelBooking.
+                    // For a generic admin delete, ADMIN_CANCELLED makes sense.
+                    if (booking.getStatus() == BookingStatus.RENTAL_INITIATED) {
+                        log.warn("Soft-delete failed for Booking ID {}: Cannot delete booking with status {}", id, booking.getStatus());
+                        throw new IllegalStateException("Cannot delete a booking that has already been processed into a rental.");
+                    }
+
+                    Booking deletedBooking = new Booking.Builder().copy(booking)
+                            .setDeleted(true)
+                            // If not already cancelled, set to ADMIN_CANCELLED to reflect it was an admin action
+                            .setStatus(booking.getStatus() == BookingStatus.USER_CANCELLED || booking.getStatus() == BookingStatus.ADMIN_CANCELLED ?
+                                    booking.getStatus() : BookingStatus.ADMIN_CANCELLED)
+                            .build();
+                    bookingRepository.save(deletedBooking);
+                    availabilityIndex.syncAfterCommit(deletedBooking);
+                    log.info("Successfully soft-deleted booking ID: {}", id);
+                    return true;
+                });
     }
 
     /**
@@ -393,6 +605,23 @@ public class BookingServiceImpl implements IBookingService {
         return bookingRepository.findByDeletedFalse();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Booking> getPage(int lastSeenId, int limit) {
+        log.debug("Fetching up to {} non-deleted bookings after ID: {}", limit, lastSeenId);
+        List<Booking> page = bookingRepository.findByIdGreaterThanAndDeletedFalseOrderByIdAsc(lastSeenId, Limit.of(limit));
+        // Pages may be mapped after this transaction ends (e.g. by the streaming export), so initialize the
+        // lazy collections the mappers read now; batch fetching loads them in a few queries per page.
+        for (Booking booking : page) {
+            if (booking.getCar() != null) Hibernate.initialize(booking.getCar().getImages());
+            if (booking.getUser() != null) Hibernate.initialize(booking.getUser().getRoles());
+        }
+        return page;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -407,6 +636,98 @@ public class BookingServiceImpl implements IBookingService {
         );
     }
 
+    /**
+     * {@inheritDoc}
+     * Answered from the in-memory {@link BookingAvailabilityIndex} when it is ready,
+     * otherwise by a scalar existence query.
+     */
+    @Override
+    public boolean hasConflictingBooking(int carId, LocalDateTime startDate, LocalDateTime endDate, Integer excludeBookingId) {
+        if (availabilityIndex.isReady()) {
+            return availabilityIndex.hasConflict(carId, startDate, endDate, excludeBookingId);
+        }
+        return bookingRepository.existsOverlappingBooking(carId, BookingStatus.CONFIRMED, startDate, endDate, excludeBookingId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Answered from the in-memory {@link BookingAvailabilityIndex} when it is ready,
+     * otherwise by a scalar ID projection query.
+     */
+    @Override
+    public int[] findConflictingBookingIds(int carId, LocalDateTime startDate, LocalDateTime endDate, Integer excludeBookingId) {
+        if (availabilityIndex.isReady()) {
+            return availabilityIndex.findConflicts(carId, startDate, endDate, excludeBookingId);
+        }
+        return bookingRepository.findOverlappingBookingIds(carId, BookingStatus.CONFIRMED, startDate, endDate, excludeBookingId)
+                .stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Private helper applying the request-level checks of {@link #create(Booking)} to one batch item.
+     *
+     * @return The reason the item is invalid, or {@code null} if it may proceed.
+     */
+    private String validateBatchItem(Booking booking) {
+        if (booking == null || booking.getUser() == null || booking.getCar() == null ||
+                booking.getStartDate() == null || booking.getEndDate() == null) {
+            return "User, Car, Start Date, and End Date must be provided for booking.";
+        }
+        if (booking.getUser().getUuid() == null || booking.getCar().getUuid() == null) {
+            return "User UUID and Car UUID must be valid for booking creation.";
+        }
+        if (!booking.getEndDate().isAfter(booking.getStartDate())) {
+            return "Booking end date must be after the booking start date.";
+        }
+        long minimumDurationHours = 1;
+        if (ChronoUnit.HOURS.between(booking.getStartDate(), booking.getEndDate()) < minimumDurationHours) {
+            return "Booking duration must be at least " + minimumDurationHours + " hour(s).";
+        }
+        return null;
+    }
+
+    /**
+     * Private helper holding the rule, shared by single and batch bookings, that only cars marked available can be booked.
+     *
+     * @return The reason the car cannot be booked, or {@code null} if it can.
+     */
+    private static String unavailableReason(Car car) {
+        return car.isAvailable() ? null : "Car with UUID: " + car.getUuid() + " is not available for booking.";
+    }
+
+    /**
+     * Private helper loading, in one query, the CONFIRMED bookings that could clash with any batch candidate,
+     * grouped by car ID.
+     */
+    private Map<Integer, List<BookingRepository.BookingInterval>> loadConfirmedIntervals(List<Booking> bookings, List<Integer> candidates,
+                                                                                         Map<UUID, Car> carsByUuid) {
+        Set<Integer> carIds = new HashSet<>();
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (int i : candidates) {
+            Booking booking = bookings.get(i);
+            Car car = carsByUuid.get(booking.getCar().getUuid());
+            if (car == null) {
+                continue;
+            }
+            carIds.add(car.getId());
+            from = (from == null || booking.getStartDate().isBefore(from)) ? booking.getStartDate() : from;
+            to = (to == null || booking.getEndDate().isAfter(to)) ? booking.getEndDate() : to;
+        }
+        if (carIds.isEmpty()) {
+            return Map.of();
+        }
+        return bookingRepository.findIntervalsByCarIdsOverlapping(carIds, BookingStatus.CONFIRMED, from, to).stream()
+                .collect(Collectors.groupingBy(BookingRepository.BookingInterval::getCarId));
+    }
+
+    /**
+     * Overlap test matching the repository queries: periods that only touch do not overlap.
+     */
+    private static boolean overlaps(LocalDateTime existingStart, LocalDateTime existingEnd, LocalDateTime proposedStart, LocalDateTime proposedEnd) {
+        return existingStart.isBefore(proposedEnd) && existingEnd.isAfter(proposedStart);
+    }
+
     /**
      * Private helper to check for double bookings for a given car and period,
      * excluding a specific booking by its ID (useful for updates).
@@ -415,25 +736,12 @@ public class BookingServiceImpl implements IBookingService {
         log.debug("Checking for double booking. Car ID: {}, Period: {} to {}. Excluding Booking ID (if any): {}",
                 car.getId(), proposedStartDate, proposedEndDate, excludeBookingId);
 
-        List<Booking> overlappingBookings = bookingRepository
-                .findOverlappingBookings(car.getId(), BookingStatus.CONFIRMED, proposedStartDate, proposedEndDate);
-
-        if (overlappingBookings.isEmpty()) {
+        boolean overlaps = hasConflictingBooking(car.getId(), proposedStartDate, proposedEndDate, excludeBookingId);
+        if (overlaps) {
+            log.warn("Car ID: {} is double-booked for the period. Another CONFIRMED booking overlaps (excluding Booking ID {}).", car.getId(), excludeBookingId);
+        } else {
             log.debug("No overlapping CONFIRMED bookings found for Car ID: {}.", car.getId());
-            return false;
-        }
-
-        if (excludeBookingId != null) {
-            boolean otherBookingOverlaps = overlappingBookings.stream()
-                    .anyMatch(b -> b.getId() != excludeBookingId.intValue());
-            if (otherBookingOverlaps) {
-                log.warn("Car ID: {} is double-booked for the period. Another CONFIRMED booking overlaps (excluding Booking ID {}).", car.getId(), excludeBookingId);
-            } else {
-                log.debug("No *other* CONFIRMED bookings overlap for Car ID: {} (excluding Booking ID {}).", car.getId(), excludeBookingId);
-            }
-            return otherBookingOverlaps;
         }
-        log.warn("Car ID: {} is double-booked for the period. Found {} overlapping CONFIRMED booking(s).", car.getId(), overlappingBookings.size());
-        return true;
+        return overlaps;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+package za.ac.cput.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import za.ac.cput.exception.CarNotAvailableException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CarBookingLocks.java
+ * Striped, in-process locks that serialize booking writes for the same car while letting
+ * bookings for different cars proceed in parallel. Without them two concurrent requests for
+ * one car can both pass the overlap check before either has saved.
+ * <p>
+ * A car maps to one of a fixed number of stripes ({@code app.booking.lock-stripes}, rounded up
+ * to a power of two), so memory stays constant however large the fleet grows. A lock is held
+ * until the surrounding transaction completes, so the next writer for the car only runs its
+ * overlap check once the previous booking is committed and visible.
+ * <p>
+ * These locks guard a single application instance; the availability index has the same scope.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class CarBookingLocks {
+
+    private static final Logger log = LoggerFactory.getLogger(CarBookingLocks.class);
+
+    private final Lock[] stripes;
+    private final long timeoutMs;
+
+    public CarBookingLocks(@Value("${app.booking.lock-stripes:1024}") int stripeCount,
+                           @Value("${app.booking.lock-timeout-ms:5000}") long timeoutMs) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Acquires the lock guarding bookings of the given car, waiting at most the configured timeout.
+     * Callers must hand the returned lock to {@link #releaseAtCompletion(Lock)} in a {@code finally} block.
+     *
+     * @param carUuid The UUID of the car about to be booked.
+     * @return The acquired lock.
+     * @throws CarNotAvailableException if the lock could not be acquired in time.
+     */
+    public Lock acquire(UUID carUuid) {
+        Lock lock = stripes[stripeFor(carUuid)];
+        try {
+            if (lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                return lock;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("Timed out after {} ms waiting for the booking lock of Car UUID {}.", timeoutMs, carUuid);
+        throw new CarNotAvailableException("The car is currently being booked by another request. Please try again.");
+    }
+
+    /**
+     * Acquires the locks guarding bookings of all the given cars. Stripes are taken in ascending order,
+     * so two batches sharing cars cannot deadlock; if any stripe times out, those already taken are released.
+     * Callers must hand the returned locks to {@link #releaseAllAtCompletion(List)} in a {@code finally} block.
+     *
+     * @param carUuids The UUIDs of the cars about to be booked.
+     * @return The acquired locks, one per distinct stripe.
+     * @throws CarNotAvailableException if any lock could not be acquired in time.
+     */
+    public List<Lock> acquireAll(Collection<UUID> carUuids) {
+        int[] stripeIndexes = carUuids.stream().mapToInt(this::stripeFor).distinct().sorted().toArray();
+        List<Lock> acquired = new ArrayList<>(stripeIndexes.length);
+        try {
+            for (int stripeIndex : stripeIndexes) {
+                Lock lock = stripes[stripeIndex];
+                if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                acquired.add(lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (acquired.size() == stripeIndexes.length) {
+            return acquired;
+        }
+        acquired.forEach(Lock::unlock);
+        log.warn("Timed out after {} ms waiting for the booking locks of {} cars.", timeoutMs, carUuids.size());
+        throw new CarNotAvailableException("One or more cars are currently being booked by another request. Please try again.");
+    }
+
+    /**
+     * Releases a lock obtained from {@link #acquire(UUID)} once the surrounding transaction has committed
+     * or rolled back, or immediately if no transaction is active.
+     *
+     * @param lock The lock to release.
+     */
+    public void releaseAtCompletion(Lock lock) {
+        releaseAllAtCompletion(List.of(lock));
+    }
+
+    /**
+     * Releases locks obtained from {@link #acquireAll(Collection)} once the surrounding transaction has
+     * committed or rolled back, or immediately if no transaction is active.
+     *
+     * @param locks The locks to release.
+     */
+    public void releaseAllAtCompletion(List<Lock> locks) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    locks.forEach(Lock::unlock);
+                }
+            });
+        } else {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    private int stripeFor(UUID carUuid) {
+        int hash = carUuid.hashCode();
+        hash ^= (hash >>> 16); // spread high bits, as HashMap does
+        return hash & (stripes.length - 1);
+    }
+}
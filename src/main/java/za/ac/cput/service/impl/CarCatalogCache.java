@@ -0,0 +1,125 @@
+package za.ac.cput.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+import za.ac.cput.api.response.ApiResponseWrapper;
+import za.ac.cput.domain.event.CarCatalogChangedEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * CarCatalogCache.java
+ * Cache of the public car catalog responses, held as the final JSON bytes (already wrapped in an
+ * {@link ApiResponseWrapper}) together with their ETag. A hit skips the database query, the DTO mapping
+ * and JSON serialization, and lets clients revalidate with {@code If-None-Match} for a 304.
+ * <p>
+ * The catalog changes rarely compared to how often it is read, so every {@link CarCatalogChangedEvent}
+ * simply drops all entries once the publishing transaction has committed. A generation counter guards
+ * against a request that loaded the old state before the change storing it after the invalidation.
+ * <p>
+ * Invalidation is local to this node; disable the cache with {@code app.catalog.cache.enabled=false}
+ * when several replicas share one database.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class CarCatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CarCatalogCache.class);
+
+    /**
+     * A serialized response. {@code body} is {@code null} when the query found nothing to return.
+     */
+    public record CachedResponse(byte[] body, String eTag) {
+
+        public boolean isEmpty() {
+            return body == null;
+        }
+    }
+
+    private static final CachedResponse EMPTY = new CachedResponse(null, null);
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private long generation = 0;
+
+    public CarCatalogCache(ObjectMapper objectMapper,
+                           @Value("${app.catalog.cache.enabled:true}") boolean enabled,
+                           @Value("${app.catalog.cache.max-entries:1000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached response for a query, loading and serializing it on a miss.
+     * Concurrent misses for the same key may each call the loader; the results are identical.
+     *
+     * @param key    Identifies the query, e.g. {@code "all"} or {@code "car:<uuid>"}.
+     * @param loader Produces the response payload, or {@code null} when there is nothing to return.
+     * @return The serialized response.
+     */
+    public CachedResponse get(String key, Supplier<?> loader) {
+        CachedResponse cached = enabled ? entries.get(key) : null;
+        if (cached != null) return cached;
+
+        long loadedAt;
+        synchronized (this) {
+            loadedAt = generation;
+        }
+        CachedResponse response = serialize(loader.get());
+        if (enabled) {
+            synchronized (this) {
+                if (generation == loadedAt && entries.size() < maxEntries) {
+                    entries.put(key, response);
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Drops every cached response once the transaction that changed the catalog has committed,
+     * or immediately when the event is published outside a transaction.
+     *
+     * @param event The change that was made.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarCatalogChanged(CarCatalogChangedEvent event) {
+        invalidate();
+        log.debug("Car catalog cache invalidated after a change to car UUID {}.", event.carUuid());
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private CachedResponse serialize(Object payload) {
+        if (payload == null) return EMPTY;
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(new ApiResponseWrapper<>(payload));
+            return new CachedResponse(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize car catalog response", e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package za.ac.cput.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import za.ac.cput.domain.enums.ImageType;
+import za.ac.cput.exception.ServiceUnavailableException;
+import za.ac.cput.service.IFileStorageService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CarImageUploader.java
+ * Uploads the files of a multi-image car upload to storage in parallel, on a bounded pool of
+ * {@code app.car-images.upload-threads} threads with a queue of {@code app.car-images.upload-queue}.
+ * It is called outside any database transaction, so a slow object store never holds a JDBC connection;
+ * the caller attaches the returned keys in a short transaction and hands them back to
+ * {@link #deleteAll(List)} if that fails.
+ * <p>
+ * An upload is all or nothing: if any file fails, the files of the same batch that did reach storage are
+ * deleted before the error is rethrown. That includes an interrupted caller: uploads still queued are cancelled
+ * and running ones are waited for, so none is left behind. A batch that does not fit in the queue fails with a
+ * {@link ServiceUnavailableException} (HTTP 503).
+ * <p>
+ * Per-file latency is timed as {@code car.image.upload} and whole batches as {@code car.image.upload.batch},
+ * both tagged with their outcome; files deleted as compensation are counted as {@code car.image.upload.compensated}.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class CarImageUploader {
+
+    private static final Logger log = LoggerFactory.getLogger(CarImageUploader.class);
+
+    private final IFileStorageService fileStorageService;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter compensated;
+
+    public CarImageUploader(IFileStorageService fileStorageService, MeterRegistry meterRegistry,
+                            @Value("${app.car-images.upload-threads:4}") int threads,
+                            @Value("${app.car-images.upload-queue:64}") int queueCapacity) {
+        this.fileStorageService = fileStorageService;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "car-image-upload-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.compensated = Counter.builder("car.image.upload.compensated")
+                .description("Uploaded car images deleted because their batch or database update failed")
+                .register(meterRegistry);
+        log.info("Car image upload pool initialized. Threads: {}, queue capacity: {}", threads, queueCapacity);
+    }
+
+    /**
+     * Uploads every non-empty file to the car image folder in parallel and waits for all of them.
+     *
+     * @param files The files to upload; {@code null} and empty entries are skipped.
+     * @return The storage keys of the uploaded files, in the order of {@code files}.
+     * @throws ServiceUnavailableException if the upload pool cannot take the batch.
+     * @throws RuntimeException            if any upload fails; no file of the batch is left in storage.
+     */
+    public List<String> uploadAll(List<MultipartFile> files) {
+        long batchStart = System.nanoTime();
+        List<Future<String>> uploads = new ArrayList<>(files.size());
+        List<Long> sizes = new ArrayList<>(files.size());
+        RuntimeException failure = null;
+        for (MultipartFile file : files) {
+            if (file == null || file.isEmpty()) continue;
+            try {
+                uploads.add(executor.submit(() -> upload(file)));
+                sizes.add(file.getSize());
+            } catch (RejectedExecutionException e) {
+                failure = new ServiceUnavailableException("Image upload capacity is exhausted; please retry shortly.");
+                break;
+            }
+        }
+
+        List<String> keys = new ArrayList<>(uploads.size());
+        List<Long> storedSizes = new ArrayList<>(uploads.size());
+        for (int i = 0; i < uploads.size(); i++) {
+            try {
+                keys.add(uploads.get(i).get());
+                storedSizes.add(sizes.get(i));
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtime ? runtime
+                            : new RuntimeException("Failed to upload car image", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                if (failure == null) {
+                    failure = new IllegalStateException("Interrupted while uploading car images", e);
+                }
+                collectAfterInterrupt(uploads.subList(i, uploads.size()), sizes.subList(i, sizes.size()), keys, storedSizes);
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (failure != null) {
+            log.warn("Car image upload batch failed after {} of {} file(s); removing the uploaded ones.", keys.size(), uploads.size());
+            for (int i = 0; i < keys.size(); i++) {
+                compensate(keys.get(i), storedSizes.get(i));
+            }
+            batchTimer("failure").record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+            throw failure;
+        }
+        batchTimer("success").record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+        log.debug("Uploaded {} car image(s) in {} ms.", keys.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart));
+        return keys;
+    }
+
+    /**
+     * Settles the uploads still pending when the caller was interrupted. Uploads that have not started are taken
+     * off the queue and cancelled; those already running cannot be stopped part way, so they are waited for
+     * without interruption and the keys of any that stored their file are added for compensation.
+     */
+    private void collectAfterInterrupt(List<Future<String>> pending, List<Long> sizes,
+                                       List<String> keys, List<Long> storedSizes) {
+        for (Future<String> upload : pending) {
+            if (executor.remove((Runnable) upload)) {
+                upload.cancel(false);
+            }
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            Future<String> upload = pending.get(i);
+            if (upload.isCancelled()) continue;
+            try {
+                keys.add(getUninterruptibly(upload));
+                storedSizes.add(sizes.get(i));
+            } catch (ExecutionException e) {
+                // Nothing was stored, so there is nothing to compensate.
+            }
+        }
+    }
+
+    private static String getUninterruptibly(Future<String> upload) throws ExecutionException {
+        while (true) {
+            try {
+                return upload.get();
+            } catch (InterruptedException e) {
+                // The caller's interrupt is restored once the batch is settled.
+            }
+        }
+    }
+
+    /**
+     * Deletes uploaded files whose batch could not be completed. Failures are logged, not thrown,
+     * so that the error that made the compensation necessary is the one reported.
+     *
+     * @param keys The storage keys to delete.
+     */
+    public void deleteAll(List<String> keys) {
+        for (String key : keys) {
+            compensate(key, null);
+        }
+    }
+
+    /**
+     * Deletes one uploaded file, passing its size on when the batch knows it so that storage need not look it up.
+     */
+    private void compensate(String key, Long size) {
+        try {
+            if (size != null ? fileStorageService.delete(key, size) : fileStorageService.delete(key)) {
+                compensated.increment();
+            } else {
+                log.error("Could not delete uploaded car image '{}' during compensation; it is now orphaned.", key);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not delete uploaded car image '{}' during compensation; it is now orphaned.", key, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private String upload(MultipartFile file) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            String key = fileStorageService.save(file, ImageType.CAR.getFolder());
+            outcome = "success";
+            return key;
+        } finally {
+            Timer.builder("car.image.upload")
+                    .description("Time to upload a single car image to storage")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer batchTimer(String outcome) {
+        return Timer.builder("car.image.upload.batch")
+                .description("Time to upload all images of a multi-image car upload")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
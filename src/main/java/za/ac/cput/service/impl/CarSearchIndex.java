@@ -0,0 +1,405 @@
+package za.ac.cput.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+import za.ac.cput.domain.dto.request.CarSearchRequestDTO;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.enums.PriceGroup;
+import za.ac.cput.domain.event.CarCatalogChangedEvent;
+import za.ac.cput.repository.CarRepository;
+import za.ac.cput.repository.CarSpecifications;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * CarSearchIndex.java
+ * In-memory faceted index over the rentable fleet (available, non-deleted cars) answering multi-criteria
+ * car searches without a database scan. For every value of category, make, model (case-insensitive),
+ * price group and year the index holds a {@link BitSet} with bit {@code carId} set for the cars carrying it;
+ * a search is the AND of the bitsets of the given criteria, with the year range the OR of its years and
+ * booked cars removed with AND-NOT, exactly like the occupancy calendar of {@link BookingAvailabilityIndex}.
+ * Facet counts are the cardinalities of each value's bitset ANDed with the matches.
+ * <p>
+ * The index is published as an immutable snapshot, so searches never lock. It is built from
+ * {@link CarRepository} once the application is ready and kept up to date one car at a time from
+ * {@link CarCatalogChangedEvent}s after their transaction commits; an update re-reads the car while holding the
+ * index, so two quick changes to one car cannot be applied out of order, and copies only the bitsets it touches.
+ * Changes that arrive before or during a build are recorded and re-read over the snapshot it installs, since the
+ * build may have read the fleet before they committed. If an update fails the index stops answering searches and
+ * is rebuilt every {@code app.car.search-index.retry-interval-ms} until a build succeeds.
+ * <p>
+ * Matching follows {@link CarSpecifications#matching}, which callers use instead while {@link #isReady()} is
+ * {@code false} or the index is disabled via {@code app.car.search-index.enabled=false} (e.g. when running several
+ * replicas against one database).
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class CarSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CarSearchIndex.class);
+
+    private record Entry(int id, String category, PriceGroup priceGroup, String make, String model, int year) {
+    }
+
+    private record Snapshot(Map<Integer, Entry> cars, BitSet all,
+                            Map<String, BitSet> byCategory, Map<PriceGroup, BitSet> byPriceGroup,
+                            Map<String, BitSet> byMake, Map<String, BitSet> byModel,
+                            NavigableMap<Integer, BitSet> byYear) {
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(Map.of(), new BitSet(), Map.of(), Map.of(), Map.of(), Map.of(), new TreeMap<>());
+
+    private final CarRepository carRepository;
+    private final boolean enabled;
+    private volatile Snapshot snapshot = EMPTY;
+    private volatile boolean ready = false;
+    // Set when the last build or update failed, until a rebuild succeeds.
+    private volatile boolean stale = false;
+    // UUIDs of the cars changed while a build is reading the database, or null when none is; guarded by this.
+    // A null element stands for a change to the whole fleet. Recording starts with the first build.
+    private Set<UUID> changesDuringRebuild = new HashSet<>();
+
+    public CarSearchIndex(CarRepository carRepository,
+                          @Value("${app.car.search-index.enabled:true}") boolean enabled) {
+        this.carRepository = carRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Loads the rentable fleet into the index once the application context is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Car search index is disabled; searches will query the database.");
+            return;
+        }
+        rebuildFromDatabase();
+    }
+
+    /**
+     * Rebuilds the index if the last build or update failed. Runs every {@code app.car.search-index.retry-interval-ms}.
+     */
+    @Scheduled(fixedDelayString = "${app.car.search-index.retry-interval-ms:60000}",
+            initialDelayString = "${app.car.search-index.retry-interval-ms:60000}")
+    public void rebuildIfStale() {
+        if (enabled && stale) {
+            log.info("Rebuilding the car search index after a failed update.");
+            rebuildFromDatabase();
+        }
+    }
+
+    /**
+     * Re-indexes the changed car once the transaction that changed it has committed, or records the change
+     * for the build in progress. If the update fails the index stops answering searches rather than serve
+     * stale results, until {@link #rebuildIfStale()} has rebuilt it.
+     *
+     * @param event The change that was made.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarCatalogChanged(CarCatalogChangedEvent event) {
+        if (!enabled || recordIfBuilding(event.carUuid()) || !isReady()) return;
+        try {
+            if (event.carUuid() == null) {
+                rebuildFromDatabase();
+            } else {
+                refresh(event.carUuid());
+            }
+        } catch (RuntimeException e) {
+            markStale();
+            log.error("Failed to update car search index for car UUID {}; searches will query the database.", event.carUuid(), e);
+        }
+    }
+
+    private void rebuildFromDatabase() {
+        startRecordingChanges();
+        try {
+            rebuild(carRepository.findAllByAvailableTrueAndDeletedFalse());
+        } catch (RuntimeException e) {
+            markStale();
+            log.error("Failed to build car search index; searches will query the database.", e);
+        }
+    }
+
+    private synchronized void startRecordingChanges() {
+        if (changesDuringRebuild == null) changesDuringRebuild = new HashSet<>();
+    }
+
+    private synchronized boolean recordIfBuilding(UUID carUuid) {
+        if (changesDuringRebuild == null) return false;
+        changesDuringRebuild.add(carUuid);
+        return true;
+    }
+
+    private synchronized void markStale() {
+        ready = false;
+        stale = true;
+        changesDuringRebuild = null;
+    }
+
+    /**
+     * Replaces the whole index with the rentable cars among the given ones, re-reads the cars changed while
+     * they were loaded, and marks the index ready.
+     *
+     * @param cars The cars to index; unavailable and deleted cars are skipped.
+     */
+    public synchronized void rebuild(Collection<Car> cars) {
+        install(cars);
+        Set<UUID> changed = changesDuringRebuild;
+        changesDuringRebuild = null;
+        if (changed != null && !changed.isEmpty()) {
+            if (changed.contains(null)) {
+                install(carRepository.findAllByAvailableTrueAndDeletedFalse());
+            } else {
+                changed.forEach(this::refresh);
+            }
+            log.info("Re-read {} car change(s) committed while the search index was loading.", changed.size());
+        }
+        stale = false;
+        ready = true;
+        log.info("Car search index built with {} rentable car(s).", snapshot.cars().size());
+    }
+
+    private void install(Collection<Car> cars) {
+        Map<Integer, Entry> entries = new HashMap<>();
+        BitSet all = new BitSet();
+        Map<String, BitSet> byCategory = new HashMap<>();
+        Map<PriceGroup, BitSet> byPriceGroup = new HashMap<>();
+        Map<String, BitSet> byMake = new HashMap<>();
+        Map<String, BitSet> byModel = new HashMap<>();
+        NavigableMap<Integer, BitSet> byYear = new TreeMap<>();
+        for (Car car : cars) {
+            if (!isRentable(car)) continue;
+            Entry entry = toEntry(car);
+            entries.put(entry.id(), entry);
+            all.set(entry.id());
+            index(byCategory, entry.category(), entry.id());
+            index(byPriceGroup, entry.priceGroup(), entry.id());
+            index(byMake, entry.make(), entry.id());
+            index(byModel, entry.model(), entry.id());
+            index(byYear, entry.year(), entry.id());
+        }
+        snapshot = new Snapshot(Collections.unmodifiableMap(entries), all, byCategory, byPriceGroup, byMake, byModel, byYear);
+    }
+
+    /**
+     * Re-reads a car and brings the index in line with it. The read happens while holding the index, so
+     * the state of the last change to commit is the one that ends up indexed.
+     *
+     * @param carUuid The UUID of the changed car.
+     */
+    synchronized void refresh(UUID carUuid) {
+        carRepository.findByUuid(carUuid).ifPresent(this::update);
+    }
+
+    /**
+     * Brings a single car in line with its persisted state: adds or re-indexes it when rentable, removes it otherwise.
+     *
+     * @param car The car as persisted.
+     */
+    public synchronized void update(Car car) {
+        Snapshot current = snapshot;
+        Entry previous = current.cars().get(car.getId());
+        Entry next = isRentable(car) ? toEntry(car) : null;
+        if (!Objects.equals(previous, next)) {
+            snapshot = with(current, previous, next);
+            log.debug("Car search index updated for car ID {} ({}).", car.getId(), next != null ? "indexed" : "removed");
+        }
+    }
+
+    /**
+     * @return {@code true} if the index has been built and may be used to answer searches.
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Finds the rentable cars matching every given criterion. The dates of the criteria are not evaluated here;
+     * callers pass the cars booked in the requested range as {@code excludedCarIds} instead.
+     *
+     * @param criteria       The search criteria; {@code null} or blank criteria are ignored.
+     * @param excludedCarIds IDs of cars to leave out, or {@code null}.
+     * @return A new {@link BitSet} with one bit set per matching car ID.
+     */
+    public BitSet search(CarSearchRequestDTO criteria, BitSet excludedCarIds) {
+        Snapshot current = snapshot;
+        BitSet result = (BitSet) current.all().clone();
+        if (StringUtils.hasText(criteria.getCategory())) {
+            and(result, current.byCategory().get(key(criteria.getCategory())));
+        }
+        if (criteria.getPriceGroup() != null) {
+            and(result, current.byPriceGroup().get(criteria.getPriceGroup()));
+        }
+        if (StringUtils.hasText(criteria.getMake())) {
+            and(result, current.byMake().get(key(criteria.getMake())));
+        }
+        if (StringUtils.hasText(criteria.getModel())) {
+            and(result, current.byModel().get(key(criteria.getModel())));
+        }
+        if (criteria.getYearFrom() != null || criteria.getYearTo() != null) {
+            int from = criteria.getYearFrom() != null ? criteria.getYearFrom() : Integer.MIN_VALUE;
+            int to = criteria.getYearTo() != null ? criteria.getYearTo() : Integer.MAX_VALUE;
+            BitSet years = new BitSet();
+            if (from <= to) {
+                for (BitSet year : current.byYear().subMap(from, true, to, true).values()) {
+                    years.or(year);
+                }
+            }
+            result.and(years);
+        }
+        if (excludedCarIds != null) {
+            result.andNot(excludedCarIds);
+        }
+        return result;
+    }
+
+    /**
+     * Counts, per facet, how many of the matching cars carry each value: the cardinality of each value's bitset
+     * ANDed with {@code matches}. Values appear as the index holds them, text normalized by {@link #key(String)}.
+     *
+     * @param matches The result of {@link #search}.
+     * @return Facet name ({@code category}, {@code priceGroup}, {@code make}, {@code model}, {@code year}) to a
+     * sorted map of value to count; values no match carries are left out.
+     */
+    public Map<String, Map<String, Integer>> countFacets(BitSet matches) {
+        Snapshot current = snapshot;
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("category", count(current.byCategory(), matches));
+        facets.put("priceGroup", count(current.byPriceGroup(), matches));
+        facets.put("make", count(current.byMake(), matches));
+        facets.put("model", count(current.byModel(), matches));
+        facets.put("year", count(current.byYear(), matches));
+        return facets;
+    }
+
+    /**
+     * Counts the facets of cars loaded from the database, normalizing their values exactly as the index does,
+     * so that a search answers the same facets whether or not the index is ready.
+     *
+     * @param cars The matching cars.
+     * @return The facet counts, in the shape of {@link #countFacets(BitSet)}.
+     */
+    public static Map<String, Map<String, Integer>> countFacets(Collection<Car> cars) {
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        for (String facet : List.of("category", "priceGroup", "make", "model", "year")) {
+            facets.put(facet, new TreeMap<>());
+        }
+        for (Car car : cars) {
+            Entry entry = toEntry(car);
+            count(facets.get("category"), entry.category());
+            count(facets.get("priceGroup"), entry.priceGroup());
+            count(facets.get("make"), entry.make());
+            count(facets.get("model"), entry.model());
+            count(facets.get("year"), entry.year());
+        }
+        return facets;
+    }
+
+    int size() {
+        return snapshot.cars().size();
+    }
+
+    /**
+     * Normalizes a text value the way both the index and {@link CarSpecifications} compare it.
+     */
+    public static String key(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isRentable(Car car) {
+        return car.isAvailable() && !car.isDeleted();
+    }
+
+    private static Entry toEntry(Car car) {
+        return new Entry(car.getId(), key(car.getCategory()), car.getPriceGroup(), key(car.getMake()), key(car.getModel()), car.getYear());
+    }
+
+    private static <K> void index(Map<K, BitSet> facet, K value, int carId) {
+        if (value != null) {
+            facet.computeIfAbsent(value, k -> new BitSet()).set(carId);
+        }
+    }
+
+    private static <K> Map<String, Integer> count(Map<K, BitSet> facet, BitSet matches) {
+        Map<String, Integer> counts = new TreeMap<>();
+        BitSet intersection = new BitSet();
+        for (Map.Entry<K, BitSet> value : facet.entrySet()) {
+            intersection.clear();
+            intersection.or(value.getValue());
+            intersection.and(matches);
+            int cars = intersection.cardinality();
+            if (cars > 0) {
+                counts.put(value.getKey().toString(), cars);
+            }
+        }
+        return counts;
+    }
+
+    private static void count(Map<String, Integer> counts, Object value) {
+        if (value != null) {
+            counts.merge(value.toString(), 1, Integer::sum);
+        }
+    }
+
+    private static void and(BitSet result, BitSet matching) {
+        if (matching == null) {
+            result.clear();
+        } else {
+            result.and(matching);
+        }
+    }
+
+    /**
+     * Copies the snapshot with {@code removed} taken out and {@code added} put in, cloning only the bitsets that change.
+     */
+    private static Snapshot with(Snapshot current, Entry removed, Entry added) {
+        Map<Integer, Entry> cars = new HashMap<>(current.cars());
+        BitSet all = (BitSet) current.all().clone();
+        if (removed != null) {
+            cars.remove(removed.id());
+            all.clear(removed.id());
+        }
+        if (added != null) {
+            cars.put(added.id(), added);
+            all.set(added.id());
+        }
+        return new Snapshot(Collections.unmodifiableMap(cars), all,
+                move(new HashMap<>(current.byCategory()), removed, added, Entry::category),
+                move(new HashMap<>(current.byPriceGroup()), removed, added, Entry::priceGroup),
+                move(new HashMap<>(current.byMake()), removed, added, Entry::make),
+                move(new HashMap<>(current.byModel()), removed, added, Entry::model),
+                move(new TreeMap<>(current.byYear()), removed, added, Entry::year));
+    }
+
+    private static <K, M extends Map<K, BitSet>> M move(M facet, Entry removed, Entry added, Function<Entry, K> valueOf) {
+        if (removed != null && valueOf.apply(removed) != null) {
+            K value = valueOf.apply(removed);
+            BitSet cars = (BitSet) facet.get(value).clone();
+            cars.clear(removed.id());
+            if (cars.isEmpty()) {
+                facet.remove(value);
+            } else {
+                facet.put(value, cars);
+            }
+        }
+        if (added != null && valueOf.apply(added) != null) {
+            K value = valueOf.apply(added);
+            BitSet existing = facet.get(value);
+            BitSet cars = existing != null ? (BitSet) existing.clone() : new BitSet();
+            cars.set(added.id());
+            facet.put(value, cars);
+        }
+        return facet;
+    }
+}
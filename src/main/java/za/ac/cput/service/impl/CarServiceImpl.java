@@ -1,27 +1,37 @@
 package za.ac.cput.service.impl;
 
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import za.ac.cput.domain.dto.request.CarSearchRequestDTO;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.entity.CarImage;
 import za.ac.cput.domain.enums.ImageType;
 import za.ac.cput.domain.enums.PriceGroup;
+import za.ac.cput.domain.event.CarCatalogChangedEvent;
 import za.ac.cput.exception.BadRequestException;
 import za.ac.cput.exception.ResourceNotFoundException;
 import za.ac.cput.repository.BookingRepository;
 import za.ac.cput.repository.CarRepository;
+import za.ac.cput.repository.CarSpecifications;
 import za.ac.cput.service.ICarService;
-import za.ac.cput.service.IFileStorageService;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * Implementation of the {@link ICarService} interface.
@@ -37,23 +47,40 @@ import java.util.UUID;
 public class CarServiceImpl implements ICarService {
 
     private static final Logger log = LoggerFactory.getLogger(CarServiceImpl.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    // Offset pages beyond this many rows must be read with the keyset cursor instead.
+    private static final int MAX_OFFSET = 1_000;
     private final CarRepository carRepository;
-    private final IFileStorageService fileStorageService;
+    private final CarImageUploader imageUploader;
+    private final TransactionTemplate transactionTemplate;
     private final BookingRepository bookingRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final CarSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     /**
      * Constructs the CarServiceImpl with its required dependencies.
      *
-     * @param carRepository      The repository for data access operations on Car entities.
-     * @param fileStorageService The service for handling physical file storage operations (e.g., saving images).
+     * @param carRepository       The repository for data access operations on Car entities.
+     * @param imageUploader       Uploads car images to storage in parallel, outside the database transaction.
+     * @param transactionTemplate Runs the short transaction that attaches uploaded images to their car.
+     * @param bookingRepository   The repository used to find booked cars when the availability index is not ready.
+     * @param availabilityIndex   The in-memory booking index whose per-day occupancy bitmaps answer date-range availability.
+     * @param searchIndex         The in-memory faceted index answering multi-criteria car searches.
+     * @param eventPublisher      Publishes {@link CarCatalogChangedEvent}s so the public catalog cache can be invalidated.
      */
     @Autowired
-    public CarServiceImpl(CarRepository carRepository, IFileStorageService fileStorageService,
-                          BookingRepository bookingRepository) {
+    public CarServiceImpl(CarRepository carRepository, CarImageUploader imageUploader, TransactionTemplate transactionTemplate,
+                          BookingRepository bookingRepository, BookingAvailabilityIndex availabilityIndex,
+                          CarSearchIndex searchIndex, ApplicationEventPublisher eventPublisher) {
         this.carRepository = carRepository;
-        this.fileStorageService = fileStorageService;
+        this.imageUploader = imageUploader;
+        this.transactionTemplate = transactionTemplate;
         this.bookingRepository = bookingRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
 
         log.info("CarServiceImpl initialized.");
     }
@@ -69,6 +96,7 @@ public class CarServiceImpl implements ICarService {
     public Car create(Car car) {
         log.info("Attempting to create new car. Make: '{}', Model: '{}'", car.getMake(), car.getModel());
         Car savedCar = carRepository.save(car);
+        eventPublisher.publishEvent(new CarCatalogChangedEvent(savedCar.getUuid()));
         log.info("Successfully created car. ID: {}, UUID: {}, Make: '{}', Model: '{}'",
                 savedCar.getId(), savedCar.getUuid(), savedCar.getMake(), savedCar.getModel());
         return savedCar;
@@ -133,6 +161,7 @@ public class CarServiceImpl implements ICarService {
                 .build();
 
         Car updatedCar = carRepository.save(entityToSave);
+        eventPublisher.publishEvent(new CarCatalogChangedEvent(updatedCar.getUuid()));
         log.info("Successfully updated car. ID: {}", updatedCar.getId());
         return updatedCar;
     }
@@ -154,6 +183,7 @@ public class CarServiceImpl implements ICarService {
                     .setAvailable(false)
                     .build();
             carRepository.save(car);
+            eventPublisher.publishEvent(new CarCatalogChangedEvent(car.getUuid()));
             log.info("Successfully soft-deleted car ID: {}", id);
             return true;
         }).orElse(false);
@@ -178,6 +208,7 @@ public class CarServiceImpl implements ICarService {
                     .setAvailable(false)
                     .build();
             carRepository.save(car);
+            eventPublisher.publishEvent(new CarCatalogChangedEvent(car.getUuid()));
             log.info("Successfully soft-deleted car UUID: '{}'", uuid);
             return true;
         }).orElse(false);
@@ -234,7 +265,9 @@ public class CarServiceImpl implements ICarService {
     }
 
     /**
-     * Adds multiple images to an existing car in a single atomic transaction.
+     * Adds multiple images to an existing car. The files are uploaded to storage in parallel without a
+     * database transaction, then a short transaction attaches their {@link CarImage} rows to the car.
+     * If that transaction fails, the uploaded files are deleted again.
      *
      * @param carUuid The UUID of the car to add images to.
      * @param files   A list of {@link MultipartFile} objects to add.
@@ -242,15 +275,27 @@ public class CarServiceImpl implements ICarService {
      * @throws ResourceNotFoundException if no car is found with the given UUID.
      */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Car addImagesToCar(UUID carUuid, List<MultipartFile> files) {
+        if (carRepository.findByUuid(carUuid).isEmpty()) {
+            throw new ResourceNotFoundException("Car not found with UUID: " + carUuid);
+        }
+
+        List<String> fileKeys = imageUploader.uploadAll(files);
+        try {
+            return transactionTemplate.execute(status -> attachImages(carUuid, fileKeys));
+        } catch (RuntimeException e) {
+            log.warn("Attaching {} uploaded image(s) to car UUID {} failed; deleting the files.", fileKeys.size(), carUuid);
+            imageUploader.deleteAll(fileKeys);
+            throw e;
+        }
+    }
+
+    private Car attachImages(UUID carUuid, List<String> fileKeys) {
         Car existingCar = carRepository.findByUuid(carUuid)
                 .orElseThrow(() -> new ResourceNotFoundException("Car not found with UUID: " + carUuid));
 
-        for (MultipartFile file : files) {
-            if (file == null || file.isEmpty()) continue;
-
-            String fileKey = fileStorageService.save(file, ImageType.CAR.getFolder());
+        for (String fileKey : fileKeys) {
             String filename = fileKey.substring(fileKey.lastIndexOf("/") + 1);
 
             CarImage newImage = CarImage.builder()
@@ -262,23 +307,23 @@ public class CarServiceImpl implements ICarService {
             existingCar.getImages().add(newImage);
         }
 
-        return carRepository.save(existingCar);
+        Car savedCar = carRepository.save(existingCar);
+        eventPublisher.publishEvent(new CarCatalogChangedEvent(savedCar.getUuid()));
+        return savedCar;
     }
 
     @Transactional(readOnly = true)
     @Override
     public List<Car> findAvailableCarsByDateRange(LocalDate startDate, LocalDate endDate) {
         log.debug("Fetching available cars for date range: {} to {}", startDate, endDate);
-        if (startDate.isAfter(endDate)) {
-            throw new BadRequestException("Start date cannot be after end date.");
-        }
+        validateDateRange(startDate, endDate);
 
-        // Convert LocalDate to LocalDateTime for the query
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+        if (availabilityIndex.isReady()) {
+            return excludeBookedCars(carRepository.findAllByAvailableTrueAndDeletedFalse(), startDate, endDate);
+        }
 
         // Step 1: Find all car IDs that are busy during this period.
-        List<Integer> busyCarIds = bookingRepository.findBookedCarIdsByDateRange(startDateTime, endDateTime);
+        List<Integer> busyCarIds = getBusyCarIds(startDate, endDate);
 
         // Handle the case where no cars are booked.
         // The `NotIn` clause fails with an empty list in some JPA providers.
@@ -295,8 +340,13 @@ public class CarServiceImpl implements ICarService {
     @Override
     public List<Car> getAvailableCarsByPrice(PriceGroup priceGroup, LocalDate startDate, LocalDate endDate) {
         log.debug("Fetching available cars by price group: {} for date range: {} to {}", priceGroup, startDate, endDate);
-        List<Integer> busyCarIds = getBusyCarIds(startDate, endDate);
+        validateDateRange(startDate, endDate);
+
+        if (availabilityIndex.isReady()) {
+            return excludeBookedCars(carRepository.findAllByAvailableTrueAndDeletedFalseAndPriceGroup(priceGroup), startDate, endDate);
+        }
 
+        List<Integer> busyCarIds = getBusyCarIds(startDate, endDate);
         if (busyCarIds.isEmpty()) {
             return carRepository.findAllByAvailableTrueAndDeletedFalseAndPriceGroup(priceGroup);
         }
@@ -307,30 +357,188 @@ public class CarServiceImpl implements ICarService {
     @Override
     public List<Car> findAllAvailableByCategory(String category, LocalDate startDate, LocalDate endDate) {
         log.debug("Fetching available cars by category: '{}' for date range: {} to {}", category, startDate, endDate);
-        List<Integer> busyCarIds = getBusyCarIds(startDate, endDate);
+        validateDateRange(startDate, endDate);
 
+        if (availabilityIndex.isReady()) {
+            return excludeBookedCars(carRepository.findAllByAvailableTrueAndDeletedFalseAndCategory(category), startDate, endDate);
+        }
+
+        List<Integer> busyCarIds = getBusyCarIds(startDate, endDate);
         if (busyCarIds.isEmpty()) {
             return carRepository.findAllByAvailableTrueAndDeletedFalseAndCategory(category);
         }
         return carRepository.findByAvailableTrueAndDeletedFalseAndCategoryAndIdNotIn(category, busyCarIds);
     }
 
-    // This is the main availability method, it remains largely the same
+    /**
+     * {@inheritDoc}
+     * Filtering and facet counting are done on the {@link CarSearchIndex}'s bitsets when it is ready, after which
+     * only the cars of the requested page are loaded by ID; otherwise the equivalent {@link CarSpecifications#matching}
+     * query loads every match from the database and the page is cut from it.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SearchResult search(CarSearchRequestDTO criteria, Integer after, int size) {
+        log.debug("Searching cars with criteria: {} (after: {}, size: {})", criteria, after, size);
+        validateSearchCriteria(criteria);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int firstId = after != null ? after + 1 : 0;
+        BitSet bookedCarIds = criteria.getStartDate() != null
+                ? findBookedCarIds(criteria.getStartDate(), criteria.getEndDate()) : null;
+
+        if (searchIndex.isReady()) {
+            BitSet matches = searchIndex.search(criteria, bookedCarIds);
+            List<Integer> pageIds = new ArrayList<>(pageSize);
+            int id = firstId < 0 ? -1 : matches.nextSetBit(firstId);
+            for (; id >= 0 && pageIds.size() < pageSize; id = matches.nextSetBit(id + 1)) {
+                pageIds.add(id);
+            }
+            List<Car> cars = pageIds.isEmpty() ? List.of()
+                    : carRepository.findByIdInAndAvailableTrueAndDeletedFalseOrderByIdAsc(pageIds);
+            log.debug("Car search index matched {} car(s).", matches.cardinality());
+            return new SearchResult(cars, searchIndex.countFacets(matches),
+                    id >= 0 ? pageIds.get(pageIds.size() - 1) : null, id >= 0, matches.cardinality());
+        }
 
+        List<Integer> excludedCarIds = bookedCarIds != null ? bookedCarIds.stream().boxed().toList() : List.of();
+        List<Car> matches = carRepository.findAll(CarSpecifications.matching(criteria, excludedCarIds), Sort.by("id"));
+        List<Car> remaining = matches.stream().filter(car -> after == null || car.getId() > after).toList();
+        boolean hasMore = remaining.size() > pageSize;
+        List<Car> cars = hasMore ? remaining.subList(0, pageSize) : remaining;
+        log.debug("Car search query matched {} car(s).", matches.size());
+        return new SearchResult(cars, CarSearchIndex.countFacets(matches),
+                hasMore ? cars.get(cars.size() - 1).getId() : null, hasMore, matches.size());
+    }
 
     /**
-     * Private helper method to encapsulate the logic for finding busy car IDs.
-     * This avoids code duplication across the public service methods.
+     * {@inheritDoc}
+     * One row more than the page size is read to tell whether another page exists, so no count query is needed
+     * unless {@code includeTotal} is set.
      */
-    private List<Integer> getBusyCarIds(LocalDate startDate, LocalDate endDate) {
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Car> getPage(boolean availableOnly, Pageable pageable, Integer after, boolean includeTotal) {
+        Sort.Order order = listingOrder(pageable.getSort());
+        Sort sort = CarSpecifications.keysetSort(order);
+        int size = Math.max(1, Math.min(pageable.getPageSize(), MAX_PAGE_SIZE));
+        log.debug("Fetching cars page (availableOnly: {}, sort: {}, size: {}, after: {}, page: {}).",
+                availableOnly, order, size, after, after == null ? pageable.getPageNumber() : null);
+
+        List<Car> cars;
+        boolean hasMore;
+        if (after != null) {
+            Car lastSeen = carRepository.findById(after)
+                    .orElseThrow(() -> new BadRequestException("Unknown page cursor: " + after));
+            List<Car> rows = carRepository.findBy(
+                    CarSpecifications.listed(availableOnly).and(CarSpecifications.after(order, lastSeen)),
+                    query -> query.sortBy(sort).limit(size + 1).all());
+            hasMore = rows.size() > size;
+            cars = hasMore ? rows.subList(0, size) : rows;
+        } else {
+            if ((long) pageable.getPageNumber() * size > MAX_OFFSET) {
+                throw new BadRequestException("Pages beyond the first " + MAX_OFFSET + " cars must be fetched with the 'after' cursor.");
+            }
+            PageRequest request = PageRequest.of(pageable.getPageNumber(), size, sort);
+            Slice<Car> slice = availableOnly
+                    ? carRepository.findByAvailableTrueAndDeletedFalse(request)
+                    : carRepository.findByDeletedFalse(request);
+            hasMore = slice.hasNext();
+            cars = slice.getContent();
+        }
+        // Pages are mapped after this transaction ends; batch fetching loads the images in one query per page.
+        cars.forEach(car -> Hibernate.initialize(car.getImages()));
+
+        Long total = null;
+        if (includeTotal) {
+            total = availableOnly ? carRepository.countByAvailableTrueAndDeletedFalse() : carRepository.countByDeletedFalse();
+        }
+        return CursorPageDTO.<Car>builder()
+                .items(cars)
+                .nextCursor(hasMore ? cars.get(cars.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .totalItems(total)
+                .build();
+    }
+
+    /**
+     * Private helper that removes cars booked at any point in the date range from the candidate list,
+     * using the OR of the availability index's per-day occupancy bitmaps (AND-NOT against the candidates).
+     */
+    private List<Car> excludeBookedCars(List<Car> candidates, LocalDate startDate, LocalDate endDate) {
+        BitSet bookedCarIds = availabilityIndex.findBookedCarIds(startDate, endDate);
+        if (bookedCarIds.isEmpty()) {
+            return candidates;
+        }
+        List<Car> freeCars = new ArrayList<>(candidates.size());
+        for (Car car : candidates) {
+            if (!bookedCarIds.get(car.getId())) {
+                freeCars.add(car);
+            }
+        }
+        log.debug("Availability index excluded {} of {} candidate car(s) for {} to {}.",
+                candidates.size() - freeCars.size(), candidates.size(), startDate, endDate);
+        return freeCars;
+    }
+
+    /**
+     * Private helper to validate an availability date range.
+     */
+    private void validateDateRange(LocalDate startDate, LocalDate endDate) {
         if (startDate == null || endDate == null) {
             throw new BadRequestException("Start date and end date are required for availability checks.");
         }
         if (startDate.isAfter(endDate)) {
             throw new BadRequestException("Start date cannot be after end date.");
         }
+    }
+
+    /**
+     * Private helper to validate the ranges of a car search. Dates are optional but must be given together.
+     */
+    private void validateSearchCriteria(CarSearchRequestDTO criteria) {
+        if (criteria.getStartDate() != null || criteria.getEndDate() != null) {
+            validateDateRange(criteria.getStartDate(), criteria.getEndDate());
+        }
+        if (criteria.getYearFrom() != null && criteria.getYearTo() != null && criteria.getYearFrom() > criteria.getYearTo()) {
+            throw new BadRequestException("yearFrom cannot be after yearTo.");
+        }
+    }
+
+    /**
+     * Private helper validating the sort of a car listing: a single order on one of the sortable properties,
+     * ascending by ID when none is given.
+     */
+    private static Sort.Order listingOrder(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.isEmpty()) {
+            return Sort.Order.asc("id");
+        }
+        if (orders.size() > 1 || !CarSpecifications.SORTABLE_PROPERTIES.contains(orders.get(0).getProperty())) {
+            throw new BadRequestException("Cars can be sorted by a single one of " + CarSpecifications.SORTABLE_PROPERTIES + ".");
+        }
+        return orders.get(0);
+    }
+
+    /**
+     * Private helper returning the IDs of cars booked on any day of the range, from the availability index when
+     * it is ready and from the database otherwise.
+     */
+    private BitSet findBookedCarIds(LocalDate startDate, LocalDate endDate) {
+        if (availabilityIndex.isReady()) {
+            return availabilityIndex.findBookedCarIds(startDate, endDate);
+        }
+        BitSet bookedCarIds = new BitSet();
+        getBusyCarIds(startDate, endDate).forEach(bookedCarIds::set);
+        return bookedCarIds;
+    }
+
+    /**
+     * Private helper method to encapsulate the logic for finding busy car IDs in the database.
+     * Only used when the availability index is not ready.
+     */
+    private List<Integer> getBusyCarIds(LocalDate startDate, LocalDate endDate) {
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
         return bookingRepository.findBookedCarIdsByDateRange(startDateTime, endDateTime);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,274 @@
+package za.ac.cput.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import za.ac.cput.domain.enums.ImageType;
+import za.ac.cput.exception.BadRequestException;
+import za.ac.cput.service.IFileStorageService;
+import za.ac.cput.service.IImageVariantService;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * ImageVariantServiceImpl.java
+ * Generates resized JPEG or PNG variants of car images with {@link ImageIO} and stores them under
+ * {@code variants/<folder>/<name>-w<width>.<format>} (or {@code -full} when only the format changes).
+ * <p>
+ * Only the configured widths ({@code app.images.variant-widths}) may be requested, so the number of
+ * variants per image stays small and known. Encoding runs on a bounded pool of {@code app.images.variant-threads}
+ * threads with a queue of {@code app.images.variant-queue}; concurrent requests for the same variant share one
+ * encode. A request that finds the queue full, or waits longer than {@code app.images.variant-max-wait-ms},
+ * is served the original instead, while an encode already started still completes and stores the variant.
+ * <p>
+ * The JDK has no WebP or AVIF encoder, so variants are JPEG (the default for photos) or PNG
+ * (the default for PNG originals, which may be transparent).
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Service
+public class ImageVariantServiceImpl implements IImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantServiceImpl.class);
+    private static final String VARIANT_PREFIX = "variants/";
+    private static final Set<String> VARIANT_FOLDERS = Set.of(ImageType.CAR.getFolder());
+    private static final Map<String, String> FORMATS = Map.of("jpg", "image/jpeg", "png", "image/png");
+    // What follows the variant prefix of an image in the key of one of its variants.
+    private static final Pattern VARIANT_SUFFIX = Pattern.compile("(w\\d+|full)\\.(jpg|png)");
+
+    private final IFileStorageService fileStorageService;
+    private final int[] widths;
+    private final float jpegQuality;
+    private final long maxWaitMs;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageVariantServiceImpl(IFileStorageService fileStorageService,
+                                   @Value("${app.images.variant-widths:160,320,640,1280}") int[] widths,
+                                   @Value("${app.images.variant-jpeg-quality:0.8}") float jpegQuality,
+                                   @Value("${app.images.variant-threads:2}") int threads,
+                                   @Value("${app.images.variant-queue:32}") int queueCapacity,
+                                   @Value("${app.images.variant-max-wait-ms:10000}") long maxWaitMs) {
+        this.fileStorageService = fileStorageService;
+        this.widths = widths.clone();
+        Arrays.sort(this.widths);
+        this.jpegQuality = jpegQuality;
+        this.maxWaitMs = maxWaitMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("Image variant pool initialized. Widths: {}, threads: {}, queue capacity: {}, max wait: {} ms",
+                Arrays.toString(this.widths), threads, queueCapacity, maxWaitMs);
+    }
+
+    @Override
+    public String resolveVariant(String key, Integer width, String format) {
+        if (width == null && !StringUtils.hasText(format)) return key;
+
+        int slash = key.indexOf('/');
+        String folder = slash > 0 ? key.substring(0, slash) : "";
+        if (!VARIANT_FOLDERS.contains(folder)) {
+            throw new BadRequestException("Image variants are not available for folder '" + folder + "'.");
+        }
+        if (width != null && Arrays.binarySearch(widths, width) < 0) {
+            throw new BadRequestException("Unsupported image width " + width + ". Supported widths: " + Arrays.toString(widths));
+        }
+        String extension = variantExtension(key, format);
+        String variantKey = variantKey(key, width, extension);
+
+        if (fileStorageService.getMetadata(variantKey).isPresent()) {
+            return variantKey;
+        }
+
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(variantKey, flight);
+        if (existing != null) {
+            return await(existing, key, variantKey);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    String stored = generate(key, variantKey, width, extension);
+                    inFlight.remove(variantKey, flight);
+                    flight.complete(stored);
+                } catch (Throwable t) {
+                    inFlight.remove(variantKey, flight);
+                    flight.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(variantKey, flight);
+            flight.completeExceptionally(e);
+            log.warn("Image variant pool is saturated; serving original '{}' instead of '{}'.", key, variantKey);
+            return key;
+        }
+        return await(flight, key, variantKey);
+    }
+
+    /**
+     * Lists the stored variants of the image with one prefix listing and deletes only those,
+     * rather than one delete per possible width and format. The sizes from the listing are passed on,
+     * so the storage backend need not look each variant up again for its usage ledger.
+     */
+    @Override
+    public void deleteVariants(String key) {
+        String prefix = variantPrefix(key);
+        int deleted = 0;
+        for (Map.Entry<String, Long> variant : fileStorageService.listFiles(prefix).entrySet()) {
+            if (VARIANT_SUFFIX.matcher(variant.getKey().substring(prefix.length())).matches()) {
+                fileStorageService.delete(variant.getKey(), variant.getValue());
+                deleted++;
+            }
+        }
+        log.debug("Deleted {} image variant(s) of '{}'.", deleted, key);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Waits for a variant to be generated, falling back to the original key if it fails or takes too long.
+     */
+    private String await(CompletableFuture<String> flight, String key, String variantKey) {
+        try {
+            return flight.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Image variant '{}' not ready after {} ms; serving original '{}'.", variantKey, maxWaitMs, key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Could not generate image variant '{}'; serving original '{}': {}", variantKey, key, e.getCause().getMessage());
+        }
+        return key;
+    }
+
+    /**
+     * Decodes the original, scales it down to {@code width} (never up) and stores the re-encoded result.
+     *
+     * @return The key the variant was stored under.
+     */
+    private String generate(String key, String variantKey, Integer width, String extension) throws IOException {
+        if (fileStorageService.getMetadata(variantKey).isPresent()) {
+            return variantKey; // Stored by a flight that finished after this request checked.
+        }
+        Resource original = fileStorageService.loadAsResource(key)
+                .orElseThrow(() -> new FileNotFoundException("No image stored with key " + key));
+        BufferedImage source;
+        try (InputStream in = original.getInputStream()) {
+            source = ImageIO.read(in);
+        }
+        if (source == null) {
+            throw new IOException("'" + key + "' is not a readable image");
+        }
+
+        int targetWidth = width != null ? Math.min(width, source.getWidth()) : source.getWidth();
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+        boolean opaque = extension.equals("jpg");
+        BufferedImage scaled = scale(source, targetWidth, targetHeight, opaque);
+
+        byte[] content = opaque ? encodeJpeg(scaled) : encodePng(scaled);
+        fileStorageService.store(variantKey, content, FORMATS.get(extension));
+        log.info("Stored image variant '{}' ({}x{}, {} bytes) of '{}'.", variantKey, targetWidth, targetHeight, content.length, key);
+        return variantKey;
+    }
+
+    /**
+     * Scales an image by repeated halving followed by one bilinear step, which keeps downscaled photos sharp
+     * without the cost of an area-averaging filter. JPEG targets are flattened onto white.
+     */
+    private static BufferedImage scale(BufferedImage source, int width, int height, boolean opaque) {
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                if (opaque) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Maps the requested format to a file extension; without one, PNG originals stay PNG and everything else becomes JPEG.
+     */
+    private static String variantExtension(String key, String format) {
+        if (!StringUtils.hasText(format)) {
+            return "png".equalsIgnoreCase(StringUtils.getFilenameExtension(key)) ? "png" : "jpg";
+        }
+        String normalized = format.trim().toLowerCase(Locale.ROOT);
+        if (normalized.equals("jpeg")) normalized = "jpg";
+        if (!FORMATS.containsKey(normalized)) {
+            throw new BadRequestException("Unsupported image format '" + format + "'. Supported formats: jpg, png");
+        }
+        return normalized;
+    }
+
+    private static String variantKey(String key, Integer width, String extension) {
+        return variantPrefix(key) + (width != null ? "w" + width : "full") + "." + extension;
+    }
+
+    private static String variantPrefix(String key) {
+        return VARIANT_PREFIX + StringUtils.stripFilenameExtension(key) + "-";
+    }
+}
@@ -8,20 +8,23 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import za.ac.cput.service.IFileStorageService;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.text.DecimalFormat;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -29,6 +32,7 @@ import java.util.stream.Stream;
  * This service is activated only when the 'storage-local' Spring profile is active.
  * It handles file operations within a configured base directory and includes security
  * checks to prevent directory traversal and disallowed file types.
+ * Every file written or deleted is recorded in the {@link StorageUsageLedger}.
  */
 @Service
 @Profile("storage-local")
@@ -36,12 +40,20 @@ public class LocalFileStorageService implements IFileStorageService {
 
     private static final Logger log = LoggerFactory.getLogger(LocalFileStorageService.class);
     private static final List<String> ALLOWED_MIME_TYPES = List.of("image/jpeg", "image/png", "image/gif");
+    private static final String TEMP_FILE_PREFIX = ".upload-";
+    private static final int COPY_BUFFER_SIZE = 8192;
 
     @Value("${app.storage.base-dir:uploads}")
     private String baseDir;
 
     private Path storageBasePath;
 
+    private final StorageUsageLedger usageLedger;
+
+    public LocalFileStorageService(StorageUsageLedger usageLedger) {
+        this.usageLedger = usageLedger;
+    }
+
     /**
      * Initializes the service after construction. It resolves the base storage directory
      * from the application properties and creates it if it doesn't already exist.
@@ -101,12 +113,54 @@ public class LocalFileStorageService implements IFileStorageService {
             Files.createDirectories(targetFolder);
             Path targetFile = targetFolder.resolve(filename);
             Files.copy(file.getInputStream(), targetFile, StandardCopyOption.REPLACE_EXISTING);
+            usageLedger.recordStored(key, Files.size(targetFile));
             return key;
         } catch (IOException e) {
             throw new RuntimeException("Failed to store file with key: " + key, e);
         }
     }
 
+    /**
+     * Writes content to the exact key given, enforcing the same MIME type whitelist and base directory
+     * confinement as {@link #save}. The content is written to a temporary file first and moved into place,
+     * so a concurrent reader never sees a partially written file.
+     *
+     * @param key         The key (relative path) to store the content under, e.g. "variants/cars/uuid-w320.jpg".
+     * @param content     The file content.
+     * @param contentType The MIME type of the content.
+     * @throws RuntimeException  if the file cannot be written.
+     * @throws SecurityException if the key points outside the base directory or the type is not allowed.
+     */
+    @Override
+    public void store(String key, byte[] content, String contentType) {
+        if (contentType == null || !ALLOWED_MIME_TYPES.contains(contentType.toLowerCase())) {
+            throw new SecurityException("File type not allowed. Provided: " + contentType);
+        }
+        Path filePath = resolveWithinBase(key);
+        if (filePath == null) {
+            throw new SecurityException("Cannot store file outside base directory.");
+        }
+        Path tempFile = null;
+        try {
+            Files.createDirectories(filePath.getParent());
+            tempFile = Files.createTempFile(filePath.getParent(), TEMP_FILE_PREFIX, ".tmp");
+            Files.write(tempFile, content);
+            long replacedSize = Files.isRegularFile(filePath) ? Files.size(filePath) : -1;
+            Files.move(tempFile, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (replacedSize >= 0) {
+                usageLedger.recordDeleted(key, replacedSize);
+            }
+            usageLedger.recordStored(key, content.length);
+        } catch (IOException e) {
+            try {
+                if (tempFile != null) Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // The write already failed; the temporary file is left for manual cleanup.
+            }
+            throw new RuntimeException("Failed to store file with key: " + key, e);
+        }
+    }
+
     /**
      * Loads a file from the local filesystem as a Spring {@link Resource}.
      * This is the primary method used by the `FileController` to stream file content to the client.
@@ -131,6 +185,74 @@ public class LocalFileStorageService implements IFileStorageService {
         }
     }
 
+    /**
+     * Reads the size and modification time of a file from the filesystem. Stored files are never rewritten
+     * under the same key, so the ETag is derived from the key, size and modification time instead of hashing
+     * the content.
+     *
+     * @param key The key (relative path) of the file (e.g., "cars/uuid.jpg").
+     * @return An {@link Optional} containing the metadata if the file exists as a regular file, or an empty Optional otherwise.
+     */
+    @Override
+    public Optional<FileMetadata> getMetadata(String key) {
+        Path filePath = resolveWithinBase(key);
+        if (filePath == null) return Optional.empty();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) return Optional.empty();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            String eTag = DigestUtils.md5DigestAsHex((key + ":" + attributes.size() + ":" + lastModified).getBytes(StandardCharsets.UTF_8));
+            return Optional.of(new FileMetadata(attributes.size(), attributes.lastModifiedTime().toInstant(), eTag));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key The key (relative path) of the file.
+     * @return The absolute path of the file, or empty if it is outside the base directory or not a regular file.
+     */
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path filePath = resolveWithinBase(key);
+        return filePath != null && Files.isRegularFile(filePath) ? Optional.of(filePath) : Optional.empty();
+    }
+
+    /**
+     * Writes a byte range of a file to the given stream through one small reused buffer. The target is a servlet
+     * output stream, which is not a channel the kernel can copy into directly, so a plain buffered copy is as fast
+     * as any channel transfer here and keeps memory flat however large the file is. Where the container supports
+     * sendfile, {@code FileController} hands it {@link #localPath} instead and this copy is not used.
+     *
+     * @param key    The key (relative path) of the file.
+     * @param offset The position of the first byte to write.
+     * @param length The number of bytes to write.
+     * @param out    The stream to write to; it is not closed.
+     * @throws IOException if the file is outside the base directory, cannot be read, or the stream cannot be written.
+     */
+    @Override
+    public void copyTo(String key, long offset, long length, OutputStream out) throws IOException {
+        Path filePath = resolveWithinBase(key);
+        if (filePath == null) {
+            throw new NoSuchFileException(key);
+        }
+        try (InputStream in = Files.newInputStream(filePath)) {
+            in.skipNBytes(offset);
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new IOException("File " + key + " ended before byte " + (offset + length));
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
     /**
      * Checks if a file with the given key exists on the local filesystem.
      *
@@ -148,6 +270,39 @@ public class LocalFileStorageService implements IFileStorageService {
         }
     }
 
+    /**
+     * Lists the files under a prefix by walking the directory that contains it once. The prefix may end
+     * in the middle of a file name (e.g. "variants/cars/uuid-"), as with object storage.
+     *
+     * @param prefix The prefix to list, e.g. "cars/".
+     * @return The keys of the regular files under the prefix, using '/' as separator, mapped to their sizes;
+     * empty if the directory does not exist.
+     * @throws RuntimeException if the directory cannot be read.
+     */
+    @Override
+    public Map<String, Long> listFiles(String prefix) {
+        int slash = prefix.lastIndexOf('/');
+        Path folderPath = slash > 0 ? resolveWithinBase(prefix.substring(0, slash)) : storageBasePath;
+        if (folderPath == null || !Files.isDirectory(folderPath)) return Collections.emptyMap();
+        Map<String, Long> files = new HashMap<>();
+        try (Stream<Path> walk = Files.walk(folderPath)) {
+            walk.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith(TEMP_FILE_PREFIX))
+                    .forEach(path -> {
+                        String key = storageBasePath.relativize(path).toString().replace('\\', '/');
+                        if (!key.startsWith(prefix)) return;
+                        try {
+                            files.put(key, Files.size(path));
+                        } catch (IOException e) {
+                            log.warn("Could not read the size of '{}' while listing '{}'", key, prefix);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new RuntimeException("Could not list files under prefix: " + prefix, e);
+        }
+        return files;
+    }
+
     /**
      * Deletes a file from the local filesystem based on its key.
      * This operation is idempotent; if the file doesn't exist, it succeeds without error.
@@ -164,13 +319,31 @@ public class LocalFileStorageService implements IFileStorageService {
                 log.warn("Attempt to delete file outside base directory blocked: {}", key);
                 return false;
             }
-            return Files.deleteIfExists(filePath);
+            long size = Files.isRegularFile(filePath) ? Files.size(filePath) : 0;
+            boolean deleted = Files.deleteIfExists(filePath);
+            if (deleted) {
+                usageLedger.recordDeleted(key, size);
+            }
+            return deleted;
         } catch (IOException e) {
             log.error("Error deleting file with key {}: {}", key, e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Deletes a file from the local filesystem. The size is read from the filesystem as part of the delete
+     * at no extra cost, so the size given by the caller is not needed.
+     *
+     * @param key  The key (relative path) of the file to delete.
+     * @param size The size of the file in bytes, as known to the caller.
+     * @return {@code true} if the deletion was successful or the file didn't exist; {@code false} on error or if access is denied.
+     */
+    @Override
+    public boolean delete(String key, long size) {
+        return delete(key);
+    }
+
     /**
      * Constructs a URL that points to the application's own {@code FileController}.
      * This follows the "backend as a file proxy" pattern, ensuring that all file access
@@ -195,79 +368,49 @@ public class LocalFileStorageService implements IFileStorageService {
     }
 
     /**
-     * Calculates statistics for the local storage directory, including total file count and size
-     * across a predefined set of subdirectories.
+     * Counts every file under the base directory in a single walk, grouped by top-level folder.
+     * Temporary files of writes in progress are skipped.
      *
-     * @return A {@link Map} containing 'totalFileCount' and 'totalSizeFormatted'.
+     * @return The usage per top-level folder.
+     * @throws RuntimeException if the directory cannot be read.
      */
-    public Map<String, Object> getStats() {
-        Map<String, Object> stats = new HashMap<>();
-        long totalFileCount = 0;
-        long totalSizeInBytes = 0;
-        List<String> foldersToScan = List.of("cars", "selfies", "docs");
-
-        for (String folder : foldersToScan) {
-            Path folderPath = storageBasePath.resolve(folder);
-            if (Files.exists(folderPath) && Files.isDirectory(folderPath)) {
-                try (Stream<Path> walk = Files.walk(folderPath)) {
-                    List<Path> files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
-                    totalFileCount += files.size();
-                    totalSizeInBytes += files.stream().mapToLong(p -> {
+    @Override
+    public Map<String, FolderUsage> scanUsage() {
+        Map<String, long[]> totals = new HashMap<>();
+        try (Stream<Path> walk = Files.walk(storageBasePath)) {
+            walk.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith(TEMP_FILE_PREFIX))
+                    .forEach(path -> {
+                        String key = storageBasePath.relativize(path).toString().replace('\\', '/');
+                        long[] total = totals.computeIfAbsent(StorageUsageLedger.folderOf(key), folder -> new long[2]);
+                        total[0]++;
                         try {
-                            return Files.size(p);
+                            total[1] += Files.size(path);
                         } catch (IOException e) {
-                            return 0L;
+                            log.warn("Could not read the size of '{}' while counting storage usage", key);
                         }
-                    }).sum();
-                } catch (IOException e) {
-                    log.error("Could not scan folder '{}' for stats", folder, e);
-                }
-            }
+                    });
+        } catch (IOException e) {
+            throw new RuntimeException("Could not scan the storage directory for usage", e);
         }
-        stats.put("totalFileCount", totalFileCount);
-        stats.put("totalSizeFormatted", formatSize(totalSizeInBytes));
-        return stats;
+        Map<String, FolderUsage> usage = new HashMap<>();
+        totals.forEach((folder, total) -> usage.put(folder, new FolderUsage(total[0], total[1])));
+        return usage;
     }
 
     /**
-     * Calculates the total storage usage for a predefined set of subdirectories.
+     * Resolves a key against the base directory.
      *
-     * @return A {@link Map} where keys are folder names and values are their total size in bytes.
+     * @param key The key (relative path) of a file.
+     * @return The absolute path of the file, or {@code null} if the key is invalid or points outside the base directory.
      */
-    public Map<String, Long> getUsagePerFolder() {
-        Map<String, Long> usageMap = new HashMap<>();
-        List<String> foldersToScan = List.of("cars", "selfies", "docs");
-        for (String folder : foldersToScan) {
-            long folderSize = 0;
-            Path folderPath = storageBasePath.resolve(folder);
-            if (Files.exists(folderPath) && Files.isDirectory(folderPath)) {
-                try (Stream<Path> walk = Files.walk(folderPath)) {
-                    folderSize = walk.filter(Files::isRegularFile).mapToLong(p -> {
-                        try {
-                            return Files.size(p);
-                        } catch (IOException e) {
-                            return 0L;
-                        }
-                    }).sum();
-                } catch (IOException e) {
-                    log.error("Could not scan folder '{}' for usage", folder, e);
-                }
-            }
-            usageMap.put(folder, folderSize);
+    private Path resolveWithinBase(String key) {
+        if (key == null || key.isBlank()) return null;
+        try {
+            Path filePath = this.storageBasePath.resolve(key).normalize();
+            return filePath.startsWith(this.storageBasePath) ? filePath : null;
+        } catch (InvalidPathException e) {
+            return null;
         }
-        return usageMap;
-    }
-
-    /**
-     * Formats a size in bytes into a human-readable string (e.g., "1.5 MB").
-     *
-     * @param size The size in bytes.
-     * @return A formatted string representation of the size.
-     */
-    private String formatSize(long size) {
-        if (size <= 0) return "0 B";
-        final String[] units = new String[]{"B", "KB", "MB", "GB", "TB"};
-        int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
-        return new DecimalFormat("#,##0.#").format(size / Math.pow(1024, digitGroups)) + " " + units[digitGroups];
     }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package za.ac.cput.service.impl;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.minio.*;
 import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
@@ -17,26 +20,64 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import za.ac.cput.service.IFileStorageService;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
-import java.text.DecimalFormat;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Service implementation for interacting with a MinIO S3-compatible object storage server.
  * This service is activated only when the 'storage-minio' Spring profile is active.
  * It handles all file operations, such as saving, loading, and deleting objects in a configured bucket.
+ * <p>
+ * The bucket is verified (and created if missing) once, on the first upload, rather than on every upload.
+ * Uploads stream with an explicit part size ({@code minio.upload.part-size}, at least the 5 MiB S3 minimum),
+ * so files up to that size go up in a single request and larger ones as a multipart upload.
+ * Upload latency is timed as {@code storage.upload} and sizes recorded as {@code storage.upload.bytes}.
+ * <p>
+ * Stat results of existing objects are cached for {@code minio.cache.stat-ttl-ms}, and pre-signed URLs for
+ * six of their seven days of validity, so a handed-out URL is always good for at least another day. Both caches
+ * are cleared for a key when this service writes or deletes it, and hold at most {@code minio.cache.max-entries}
+ * keys each. Missing objects are not cached, so a file appears as soon as it is uploaded.
+ * Every object written or deleted is recorded in the {@link StorageUsageLedger}, and so is the size of any
+ * object an upload replaces.
  */
 @Service
 @Profile("storage-minio")
 public class MinioStorageService implements IFileStorageService {
 
     private static final Logger log = LoggerFactory.getLogger(MinioStorageService.class);
+    // S3 limits for multipart uploads.
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    static final int MAX_PARTS = 10_000;
+    static final Duration URL_EXPIRY = Duration.ofDays(7);
+    static final Duration URL_REUSE = Duration.ofDays(6);
+
     private final MinioClient minioClient;
     private final String bucketName;
     private final String minioPublicUrl;
+    private final long partSize;
+    private final StorageUsageLedger usageLedger;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary uploadedBytes;
+    private volatile boolean bucketReady = false;
+    private final Duration statTtl;
+    private final int cacheMaxEntries;
+    private final Clock clock;
+    private final Map<String, Cached<FileMetadata>> statCache = new ConcurrentHashMap<>();
+    private final Map<String, Cached<URL>> urlCache = new ConcurrentHashMap<>();
+
+    private record Cached<V>(V value, Instant expiresAt) {
+    }
 
     /**
      * Constructs the MinioStorageService with all necessary dependencies and configuration.
@@ -46,16 +87,42 @@ public class MinioStorageService implements IFileStorageService {
      * @param bucketName     The name of the bucket to use, injected from the 'minio.bucket.name' property.
      * @param minioPublicUrl The public-facing base URL for MinIO, injected from 'minio.public.url'.
      *                       This is used for correcting pre-signed URLs if needed.
+     * @param partSize       The part size in bytes for multipart uploads, from 'minio.upload.part-size'.
+     * @param statTtlMs      How long a stat result is reused, from 'minio.cache.stat-ttl-ms'.
+     * @param cacheMaxEntries The maximum number of keys held by each cache, from 'minio.cache.max-entries'.
+     * @param usageLedger    The ledger that counts stored files and bytes per folder.
+     * @param meterRegistry  The registry for upload metrics.
      */
     @Autowired
     public MinioStorageService(
             MinioClient minioClient,
             @Value("${minio.bucket.name}") String bucketName,
-            @Value("${minio.public.url}") String minioPublicUrl
+            @Value("${minio.public.url}") String minioPublicUrl,
+            @Value("${minio.upload.part-size:10485760}") long partSize,
+            @Value("${minio.cache.stat-ttl-ms:60000}") long statTtlMs,
+            @Value("${minio.cache.max-entries:10000}") int cacheMaxEntries,
+            StorageUsageLedger usageLedger,
+            MeterRegistry meterRegistry
     ) {
+        this(minioClient, bucketName, minioPublicUrl, partSize, statTtlMs, cacheMaxEntries, usageLedger, meterRegistry, Clock.systemUTC());
+    }
+
+    MinioStorageService(MinioClient minioClient, String bucketName, String minioPublicUrl, long partSize,
+                        long statTtlMs, int cacheMaxEntries, StorageUsageLedger usageLedger, MeterRegistry meterRegistry, Clock clock) {
         this.minioClient = minioClient;
         this.bucketName = bucketName;
         this.minioPublicUrl = minioPublicUrl;
+        this.partSize = Math.min(Math.max(partSize, MIN_PART_SIZE), MAX_PART_SIZE);
+        this.usageLedger = usageLedger;
+        this.meterRegistry = meterRegistry;
+        this.statTtl = Duration.ofMillis(Math.max(statTtlMs, 0));
+        this.cacheMaxEntries = Math.max(cacheMaxEntries, 1);
+        this.clock = clock;
+        this.uploadedBytes = DistributionSummary.builder("storage.upload.bytes")
+                .description("Size of files uploaded to storage")
+                .baseUnit("bytes")
+                .tag("backend", "minio")
+                .register(meterRegistry);
     }
 
     /**
@@ -64,13 +131,13 @@ public class MinioStorageService implements IFileStorageService {
      */
     @PostConstruct
     public void init() {
-        log.info("MINIO STORAGE: Service initialized for bucket '{}' with public URL '{}'", bucketName, minioPublicUrl);
+        log.info("MINIO STORAGE: Service initialized for bucket '{}' with public URL '{}' and part size {} bytes", bucketName, minioPublicUrl, partSize);
     }
 
     /**
      * Saves a multipart file to a specified directory within the MinIO bucket.
-     * If the bucket does not exist, it will be created. The file is stored with a
-     * unique name generated via UUID to prevent collisions.
+     * If the bucket has not been verified yet, it is checked and created if it does not exist.
+     * The file is stored with a unique name generated via UUID to prevent collisions.
      *
      * @param file      The {@link MultipartFile} to be saved.
      * @param directory The target directory (prefix) within the bucket (e.g., "cars", "selfies").
@@ -79,31 +146,105 @@ public class MinioStorageService implements IFileStorageService {
      */
     @Override
     public String save(MultipartFile file, String directory) {
-        try {
-            boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
-            if (!found) {
-                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
-                log.info("MINIO STORAGE: Bucket '{}' created.", bucketName);
-            }
+        String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
+        String objectName = UUID.randomUUID() + (extension != null ? "." + extension : "");
+        String key = directory + "/" + objectName;
+
+        try (InputStream stream = file.getInputStream()) {
+            upload(key, stream, file.getSize(), file.getContentType());
+            return key;
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file to MinIO", e);
+        }
+    }
 
-            String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
-            String objectName = UUID.randomUUID() + (extension != null ? "." + extension : "");
-            String key = directory + "/" + objectName;
+    /**
+     * Uploads content to MinIO under the exact key given, replacing any existing object with that key.
+     * The size of a replaced object is looked up first (from the stat cache when it was seen recently)
+     * and taken off the usage ledger, as the local backend does for an overwritten file.
+     *
+     * @param key         The object key to store the content under, e.g. "variants/cars/uuid-w320.jpg".
+     * @param content     The file content.
+     * @param contentType The MIME type of the content.
+     * @throws RuntimeException if the upload fails.
+     */
+    @Override
+    public void store(String key, byte[] content, String contentType) {
+        Optional<FileMetadata> replaced = metadataForLedger(key);
+        try {
+            upload(key, new ByteArrayInputStream(content), content.length, contentType);
+        } catch (Exception e) {
+            throw new RuntimeException("Error uploading file to MinIO with key " + key, e);
+        }
+        replaced.ifPresent(metadata -> usageLedger.recordDeleted(key, metadata.contentLength()));
+    }
 
+    /**
+     * Verifies the bucket once, then streams an object to it and records the upload metrics.
+     * A {@code NoSuchBucket} error (the bucket was removed behind our back) makes the next upload verify it again.
+     */
+    private void upload(String key, InputStream stream, long size, String contentType) throws Exception {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            ensureBucket();
+            evict(key);
             minioClient.putObject(
                     PutObjectArgs.builder()
                             .bucket(bucketName)
                             .object(key)
-                            .stream(file.getInputStream(), file.getSize(), -1)
-                            .contentType(file.getContentType())
+                            .stream(stream, size, partSizeFor(size, partSize))
+                            .contentType(contentType)
                             .build()
             );
-            return key;
-        } catch (Exception e) {
-            throw new RuntimeException("Error uploading file to MinIO", e);
+            evict(key);
+            outcome = "success";
+            uploadedBytes.record(size);
+            usageLedger.recordStored(key, size);
+        } catch (ErrorResponseException e) {
+            if ("NoSuchBucket".equals(e.errorResponse().code())) {
+                bucketReady = false;
+            }
+            throw e;
+        } finally {
+            Timer.builder("storage.upload")
+                    .description("Time to upload a file to storage")
+                    .tags("backend", "minio", "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Checks that the bucket exists, creating it if needed, on the first call only.
+     */
+    private void ensureBucket() throws Exception {
+        if (bucketReady) return;
+        synchronized (this) {
+            if (bucketReady) return;
+            boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
+            if (!found) {
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+                log.info("MINIO STORAGE: Bucket '{}' created.", bucketName);
+            }
+            bucketReady = true;
         }
     }
 
+    /**
+     * Chooses the part size for an upload: the configured size, grown as needed to stay within the
+     * S3 limit of 10,000 parts. Objects no larger than one part are sent in a single request.
+     *
+     * @param objectSize The size of the object, or -1 if unknown.
+     * @param partSize   The configured part size, already within the S3 limits.
+     * @return The part size to pass to MinIO.
+     */
+    static long partSizeFor(long objectSize, long partSize) {
+        if (objectSize <= 0) return partSize;
+        long minimum = (objectSize + MAX_PARTS - 1) / MAX_PARTS;
+        return Math.min(Math.max(partSize, minimum), MAX_PART_SIZE);
+    }
+
     /**
      * Loads a file from MinIO as a Spring {@link Resource}.
      * This is the primary method used by the `FileController` to stream file content to the client.
@@ -129,8 +270,61 @@ public class MinioStorageService implements IFileStorageService {
         }
     }
 
+    /**
+     * Reads an object's size, modification time and ETag from MinIO with a single stat request,
+     * or from the stat cache if the object was seen recently.
+     *
+     * @param key The unique key of the object (e.g., "cars/uuid.jpg").
+     * @return An {@link Optional} containing the metadata if the object exists, or an empty Optional otherwise.
+     * @throws RuntimeException for any MinIO errors other than the key not being found.
+     */
+    @Override
+    public Optional<FileMetadata> getMetadata(String key) {
+        FileMetadata cached = cached(statCache, key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        try {
+            StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(key).build());
+            String eTag = stat.etag() != null ? stat.etag().replace("\"", "") : null;
+            FileMetadata metadata = new FileMetadata(stat.size(),
+                    stat.lastModified() != null ? stat.lastModified().toInstant() : null, eTag);
+            cache(statCache, key, metadata, statTtl);
+            return Optional.of(metadata);
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return Optional.empty();
+            }
+            throw new RuntimeException("MinIO error reading file metadata: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading file metadata from MinIO", e);
+        }
+    }
+
+    /**
+     * Streams a byte range of an object to the given stream. Only the requested range is fetched from MinIO.
+     *
+     * @param key    The unique key of the object.
+     * @param offset The position of the first byte to write.
+     * @param length The number of bytes to write.
+     * @param out    The stream to write to; it is not closed.
+     * @throws IOException if the object cannot be fetched or the stream cannot be written.
+     */
+    @Override
+    public void copyTo(String key, long offset, long length, OutputStream out) throws IOException {
+        try (InputStream stream = minioClient.getObject(
+                GetObjectArgs.builder().bucket(bucketName).object(key).offset(offset).length(length).build())) {
+            stream.transferTo(out);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error streaming file from MinIO with key " + key, e);
+        }
+    }
+
     /**
      * Checks if a file with the given key exists in the MinIO bucket.
+     * Shares the stat cache with {@link #getMetadata(String)}.
      *
      * @param key The unique key of the object to check.
      * @return {@code true} if the file exists, {@code false} otherwise.
@@ -138,33 +332,75 @@ public class MinioStorageService implements IFileStorageService {
      */
     @Override
     public boolean fileExists(String key) {
+        return getMetadata(key).isPresent();
+    }
+
+    /**
+     * Lists the objects under a prefix with their sizes. The MinIO client pages through the listing (up to 1,000
+     * keys per request), so checking many keys this way costs a few requests instead of one stat request per key.
+     *
+     * @param prefix The prefix to list (e.g., "cars/").
+     * @return The full keys of the objects under the prefix, mapped to their sizes.
+     * @throws RuntimeException if the listing fails.
+     */
+    @Override
+    public Map<String, Long> listFiles(String prefix) {
+        Map<String, Long> files = new HashMap<>();
         try {
-            minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(key).build());
-            return true;
-        } catch (ErrorResponseException e) {
-            if ("NoSuchKey".equals(e.errorResponse().code())) return false;
-            throw new RuntimeException(e);
+            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder().bucket(bucketName).prefix(prefix).recursive(true).build());
+            for (Result<Item> result : results) {
+                Item item = result.get();
+                if (!item.isDir()) {
+                    files.put(item.objectName(), item.size());
+                }
+            }
         } catch (Exception e) {
-            throw new RuntimeException("Error checking file existence in MinIO", e);
+            throw new RuntimeException("Could not list objects under prefix '" + prefix + "' in MinIO", e);
         }
+        return files;
     }
 
     /**
      * Deletes a file from the MinIO bucket based on its key.
      * This operation is idempotent; if the file doesn't exist, it succeeds without error.
+     * The object's size, needed by the usage ledger, comes from the stat cache when the object
+     * was seen recently, so only a delete of an object not looked at lately costs an extra stat request;
+     * callers that know the size use {@link #delete(String, long)} instead.
      *
      * @param key The unique key of the object to delete.
      * @return {@code true} if the deletion was successful or the file didn't exist, {@code false} on error.
      */
     @Override
     public boolean delete(String key) {
+        Optional<FileMetadata> existing = metadataForLedger(key);
+        return remove(key, existing.isPresent() ? existing.get().contentLength() : null);
+    }
+
+    /**
+     * Deletes a file from the MinIO bucket with a single request, recording the size given by the caller.
+     *
+     * @param key  The unique key of the object to delete.
+     * @param size The size of the object in bytes, e.g. from {@link #listFiles(String)}.
+     * @return {@code true} if the deletion was successful or the file didn't exist, {@code false} on error.
+     */
+    @Override
+    public boolean delete(String key, long size) {
+        return remove(key, size);
+    }
+
+    /**
+     * Removes an object and, if it existed with a known size, takes that size off the usage ledger.
+     */
+    private boolean remove(String key, Long size) {
         try {
-            if (!fileExists(key)) {
-                return true;
-            }
+            evict(key);
             minioClient.removeObject(
                     RemoveObjectArgs.builder().bucket(bucketName).object(key).build()
             );
+            evict(key);
+            if (size != null) {
+                usageLedger.recordDeleted(key, size);
+            }
             return true;
         } catch (Exception e) {
             log.error("Error deleting file from MinIO with key {}: {}", key, e.getMessage());
@@ -172,6 +408,19 @@ public class MinioStorageService implements IFileStorageService {
         }
     }
 
+    /**
+     * Looks up an object before it is replaced or deleted, for the usage ledger. A failed lookup is logged and
+     * treated as unknown, since ledger drift never fails a file operation and is corrected by reconciliation.
+     */
+    private Optional<FileMetadata> metadataForLedger(String key) {
+        try {
+            return getMetadata(key);
+        } catch (RuntimeException e) {
+            log.warn("Could not stat '{}' in MinIO for the usage ledger; the next reconciliation will correct it.", key, e);
+            return Optional.empty();
+        }
+    }
+
     /**
      * Generates a publicly accessible, pre-signed URL for a MinIO object.
      * <p>
@@ -181,6 +430,8 @@ public class MinioStorageService implements IFileStorageService {
      * It corrects the URL generated by MinIO (which might point to an internal Docker address)
      * to use the public-facing URL.
      * </p>
+     * URLs are valid for 7 days and the corrected URL is reused for 6 of them, so repeated calls neither sign
+     * nor rewrite a new URL.
      *
      * @param key The unique key of the object.
      * @return A browser-accessible {@link URL} for the object.
@@ -188,6 +439,10 @@ public class MinioStorageService implements IFileStorageService {
      */
     @Override
     public URL getUrl(String key) {
+        URL cached = cached(urlCache, key);
+        if (cached != null) {
+            return cached;
+        }
         try {
             // Step 1: Generate the pre-signed URL. It may contain an incorrect internal base URL.
             String internalUrlString = minioClient.getPresignedObjectUrl(
@@ -195,7 +450,7 @@ public class MinioStorageService implements IFileStorageService {
                             .method(Method.GET)
                             .bucket(bucketName)
                             .object(key)
-                            .expiry(7, TimeUnit.DAYS)
+                            .expiry((int) URL_EXPIRY.toSeconds(), TimeUnit.SECONDS)
                             .build()
             );
 
@@ -203,80 +458,74 @@ public class MinioStorageService implements IFileStorageService {
             URL internalUrl = new URL(internalUrlString);
             String correctUrlString = this.minioPublicUrl + internalUrl.getPath() + "?" + internalUrl.getQuery();
 
-            // Step 3: Return the corrected, browser-friendly URL.
-            return new URI(correctUrlString).toURL();
+            // Step 3: Cache and return the corrected, browser-friendly URL.
+            URL url = new URI(correctUrlString).toURL();
+            cache(urlCache, key, url, URL_REUSE);
+            return url;
 
         } catch (Exception e) {
             throw new RuntimeException("Error getting or correcting pre-signed URL from MinIO", e);
         }
     }
 
-    // --- Stats Methods ---
+    /**
+     * Returns a cached value for a key if it has not expired yet.
+     */
+    private <V> V cached(Map<String, Cached<V>> cache, String key) {
+        Cached<V> entry = cache.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAt().isAfter(clock.instant())) return entry.value();
+        cache.remove(key, entry);
+        return null;
+    }
 
     /**
-     * Calculates statistics for the entire MinIO bucket, including total file count and size.
-     * <strong>Warning:</strong> This method lists all objects in the bucket and can be very
-     * slow and resource-intensive on large buckets.
-     *
-     * @return A {@link Map} containing 'totalFileCount' and 'totalSizeFormatted'.
-     * @throws RuntimeException if communication with MinIO fails.
+     * Caches a value for a key. When the cache is full, expired entries are dropped first,
+     * and the whole cache if that does not make room.
      */
-    public Map<String, Object> getStats() {
-        log.warn("PERFORMANCE WARNING: Calculating stats on MinIO requires listing all objects, which can be slow.");
-        Map<String, Object> stats = new HashMap<>();
-        long totalFileCount = 0;
-        long totalSizeInBytes = 0;
-        try {
-            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder().bucket(bucketName).recursive(true).build());
-            for (Result<Item> result : results) {
-                Item item = result.get();
-                totalFileCount++;
-                totalSizeInBytes += item.size();
+    private <V> void cache(Map<String, Cached<V>> cache, String key, V value, Duration ttl) {
+        Instant now = clock.instant();
+        if (cache.size() >= cacheMaxEntries) {
+            cache.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+            if (cache.size() >= cacheMaxEntries) {
+                cache.clear();
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Could not get stats from MinIO", e);
         }
-        stats.put("totalFileCount", totalFileCount);
-        stats.put("totalSizeFormatted", formatSize(totalSizeInBytes));
-        return stats;
+        cache.put(key, new Cached<>(value, now.plus(ttl)));
     }
 
     /**
-     * Calculates the total storage usage for a predefined set of folders (prefixes).
-     * <strong>Warning:</strong> This method performs a separate listing operation for each folder
-     * and can be slow if folders contain many objects.
-     *
-     * @return A {@link Map} where keys are folder names and values are their total size in bytes.
+     * Forgets everything cached about a key, before and after it is written or deleted.
      */
-    public Map<String, Long> getUsagePerFolder() {
-        log.warn("PERFORMANCE WARNING: Calculating usage per folder on MinIO requires listing objects, which can be slow.");
-        Map<String, Long> usageMap = new HashMap<>();
-        List<String> foldersToScan = List.of("cars", "selfies", "docs");
-        for (String folder : foldersToScan) {
-            long folderSize = 0;
-            try {
-                Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder().bucket(bucketName).prefix(folder + "/").recursive(true).build());
-                for (Result<Item> result : results) {
-                    folderSize += result.get().size();
-                }
-            } catch (Exception e) {
-                log.error("Failed to calculate usage for folder '{}' from MinIO", folder, e);
-            }
-            usageMap.put(folder, folderSize);
-        }
-        return usageMap;
+    private void evict(String key) {
+        statCache.remove(key);
+        urlCache.remove(key);
     }
 
     /**
-     * Formats a size in bytes into a human-readable string (e.g., "1.5 MB").
+     * Counts every object in the bucket with a single recursive listing, grouped by top-level folder.
+     * <strong>Warning:</strong> This lists all objects in the bucket and is slow on large buckets;
+     * it only runs to reconcile the usage ledger.
      *
-     * @param size The size in bytes.
-     * @return A formatted string representation of the size.
+     * @return The usage per top-level folder.
+     * @throws RuntimeException if communication with MinIO fails.
      */
-    private String formatSize(long size) {
-        if (size <= 0) return "0 B";
-        final String[] units = new String[]{"B", "KB", "MB", "GB", "TB"};
-        int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
-        return new DecimalFormat("#,##0.#").format(size / Math.pow(1024, digitGroups)) + " " + units[digitGroups];
+    @Override
+    public Map<String, FolderUsage> scanUsage() {
+        Map<String, long[]> totals = new HashMap<>();
+        try {
+            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder().bucket(bucketName).recursive(true).build());
+            for (Result<Item> result : results) {
+                Item item = result.get();
+                long[] total = totals.computeIfAbsent(StorageUsageLedger.folderOf(item.objectName()), folder -> new long[2]);
+                total[0]++;
+                total[1] += item.size();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Could not scan MinIO bucket for usage", e);
+        }
+        Map<String, FolderUsage> usage = new HashMap<>();
+        totals.forEach((folder, total) -> usage.put(folder, new FolderUsage(total[0], total[1])));
+        return usage;
     }
 }
\ No newline at end of file
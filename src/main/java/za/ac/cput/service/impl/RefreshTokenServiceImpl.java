@@ -3,6 +3,8 @@ package za.ac.cput.service.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import za.ac.cput.domain.entity.security.RefreshToken;
@@ -11,9 +13,16 @@ import za.ac.cput.exception.ResourceNotFoundException;
 import za.ac.cput.exception.TokenRefreshException;
 import za.ac.cput.repository.IRefreshTokenRepository;
 import za.ac.cput.repository.UserRepository;
+import za.ac.cput.security.TokenDenyList;
 import za.ac.cput.service.IRefreshTokenService;
+import za.ac.cput.utils.SecurityUtils;
 
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,6 +32,15 @@ import java.util.UUID;
  * Manages the lifecycle of refresh tokens, including creation, verification,
  * and deletion. Refresh tokens are persisted in the database.
  * <p>
+ * Only the SHA-256 hash of a token is stored; the raw value exists only in the client's cookie.
+ * Recently issued tokens are kept in a bounded in-memory cache so a refresh can skip the lookup,
+ * while the rotating UPDATE stays authoritative. Expired rows are purged by a scheduled job.
+ * <p>
+ * Every login starts a token family: one row per signed-in device, rotated in place on each refresh,
+ * so signing in on a phone no longer signs the browser out. A rotated-away token presented again means
+ * it was copied, and the whole family is revoked. A user keeps at most
+ * {@code app.security.refresh-token.max-devices-per-user} families; the oldest are signed out first.
+ * <p>
  * Author: Peter Buckingham
  * Date: 2025-04-02
  * Updated by: Peter Buckingham
@@ -36,76 +54,140 @@ public class RefreshTokenServiceImpl implements IRefreshTokenService {
     private final UserRepository userRepository; // Corrected variable name
     @Value("${jwt.refresh-token.expiration-ms}")
     private Long refreshTokenDurationMs;
+    @Value("${app.security.refresh-token.cache-size:10000}")
+    private int cacheSize;
+    @Value("${app.security.refresh-token.purge-batch-size:1000}")
+    private int purgeBatchSize;
+    @Value("${app.security.refresh-token.max-devices-per-user:10}")
+    private int maxDevicesPerUser;
+    @Value("${app.security.refresh-token.reuse-grace-ms:10000}")
+    private long reuseGraceMs;
+    private final TokenDenyList tokenDenyList;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * What the cache remembers about an issued token; enough to verify it without a select.
+     */
+    private record IssuedToken(int userId, UUID familyId, Instant expiryDate) {
+    }
+
+    // Keyed by token hash, least recently used first.
+    private final Map<String, IssuedToken> issuedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IssuedToken> eldest) {
+            return size() > cacheSize;
+        }
+    };
 
     /**
      * Constructs the RefreshTokenServiceImpl.
      *
      * @param refreshTokenRepository The repository for refresh token persistence.
      * @param userRepository         The repository for user data access.
+     * @param tokenDenyList          The deny-list used to reject access tokens of a revoked family's user.
      */
-    public RefreshTokenServiceImpl(IRefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
+    public RefreshTokenServiceImpl(IRefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                                   TokenDenyList tokenDenyList) {
         this.refreshTokenRepository = refreshTokenRepository;
         this.userRepository = userRepository; // Corrected assignment
+        this.tokenDenyList = tokenDenyList;
         log.info("RefreshTokenServiceImpl initialized. Refresh token duration: {} ms", refreshTokenDurationMs);
     }
 
     /**
      * Finds a refresh token by its token string.
+     * An unknown token that was already rotated away revokes its family (see {@link #revokeFamilyIfReused(String)}).
      *
      * @param token The refresh token string to search for.
      * @return An Optional containing the {@link RefreshToken} if found, otherwise an empty Optional.
      */
     @Override
+    @Transactional
     public Optional<RefreshToken> findByToken(String token) {
         log.debug("Attempting to find refresh token by token string (ending with ...{}).", token.substring(Math.max(0, token.length() - 6)));
-        Optional<RefreshToken> foundToken = refreshTokenRepository.findByToken(token);
+        String tokenHash = SecurityUtils.sha256Hex(token);
+        IssuedToken cached;
+        synchronized (issuedTokens) {
+            cached = issuedTokens.get(tokenHash);
+        }
+        if (cached != null) {
+            log.debug("Refresh token found in cache for user ID: {}", cached.userId());
+            return Optional.of(new RefreshToken(userRepository.getReferenceById(cached.userId()), cached.familyId(), tokenHash, cached.expiryDate()));
+        }
+        Optional<RefreshToken> foundToken = refreshTokenRepository.findByTokenHash(tokenHash);
         if (foundToken.isPresent()) {
             log.debug("Refresh token found for user ID: {}", foundToken.get().getUser().getId());
+            remember(foundToken.get());
         } else {
             log.debug("No refresh token found for the given token string.");
+            revokeFamilyIfReused(tokenHash);
         }
         return foundToken;
     }
 
     /**
-     * Creates or updates a refresh token for a given user.
-     * If an existing refresh token is found for the user, it is updated with a new
-     * token string and expiry date (token rotation). Otherwise, a new refresh token is created.
+     * Starts a new token family for a user signing in on a device. Tokens of the user's other
+     * devices are left alone, except that the oldest families beyond the per-user limit are revoked.
      *
      * @param userId The internal integer ID of the user for whom to create the refresh token.
-     * @return The created or updated {@link RefreshToken} entity.
+     * @return The created {@link RefreshToken} entity, carrying the raw token for the client.
      * @throws ResourceNotFoundException if the user with the given ID is not found.
      */
     @Override
     @Transactional
     public RefreshToken createRefreshToken(Integer userId) {
-        log.info("Attempting to create/update refresh token for user ID: {}", userId);
+        log.info("Attempting to create refresh token for user ID: {}", userId);
         User user = userRepository.findByIdAndDeletedFalse(userId) // Use method that respects soft delete
                 .orElseThrow(() -> {
                     log.error("Cannot create refresh token: User not found with ID: {}", userId);
                     return new ResourceNotFoundException("User not found with id: " + userId + " while creating refresh token.");
                 });
 
-        Optional<RefreshToken> existingTokenOpt = refreshTokenRepository.findByUser(user);
-        RefreshToken refreshToken;
+        String rawToken = newRawToken();
+        Instant expiryDate = Instant.now().plusMillis(refreshTokenDurationMs);
+        RefreshToken refreshToken = refreshTokenRepository.save(
+                new RefreshToken(user, UUID.randomUUID(), SecurityUtils.sha256Hex(rawToken), expiryDate));
+        refreshToken.setToken(rawToken);
+        remember(refreshToken);
+        signOutOldestDevices(user);
+        log.info("Successfully created refresh token (ID: {}, family: {}) for user ID: {}. New token string (ending ...{}).",
+                refreshToken.getId(), refreshToken.getFamilyId(), userId, rawToken.substring(rawToken.length() - 6));
+        return refreshToken;
+    }
 
-        if (existingTokenOpt.isPresent()) {
-            refreshToken = existingTokenOpt.get();
-            log.debug("Existing refresh token found for user ID: {}. Rotating token.", userId);
-            refreshToken.setToken(UUID.randomUUID().toString()); // New token string
-            refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
-        } else {
-            log.debug("No existing refresh token for user ID: {}. Creating new token.", userId);
-            refreshToken = new RefreshToken();
-            refreshToken.setUser(user);
-            refreshToken.setToken(UUID.randomUUID().toString());
-            refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
-        }
+    /**
+     * Replaces a verified refresh token with a new one in a single UPDATE, guarded by the old hash,
+     * so a token can be rotated only once even when presented by concurrent requests.
+     * Presenting a token that was already rotated away revokes its whole family.
+     *
+     * @param token The verified refresh token being used.
+     * @return The rotated token, carrying the new raw token for the client.
+     * @throws TokenRefreshException if the token was already rotated, deleted or has expired.
+     */
+    @Override
+    @Transactional(noRollbackFor = TokenRefreshException.class) // A family revoked on reuse must stay revoked
+    public RefreshToken rotateRefreshToken(RefreshToken token) {
+        String rawToken = newRawToken();
+        String tokenHash = SecurityUtils.sha256Hex(rawToken);
+        Instant expiryDate = Instant.now().plusMillis(refreshTokenDurationMs);
 
-        RefreshToken savedToken = refreshTokenRepository.save(refreshToken);
-        log.info("Successfully created/updated refresh token (ID: {}) for user ID: {}. New token string (ending ...{}).",
-                savedToken.getId(), userId, savedToken.getToken().substring(Math.max(0, savedToken.getToken().length() - 6)));
-        return savedToken;
+        int updated = refreshTokenRepository.rotate(token.getTokenHash(), tokenHash, expiryDate, Instant.now());
+        forget(token.getTokenHash());
+        if (updated == 0) {
+            if (revokeFamilyIfReused(token.getTokenHash())) {
+                throw new TokenRefreshException("Refresh token was reused; all sessions of this device were signed out. Please make a new signin request.");
+            }
+            log.warn("Refresh token for user ID: {} was already used or has expired; rotation refused.", token.getUser().getId());
+            throw new TokenRefreshException("Refresh token was already used or has expired. Please make a new signin request.");
+        }
+        RefreshToken rotated = new RefreshToken(token.getUser(), token.getFamilyId(), tokenHash, expiryDate);
+        rotated.setId(token.getId());
+        rotated.setPreviousTokenHash(token.getTokenHash());
+        rotated.setToken(rawToken);
+        remember(rotated);
+        log.debug("Rotated refresh token for user ID: {}.", token.getUser().getId());
+        return rotated;
     }
 
     /**
@@ -123,8 +205,9 @@ public class RefreshTokenServiceImpl implements IRefreshTokenService {
         if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
             log.warn("Refresh token ID: {} for user ID: {} has expired (Expiry: {}). Deleting token.",
                     token.getId(), token.getUser().getId(), token.getExpiryDate());
-            refreshTokenRepository.delete(token);
-            throw new TokenRefreshException(token.getToken(), "Refresh token was expired. Please make a new signin request.");
+            refreshTokenRepository.deleteByTokenHash(token.getTokenHash());
+            forget(token.getTokenHash());
+            throw new TokenRefreshException("Refresh token was expired. Please make a new signin request.");
         }
         // Placeholder for device verification:
         // if (!isValidDevice(token.getDeviceInfo())) {
@@ -154,6 +237,7 @@ public class RefreshTokenServiceImpl implements IRefreshTokenService {
                     return new ResourceNotFoundException("User not found with id: " + userId + " when trying to delete refresh tokens.");
                 });
         int deletedCount = refreshTokenRepository.deleteByUser(user);
+        forgetUser(userId);
         if (deletedCount > 0) {
             log.info("Successfully deleted {} refresh token(s) for user ID: {}", deletedCount, userId);
         } else {
@@ -176,6 +260,7 @@ public class RefreshTokenServiceImpl implements IRefreshTokenService {
         }
         log.info("Attempting to delete all refresh tokens for User ID: {}", user.getId());
         int deletedCount = refreshTokenRepository.deleteByUser(user);
+        forgetUser(user.getId());
         if (deletedCount > 0) {
             log.info("Successfully deleted {} refresh token(s) for User ID: {}", deletedCount, user.getId());
         } else {
@@ -194,7 +279,130 @@ public class RefreshTokenServiceImpl implements IRefreshTokenService {
     @Transactional
     public void deleteByToken(String token) {
         log.info("Attempting to delete refresh token by token string (ending with ...{}).", token.substring(Math.max(0, token.length() - 6)));
-        refreshTokenRepository.deleteByToken(token); // Assuming this method exists and works
+        String tokenHash = SecurityUtils.sha256Hex(token);
+        refreshTokenRepository.deleteByTokenHash(tokenHash);
+        forget(tokenHash);
         log.info("Refresh token (ending with ...{}) deleted from database if it existed.", token.substring(Math.max(0, token.length() - 6)));
     }
+
+    /**
+     * Signs out the device holding the given token by deleting every token of its family in one statement.
+     * The user's other devices stay signed in.
+     *
+     * @param token The raw refresh token string of the device.
+     */
+    @Override
+    @Transactional
+    public void revokeFamily(String token) {
+        String tokenHash = SecurityUtils.sha256Hex(token);
+        IssuedToken cached;
+        synchronized (issuedTokens) {
+            cached = issuedTokens.get(tokenHash);
+        }
+        UUID familyId = cached != null ? cached.familyId()
+                : refreshTokenRepository.findByTokenHash(tokenHash).map(RefreshToken::getFamilyId).orElse(null);
+        if (familyId == null) {
+            log.debug("No refresh token family found for the given token string; nothing to revoke.");
+            return;
+        }
+        int deletedCount = refreshTokenRepository.deleteByFamilyId(familyId);
+        forgetFamily(familyId);
+        log.info("Revoked refresh token family {} ({} token(s)).", familyId, deletedCount);
+    }
+
+    /**
+     * Deletes expired refresh tokens in chunks of {@code app.security.refresh-token.purge-batch-size},
+     * each in its own short transaction, so the table stops growing with tokens that are never presented again.
+     * Runs every {@code app.security.refresh-token.purge-interval-ms} (hourly by default).
+     *
+     * @return The number of tokens deleted.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.security.refresh-token.purge-interval-ms:3600000}",
+            initialDelayString = "${app.security.refresh-token.purge-interval-ms:3600000}")
+    public int purgeExpiredTokens() {
+        Instant now = Instant.now();
+        int purged = 0;
+        List<Long> expiredIds;
+        do {
+            expiredIds = refreshTokenRepository.findExpiredIds(now, Limit.of(purgeBatchSize));
+            if (!expiredIds.isEmpty()) {
+                refreshTokenRepository.deleteAllByIdInBatch(expiredIds);
+                purged += expiredIds.size();
+            }
+        } while (expiredIds.size() == purgeBatchSize);
+        synchronized (issuedTokens) {
+            issuedTokens.values().removeIf(issued -> issued.expiryDate().isBefore(now));
+        }
+        log.info("Purged {} expired refresh token(s).", purged);
+        return purged;
+    }
+
+    private static String newRawToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Detects reuse of a token that was already rotated away. Its successor is the family's current token,
+     * so a thief and the legitimate device now hold diverging tokens and the family cannot be trusted:
+     * it is revoked, and the user's access tokens are denied. A token replayed within
+     * {@code app.security.refresh-token.reuse-grace-ms} of its rotation is taken to be a concurrent
+     * refresh from the same device (e.g. two browser tabs) and is only refused.
+     *
+     * @param tokenHash The hash of the presented token.
+     * @return {@code true} if the family was revoked.
+     */
+    private boolean revokeFamilyIfReused(String tokenHash) {
+        Optional<RefreshToken> successor = refreshTokenRepository.findByPreviousTokenHash(tokenHash);
+        if (successor.isEmpty()) return false;
+        RefreshToken current = successor.get();
+        // Rotation sets the expiry to rotation time plus the token lifetime, so the rotation time need not be stored.
+        Instant rotatedAt = current.getExpiryDate().minusMillis(refreshTokenDurationMs);
+        if (rotatedAt.plusMillis(reuseGraceMs).isAfter(Instant.now())) {
+            log.debug("Rotated-away refresh token of family {} presented within the grace period; refusing without revoking.", current.getFamilyId());
+            return false;
+        }
+        log.warn("Refresh token reuse detected for user ID: {}. Revoking token family {}.", current.getUser().getId(), current.getFamilyId());
+        refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+        forgetFamily(current.getFamilyId());
+        tokenDenyList.deny(current.getUser().getUuid());
+        return true;
+    }
+
+    private void signOutOldestDevices(User user) {
+        if (maxDevicesPerUser <= 0) return;
+        List<RefreshToken> tokens = refreshTokenRepository.findByUserOrderByIdDesc(user);
+        if (tokens.size() <= maxDevicesPerUser) return;
+        List<RefreshToken> oldest = tokens.subList(maxDevicesPerUser, tokens.size());
+        refreshTokenRepository.deleteAllInBatch(oldest);
+        oldest.forEach(token -> forget(token.getTokenHash()));
+        log.info("User ID: {} exceeded {} signed-in devices; signed out the {} oldest.", user.getId(), maxDevicesPerUser, oldest.size());
+    }
+
+    private void remember(RefreshToken token) {
+        if (cacheSize <= 0) return;
+        synchronized (issuedTokens) {
+            issuedTokens.put(token.getTokenHash(), new IssuedToken(token.getUser().getId(), token.getFamilyId(), token.getExpiryDate()));
+        }
+    }
+
+    private void forget(String tokenHash) {
+        synchronized (issuedTokens) {
+            issuedTokens.remove(tokenHash);
+        }
+    }
+
+    private void forgetFamily(UUID familyId) {
+        synchronized (issuedTokens) {
+            issuedTokens.values().removeIf(issued -> issued.familyId().equals(familyId));
+        }
+    }
+
+    private void forgetUser(int userId) {
+        synchronized (issuedTokens) {
+            issuedTokens.values().removeIf(issued -> issued.userId() == userId);
+        }
+    }
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package za.ac.cput.service.impl;
 
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import za.ac.cput.domain.entity.Booking;
@@ -12,6 +15,7 @@ import za.ac.cput.domain.entity.Rental;
 import za.ac.cput.domain.entity.security.User;
 import za.ac.cput.domain.enums.BookingStatus;
 import za.ac.cput.domain.enums.RentalStatus;
+import za.ac.cput.domain.event.CarCatalogChangedEvent;
 import za.ac.cput.exception.CarNotAvailableException;
 import za.ac.cput.exception.ResourceNotFoundException;
 import za.ac.cput.exception.UserCantRentMoreThanOneCarException;
@@ -49,9 +53,10 @@ public class RentalServiceImpl implements IRentalService {
     private final IUserService userService;
     private final IDriverService driverService;
     private final RentalFactory rentalFactory;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public RentalServiceImpl(RentalRepository rentalRepository, CarRepository carRepository, ICarService carService, IBookingService bookingService, IUserService userService, IDriverService driverService, RentalFactory rentalFactory) {
+    public RentalServiceImpl(RentalRepository rentalRepository, CarRepository carRepository, ICarService carService, IBookingService bookingService, IUserService userService, IDriverService driverService, RentalFactory rentalFactory, ApplicationEventPublisher eventPublisher) {
         this.rentalRepository = rentalRepository;
         this.carRepository = carRepository;
         this.carService = carService;
@@ -59,6 +64,7 @@ public class RentalServiceImpl implements IRentalService {
         this.userService = userService;
         this.driverService = driverService;
         this.rentalFactory = rentalFactory;
+        this.eventPublisher = eventPublisher;
         log.info("RentalServiceImpl initialized.");
     }
 
@@ -82,7 +88,7 @@ public class RentalServiceImpl implements IRentalService {
 
         // Use the builder to modify the managed car entity
         new Car.Builder().copy(car).setAvailable(false).applyTo(car);
-        carRepository.save(car);
+        saveCarAvailability(car);
         log.info("Car UUID {} marked as unavailable for new rental.", car.getUuid());
 
         // Construct the final rental object using the builder, NOT setters
@@ -153,7 +159,7 @@ public class RentalServiceImpl implements IRentalService {
         carBuilder.copy(carToRent)
                 .setAvailable(false) // Mark the car as unavailable
                 .applyTo(carToRent); // Apply changes to the managed entity
-        carRepository.save(carToRent);
+        saveCarAvailability(carToRent);
         log.info("Car UUID {} marked as unavailable.", carToRent.getUuid());
 
         // 7. Update the Booking's status and persist the change
@@ -331,6 +337,19 @@ public class RentalServiceImpl implements IRentalService {
         return rentalRepository.findAllByDeletedFalse();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Rental> getPage(int lastSeenId, int limit) {
+        List<Rental> page = rentalRepository.findByIdGreaterThanAndDeletedFalseOrderByIdAsc(lastSeenId, Limit.of(limit));
+        // Pages may be mapped after this transaction ends (e.g. by the streaming export), so initialize the
+        // lazy collections the mappers read now; batch fetching loads them in a few queries per page.
+        for (Rental rental : page) {
+            if (rental.getCar() != null) Hibernate.initialize(rental.getCar().getImages());
+            if (rental.getUser() != null) Hibernate.initialize(rental.getUser().getRoles());
+        }
+        return page;
+    }
+
     @Override
     public boolean isCurrentlyRenting(User user) {
         if (user == null || user.getId() == null) return false;
@@ -414,14 +433,25 @@ public class RentalServiceImpl implements IRentalService {
         // If the car was active and is now being completed/cancelled, make it available again.
         if (wasActive && isNowTerminal && !car.isAvailable()) {
             new Car.Builder().copy(car).setAvailable(true).applyTo(car);
-            carRepository.save(car); // --- EXPLICIT SAVE ---
+            saveCarAvailability(car); // --- EXPLICIT SAVE ---
             log.info("Car {} made available.", car.getUuid());
         }
         // If the car was NOT active and is now becoming active, make it unavailable.
         else if (!wasActive && newStatus == RentalStatus.ACTIVE && car.isAvailable()) {
             new Car.Builder().copy(car).setAvailable(false).applyTo(car);
-            carRepository.save(car); // --- EXPLICIT SAVE ---
+            saveCarAvailability(car); // --- EXPLICIT SAVE ---
             log.info("Car {} made unavailable.", car.getUuid());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Persists a change to a car's availability and announces it, so the public catalog no longer
+     * lists the car with its previous availability.
+     *
+     * @param car The managed car whose availability flag was just changed.
+     */
+    private void saveCarAvailability(Car car) {
+        carRepository.save(car);
+        eventPublisher.publishEvent(new CarCatalogChangedEvent(car.getUuid()));
+    }
+}
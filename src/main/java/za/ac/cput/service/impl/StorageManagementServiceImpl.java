@@ -3,13 +3,21 @@ package za.ac.cput.service.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import za.ac.cput.domain.entity.StorageUsage;
+import za.ac.cput.domain.event.CarCatalogChangedEvent;
 import za.ac.cput.repository.ICarImageRepository;
 import za.ac.cput.repository.UserRepository;
 import za.ac.cput.service.IFileStorageService;
+import za.ac.cput.service.IImageVariantService;
 import za.ac.cput.service.IStorageManagementService;
 
+import java.text.DecimalFormat;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -17,15 +25,24 @@ import java.util.stream.Collectors;
  * This service coordinates between database records (e.g., CarImage, User) and the physical
  * files managed by the active {@link IFileStorageService} implementation (local or MinIO).
  * It provides higher-level operations for cleanup, reporting, and maintenance.
+ * <p>
+ * Storage statistics are read from the {@link StorageUsageLedger}, which the storage services keep up to date,
+ * so they take the same time however many files are stored. The ledger is recounted from storage every
+ * {@code app.storage.usage.reconcile-interval-ms} (six hourly by default, first one minute after startup).
  */
 @Service
 public class StorageManagementServiceImpl implements IStorageManagementService {
 
     private static final Logger log = LoggerFactory.getLogger(StorageManagementServiceImpl.class);
+    // The folders always shown on the usage chart, even while empty.
+    private static final List<String> CHART_FOLDERS = List.of("cars", "selfies", "docs");
 
     private final ICarImageRepository carImageRepository;
     private final UserRepository userRepository;
     private final IFileStorageService fileStorageService;
+    private final IImageVariantService imageVariantService;
+    private final StorageUsageLedger usageLedger;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Constructs the StorageManagementServiceImpl with its required dependencies.
@@ -33,12 +50,20 @@ public class StorageManagementServiceImpl implements IStorageManagementService {
      * @param carImageRepository The repository for car image metadata.
      * @param userRepository     The repository for user data (for future use, e.g., user profile pictures).
      * @param fileStorageService The active file storage service implementation (local or MinIO).
+     * @param imageVariantService The service that removes resized variants along with a deleted image.
+     * @param usageLedger        The ledger of stored files and bytes per folder.
+     * @param eventPublisher     Publishes a {@link CarCatalogChangedEvent} when a car loses an image.
      */
     @Autowired
-    public StorageManagementServiceImpl(ICarImageRepository carImageRepository, UserRepository userRepository, IFileStorageService fileStorageService) {
+    public StorageManagementServiceImpl(ICarImageRepository carImageRepository, UserRepository userRepository, IFileStorageService fileStorageService,
+                                        IImageVariantService imageVariantService, StorageUsageLedger usageLedger,
+                                        ApplicationEventPublisher eventPublisher) {
         this.carImageRepository = carImageRepository;
         this.userRepository = userRepository;
         this.fileStorageService = fileStorageService;
+        this.imageVariantService = imageVariantService;
+        this.usageLedger = usageLedger;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -63,19 +88,22 @@ public class StorageManagementServiceImpl implements IStorageManagementService {
     /**
      * Finds broken image links by checking for {@code CarImage} records in the database
      * whose corresponding physical files do not exist in the storage system.
+     * The car image folder is listed once and every record is checked against that listing,
+     * instead of asking the storage system about each file separately.
      *
      * @return A list of {@code CarImage} entities that point to non-existent files.
      */
     @Override
     public List<Object> findBrokenImageLinks() {
+        Set<String> storedKeys = fileStorageService.listFiles("cars/").keySet();
         return carImageRepository.findAll().stream()
-                .filter(carImage -> !fileStorageService.fileExists("cars/" + carImage.getFileName()))
+                .filter(carImage -> !storedKeys.contains("cars/" + carImage.getFileName()))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Deletes a physical file from the active storage system.
-     * This method only removes the file itself; it does not affect any database records that might reference it.
+     * Deletes a physical file, and any resized variants of it, from the active storage system.
+     * This method only removes the files themselves; it does not affect any database records that might reference them.
      *
      * @param folder   The folder (prefix) where the file is located (e.g., "cars").
      * @param filename The name of the file to delete.
@@ -84,7 +112,11 @@ public class StorageManagementServiceImpl implements IStorageManagementService {
     @Override
     public boolean deletePhysicalFile(String folder, String filename) {
         String key = folder + "/" + filename;
-        return fileStorageService.delete(key);
+        boolean deleted = fileStorageService.delete(key);
+        if (deleted) {
+            imageVariantService.deleteVariants(key);
+        }
+        return deleted;
     }
 
     /**
@@ -97,46 +129,84 @@ public class StorageManagementServiceImpl implements IStorageManagementService {
     public void deleteCarImageAssociation(UUID imageUuid) {
         carImageRepository.findById(imageUuid).ifPresent(carImage -> {
             carImageRepository.deleteById(imageUuid);
+            eventPublisher.publishEvent(new CarCatalogChangedEvent(carImage.getCar() != null ? carImage.getCar().getUuid() : null));
             log.info("Successfully deleted CarImage record with UUID: {}", imageUuid);
         });
     }
 
     /**
-     * Retrieves overall storage statistics (total file count, total size) from the active storage service.
-     * This method dynamically checks the runtime type of the {@link IFileStorageService} and calls
-     * the appropriate implementation-specific method.
+     * Retrieves overall storage statistics (total file count, total size) from the storage usage ledger.
      *
-     * @return A map containing storage statistics, or an empty map if the active service type is unsupported.
+     * @return A map containing 'totalFileCount', 'totalSizeFormatted' and 'reconciledAt', the time of the
+     * oldest recount the figures are based on ({@code null} until the first reconciliation).
      */
     @Override
     public Map<String, Object> getFileSystemStats() {
-        if (fileStorageService instanceof LocalFileStorageService) {
-            return ((LocalFileStorageService) fileStorageService).getStats();
-        }
-        if (fileStorageService instanceof MinioStorageService) {
-            return ((MinioStorageService) fileStorageService).getStats();
+        long totalFileCount = 0;
+        long totalSizeInBytes = 0;
+        Instant reconciledAt = null;
+        for (StorageUsage usage : usageLedger.usage()) {
+            totalFileCount += usage.getFileCount();
+            totalSizeInBytes += usage.getTotalBytes();
+            if (usage.getReconciledAt() != null && (reconciledAt == null || usage.getReconciledAt().isBefore(reconciledAt))) {
+                reconciledAt = usage.getReconciledAt();
+            }
         }
-        log.error("getFileSystemStats not implemented for the current storage service type: {}", fileStorageService.getClass().getName());
-        return Collections.emptyMap();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalFileCount", totalFileCount);
+        stats.put("totalSizeFormatted", formatSize(totalSizeInBytes));
+        stats.put("reconciledAt", reconciledAt);
+        return stats;
     }
 
     /**
-     * Retrieves storage usage broken down by folder from the active storage service.
-     * This method dynamically checks the runtime type of the {@link IFileStorageService} and calls
-     * the appropriate implementation-specific method.
+     * Retrieves storage usage broken down by folder from the storage usage ledger.
      *
-     * @return A map where keys are folder names and values are their total size in bytes. Returns an empty map
-     * if the active service type is unsupported.
+     * @return A map where keys are folder names and values are their total size in bytes. The "cars", "selfies"
+     * and "docs" folders are always present.
      */
     @Override
     public Map<String, Long> getStorageUsagePerFolder() {
-        if (fileStorageService instanceof LocalFileStorageService) {
-            return ((LocalFileStorageService) fileStorageService).getUsagePerFolder();
+        Map<String, Long> usageMap = new HashMap<>();
+        CHART_FOLDERS.forEach(folder -> usageMap.put(folder, 0L));
+        for (StorageUsage usage : usageLedger.usage()) {
+            usageMap.put(usage.getFolder(), usage.getTotalBytes());
         }
-        if (fileStorageService instanceof MinioStorageService) {
-            return ((MinioStorageService) fileStorageService).getUsagePerFolder();
+        return usageMap;
+    }
+
+    /**
+     * Recounts every stored file and corrects the storage usage ledger to the result, fixing any drift from
+     * failed ledger updates or files changed outside the application. The ledger totals are read before the
+     * scan starts, so that uploads and deletions recorded during the scan are kept (see {@link StorageUsageLedger}).
+     * Runs every {@code app.storage.usage.reconcile-interval-ms}.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.storage.usage.reconcile-interval-ms:21600000}",
+            initialDelayString = "${app.storage.usage.reconcile-initial-delay-ms:60000}")
+    public void reconcileStorageUsage() {
+        long start = System.nanoTime();
+        try {
+            Map<String, IFileStorageService.FolderUsage> before = usageLedger.snapshot();
+            Map<String, IFileStorageService.FolderUsage> scanned = fileStorageService.scanUsage();
+            usageLedger.reconcile(before, scanned);
+            log.info("Storage usage ledger reconciled: {} folder(s) in {} ms.", scanned.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.error("Storage usage reconciliation failed; the ledger keeps its incremental totals.", e);
         }
-        log.error("getStorageUsagePerFolder not implemented for the current storage service type: {}", fileStorageService.getClass().getName());
-        return Collections.emptyMap();
+    }
+
+    /**
+     * Formats a size in bytes into a human-readable string (e.g., "1.5 MB").
+     *
+     * @param size The size in bytes.
+     * @return A formatted string representation of the size.
+     */
+    private String formatSize(long size) {
+        if (size <= 0) return "0 B";
+        final String[] units = new String[]{"B", "KB", "MB", "GB", "TB"};
+        int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
+        return new DecimalFormat("#,##0.#").format(size / Math.pow(1024, digitGroups)) + " " + units[digitGroups];
     }
 }
\ No newline at end of file
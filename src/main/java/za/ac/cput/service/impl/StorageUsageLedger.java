@@ -0,0 +1,127 @@
+package za.ac.cput.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import za.ac.cput.domain.entity.StorageUsage;
+import za.ac.cput.repository.StorageUsageRepository;
+import za.ac.cput.service.IFileStorageService.FolderUsage;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * StorageUsageLedger.java
+ * Keeps the file count and total size of each top-level storage folder in the {@code storage_usage} table.
+ * The storage services record every file they write or delete, so usage can be read from a handful of rows
+ * instead of walking the upload directory or listing the whole bucket.
+ * <p>
+ * Recording never fails the file operation itself: an error is logged and the drift it leaves, like that from
+ * files changed outside the application, is corrected by the next reconciliation ({@link #reconcile(Map, Map)}).
+ * A recount takes a while and uploads carry on meanwhile, so rather than replacing the ledger with the recount,
+ * reconciliation adds the difference between the recount and the totals taken just before it started: changes
+ * recorded during the scan are kept. A file written or deleted while the scan passes its folder may be both
+ * counted by the scan and recorded, an error limited to the files changed during the scan that the next
+ * reconciliation corrects.
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@Component
+public class StorageUsageLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageUsageLedger.class);
+
+    private static final FolderUsage NONE = new FolderUsage(0, 0);
+
+    private final StorageUsageRepository storageUsageRepository;
+
+    public StorageUsageLedger(StorageUsageRepository storageUsageRepository) {
+        this.storageUsageRepository = storageUsageRepository;
+    }
+
+    /**
+     * Returns the top-level folder a storage key is counted under.
+     *
+     * @param key A storage key, e.g. "cars/uuid.jpg".
+     * @return The part of the key before the first '/', or the whole key if it has none.
+     */
+    static String folderOf(String key) {
+        int slash = key.indexOf('/');
+        return slash > 0 ? key.substring(0, slash) : key;
+    }
+
+    /**
+     * Counts a file that was written to storage.
+     *
+     * @param key   The key of the file.
+     * @param bytes The size of the file in bytes.
+     */
+    public void recordStored(String key, long bytes) {
+        add(key, 1, bytes);
+    }
+
+    /**
+     * Uncounts a file that was deleted from storage.
+     *
+     * @param key   The key of the file.
+     * @param bytes The size the file had in bytes.
+     */
+    public void recordDeleted(String key, long bytes) {
+        add(key, -1, -bytes);
+    }
+
+    /**
+     * Reads the current totals of every folder.
+     *
+     * @return One entry per folder that has ever held a file.
+     */
+    public List<StorageUsage> usage() {
+        return storageUsageRepository.findAll();
+    }
+
+    /**
+     * Reads the totals of every folder for a reconciliation; take it just before the storage scan starts.
+     *
+     * @return The file count and size per folder.
+     */
+    public Map<String, FolderUsage> snapshot() {
+        Map<String, FolderUsage> totals = new HashMap<>();
+        for (StorageUsage usage : storageUsageRepository.findAll()) {
+            totals.put(usage.getFolder(), new FolderUsage(usage.getFileCount(), usage.getTotalBytes()));
+        }
+        return totals;
+    }
+
+    /**
+     * Corrects the ledger to a recount of the storage by adding, per folder, the recount minus the totals
+     * taken before the scan, so that changes recorded while the scan ran are not lost.
+     *
+     * @param before  The totals per folder from {@link #snapshot()}, taken before the scan started.
+     * @param scanned The totals per folder, as returned by {@link za.ac.cput.service.IFileStorageService#scanUsage()}.
+     */
+    @Transactional
+    public void reconcile(Map<String, FolderUsage> before, Map<String, FolderUsage> scanned) {
+        Set<String> folders = new HashSet<>(before.keySet());
+        folders.addAll(scanned.keySet());
+        for (String folder : folders) {
+            FolderUsage counted = before.getOrDefault(folder, NONE);
+            FolderUsage actual = scanned.getOrDefault(folder, NONE);
+            long files = actual.fileCount() - counted.fileCount();
+            long bytes = actual.totalBytes() - counted.totalBytes();
+            if (files != 0 || bytes != 0) {
+                storageUsageRepository.addUsage(folder, files, bytes);
+            }
+        }
+        storageUsageRepository.markReconciled(Instant.now());
+    }
+
+    private void add(String key, long files, long bytes) {
+        try {
+            storageUsageRepository.addUsage(folderOf(key), files, bytes);
+        } catch (RuntimeException e) {
+            log.warn("Could not update the storage usage ledger for '{}'; the next reconciliation will correct it.", key, e);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import za.ac.cput.exception.EmailAlreadyExistsException;
 import za.ac.cput.exception.ResourceNotFoundException;
 import za.ac.cput.repository.IRoleRepository;
 import za.ac.cput.repository.UserRepository;
+import za.ac.cput.security.TokenDenyList;
 import za.ac.cput.service.IRefreshTokenService;
 import za.ac.cput.service.IUserService;
 
@@ -41,16 +42,19 @@ public class UserServiceImpl implements IUserService {
     private final IRoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final IRefreshTokenService refreshTokenService;
+    private final TokenDenyList tokenDenyList;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
                            IRoleRepository roleRepository,
                            PasswordEncoder passwordEncoder,
-                           IRefreshTokenService refreshTokenService) {
+                           IRefreshTokenService refreshTokenService,
+                           TokenDenyList tokenDenyList) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.refreshTokenService = refreshTokenService;
+        this.tokenDenyList = tokenDenyList;
         log.info("UserServiceImpl initialized.");
     }
 
@@ -198,6 +202,7 @@ public class UserServiceImpl implements IUserService {
 
             // Replace the existing roles with the new set of managed roles.
             existingUser.setRoles(newRoles);
+            tokenDenyList.deny(existingUser.getUuid()); // Tokens still carry the old roles claim
             needsSave = true;
         }
 
@@ -221,6 +226,7 @@ public class UserServiceImpl implements IUserService {
             user.setDeleted(true);
             userRepository.save(user);
             refreshTokenService.deleteByUserId(userId);
+            tokenDenyList.deny(user.getUuid());
             log.info("Successfully soft-deleted user ID: {} and invalidated tokens.", userId);
             return true;
         }).orElse(false);
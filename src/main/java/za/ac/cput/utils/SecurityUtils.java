@@ -5,6 +5,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
 public class SecurityUtils {
 
     private static final String ANONYMOUS_USER_PRINCIPAL = "anonymousUser";
@@ -36,4 +41,19 @@ public class SecurityUtils {
         String name = authentication.getName();
         return (name != null) ? name : "AUTHENTICATED_USER_UNKNOWN_NAME";
     }
-}
\ No newline at end of file
+
+    /**
+     * Hashes a token with SHA-256, so tokens can be stored and looked up without keeping the raw value.
+     *
+     * @param token The raw token.
+     * @return The lowercase hex digest (64 characters).
+     */
+    public static String sha256Hex(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
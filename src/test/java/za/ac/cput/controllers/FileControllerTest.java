@@ -0,0 +1,192 @@
+package za.ac.cput.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import za.ac.cput.service.IFileStorageService;
+import za.ac.cput.service.IFileStorageService.FileMetadata;
+import za.ac.cput.service.IImageVariantService;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class FileControllerTest {
+
+    private static final String CONTENT = "0123456789";
+    private static final Instant LAST_MODIFIED = Instant.parse("2026-10-01T10:00:00Z");
+
+    private IFileStorageService fileStorageService;
+    private IImageVariantService imageVariantService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileStorageService = mock(IFileStorageService.class);
+        imageVariantService = mock(IImageVariantService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new FileController(fileStorageService, imageVariantService)).build();
+
+        when(imageVariantService.resolveVariant(anyString(), any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        when(fileStorageService.getMetadata("cars/car.jpg"))
+                .thenReturn(Optional.of(new FileMetadata(CONTENT.length(), LAST_MODIFIED, "abc123")));
+        doAnswer(invocation -> {
+            long offset = invocation.getArgument(1);
+            long length = invocation.getArgument(2);
+            OutputStream out = invocation.getArgument(3);
+            out.write(CONTENT.substring((int) offset, (int) (offset + length)).getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(fileStorageService).copyTo(eq("cars/car.jpg"), anyLong(), anyLong(), any(OutputStream.class));
+    }
+
+    @Test
+    @DisplayName("A file is streamed with its validators and length from the storage metadata")
+    void serveFile_shouldStreamWholeFile() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/files/cars/car.jpg"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED.toEpochMilli()))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    @DisplayName("A local file is handed to the container's sendfile when it is supported, without copying it")
+    void serveFile_shouldUseSendfileWhenSupported() throws Exception {
+        Path localFile = Path.of("/srv/files/cars/car.jpg");
+        when(fileStorageService.localPath("cars/car.jpg")).thenReturn(Optional.of(localFile));
+
+        mockMvc.perform(get("/api/v1/files/cars/car.jpg")
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .requestAttr(FileController.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isPartialContent())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(request().attribute(FileController.SENDFILE_FILENAME_ATTR, localFile.toString()))
+                .andExpect(request().attribute(FileController.SENDFILE_START_ATTR, 2L))
+                .andExpect(request().attribute(FileController.SENDFILE_END_ATTR, 6L));
+        MvcResult streamed = mockMvc.perform(get("/api/v1/files/cars/car.jpg"))
+                .andExpect(request().attribute(FileController.SENDFILE_FILENAME_ATTR, (Object) null))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(streamed)).andExpect(content().string(CONTENT));
+
+        verify(fileStorageService, times(1)).copyTo(anyString(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("A matching If-None-Match or If-Modified-Since is answered with 304 without reading the file")
+    void serveFile_shouldAnswerNotModified() throws Exception {
+        mockMvc.perform(get("/api/v1/files/cars/car.jpg").header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""));
+        mockMvc.perform(get("/api/v1/files/cars/car.jpg").header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 01 Oct 2026 10:00:00 GMT"))
+                .andExpect(status().isNotModified());
+
+        verify(fileStorageService, never()).copyTo(anyString(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("A single byte range is served as 206 and an out-of-bounds range as 416")
+    void serveFile_shouldServeByteRanges() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/files/cars/car.jpg").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+
+        result = mockMvc.perform(get("/api/v1/files/cars/car.jpg").header(HttpHeaders.RANGE, "bytes=-3"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().string("789"));
+
+        mockMvc.perform(get("/api/v1/files/cars/car.jpg").header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    @DisplayName("A stale If-Range validator or a multi-range request gets the whole file")
+    void serveFile_shouldIgnoreRangeWhenIfRangeDoesNotMatch() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/files/cars/car.jpg")
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"old\""))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+
+        result = mockMvc.perform(get("/api/v1/files/cars/car.jpg").header(HttpHeaders.RANGE, "bytes=0-1,4-5"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    @DisplayName("A requested variant is served from its own key with its own validators")
+    void serveFile_shouldServeResolvedVariant() throws Exception {
+        when(imageVariantService.resolveVariant("cars/car.jpg", 320, "png")).thenReturn("variants/cars/car-w320.png");
+        when(fileStorageService.getMetadata("variants/cars/car-w320.png"))
+                .thenReturn(Optional.of(new FileMetadata(3, LAST_MODIFIED, "variant")));
+        doAnswer(invocation -> {
+            ((OutputStream) invocation.getArgument(3)).write(new byte[]{1, 2, 3});
+            return null;
+        }).when(fileStorageService).copyTo(eq("variants/cars/car-w320.png"), eq(0L), eq(3L), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/files/cars/car.jpg").param("w", "320").param("fmt", "png"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"variant\""))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"car-w320.png\""))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    @DisplayName("A variant request answered with the original is not cached, a real variant is cached for a year")
+    void serveFile_shouldNotCacheOriginalServedForVariant() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/files/cars/car.jpg").param("w", "320"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(content().string(CONTENT));
+
+        result = mockMvc.perform(get("/api/v1/files/cars/car.jpg"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, must-revalidate, no-transform"));
+    }
+
+    @Test
+    @DisplayName("A missing file is reported as 404")
+    void serveFile_shouldReturnNotFound() throws Exception {
+        when(fileStorageService.getMetadata("cars/missing.jpg")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/files/cars/missing.jpg"))
+                .andExpect(status().isNotFound());
+    }
+}
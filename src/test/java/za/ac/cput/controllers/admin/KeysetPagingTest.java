@@ -0,0 +1,71 @@
+package za.ac.cput.controllers.admin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPagingTest {
+
+    /**
+     * A table of rows with IDs 1..rowCount that records every read, as a service's {@code getPage} would.
+     */
+    private static final class Table implements KeysetPaging.PageReader<Integer> {
+        private final int rowCount;
+        private final List<String> reads = new ArrayList<>();
+
+        private Table(int rowCount) {
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public List<Integer> read(int lastSeenId, int limit) {
+            reads.add(lastSeenId + "+" + limit);
+            return IntStream.rangeClosed(lastSeenId + 1, Math.min(rowCount, lastSeenId + limit)).boxed().toList();
+        }
+    }
+
+    @Test
+    @DisplayName("A page reads one extra row to detect the next page and clamps the page size")
+    void page_shouldReturnCursorOfLastRow() {
+        Table table = new Table(7);
+
+        CursorPageDTO<String> first = KeysetPaging.page(table, Integer::intValue, ids -> ids.stream().map(String::valueOf).toList(), 0, 3);
+        CursorPageDTO<String> last = KeysetPaging.page(table, Integer::intValue, ids -> ids.stream().map(String::valueOf).toList(), 6, 3);
+        KeysetPaging.page(table, Integer::intValue, Function.identity(), 0, 10_000);
+        KeysetPaging.page(table, Integer::intValue, Function.identity(), 0, 0);
+
+        assertEquals(List.of("1", "2", "3"), first.getItems());
+        assertEquals(3, first.getNextCursor());
+        assertTrue(first.isHasMore());
+        assertEquals(List.of("7"), last.getItems());
+        assertNull(last.getNextCursor());
+        assertFalse(last.isHasMore());
+        assertEquals(List.of("0+4", "6+4", "0+" + (KeysetPaging.MAX_PAGE_SIZE + 1), "0+2"), table.reads);
+    }
+
+    @Test
+    @DisplayName("The export writes one JSON line per row, reading chunk by chunk until a short chunk")
+    void ndjson_shouldStreamEveryRowInChunks() throws IOException {
+        Table table = new Table(KeysetPaging.EXPORT_CHUNK_SIZE + 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        KeysetPaging.ndjson(table, Integer::intValue, id -> List.of(id), new ObjectMapper()).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(KeysetPaging.EXPORT_CHUNK_SIZE + 2, lines.length);
+        assertEquals("[1]", lines[0]);
+        assertEquals("[" + (KeysetPaging.EXPORT_CHUNK_SIZE + 2) + "]", lines[lines.length - 1]);
+        assertEquals(List.of("0+" + KeysetPaging.EXPORT_CHUNK_SIZE, KeysetPaging.EXPORT_CHUNK_SIZE + "+" + KeysetPaging.EXPORT_CHUNK_SIZE), table.reads);
+    }
+}
@@ -0,0 +1,87 @@
+package za.ac.cput.domain.mapper;
+
+import org.openjdk.jmh.annotations.*;
+import za.ac.cput.domain.dto.response.CarResponseDTO;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.entity.CarImage;
+import za.ac.cput.domain.enums.PriceGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * CarMapperBenchmark.java
+ * Measures {@link CarMapper#toDtoList} over a fleet of 10k cars with three images each, against the previous
+ * mapping that built each car's image URLs through a stream and collected the DTOs with another.
+ * <p>
+ * Run with: mvn -Pjmh test -Djmh.include=CarMapperBenchmark
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarMapperBenchmark {
+
+    private static final String API_URL = "https://api.example.com";
+    private static final int FLEET_SIZE = 10_000;
+
+    private List<Car> cars;
+
+    @Setup
+    public void setUp() {
+        cars = new ArrayList<>(FLEET_SIZE);
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            List<CarImage> images = new ArrayList<>();
+            for (String view : List.of("front", "side", "back")) {
+                images.add(CarImage.builder().uuid(UUID.randomUUID()).imageType("cars")
+                        .fileName(UUID.randomUUID() + "-" + view + ".jpg").build());
+            }
+            cars.add(new Car.Builder().setId(i + 1).setUuid(UUID.randomUUID()).setMake("Toyota").setModel("Corolla")
+                    .setYear(2022).setCategory("Sedan").setPriceGroup(PriceGroup.ECONOMY)
+                    .setLicensePlate("BM" + i).setAvailable(true).setImages(images).build());
+        }
+    }
+
+    @Benchmark
+    public List<CarResponseDTO> toDtoList() {
+        return CarMapper.toDtoList(cars, null, API_URL);
+    }
+
+    @Benchmark
+    public List<CarResponseDTO> streamMapping() {
+        return cars.stream().map(CarMapperBenchmark::streamToDto).collect(Collectors.toList());
+    }
+
+    /**
+     * {@link CarMapper#toDto} as it was before, with the image URLs built through a stream.
+     */
+    private static CarResponseDTO streamToDto(Car car) {
+        List<String> imageUrls = Collections.emptyList();
+        if (car.getImages() != null && !car.getImages().isEmpty()) {
+            imageUrls = car.getImages().stream()
+                    .map(image -> API_URL + "/api/v1/files/" + image.getImageType() + "/" + image.getFileName())
+                    .collect(Collectors.toList());
+        }
+        return CarResponseDTO.builder()
+                .uuid(car.getUuid())
+                .make(car.getMake())
+                .model(car.getModel())
+                .year(car.getYear())
+                .licensePlate(car.getLicensePlate())
+                .category(car.getCategory())
+                .priceGroup(car.getPriceGroup())
+                .vin(car.getVin())
+                .available(car.isAvailable())
+                .imageUrls(imageUrls)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package za.ac.cput.domain.mapper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import za.ac.cput.domain.dto.response.CarResponseDTO;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.entity.CarImage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarMapperTest {
+
+    private static final String API_URL = "https://api.example.com";
+
+    private static CarImage image(String fileName) {
+        return CarImage.builder().uuid(UUID.randomUUID()).fileName(fileName).imageType("cars").build();
+    }
+
+    private static Car car(int id, List<CarImage> images) {
+        return new Car.Builder().setId(id).setUuid(UUID.randomUUID()).setMake("Toyota").setModel("Corolla")
+                .setYear(2022).setImages(new ArrayList<>(images)).build();
+    }
+
+    @Test
+    @DisplayName("Image URLs point at the file proxy in image order")
+    void toDtoList_shouldBuildImageUrlsInOrder() {
+        Car car = car(910_001, List.of(image("front.jpg"), image("back.jpg")));
+
+        List<CarResponseDTO> dtos = CarMapper.toDtoList(List.of(car, car), null, API_URL);
+
+        assertEquals(2, dtos.size());
+        assertEquals(List.of(API_URL + "/api/v1/files/cars/front.jpg", API_URL + "/api/v1/files/cars/back.jpg"),
+                dtos.get(0).getImageUrls());
+        assertEquals(dtos.get(0).getImageUrls(), dtos.get(1).getImageUrls());
+        assertTrue(CarMapper.toDto(car(910_003, List.of()), null, API_URL).getImageUrls().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Changing a car's images or the public URL yields freshly built image URLs")
+    void toDto_shouldRebuildImageUrlsWhenImagesChange() {
+        Car car = car(910_002, List.of(image("front.jpg")));
+        List<String> before = CarMapper.toDto(car, null, API_URL).getImageUrls();
+
+        car.getImages().add(image("side.jpg"));
+        List<String> added = CarMapper.toDto(car, null, API_URL).getImageUrls();
+        car.getImages().set(0, image("new-front.jpg"));
+        List<String> replaced = CarMapper.toDto(car, null, API_URL).getImageUrls();
+
+        assertEquals(1, before.size());
+        assertEquals(List.of(API_URL + "/api/v1/files/cars/front.jpg", API_URL + "/api/v1/files/cars/side.jpg"), added);
+        assertEquals(API_URL + "/api/v1/files/cars/new-front.jpg", replaced.get(0));
+        assertEquals("http://localhost:8080/api/v1/files/cars/new-front.jpg",
+                CarMapper.toDto(car, null, "http://localhost:8080").getImageUrls().get(0));
+        assertTrue(CarMapper.toDto(car, null, null).getImageUrls().isEmpty());
+    }
+}
@@ -0,0 +1,132 @@
+package za.ac.cput.migration;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import za.ac.cput.config.FlywayConfig;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations against databases in the states earlier releases left them in, rather than against
+ * a schema created from the current entities.
+ */
+class SchemaMigrationTest {
+
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migration-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER,YEAR,VALUE");
+        dataSource.setUser("sa");
+    }
+
+    private void migrate() {
+        FlywayConfig.configure(Flyway.configure()).dataSource(dataSource).load().migrate();
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    @Test
+    @DisplayName("A fresh database is left for Hibernate to create")
+    void migrate_shouldDoNothingOnFreshDatabase() throws SQLException {
+        migrate();
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertFalse(new SchemaInspector(connection).tableExists("refresh_token"));
+        }
+    }
+
+    @Test
+    @DisplayName("The raw token column of the original schema is dropped and its tokens purged")
+    void migrate_shouldDropRawTokenColumn() throws SQLException {
+        execute("CREATE TABLE user (id INT PRIMARY KEY)",
+                "INSERT INTO user (id) VALUES (1), (2)",
+                "CREATE TABLE refresh_token (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id INT, "
+                        + "token VARCHAR(255) NOT NULL, expiry_date TIMESTAMP(6) NOT NULL, "
+                        + "CONSTRAINT uk_refresh_token_token UNIQUE (token), "
+                        + "CONSTRAINT fk_refresh_token_user FOREIGN KEY (user_id) REFERENCES user (id))",
+                "INSERT INTO refresh_token (user_id, token, expiry_date) VALUES (1, 'raw-1', CURRENT_TIMESTAMP), (2, 'raw-2', CURRENT_TIMESTAMP)");
+
+        migrate();
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertFalse(new SchemaInspector(connection).columnExists("refresh_token", "token"));
+        }
+        assertEquals(0, count("SELECT COUNT(*) FROM refresh_token"));
+        // What Hibernate's update adds next, and a token insert that failed before the migration.
+        execute("ALTER TABLE refresh_token ADD COLUMN token_hash VARCHAR(64) NOT NULL",
+                "INSERT INTO refresh_token (user_id, token_hash, expiry_date) VALUES (1, 'hash', CURRENT_TIMESTAMP)");
+    }
+
+    @Test
+    @DisplayName("The one-token-per-user constraint of the original schema is dropped, so a second device can sign in")
+    void migrate_shouldAllowSeveralTokensPerUser() throws SQLException {
+        execute("CREATE TABLE user (id INT PRIMARY KEY)",
+                "INSERT INTO user (id) VALUES (1)",
+                "CREATE TABLE refresh_token (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id INT, "
+                        + "token VARCHAR(255) NOT NULL, expiry_date TIMESTAMP(6) NOT NULL, "
+                        + "CONSTRAINT uk_refresh_token_user UNIQUE (user_id), "
+                        + "CONSTRAINT fk_refresh_token_user FOREIGN KEY (user_id) REFERENCES user (id))",
+                "INSERT INTO refresh_token (user_id, token, expiry_date) VALUES (1, 'raw-1', CURRENT_TIMESTAMP)");
+
+        migrate();
+
+        try (Connection connection = dataSource.getConnection()) {
+            SchemaInspector schema = new SchemaInspector(connection);
+            assertTrue(schema.uniqueConstraintsOn("refresh_token", "user_id").isEmpty());
+            assertTrue(schema.indexExists("refresh_token", "idx_refresh_token_user_id"));
+        }
+        // What Hibernate's update adds next, then two devices of the same user signing in.
+        execute("ALTER TABLE refresh_token ADD COLUMN token_hash VARCHAR(64) NOT NULL",
+                "ALTER TABLE refresh_token ADD COLUMN family_id UUID NOT NULL",
+                "INSERT INTO refresh_token (user_id, token_hash, family_id, expiry_date) VALUES "
+                        + "(1, 'hash-1', RANDOM_UUID(), CURRENT_TIMESTAMP), (1, 'hash-2', RANDOM_UUID(), CURRENT_TIMESTAMP)");
+        assertEquals(2, count("SELECT COUNT(*) FROM refresh_token WHERE user_id = 1"));
+    }
+
+    @Test
+    @DisplayName("Hashed tokens stored before token families existed are deleted before family_id is added")
+    void migrate_shouldPurgeTokensWithoutFamily() throws SQLException {
+        execute("CREATE TABLE user (id INT PRIMARY KEY)",
+                "INSERT INTO user (id) VALUES (1), (2)",
+                "CREATE TABLE refresh_token (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id INT, "
+                        + "token_hash VARCHAR(64) NOT NULL, expiry_date TIMESTAMP(6) NOT NULL, "
+                        + "CONSTRAINT uk_refresh_token_hash UNIQUE (token_hash), "
+                        + "CONSTRAINT uk_refresh_token_user UNIQUE (user_id), "
+                        + "CONSTRAINT fk_refresh_token_user FOREIGN KEY (user_id) REFERENCES user (id))",
+                "INSERT INTO refresh_token (user_id, token_hash, expiry_date) VALUES (1, 'hash-1', CURRENT_TIMESTAMP), (2, 'hash-2', CURRENT_TIMESTAMP)");
+
+        migrate();
+
+        assertEquals(0, count("SELECT COUNT(*) FROM refresh_token"));
+        try (Connection connection = dataSource.getConnection()) {
+            SchemaInspector schema = new SchemaInspector(connection);
+            assertTrue(schema.uniqueConstraintsOn("refresh_token", "user_id").isEmpty());
+            assertEquals(1, schema.uniqueConstraintsOn("refresh_token", "token_hash").size());
+        }
+    }
+}
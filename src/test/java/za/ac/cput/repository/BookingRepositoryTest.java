@@ -0,0 +1,139 @@
+package za.ac.cput.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import za.ac.cput.domain.entity.Booking;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.entity.security.User;
+import za.ac.cput.domain.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repository tests for {@link BookingRepository} against an in-memory H2 database.
+ * Hibernate statistics are used to assert how many SQL statements each query issues.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BookingRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Car car;
+    private Booking first;
+    private Booking second;
+
+    @BeforeEach
+    void setUp() {
+        User user = entityManager.persist(User.builder()
+                .firstName("Test").lastName("User").email("booking-repo@test.com").password("secret")
+                .roles(new ArrayList<>())
+                .build());
+        car = entityManager.persist(new Car.Builder().setMake("Toyota").setModel("Corolla").setAvailable(true).build());
+        first = entityManager.persist(new Booking.Builder()
+                .setUser(user).setCar(car).setStartDate(START).setEndDate(START.plusDays(2))
+                .setStatus(BookingStatus.CONFIRMED).build());
+        second = entityManager.persist(new Booking.Builder()
+                .setUser(user).setCar(car).setStartDate(START.plusDays(3)).setEndDate(START.plusDays(5))
+                .setStatus(BookingStatus.CONFIRMED).build());
+        entityManager.persist(new Booking.Builder()
+                .setUser(user).setCar(car).setStartDate(START).setEndDate(START.plusDays(5))
+                .setStatus(BookingStatus.USER_CANCELLED).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("existsOverlappingBooking answers with a single statement")
+    void existsOverlappingBooking_shouldIssueOneStatement() {
+        assertTrue(bookingRepository.existsOverlappingBooking(car.getId(), BookingStatus.CONFIRMED, START.plusDays(1), START.plusDays(4), null));
+        assertFalse(bookingRepository.existsOverlappingBooking(car.getId(), BookingStatus.CONFIRMED, START.plusDays(2), START.plusDays(3), null));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("existsOverlappingBooking ignores the excluded booking")
+    void existsOverlappingBooking_shouldIgnoreExcludedBooking() {
+        assertFalse(bookingRepository.existsOverlappingBooking(car.getId(), BookingStatus.CONFIRMED, START, START.plusDays(1), first.getId()));
+        assertTrue(bookingRepository.existsOverlappingBooking(car.getId(), BookingStatus.CONFIRMED, START, START.plusDays(1), second.getId()));
+    }
+
+    @Test
+    @DisplayName("findOverlappingBookingIds returns IDs with a single statement and no entity loads")
+    void findOverlappingBookingIds_shouldIssueOneStatement() {
+        List<Integer> ids = bookingRepository.findOverlappingBookingIds(car.getId(), BookingStatus.CONFIRMED, START.plusDays(1), START.plusDays(4), null);
+
+        assertEquals(List.of(first.getId(), second.getId()), ids);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("findCarUuidByIdAndDeletedFalse reads the car UUID with a single statement and no entity loads")
+    void findCarUuidByIdAndDeletedFalse_shouldIssueOneStatement() {
+        assertEquals(Optional.of(car.getUuid()), bookingRepository.findCarUuidByIdAndDeletedFalse(first.getId()));
+        assertEquals(Optional.empty(), bookingRepository.findCarUuidByIdAndDeletedFalse(-1));
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("findOverlappingBookings hydrates entities and their associations through one entity-graph statement")
+    void findOverlappingBookings_shouldHydrateEntities() {
+        List<Booking> bookings = bookingRepository.findOverlappingBookings(car.getId(), BookingStatus.CONFIRMED, START.plusDays(1), START.plusDays(4));
+
+        assertEquals(2, bookings.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getEntityLoadCount() >= 4);
+    }
+
+    @Test
+    @DisplayName("findIntervalsByCarIdsOverlapping loads the CONFIRMED intervals of several cars with one statement")
+    void findIntervalsByCarIdsOverlapping_shouldIssueOneStatement() {
+        List<BookingRepository.BookingInterval> intervals = bookingRepository.findIntervalsByCarIdsOverlapping(
+                List.of(car.getId(), car.getId() + 1), BookingStatus.CONFIRMED, START.plusDays(4), START.plusDays(10));
+
+        assertEquals(List.of(second.getId()), intervals.stream().map(BookingRepository.BookingInterval::getId).toList());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("Keyset paging walks non-deleted bookings in ID order without offsets")
+    void findByIdGreaterThanAndDeletedFalseOrderByIdAsc_shouldPageByCursor() {
+        List<Booking> firstPage = bookingRepository.findByIdGreaterThanAndDeletedFalseOrderByIdAsc(0, Limit.of(2));
+        assertEquals(List.of(first.getId(), second.getId()), firstPage.stream().map(Booking::getId).toList());
+
+        List<Booking> secondPage = bookingRepository.findByIdGreaterThanAndDeletedFalseOrderByIdAsc(second.getId(), Limit.of(2));
+        assertEquals(1, secondPage.size());
+        assertTrue(secondPage.get(0).getId() > second.getId());
+        assertTrue(bookingRepository.findByIdGreaterThanAndDeletedFalseOrderByIdAsc(secondPage.get(0).getId(), Limit.of(2)).isEmpty());
+    }
+}
@@ -0,0 +1,121 @@
+package za.ac.cput.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import za.ac.cput.domain.dto.request.CarSearchRequestDTO;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.enums.PriceGroup;
+import za.ac.cput.service.impl.CarSearchIndex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repository tests for {@link CarRepository} against an in-memory H2 database.
+ * The {@link CarSpecifications#matching} query must select exactly the cars the {@link CarSearchIndex} selects,
+ * with the same facet counts, and keyset pages must walk a listing in the same order as one sorted query,
+ * ties and {@code null}s included.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarRepositoryTest {
+
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Car persist(String make, String model, int year, String category, PriceGroup priceGroup, boolean available, boolean deleted) {
+        Car car = entityManager.persist(new Car.Builder().setMake(make).setModel(model).setYear(year)
+                .setCategory(category).setPriceGroup(priceGroup).setAvailable(available).build());
+        if (deleted) { // @PrePersist always starts cars as not deleted
+            new Car.Builder().copy(car).setDeleted(true).applyTo(car);
+        }
+        return car;
+    }
+
+    @Test
+    @DisplayName("Search specification and in-memory search index select the same cars")
+    void matching_shouldAgreeWithSearchIndex() {
+        Car corolla = persist("Toyota", "Corolla", 2020, "Sedan", PriceGroup.ECONOMY, true, false);
+        persist("toyota ", "Fortuner", 2023, "SUV", PriceGroup.LUXURY, true, false);
+        persist("VW", "Polo", 2022, "Hatchback", PriceGroup.ECONOMY, true, false);
+        persist("Toyota", "Yaris", 2021, "Hatchback", PriceGroup.ECONOMY, false, false);
+        persist("Toyota", "Etios", 2019, "Sedan", PriceGroup.ECONOMY, true, true);
+        entityManager.flush();
+        entityManager.clear();
+
+        CarSearchIndex index = new CarSearchIndex(carRepository, true);
+        index.rebuild(carRepository.findAll());
+        BitSet booked = new BitSet();
+        booked.set(corolla.getId());
+
+        List<CarSearchRequestDTO> searches = List.of(
+                new CarSearchRequestDTO(),
+                CarSearchRequestDTO.builder().make("TOYOTA").build(),
+                CarSearchRequestDTO.builder().category("hatchback").priceGroup(PriceGroup.ECONOMY).build(),
+                CarSearchRequestDTO.builder().yearFrom(2020).yearTo(2022).build(),
+                CarSearchRequestDTO.builder().make("Toyota").model("Corolla").build(),
+                CarSearchRequestDTO.builder().model("Beetle").build());
+        for (CarSearchRequestDTO criteria : searches) {
+            for (BitSet excluded : List.of(new BitSet(), booked)) {
+                List<Car> queried = carRepository.findAll(
+                        CarSpecifications.matching(criteria, excluded.stream().boxed().toList()), Sort.by("id"));
+                List<Integer> fromQuery = queried.stream().map(Car::getId).toList();
+                BitSet matches = index.search(criteria, excluded);
+                List<Integer> fromIndex = matches.stream().boxed().toList();
+
+                assertEquals(fromQuery, fromIndex, criteria + " excluding " + excluded);
+                assertEquals(CarSearchIndex.countFacets(queried), index.countFacets(matches), "facets of " + criteria);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Keyset pages visit every listed car exactly once in sort order")
+    void after_shouldWalkListingInKeysetSortOrder() {
+        persist("Toyota", "Corolla", 2020, "Sedan", PriceGroup.ECONOMY, true, false);
+        persist("VW", "Polo", 2020, "Hatchback", PriceGroup.ECONOMY, true, false);
+        persist(null, "Unknown", 2022, "Sedan", null, true, false);
+        persist("Audi", "A4", 2023, "Sedan", PriceGroup.LUXURY, false, false);
+        persist("Toyota", "Yaris", 2021, "Hatchback", PriceGroup.ECONOMY, true, false);
+        persist(null, "Mystery", 2019, "SUV", null, true, false);
+        persist("BMW", "X5", 2024, "SUV", PriceGroup.LUXURY, true, true);
+        entityManager.flush();
+        entityManager.clear();
+
+        for (String property : List.of("id", "year", "make", "priceGroup")) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Sort sort = CarSpecifications.keysetSort(new Sort.Order(direction, property));
+                List<Integer> expected = carRepository.findAll(CarSpecifications.listed(false), sort).stream().map(Car::getId).toList();
+
+                List<Integer> walked = new ArrayList<>();
+                Slice<Car> first = carRepository.findByDeletedFalse(PageRequest.of(0, 2, sort));
+                first.forEach(car -> walked.add(car.getId()));
+                List<Car> page = first.getContent();
+                while (!page.isEmpty()) {
+                    Car lastSeen = page.get(page.size() - 1);
+                    page = carRepository.findBy(
+                            CarSpecifications.listed(false).and(CarSpecifications.after(new Sort.Order(direction, property), lastSeen)),
+                            query -> query.sortBy(sort).limit(2).all());
+                    page.forEach(car -> walked.add(car.getId()));
+                }
+
+                assertEquals(6, expected.size());
+                assertEquals(expected, walked, property + " " + direction);
+            }
+        }
+        assertEquals(6, carRepository.countByDeletedFalse());
+        assertEquals(5, carRepository.countByAvailableTrueAndDeletedFalse());
+    }
+}
@@ -0,0 +1,113 @@
+package za.ac.cput.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import za.ac.cput.domain.entity.security.RefreshToken;
+import za.ac.cput.domain.entity.security.User;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repository tests for {@link IRefreshTokenRepository} against an in-memory H2 database:
+ * the guarded single-UPDATE rotation, token families and the chunked lookup used by the expired-token purge.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RefreshTokenRepositoryTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private IRefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private int userCount;
+
+    @BeforeEach
+    void setUp() {
+        userCount = 0;
+    }
+
+    private User persistUser() {
+        return entityManager.persist(User.builder()
+                .firstName("User").lastName(String.valueOf(userCount)).email("user" + userCount++ + "@test.com").password("secret")
+                .roles(new ArrayList<>())
+                .build());
+    }
+
+    private RefreshToken persistToken(String tokenHash, Instant expiryDate) {
+        return entityManager.persist(new RefreshToken(persistUser(), UUID.randomUUID(), tokenHash, expiryDate));
+    }
+
+    @Test
+    @DisplayName("A token can be rotated once; replaying the old hash matches no row")
+    void rotate_shouldSucceedOnlyOnceForTheSameToken() {
+        persistToken("old", NOW.plusSeconds(3600));
+        entityManager.flush();
+
+        assertEquals(1, refreshTokenRepository.rotate("old", "new", NOW.plusSeconds(7200), NOW));
+        assertEquals(0, refreshTokenRepository.rotate("old", "other", NOW.plusSeconds(7200), NOW));
+
+        entityManager.clear();
+        assertTrue(refreshTokenRepository.findByTokenHash("old").isEmpty());
+        assertEquals(NOW.plusSeconds(7200), refreshTokenRepository.findByTokenHash("new").orElseThrow().getExpiryDate());
+        assertEquals("new", refreshTokenRepository.findByPreviousTokenHash("old").orElseThrow().getTokenHash());
+    }
+
+    @Test
+    @DisplayName("A user keeps one token per device and a family is revoked without touching the others")
+    void deleteByFamilyId_shouldRevokeOneDeviceOnly() {
+        User user = persistUser();
+        UUID phone = UUID.randomUUID();
+        UUID browser = UUID.randomUUID();
+        entityManager.persist(new RefreshToken(user, phone, "phone", NOW.plusSeconds(3600)));
+        entityManager.persist(new RefreshToken(user, browser, "browser", NOW.plusSeconds(3600)));
+        entityManager.flush();
+
+        assertEquals(List.of("browser", "phone"),
+                refreshTokenRepository.findByUserOrderByIdDesc(user).stream().map(RefreshToken::getTokenHash).toList());
+
+        assertEquals(1, refreshTokenRepository.deleteByFamilyId(phone));
+        entityManager.clear();
+        assertTrue(refreshTokenRepository.findByTokenHash("phone").isEmpty());
+        assertTrue(refreshTokenRepository.findByTokenHash("browser").isPresent());
+    }
+
+    @Test
+    @DisplayName("An expired token cannot be rotated")
+    void rotate_shouldRefuseExpiredToken() {
+        persistToken("expired", NOW.minusSeconds(1));
+        entityManager.flush();
+
+        assertEquals(0, refreshTokenRepository.rotate("expired", "new", NOW.plusSeconds(3600), NOW));
+    }
+
+    @Test
+    @DisplayName("Expired token ids are returned oldest first, one chunk at a time")
+    void findExpiredIds_shouldReturnLimitedChunk() {
+        List<Long> expiredIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expiredIds.add(persistToken("expired-" + i, NOW.minusSeconds(60)).getId());
+        }
+        persistToken("live", NOW.plusSeconds(60));
+        entityManager.flush();
+
+        assertEquals(expiredIds.subList(0, 3), refreshTokenRepository.findExpiredIds(NOW, Limit.of(3)));
+
+        refreshTokenRepository.deleteAllByIdInBatch(expiredIds.subList(0, 3));
+        assertEquals(expiredIds.subList(3, 5), refreshTokenRepository.findExpiredIds(NOW, Limit.of(3)));
+    }
+}
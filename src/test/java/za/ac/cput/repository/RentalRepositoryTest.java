@@ -0,0 +1,143 @@
+package za.ac.cput.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import za.ac.cput.domain.dto.response.RentalResponseDTO;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.entity.CarImage;
+import za.ac.cput.domain.entity.Rental;
+import za.ac.cput.domain.entity.security.Role;
+import za.ac.cput.domain.entity.security.RoleName;
+import za.ac.cput.domain.entity.security.User;
+import za.ac.cput.domain.enums.RentalStatus;
+import za.ac.cput.domain.mapper.RentalMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repository tests for {@link RentalRepository} against an in-memory H2 database.
+ * Hibernate statistics show that listing rentals costs one statement for the rentals plus one per
+ * {@code @BatchSize} of distinct cars (for their images) and of distinct users (for their roles),
+ * however many rentals there are (no N+1 on car images or user roles). The fleets seeded here are
+ * larger than one batch, so the batching itself is exercised.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RentalRepositoryTest {
+
+    private static final LocalDateTime ISSUED = LocalDateTime.of(2026, 3, 1, 10, 0);
+    private static final String PUBLIC_API_URL = "https://api.test";
+    // The @BatchSize of Car.images and User.roles.
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Role role;
+
+    @BeforeEach
+    void setUp() {
+        role = entityManager.persist(new Role(RoleName.USER));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Persists {@code rentalCount} rentals spread over {@code userCount} users and {@code carCount} cars
+     * with two images each, then clears the persistence context and the statistics.
+     */
+    private void seed(String prefix, int rentalCount, int userCount, int carCount) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            users.add(entityManager.persist(User.builder()
+                    .firstName("User").lastName(String.valueOf(i)).email(prefix + i + "@test.com").password("secret")
+                    .roles(new ArrayList<>(List.of(role)))
+                    .build()));
+        }
+        List<Car> cars = new ArrayList<>();
+        for (int i = 0; i < carCount; i++) {
+            Car car = entityManager.persist(new Car.Builder().setMake("Toyota").setModel(prefix + i).setAvailable(true).build());
+            for (int j = 0; j < 2; j++) {
+                entityManager.persist(CarImage.builder().fileName(prefix + i + "-" + j + ".jpg").imageType("cars").car(car).build());
+            }
+            cars.add(car);
+        }
+        for (int i = 0; i < rentalCount; i++) {
+            entityManager.persist(new Rental.Builder()
+                    .setUser(users.get(i % userCount)).setCar(cars.get(i % carCount))
+                    .setIssuedDate(ISSUED).setExpectedReturnDate(ISSUED.plusDays(3))
+                    .setStatus(RentalStatus.COMPLETED).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    /**
+     * The statements expected to list rentals of {@code carCount} distinct cars and {@code userCount} distinct users:
+     * one entity-graph select, then one batch select per {@link #BATCH_SIZE} cars' images and users' roles.
+     */
+    private static long expectedStatements(int carCount, int userCount) {
+        return 1 + batches(carCount) + batches(userCount);
+    }
+
+    private static long batches(int count) {
+        return (count + BATCH_SIZE - 1) / BATCH_SIZE;
+    }
+
+    private long statementsToList(List<Rental> rentals) {
+        List<RentalResponseDTO> dtos = RentalMapper.toDtoList(rentals, null, PUBLIC_API_URL);
+        dtos.forEach(dto -> {
+            assertEquals(2, dto.getCar().getImageUrls().size());
+            assertEquals(List.of("USER"), dto.getUser().getRoles());
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("Listing rentals costs one statement per batch of distinct cars and users, not one per rental")
+    void findAllByDeletedFalse_shouldIssueStatementsPerBatch() {
+        seed("a", 50, 20, 10);
+        long statementsFor50 = statementsToList(rentalRepository.findAllByDeletedFalse());
+        entityManager.clear();
+
+        seed("b", 450, 230, 210);
+        List<Rental> rentals = rentalRepository.findAllByDeletedFalse();
+        long statementsFor500 = statementsToList(rentals);
+
+        assertEquals(500, rentals.size());
+        assertEquals(expectedStatements(10, 20), statementsFor50);
+        // 220 cars and 250 users in all: three batches of images and three of roles.
+        assertEquals(expectedStatements(220, 250), statementsFor500);
+        assertEquals(7, statementsFor500);
+    }
+
+    @Test
+    @DisplayName("A keyset page of 500 rentals loads lazy collections in batches, not one select per row")
+    void findByIdGreaterThan_shouldBatchLazyCollections() {
+        seed("c", 500, 150, 250);
+
+        List<Rental> page = rentalRepository.findByIdGreaterThanAndDeletedFalseOrderByIdAsc(0, Limit.of(500));
+
+        assertEquals(500, page.size());
+        // One select for the page and its to-one associations, three batches of car images, two of user roles.
+        assertEquals(expectedStatements(250, 150), statementsToList(page));
+    }
+}
@@ -0,0 +1,41 @@
+package za.ac.cput.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import za.ac.cput.domain.entity.StorageUsage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repository tests for {@link StorageUsageRepository} against an in-memory H2 database in MySQL mode:
+ * the single-statement upsert the storage usage ledger is updated with.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class StorageUsageRepositoryTest {
+
+    @Autowired
+    private StorageUsageRepository storageUsageRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("The first update of a folder creates its row and later ones add to it")
+    void addUsage_shouldInsertThenIncrement() {
+        storageUsageRepository.addUsage("cars", 1, 1000);
+        storageUsageRepository.addUsage("cars", 1, 500);
+        storageUsageRepository.addUsage("cars", -1, -1000);
+        storageUsageRepository.addUsage("selfies", 1, 42);
+        entityManager.clear();
+
+        StorageUsage cars = storageUsageRepository.findById("cars").orElseThrow();
+        assertEquals(1, cars.getFileCount());
+        assertEquals(500, cars.getTotalBytes());
+        assertNull(cars.getReconciledAt());
+        assertEquals(42, storageUsageRepository.findById("selfies").orElseThrow().getTotalBytes());
+    }
+}
@@ -0,0 +1,142 @@
+package za.ac.cput.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import za.ac.cput.exception.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) encoder.close();
+    }
+
+    /** A delegate whose matches blocks until released, to occupy the hashing pool, and which finds every hash outdated. */
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return true;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("New hashes carry the {bcrypt} id and legacy unprefixed hashes still match")
+    void encodeAndMatches_shouldSupportPrefixedAndLegacyHashes() {
+        encoder = new BoundedPasswordEncoder(4, 2, 10, Duration.ofSeconds(5), meterRegistry);
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+
+        String encoded = encoder.encode("secret");
+
+        assertTrue(encoded.startsWith("{bcrypt}$2a$04$"));
+        assertTrue(encoder.matches("secret", encoded));
+        assertTrue(encoder.matches("secret", legacy));
+        assertFalse(encoder.matches("wrong", legacy));
+        assertEquals(1, meterRegistry.get("password.hash").tag("operation", "encode").tag("cost", "4").timer().count());
+        assertEquals(3, meterRegistry.get("password.hash").tag("operation", "matches").tag("algorithm", "bcrypt").timer().count());
+    }
+
+    @Test
+    @DisplayName("Legacy and lower-cost hashes are upgraded in the background, current ones are left alone")
+    void upgradeEncodingInBackground_shouldRehashOutdatedHashesOnly() throws Exception {
+        encoder = new BoundedPasswordEncoder(5, 1, 10, Duration.ofSeconds(5), meterRegistry);
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        CompletableFuture<String> upgraded = new CompletableFuture<>();
+
+        encoder.upgradeEncodingInBackground("secret", legacy, upgraded::complete);
+
+        String newHash = upgraded.get(5, TimeUnit.SECONDS);
+        assertTrue(newHash.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(encoder.matches("secret", newHash));
+        assertFalse(encoder.upgradeEncoding(newHash));
+        assertTrue(encoder.upgradeEncoding("{bcrypt}" + legacy));
+    }
+
+    @Test
+    @DisplayName("An upgrade is skipped rather than queued behind logins while every hashing thread is busy")
+    void upgradeEncodingInBackground_shouldSkipWhenPoolIsBusy() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), "test", 1, 5, Duration.ofSeconds(5), meterRegistry);
+        CompletableFuture<Boolean> login = CompletableFuture.supplyAsync(() -> encoder.matches("a", "b"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> skipped = new CompletableFuture<>();
+
+        encoder.upgradeEncodingInBackground("secret", "legacy", skipped::complete);
+
+        assertEquals(0.0, meterRegistry.get("password.hash.queued").gauge().value());
+        release.countDown();
+        assertTrue(login.get(5, TimeUnit.SECONDS));
+        assertFalse(skipped.isDone());
+    }
+
+    @Test
+    @DisplayName("A call that finds the pool and queue full is refused with 503 instead of waiting")
+    void matches_shouldRejectWhenPoolIsSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), "test", 1, 0, Duration.ofSeconds(5), meterRegistry);
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> encoder.matches("a", "b"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.matches("a", "b"));
+
+        release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("password.hash.rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("A queued call gives up with 503 once it has waited longer than the limit")
+    void matches_shouldTimeOutWhileQueued() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), "test", 1, 5, Duration.ofMillis(50), meterRegistry);
+        CompletableFuture.runAsync(() -> encoder.matches("a", "b"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.matches("a", "b"));
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Algorithm and cost are read from the stored hash for the timing tags")
+    void algorithmAndCost_shouldBeParsedFromHash() {
+        assertEquals("bcrypt", BoundedPasswordEncoder.algorithmOf("$2a$10$abcdefghijklmnopqrstuv"));
+        assertEquals("10", BoundedPasswordEncoder.costOf("$2a$10$abcdefghijklmnopqrstuv"));
+        assertEquals("argon2", BoundedPasswordEncoder.algorithmOf("{argon2}$argon2id$v=19$m=16384"));
+        assertEquals("12", BoundedPasswordEncoder.costOf("{bcrypt}$2b$12$abcdefghijklmnopqrstuv"));
+        assertEquals("unknown", BoundedPasswordEncoder.costOf("{noop}secret"));
+    }
+}
@@ -0,0 +1,144 @@
+package za.ac.cput.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    private static final Duration ROTATION = Duration.ofHours(24);
+    private static final long TOKEN_TTL_MS = Duration.ofMinutes(15).toMillis();
+
+    /** A clock whose time the test can move forward. */
+    private static class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2026-10-17T10:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    private static String sign(JwtKeyRing keyRing) {
+        JwtKeyRing.KeyEntry key = keyRing.activeKey();
+        return Jwts.builder().subject("driver@test.com").header().keyId(key.kid()).and()
+                .signWith(key.privateKey(), keyRing.signatureAlgorithm()).compact();
+    }
+
+    private static String verify(JwtKeyRing keyRing, String token) {
+        return Jwts.parser().keyLocator(keyRing::locate).build().parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> jwks(JwtKeyRing keyRing) {
+        return (List<Map<String, Object>>) keyRing.toJwks().get("keys");
+    }
+
+    @Test
+    @DisplayName("HS512 mode has no asymmetric keys to publish")
+    void hs512_shouldPublishEmptyKeySet() {
+        JwtKeyRing keyRing = new JwtKeyRing("HS512", "", "", ROTATION, TOKEN_TTL_MS, Clock.systemUTC());
+        assertFalse(keyRing.isAsymmetric());
+        assertTrue(jwks(keyRing).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Generated keys rotate; a retired key verifies until its last token expires")
+    void activeKey_shouldRotateAndRetireGeneratedKeys() {
+        MutableClock clock = new MutableClock();
+        JwtKeyRing keyRing = new JwtKeyRing("EdDSA", "", "", ROTATION, TOKEN_TTL_MS, clock);
+        String oldKid = keyRing.activeKey().kid();
+        String oldToken = sign(keyRing);
+
+        clock.instant = clock.instant.plus(ROTATION);
+        String newToken = sign(keyRing);
+
+        assertNotEquals(oldKid, keyRing.activeKey().kid());
+        assertEquals("driver@test.com", verify(keyRing, oldToken));
+        assertEquals("driver@test.com", verify(keyRing, newToken));
+        assertEquals(2, jwks(keyRing).size());
+
+        clock.instant = clock.instant.plusMillis(TOKEN_TTL_MS + 1);
+        assertThrows(UnsupportedJwtException.class, () -> verify(keyRing, oldToken));
+        assertEquals(List.of(keyRing.activeKey().kid()), jwks(keyRing).stream().map(jwk -> jwk.get("kid")).toList());
+    }
+
+    @Test
+    @DisplayName("Generated keys are refused when more than one instance is configured")
+    void constructor_shouldRejectGeneratedKeysForSeveralInstances(@TempDir Path keyDir) throws Exception {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new JwtKeyRing("EdDSA", "", "", ROTATION, TOKEN_TTL_MS, 2, Clock.systemUTC()));
+        assertTrue(e.getMessage().contains("app.security.jwt.key-dir"));
+
+        KeyPair shared = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        Files.writeString(keyDir.resolve("2026-10.pub.pem"), pem("PUBLIC KEY", shared.getPublic().getEncoded()));
+        Files.writeString(keyDir.resolve("2026-10.key.pem"), pem("PRIVATE KEY", shared.getPrivate().getEncoded()));
+        assertEquals("2026-10", new JwtKeyRing("EdDSA", keyDir.toString(), "", ROTATION, TOKEN_TTL_MS, 2, Clock.systemUTC()).activeKey().kid());
+        assertFalse(new JwtKeyRing("HS512", "", "", ROTATION, TOKEN_TTL_MS, 2, Clock.systemUTC()).isAsymmetric());
+    }
+
+    @Test
+    @DisplayName("RSA keys are published with their kid, modulus and exponent")
+    void toJwks_shouldDescribeRsaKeys() {
+        JwtKeyRing keyRing = new JwtKeyRing("RS256", "", "", ROTATION, TOKEN_TTL_MS, Clock.systemUTC());
+
+        Map<String, Object> jwk = jwks(keyRing).get(0);
+
+        assertEquals(keyRing.activeKey().kid(), jwk.get("kid"));
+        assertEquals("RSA", jwk.get("kty"));
+        assertEquals("RS256", jwk.get("alg"));
+        assertEquals("AQAB", jwk.get("e"));
+        assertEquals(256, Base64.getUrlDecoder().decode((String) jwk.get("n")).length);
+    }
+
+    @Test
+    @DisplayName("Keys loaded from a directory sign with the active kid and verify with public-only keys")
+    void loadKeys_shouldUsePemFilesFromKeyDir(@TempDir Path keyDir) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("Ed25519");
+        KeyPair retired = generator.generateKeyPair();
+        KeyPair current = generator.generateKeyPair();
+        Files.writeString(keyDir.resolve("2026-01.pub.pem"), pem("PUBLIC KEY", retired.getPublic().getEncoded()));
+        Files.writeString(keyDir.resolve("2026-10.pub.pem"), pem("PUBLIC KEY", current.getPublic().getEncoded()));
+        Files.writeString(keyDir.resolve("2026-10.key.pem"), pem("PRIVATE KEY", current.getPrivate().getEncoded()));
+
+        JwtKeyRing keyRing = new JwtKeyRing("EdDSA", keyDir.toString(), "", ROTATION, TOKEN_TTL_MS, Clock.systemUTC());
+        String oldToken = Jwts.builder().subject("driver@test.com").header().keyId("2026-01").and()
+                .signWith(retired.getPrivate(), Jwts.SIG.EdDSA).compact();
+
+        assertEquals("2026-10", keyRing.activeKey().kid());
+        assertEquals("driver@test.com", verify(keyRing, sign(keyRing)));
+        assertEquals("driver@test.com", verify(keyRing, oldToken));
+        assertEquals(2, jwks(keyRing).size());
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n" + Base64.getMimeEncoder().encodeToString(der) + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,213 @@
+package za.ac.cput.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import za.ac.cput.domain.entity.security.User;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilitiesTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[64]);
+
+    private JwtUtilities jwtUtilities;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtilities = newJwtUtilities(60_000L, 100);
+        user = User.builder().uuid(UUID.randomUUID()).email("driver@test.com").build();
+    }
+
+    private static JwtUtilities newJwtUtilities(long expirationMs, int cacheSize) {
+        return newJwtUtilities(expirationMs, cacheSize, new JwtKeyRing("HS512", "", "", Duration.ofHours(24), expirationMs, Clock.systemUTC()));
+    }
+
+    private static JwtUtilities newJwtUtilities(long expirationMs, int cacheSize, JwtKeyRing keyRing) {
+        JwtUtilities utilities = new JwtUtilities();
+        ReflectionTestUtils.setField(utilities, "keyRing", keyRing);
+        ReflectionTestUtils.setField(utilities, "secret", SECRET);
+        ReflectionTestUtils.setField(utilities, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(utilities, "verifiedCacheSize", cacheSize);
+        utilities.init();
+        return utilities;
+    }
+
+    private static Claims claimsExpiringAt(long epochMs) {
+        return Jwts.claims().expiration(new Date(epochMs)).build();
+    }
+
+    @Test
+    @DisplayName("A valid token is verified once and then served from the cache")
+    void verifyToken_shouldCacheVerifiedClaims() {
+        String token = jwtUtilities.generateToken(user, List.of("USER"));
+
+        Claims first = jwtUtilities.verifyToken(token);
+        Claims second = jwtUtilities.verifyToken(token);
+
+        assertNotNull(first);
+        assertEquals("driver@test.com", first.get("email", String.class));
+        assertSame(first, second);
+        assertTrue(jwtUtilities.validateToken(token));
+    }
+
+    @Test
+    @DisplayName("A token with a tampered signature is rejected")
+    void verifyToken_shouldRejectTamperedToken() {
+        String token = jwtUtilities.generateToken(user, List.of("USER"));
+        // Change a character inside the signature; the last character may only carry base64 padding bits.
+        int i = token.lastIndexOf('.') + 10;
+        String tampered = token.substring(0, i) + (token.charAt(i) == 'A' ? 'B' : 'A') + token.substring(i + 1);
+
+        assertNull(jwtUtilities.verifyToken(tampered));
+        assertFalse(jwtUtilities.validateToken(tampered));
+    }
+
+    @Test
+    @DisplayName("An expired token is rejected and never cached")
+    void verifyToken_shouldRejectExpiredToken() {
+        String token = newJwtUtilities(-1_000L, 100).generateToken(user, List.of("USER"));
+
+        assertNull(jwtUtilities.verifyToken(token));
+    }
+
+    @Test
+    @DisplayName("Token is valid for the user named in its email claim only")
+    void validateToken_shouldMatchUserDetails() {
+        String token = jwtUtilities.generateToken(user, List.of("USER"));
+        UserDetails owner = org.springframework.security.core.userdetails.User.withUsername("driver@test.com").password("x").build();
+        UserDetails other = org.springframework.security.core.userdetails.User.withUsername("other@test.com").password("x").build();
+
+        assertTrue(jwtUtilities.validateToken(token, owner));
+        assertFalse(jwtUtilities.validateToken(token, other));
+    }
+
+    @Test
+    @DisplayName("RS256 and EdDSA tokens carry the signing kid and verify against the key ring")
+    void verifyToken_shouldVerifyAsymmetricTokens() {
+        for (String algorithm : List.of("RS256", "EdDSA")) {
+            JwtKeyRing keyRing = new JwtKeyRing(algorithm, "", "", Duration.ofHours(24), 60_000L, Clock.systemUTC());
+            JwtUtilities utilities = newJwtUtilities(60_000L, 0, keyRing);
+            String token = utilities.generateToken(user, List.of("USER"));
+
+            Claims claims = utilities.verifyToken(token);
+
+            assertNotNull(claims, algorithm);
+            assertEquals("driver@test.com", claims.get("email", String.class));
+            assertNull(jwtUtilities.verifyToken(token), "HS512 parser must reject " + algorithm + " tokens");
+            String kid = Jwts.parser().keyLocator(keyRing::locate).build().parseSignedClaims(token).getHeader().getKeyId();
+            assertEquals(keyRing.activeKey().kid(), kid);
+        }
+    }
+
+    @Test
+    @DisplayName("Cached claims are dropped once the token expires")
+    void cache_shouldExpireEntries() {
+        Instant now = Instant.parse("2026-10-17T10:00:00Z");
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, Clock.fixed(now, ZoneOffset.UTC));
+        cache.put("live", claimsExpiringAt(now.toEpochMilli() + 1_000L));
+        cache.put("stale", claimsExpiringAt(now.toEpochMilli()));
+
+        assertNotNull(cache.get("live"));
+        assertNull(cache.get("stale"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Cache stays bounded by evicting the least recently used token")
+    void cache_shouldEvictLeastRecentlyUsed() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, Clock.systemUTC());
+        long later = System.currentTimeMillis() + 60_000L;
+        cache.put("a", claimsExpiringAt(later));
+        cache.put("b", claimsExpiringAt(later));
+        cache.get("a");
+        cache.put("c", claimsExpiringAt(later));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    @DisplayName("Tokens carry their issue time to the millisecond")
+    void generateToken_shouldIncludeMillisecondIssueTime() {
+        long before = System.currentTimeMillis();
+        Claims claims = jwtUtilities.verifyToken(jwtUtilities.generateToken(user, List.of("USER")));
+        long after = System.currentTimeMillis();
+
+        long issuedAt = JwtUtilities.issuedAt(claims).getTime();
+        assertTrue(issuedAt >= before && issuedAt <= after);
+        assertEquals(issuedAt / 1000, claims.getIssuedAt().getTime() / 1000);
+    }
+
+    @Test
+    @DisplayName("A signature copied onto other content does not hit the cache")
+    void cache_shouldRejectCopiedSignature() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, Clock.systemUTC());
+        cache.put("header.payload.signature", claimsExpiringAt(System.currentTimeMillis() + 60_000L));
+
+        assertNotNull(cache.get("header.payload.signature"));
+        assertNull(cache.get("header.tampered.signature"));
+    }
+
+    @Test
+    @DisplayName("A token with the same signature and String hash code as a cached one does not hit the cache")
+    void cache_shouldRejectTokenWithCollidingHashCode() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, Clock.systemUTC());
+        assertEquals("header.Aa.signature".hashCode(), "header.BB.signature".hashCode());
+        cache.put("header.Aa.signature", claimsExpiringAt(System.currentTimeMillis() + 60_000L));
+
+        assertNull(cache.get("header.BB.signature"));
+    }
+
+    @Test
+    @DisplayName("Concurrent readers and writers keep the cache consistent and bounded")
+    void cache_shouldStayBoundedUnderConcurrency() throws Exception {
+        int threads = 8;
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Clock.systemUTC());
+        long later = System.currentTimeMillis() + 60_000L;
+        List<Claims> claims = IntStream.range(0, 1_000).mapToObj(i -> claimsExpiringAt(later + i)).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = IntStream.range(0, threads).<Future<?>>mapToObj(t -> executor.submit(() -> {
+                for (int n = 0; n < 20_000; n++) {
+                    int i = (n * 31 + t) % claims.size();
+                    String token = "h.p." + i;
+                    Claims cached = cache.get(token);
+                    if (cached == null) {
+                        cache.put(token, claims.get(i));
+                    } else {
+                        assertSame(claims.get(i), cached);
+                    }
+                }
+            })).toList();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cache.size() <= 100 + threads, "size " + cache.size());
+    }
+}
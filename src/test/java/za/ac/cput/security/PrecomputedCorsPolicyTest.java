@@ -0,0 +1,94 @@
+package za.ac.cput.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.CorsFilter;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrecomputedCorsPolicyTest {
+
+    private static final String FRONTEND = "https://otgr.nemesisnet.co.za";
+
+    private CorsFilter corsFilter;
+
+    @BeforeEach
+    void setUp() {
+        PrecomputedCorsPolicy policy = new PrecomputedCorsPolicy(List.of(FRONTEND + "/", "http://localhost:5173"),
+                List.of("GET", "POST", "OPTIONS"), List.of("Authorization", "Content-Type"), List.of("ETag"), Duration.ofHours(24));
+        corsFilter = new CorsFilter(policy);
+        corsFilter.setCorsProcessor(policy);
+    }
+
+    private static MockHttpServletRequest request(String method, String origin) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/v1/cars");
+        request.setServerName("api.example.com");
+        if (origin != null) request.addHeader("Origin", origin);
+        return request;
+    }
+
+    @Test
+    @DisplayName("A preflight from an allowed origin is answered directly with a long max age")
+    void preflight_shouldShortCircuitForAllowedOrigin() throws Exception {
+        MockHttpServletRequest request = request("OPTIONS", FRONTEND);
+        request.addHeader("Access-Control-Request-Method", "POST");
+        request.addHeader("Access-Control-Request-Headers", "authorization, content-type");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        corsFilter.doFilter(request, response, chain);
+
+        assertNull(chain.getRequest(), "Preflight must not reach the application");
+        assertEquals(200, response.getStatus());
+        assertEquals(FRONTEND, response.getHeader("Access-Control-Allow-Origin"));
+        assertEquals("GET, POST, OPTIONS", response.getHeader("Access-Control-Allow-Methods"));
+        assertEquals("Authorization, Content-Type", response.getHeader("Access-Control-Allow-Headers"));
+        assertEquals("86400", response.getHeader("Access-Control-Max-Age"));
+        assertEquals("Origin, Access-Control-Request-Method, Access-Control-Request-Headers", response.getHeader("Vary"));
+    }
+
+    @Test
+    @DisplayName("An actual request from an allowed origin gets its origin, credentials and exposed headers")
+    void actualRequest_shouldAddCorsHeadersForAllowedOrigin() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        corsFilter.doFilter(request("GET", "http://localhost:5173"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals("http://localhost:5173", response.getHeader("Access-Control-Allow-Origin"));
+        assertEquals("true", response.getHeader("Access-Control-Allow-Credentials"));
+        assertEquals("ETag", response.getHeader("Access-Control-Expose-Headers"));
+        assertEquals("Origin", response.getHeader("Vary"));
+    }
+
+    @Test
+    @DisplayName("Origins outside the allow-list and disallowed preflight headers are rejected; plain requests pass")
+    void shouldRejectUnknownOriginsAndPassNonCorsRequests() throws Exception {
+        MockHttpServletResponse foreign = new MockHttpServletResponse();
+        corsFilter.doFilter(request("GET", "https://evil.example.com"), foreign, new MockFilterChain());
+
+        MockHttpServletRequest badPreflight = request("OPTIONS", FRONTEND);
+        badPreflight.addHeader("Access-Control-Request-Method", "GET");
+        badPreflight.addHeader("Access-Control-Request-Headers", "X-Custom");
+        MockHttpServletResponse badPreflightResponse = new MockHttpServletResponse();
+        corsFilter.doFilter(badPreflight, badPreflightResponse, new MockFilterChain());
+
+        MockHttpServletResponse plain = new MockHttpServletResponse();
+        MockFilterChain plainChain = new MockFilterChain();
+        corsFilter.doFilter(request("GET", null), plain, plainChain);
+
+        assertEquals(403, foreign.getStatus());
+        assertNull(foreign.getHeader("Access-Control-Allow-Origin"));
+        assertEquals(403, badPreflightResponse.getStatus());
+        assertNotNull(plainChain.getRequest());
+        assertNull(plain.getHeader("Access-Control-Allow-Origin"));
+    }
+}
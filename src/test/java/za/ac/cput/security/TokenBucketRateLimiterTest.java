@@ -0,0 +1,103 @@
+package za.ac.cput.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    @DisplayName("A full bucket allows a burst of its capacity, then one request per refill interval")
+    void tryAcquire_shouldAllowBurstThenRefillEvenly() {
+        AtomicLong now = new AtomicLong(42 * SECOND);
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, Duration.ofSeconds(3), 100, now::get);
+
+        assertEquals(0, limiter.tryAcquire("ip"));
+        assertEquals(0, limiter.tryAcquire("ip"));
+        assertEquals(0, limiter.tryAcquire("ip"));
+        assertEquals(1000, limiter.tryAcquire("ip"), "Next token arrives after one interval");
+        assertEquals(0, limiter.tryAcquire("other"), "Buckets are independent per key");
+
+        now.addAndGet(SECOND);
+        assertEquals(0, limiter.tryAcquire("ip"));
+        assertTrue(limiter.tryAcquire("ip") > 0);
+
+        now.addAndGet(10 * SECOND); // Idle time refills the bucket up to its capacity, not beyond
+        for (int i = 0; i < 3; i++) assertEquals(0, limiter.tryAcquire("ip"));
+        assertTrue(limiter.tryAcquire("ip") > 0);
+    }
+
+    @Test
+    @DisplayName("The key map stays bounded, dropping refilled buckets first")
+    void tryAcquire_shouldBoundNumberOfKeys() {
+        AtomicLong now = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, Duration.ofSeconds(2), 10, now::get);
+        limiter.tryAcquire("busy");
+        limiter.tryAcquire("busy");
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire("ip-" + i);
+            now.addAndGet(SECOND); // Each one-shot bucket refills one second later
+        }
+
+        assertTrue(limiter.size() <= 10);
+    }
+
+    @Test
+    @DisplayName("Buckets holding debt are never dropped; new keys share an overflow bucket until one refills")
+    void tryAcquire_shouldKeepIndebtedBucketsWhenFull() {
+        AtomicLong now = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, Duration.ofSeconds(2), 3, now::get);
+        for (String key : new String[]{"a", "b", "c"}) {
+            limiter.tryAcquire(key);
+            limiter.tryAcquire(key);
+        }
+
+        assertEquals(0, limiter.tryAcquire("new-1"));
+        assertEquals(0, limiter.tryAcquire("new-2"));
+        assertTrue(limiter.tryAcquire("new-3") > 0, "New keys share one overflow bucket");
+        for (String key : new String[]{"a", "b", "c"}) {
+            assertTrue(limiter.tryAcquire(key) > 0, "Indebted bucket " + key + " must keep its debt");
+        }
+        assertEquals(3, limiter.size());
+
+        now.addAndGet(2 * SECOND); // Every stored bucket has refilled
+        assertEquals(0, limiter.tryAcquire("new-3"));
+        assertEquals(0, limiter.tryAcquire("new-3"));
+        assertTrue(limiter.tryAcquire("new-3") > 0);
+        assertTrue(limiter.size() <= 3);
+    }
+
+    @Test
+    @DisplayName("The filter answers 429 with Retry-After once an IP exhausts its login budget and ignores other paths")
+    void filter_shouldRejectLoginsOverTheIpLimit() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuthRateLimiter limiter = new AuthRateLimiter(true, 2, Duration.ofMinutes(1), 10, Duration.ofMinutes(5),
+                60, Duration.ofMinutes(1), 1000, meterRegistry);
+        AuthRateLimitFilter filter = new AuthRateLimitFilter(limiter);
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse allowed = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("POST", AuthRateLimitFilter.LOGIN_PATH), allowed, new MockFilterChain());
+            assertEquals(200, allowed.getStatus());
+        }
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", AuthRateLimitFilter.LOGIN_PATH), rejected, new MockFilterChain());
+        MockHttpServletResponse otherPath = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/cars"), otherPath, new MockFilterChain());
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("30", rejected.getHeader("Retry-After"));
+        assertEquals(200, otherPath.getStatus());
+        assertEquals(1.0, meterRegistry.get("auth.rate_limit.rejected").tag("endpoint", "login").tag("key", "ip").counter().count());
+    }
+}
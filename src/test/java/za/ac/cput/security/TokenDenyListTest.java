@@ -0,0 +1,87 @@
+package za.ac.cput.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDenyListTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T10:00:00.500Z");
+    private static final long TTL_MS = 60_000L;
+
+    /** A clock whose time the test can move forward. */
+    private static class MutableClock extends Clock {
+        private Instant instant = NOW;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    @Test
+    @DisplayName("Tokens issued up to the deny event are rejected to the millisecond, later ones are accepted")
+    void isDenied_shouldCompareIssuedAt() {
+        TokenDenyList denyList = new TokenDenyList(TTL_MS, Clock.fixed(NOW, ZoneOffset.UTC));
+        UUID user = UUID.randomUUID();
+        denyList.deny(user);
+
+        assertTrue(denyList.isDenied(user, Date.from(NOW.minusSeconds(30))));
+        // Issued earlier in the same second as the logout.
+        assertTrue(denyList.isDenied(user, Date.from(NOW.minusMillis(400))));
+        assertTrue(denyList.isDenied(user, Date.from(NOW)));
+        assertTrue(denyList.isDenied(user, null));
+        // A login right after the logout.
+        assertFalse(denyList.isDenied(user, Date.from(NOW.plusMillis(1))));
+        assertFalse(denyList.isDenied(UUID.randomUUID(), Date.from(NOW.minusSeconds(30))));
+    }
+
+    @Test
+    @DisplayName("A token with only a second-precision iat from the second of the deny event is rejected")
+    void isDenied_shouldRejectLegacyTokenFromSameSecond() {
+        TokenDenyList denyList = new TokenDenyList(TTL_MS, Clock.fixed(NOW, ZoneOffset.UTC));
+        UUID user = UUID.randomUUID();
+        denyList.deny(user);
+
+        Claims legacy = Jwts.claims().issuedAt(Date.from(Instant.parse("2026-10-17T10:00:00Z"))).build();
+        Claims later = Jwts.claims().issuedAt(Date.from(Instant.parse("2026-10-17T10:00:01Z"))).build();
+
+        assertTrue(denyList.isDenied(user, JwtUtilities.issuedAt(legacy)));
+        assertFalse(denyList.isDenied(user, JwtUtilities.issuedAt(later)));
+    }
+
+    @Test
+    @DisplayName("Entries are purged once every token they could match has expired")
+    void deny_shouldPurgeEntriesOlderThanTokenLifetime() {
+        MutableClock clock = new MutableClock();
+        TokenDenyList denyList = new TokenDenyList(TTL_MS, clock);
+        UUID first = UUID.randomUUID();
+        denyList.deny(first);
+
+        clock.instant = NOW.plusMillis(TTL_MS + 1);
+        denyList.deny(UUID.randomUUID());
+
+        assertEquals(1, denyList.size());
+        assertFalse(denyList.isDenied(first, Date.from(NOW.minusSeconds(1))));
+    }
+}
@@ -0,0 +1,105 @@
+package za.ac.cput.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+import za.ac.cput.utils.SecurityUtils;
+
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VerifiedTokenCacheBenchmark.java
+ * Measures cache hits from many request threads at once, comparing {@link VerifiedTokenCache} with the
+ * previous design: a synchronized access-ordered {@link LinkedHashMap} keyed by the SHA-256 of the token.
+ * <p>
+ * Run with: mvn -Pjmh test -Djmh.include=VerifiedTokenCacheBenchmark
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class VerifiedTokenCacheBenchmark {
+
+    private static final int TOKENS = 1_000;
+
+    private String[] tokens;
+    private VerifiedTokenCache cache;
+    private LockedSha256Cache lockedCache;
+
+    /**
+     * The cache as it was before: one lock around an LRU map, and a SHA-256 digest of the token per lookup.
+     */
+    static final class LockedSha256Cache {
+        private final Map<String, Claims> entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > TOKENS;
+            }
+        };
+
+        Claims get(String token) {
+            String key = SecurityUtils.sha256Hex(token);
+            synchronized (entries) {
+                return entries.get(key);
+            }
+        }
+
+        void put(String token, Claims claims) {
+            String key = SecurityUtils.sha256Hex(token);
+            synchronized (entries) {
+                entries.put(key, claims);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final Random random = new Random();
+
+        int next() {
+            return random.nextInt(TOKENS);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        Claims claims = Jwts.claims().subject("driver@test.com").expiration(new Date(System.currentTimeMillis() + 3_600_000L)).build();
+        tokens = new String[TOKENS];
+        cache = new VerifiedTokenCache(TOKENS, Clock.systemUTC());
+        lockedCache = new LockedSha256Cache();
+        for (int i = 0; i < TOKENS; i++) {
+            // Shaped like an HS512 access token: header, a payload of a few hundred bytes, 64-byte signature.
+            byte[] payload = new byte[240];
+            byte[] signature = new byte[64];
+            random.nextBytes(payload);
+            random.nextBytes(signature);
+            tokens[i] = "eyJhbGciOiJIUzUxMiJ9." + encoder.encodeToString(payload) + "." + encoder.encodeToString(signature);
+            cache.put(tokens[i], claims);
+            lockedCache.put(tokens[i], claims);
+        }
+    }
+
+    @Benchmark
+    public Claims concurrentCacheHit(Cursor cursor) {
+        return cache.get(tokens[cursor.next()]);
+    }
+
+    @Benchmark
+    public Claims lockedSha256CacheHit(Cursor cursor) {
+        return lockedCache.get(tokens[cursor.next()]);
+    }
+}
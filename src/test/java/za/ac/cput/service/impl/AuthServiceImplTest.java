@@ -7,7 +7,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.util.ReflectionTestUtils;
 import za.ac.cput.domain.entity.security.Role;
 import za.ac.cput.domain.entity.security.RoleName;
@@ -16,13 +16,18 @@ import za.ac.cput.exception.BadRequestException;
 import za.ac.cput.exception.EmailAlreadyExistsException;
 import za.ac.cput.repository.IRoleRepository;
 import za.ac.cput.repository.UserRepository;
+import za.ac.cput.security.AuthRateLimiter;
+import za.ac.cput.security.BoundedPasswordEncoder;
+import za.ac.cput.security.TokenDenyList;
 import za.ac.cput.service.IEmailService;
+import za.ac.cput.service.IRefreshTokenService;
 import za.ac.cput.service.IUserService;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -43,9 +48,15 @@ class AuthServiceImplTest {
     @Mock
     private IRoleRepository roleRepository;
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private BoundedPasswordEncoder passwordEncoder;
     @Mock
     private IEmailService emailService;
+    @Mock
+    private IRefreshTokenService refreshTokenService;
+    @Mock
+    private TokenDenyList tokenDenyList;
+    @Mock
+    private AuthRateLimiter authRateLimiter;
 
     // Create an instance of the class we are testing and inject the mocks into it
     @InjectMocks
@@ -222,4 +233,22 @@ class AuthServiceImplTest {
         // Verify no save operation occurred
         verify(userRepository, never()).save(any());
     }
+
+    @Test
+    @DisplayName("Logout should delete refresh tokens and deny the user's outstanding access tokens")
+    void logoutUser_ShouldDenyAccessTokens() {
+        // --- Arrange ---
+        ReflectionTestUtils.setField(authService, "refreshTokenCookieName", "refresh_token");
+        ReflectionTestUtils.setField(authService, "refreshTokenCookiePath", "/");
+        User user = User.builder().id(7).uuid(UUID.randomUUID()).email("test@example.com").build();
+        when(userRepository.findById(7)).thenReturn(Optional.of(user));
+
+        // --- Act ---
+        boolean result = authService.logoutUser(7, new MockHttpServletResponse());
+
+        // --- Assert ---
+        assertTrue(result);
+        verify(refreshTokenService).deleteByUserId(7);
+        verify(tokenDenyList).deny(user.getUuid());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package za.ac.cput.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import za.ac.cput.domain.entity.Booking;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.enums.BookingStatus;
+import za.ac.cput.repository.BookingRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookingAvailabilityIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 10, 0);
+
+    private BookingRepository bookingRepository;
+    private BookingAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        index = new BookingAvailabilityIndex(bookingRepository, true);
+    }
+
+    private static BookingRepository.BookingInterval interval(int id, int carId, int startDay, int endDay) {
+        return new BookingRepository.BookingInterval() {
+            public Integer getId() { return id; }
+            public Integer getCarId() { return carId; }
+            public LocalDateTime getStartDate() { return BASE.plusDays(startDay); }
+            public LocalDateTime getEndDate() { return BASE.plusDays(endDay); }
+        };
+    }
+
+    private static Booking booking(int id, int carId, int startDay, int endDay, BookingStatus status) {
+        return new Booking.Builder()
+                .setId(id)
+                .setCar(new Car.Builder().setId(carId).build())
+                .setStartDate(BASE.plusDays(startDay))
+                .setEndDate(BASE.plusDays(endDay))
+                .setStatus(status)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Index is not ready until it has been built")
+    void isReady_shouldBeFalse_untilRebuilt() {
+        assertFalse(index.isReady());
+        index.rebuild(List.of());
+        assertTrue(index.isReady());
+    }
+
+    @Test
+    @DisplayName("Disabled index never reports ready and does not touch the database")
+    void onApplicationReady_shouldSkip_whenDisabled() {
+        BookingAvailabilityIndex disabled = new BookingAvailabilityIndex(bookingRepository, false);
+        disabled.onApplicationReady();
+        assertFalse(disabled.isReady());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    @DisplayName("Startup rebuild loads CONFIRMED intervals from the repository")
+    void onApplicationReady_shouldLoadConfirmedIntervals() {
+        when(bookingRepository.findIntervalsByStatus(BookingStatus.CONFIRMED)).thenReturn(List.of(interval(1, 7, 0, 2)));
+        index.onApplicationReady();
+        assertTrue(index.isReady());
+        assertTrue(index.hasConflict(7, BASE.plusDays(1), BASE.plusDays(3), null));
+    }
+
+    @Test
+    @DisplayName("Bookings committed while the startup rebuild reads the database are replayed over its snapshot")
+    void onApplicationReady_shouldReplayChangesCommittedDuringLoad() {
+        when(bookingRepository.findIntervalsByStatus(BookingStatus.CONFIRMED)).thenAnswer(invocation -> {
+            List<BookingRepository.BookingInterval> snapshot = List.of(interval(1, 7, 0, 2), interval(2, 8, 0, 2));
+            // Committed after the query read its rows but before the index is installed.
+            index.syncAfterCommit(booking(3, 7, 5, 6, BookingStatus.CONFIRMED));
+            index.syncAfterCommit(booking(2, 8, 0, 2, BookingStatus.USER_CANCELLED));
+            return snapshot;
+        });
+
+        index.onApplicationReady();
+
+        assertTrue(index.isReady());
+        assertTrue(index.hasConflict(7, BASE.plusDays(5), BASE.plusDays(6), null));
+        assertTrue(index.hasConflict(7, BASE.plusDays(1), BASE.plusDays(3), null));
+        assertFalse(index.hasConflict(8, BASE.plusDays(1), BASE.plusDays(3), null));
+
+        // Recording stops once the snapshot is installed.
+        index.rebuild(List.of());
+        assertFalse(index.hasConflict(7, BASE.plusDays(5), BASE.plusDays(6), null));
+    }
+
+    @Test
+    @DisplayName("Overlap semantics match the repository query (touching periods do not overlap)")
+    void hasConflict_shouldMatchHalfOpenOverlap() {
+        index.rebuild(List.of(interval(1, 7, 2, 4), interval(2, 7, 10, 12), interval(3, 8, 0, 30)));
+
+        assertTrue(index.hasConflict(7, BASE.plusDays(3), BASE.plusDays(5), null));
+        assertTrue(index.hasConflict(7, BASE.plusDays(1), BASE.plusDays(11), null));
+        assertFalse(index.hasConflict(7, BASE.plusDays(4), BASE.plusDays(10), null));
+        assertFalse(index.hasConflict(7, BASE.plusDays(0), BASE.plusDays(2), null));
+        assertFalse(index.hasConflict(9, BASE.plusDays(0), BASE.plusDays(30), null));
+    }
+
+    @Test
+    @DisplayName("A long earlier booking is found even when later bookings start in between")
+    void findConflicts_shouldFindLongEarlierBooking() {
+        index.rebuild(List.of(interval(1, 7, 0, 20), interval(2, 7, 5, 6), interval(3, 7, 8, 9)));
+
+        int[] conflicts = index.findConflicts(7, BASE.plusDays(15), BASE.plusDays(16), null);
+        assertArrayEquals(new int[]{1}, conflicts);
+
+        int[] all = index.findConflicts(7, BASE.plusDays(5), BASE.plusDays(9), null);
+        Arrays.sort(all);
+        assertArrayEquals(new int[]{1, 2, 3}, all);
+    }
+
+    @Test
+    @DisplayName("The booking being updated is excluded from its own overlap check")
+    void hasConflict_shouldIgnoreExcludedBooking() {
+        index.rebuild(List.of(interval(1, 7, 2, 4)));
+        assertFalse(index.hasConflict(7, BASE.plusDays(2), BASE.plusDays(5), 1));
+        assertTrue(index.hasConflict(7, BASE.plusDays(2), BASE.plusDays(5), 2));
+    }
+
+    @Test
+    @DisplayName("Sync adds confirmed bookings, moves them between cars and drops cancelled ones")
+    void syncAfterCommit_shouldTrackLifecycle() {
+        index.rebuild(List.of());
+
+        index.syncAfterCommit(booking(1, 7, 2, 4, BookingStatus.CONFIRMED));
+        assertTrue(index.hasConflict(7, BASE.plusDays(3), BASE.plusDays(5), null));
+
+        index.syncAfterCommit(booking(1, 8, 2, 4, BookingStatus.CONFIRMED));
+        assertFalse(index.hasConflict(7, BASE.plusDays(3), BASE.plusDays(5), null));
+        assertTrue(index.hasConflict(8, BASE.plusDays(3), BASE.plusDays(5), null));
+
+        index.syncAfterCommit(booking(1, 8, 2, 4, BookingStatus.USER_CANCELLED));
+        assertFalse(index.hasConflict(8, BASE.plusDays(3), BASE.plusDays(5), null));
+    }
+
+    @Test
+    @DisplayName("Soft-deleted bookings are removed from the index")
+    void syncAfterCommit_shouldRemoveDeletedBooking() {
+        index.rebuild(List.of(interval(1, 7, 2, 4), interval(2, 7, 6, 8)));
+        Booking deleted = booking(1, 7, 2, 4, BookingStatus.CONFIRMED);
+        new Booking.Builder().copy(deleted).setDeleted(true).applyTo(deleted); // build() would reset the deleted flag
+
+        index.syncAfterCommit(deleted);
+        assertFalse(index.hasConflict(7, BASE.plusDays(2), BASE.plusDays(4), null));
+        assertTrue(index.hasConflict(7, BASE.plusDays(6), BASE.plusDays(7), null));
+    }
+
+    @Test
+    @DisplayName("Occupancy calendar ORs the booked cars of every day in the range")
+    void findBookedCarIds_shouldOrDaysInRange() {
+        // BASE is 10:00, so a booking from day 2 to day 4 touches days 2, 3 and 4.
+        index.rebuild(List.of(interval(1, 7, 2, 4), interval(2, 8, 6, 7), interval(3, 9, 10, 11)));
+        LocalDate day0 = BASE.toLocalDate();
+
+        assertEquals(BitSet.valueOf(new long[]{1L << 7 | 1L << 8}), index.findBookedCarIds(day0.plusDays(4), day0.plusDays(6)));
+        assertTrue(index.findBookedCarIds(day0.plusDays(5), day0.plusDays(5)).isEmpty());
+        assertTrue(index.findBookedCarIds(day0, day0.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Occupancy calendar keeps a day booked while another booking of the car still covers it")
+    void findBookedCarIds_shouldTrackSyncedBookings() {
+        index.rebuild(List.of());
+        LocalDate day0 = BASE.toLocalDate();
+
+        index.syncAfterCommit(booking(1, 7, 2, 4, BookingStatus.CONFIRMED));
+        index.syncAfterCommit(booking(2, 7, 4, 6, BookingStatus.CONFIRMED));
+        assertTrue(index.findBookedCarIds(day0.plusDays(3), day0.plusDays(3)).get(7));
+
+        index.syncAfterCommit(booking(1, 7, 2, 4, BookingStatus.USER_CANCELLED));
+        assertFalse(index.findBookedCarIds(day0.plusDays(3), day0.plusDays(3)).get(7));
+        assertTrue(index.findBookedCarIds(day0.plusDays(4), day0.plusDays(4)).get(7));
+
+        index.syncAfterCommit(booking(2, 7, 4, 6, BookingStatus.USER_CANCELLED));
+        assertTrue(index.findBookedCarIds(day0, day0.plusDays(10)).isEmpty());
+    }
+}
@@ -0,0 +1,206 @@
+package za.ac.cput.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import za.ac.cput.domain.entity.Booking;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.entity.security.User;
+import za.ac.cput.domain.enums.BookingStatus;
+import za.ac.cput.exception.CarNotAvailableException;
+import za.ac.cput.repository.BookingRepository;
+import za.ac.cput.repository.CarRepository;
+import za.ac.cput.repository.UserRepository;
+import za.ac.cput.service.ICarService;
+import za.ac.cput.service.IUserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Multi-threaded tests for {@link BookingServiceImpl} against the H2 test database with real, committed
+ * transactions. The availability index is disabled, so every overlap check goes to the database and can only
+ * see a conflicting booking if the previous holder of the car's lock had committed before handing it on, and if
+ * the checking transaction had not fixed its snapshot before it got the lock. Connections use H2's SNAPSHOT
+ * isolation, which like MySQL's REPEATABLE READ fixes the snapshot at the first read of a transaction.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking-concurrency;MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER,YEAR,VALUE",
+        "spring.datasource.hikari.connection-init-sql=SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL SNAPSHOT",
+        "app.booking.availability-index.enabled=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookingServiceImpl.class, BookingAvailabilityIndex.class, CarBookingLocks.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingServiceImplConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 6, 1, 8, 0);
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @MockBean
+    private ICarService carService;
+    @MockBean
+    private IUserService userService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .firstName("Stress").lastName("Test").email("stress@test.com").password("secret")
+                .roles(new ArrayList<>())
+                .build());
+        when(userService.read(user.getUuid())).thenReturn(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        carRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Saves a car. UUIDs 1, 2, ... fall on distinct lock stripes, so only bookings of the same car contend.
+     */
+    private Car registerCar(int number) {
+        Car car = carRepository.save(new Car.Builder().setUuid(new UUID(0, number)).setMake("Toyota").setModel("Corolla")
+                .setLicensePlate("STRESS" + number).setAvailable(true).build());
+        when(carService.read(car.getUuid())).thenReturn(car);
+        return car;
+    }
+
+    private Booking bookingRequest(Car car, LocalDateTime start, LocalDateTime end) {
+        return new Booking.Builder().setUser(user).setCar(car).setStartDate(start).setEndDate(end).build();
+    }
+
+    private List<Future<Booking>> submitConcurrently(List<Callable<Booking>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<Booking>> futures = new ArrayList<>();
+            for (Callable<Booking> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    return task.call();
+                }));
+            }
+            startGate.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+            return futures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int countRejected(List<Future<Booking>> futures) throws InterruptedException {
+        int rejected = 0;
+        for (Future<Booking> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                assertInstanceOf(CarNotAvailableException.class, e.getCause());
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    private void assertNoOverlappingConfirmedBookings(Car car) {
+        List<Booking> saved = bookingRepository.findAll().stream()
+                .filter(booking -> booking.getCar().getId() == car.getId() && booking.getStatus() == BookingStatus.CONFIRMED)
+                .toList();
+        assertFalse(saved.isEmpty());
+        for (int a = 0; a < saved.size(); a++) {
+            for (int b = a + 1; b < saved.size(); b++) {
+                Booking first = saved.get(a);
+                Booking second = saved.get(b);
+                boolean overlaps = first.getStartDate().isBefore(second.getEndDate()) && first.getEndDate().isAfter(second.getStartDate());
+                assertFalse(overlaps, "Double booking: " + first.getId() + " and " + second.getId());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Threads booking one car for overlapping periods never produce a double booking")
+    void create_shouldNeverDoubleBook_whenOneCarIsHammered() throws Exception {
+        Car car = registerCar(1);
+        List<Callable<Booking>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            LocalDateTime start = BASE.plusHours(i);
+            Booking request = bookingRequest(car, start, start.plusHours(3));
+            tasks.add(() -> bookingService.create(request));
+        }
+
+        int rejected = countRejected(submitConcurrently(tasks));
+
+        assertEquals(THREADS, bookingRepository.count() + rejected);
+        assertNoOverlappingConfirmedBookings(car);
+    }
+
+    @Test
+    @DisplayName("Threads moving different bookings of one car onto the same period leave exactly one there")
+    void update_shouldNeverDoubleBook_whenBookingsAreMovedTogether() throws Exception {
+        Car car = registerCar(1);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            LocalDateTime start = BASE.plusDays(2L * i + 10);
+            bookings.add(bookingService.create(bookingRequest(car, start, start.plusDays(1))));
+        }
+        List<Callable<Booking>> tasks = new ArrayList<>();
+        for (Booking booking : bookings) {
+            Booking moved = new Booking.Builder().copy(booking).setStartDate(BASE).setEndDate(BASE.plusDays(1)).build();
+            tasks.add(() -> bookingService.update(moved));
+        }
+
+        int rejected = countRejected(submitConcurrently(tasks));
+
+        assertEquals(THREADS - 1, rejected);
+        assertNoOverlappingConfirmedBookings(car);
+    }
+
+    @Test
+    @DisplayName("Bookings of different cars hold their locks at the same time")
+    void create_shouldRunInParallel_whenCarsDiffer() throws Exception {
+        // Each booking waits inside its locked section until the other has entered its own;
+        // if the two were serialized the barrier would time out and both bookings would fail.
+        CyclicBarrier bothInside = new CyclicBarrier(2);
+        List<Callable<Booking>> tasks = new ArrayList<>();
+        for (int number = 1; number <= 2; number++) {
+            Car car = registerCar(number);
+            when(carService.read(car.getUuid())).thenAnswer(invocation -> {
+                bothInside.await(5, TimeUnit.SECONDS);
+                return car;
+            });
+            Booking request = bookingRequest(car, BASE, BASE.plusDays(1));
+            tasks.add(() -> bookingService.create(request));
+        }
+
+        for (Future<Booking> future : submitConcurrently(tasks)) {
+            assertEquals(BookingStatus.CONFIRMED, future.get().getStatus());
+        }
+        assertEquals(2, bookingRepository.count());
+    }
+}
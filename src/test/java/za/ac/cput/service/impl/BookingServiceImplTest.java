@@ -3,11 +3,17 @@ package za.ac.cput.service.impl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import za.ac.cput.domain.entity.Booking;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.entity.security.User;
@@ -16,19 +22,29 @@ import za.ac.cput.exception.CarNotAvailableException;
 import za.ac.cput.exception.InvalidDateRangeException;
 import za.ac.cput.exception.ResourceNotFoundException;
 import za.ac.cput.repository.BookingRepository;
+import za.ac.cput.repository.CarRepository;
+import za.ac.cput.repository.UserRepository;
+import za.ac.cput.service.IBookingService;
 import za.ac.cput.service.ICarService;
 import za.ac.cput.service.IUserService;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,9 +54,19 @@ class BookingServiceImplTest {
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private CarRepository carRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
     private ICarService carService;
     @Mock
     private IUserService userService;
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex; // Not ready by default, so overlap checks fall back to the repository
+    @Spy
+    private CarBookingLocks carBookingLocks = new CarBookingLocks(16, 1_000);
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private BookingServiceImpl bookingService;
@@ -59,12 +85,15 @@ class BookingServiceImplTest {
         userUuid = UUID.randomUUID();
         carUuid = UUID.randomUUID();
         bookingUuid = UUID.randomUUID();
+        when(bookingRepository.findCarUuidByIdAndDeletedFalse(anyInt())).thenReturn(Optional.of(carUuid));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
         // Ensure consistent start/end times for tests
         startTime = LocalDateTime.now().plusDays(1).withNano(0); // Remove nanos for easier comparison
         endTime = LocalDateTime.now().plusDays(3).withNano(0);   // Remove nanos
 
         sampleUser = User.builder().id(1).uuid(userUuid).email("user@example.com").build();
-        sampleCar = new Car.Builder().setId(1).setUuid(carUuid).setMake("Toyota").setModel("Corolla").build();
+        sampleCar = new Car.Builder().setId(1).setUuid(carUuid).setMake("Toyota").setModel("Corolla").setAvailable(true).build();
 
         sampleBooking = new Booking.Builder()
                 .setId(1)
@@ -93,8 +122,8 @@ class BookingServiceImplTest {
 
         when(userService.read(userUuid)).thenReturn(sampleUser);
         when(carService.read(carUuid)).thenReturn(sampleCar);
-        when(bookingRepository.findOverlappingBookings(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(startTime), eq(endTime)))
-                .thenReturn(Collections.emptyList());
+        when(bookingRepository.existsOverlappingBooking(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(startTime), eq(endTime), isNull()))
+                .thenReturn(false);
         when(bookingRepository.save(any(Booking.class))).thenReturn(savedBookingMock);
 
         Booking created = bookingService.create(bookingDetails);
@@ -162,18 +191,99 @@ class BookingServiceImplTest {
         assertTrue(ex.getMessage().contains("User with UUID " + userUuid + " not found."), "Exception message should indicate user not found.");
     }
 
+    @Test
+    void create_shouldThrowCarNotAvailable_whenCarIsNotAvailable() {
+        Car unavailableCar = new Car.Builder().copy(sampleCar).setAvailable(false).build();
+        Booking bookingDetails = new Booking.Builder().setUser(sampleUser).setCar(unavailableCar).setStartDate(startTime).setEndDate(endTime).build();
+        when(userService.read(userUuid)).thenReturn(sampleUser);
+        when(carService.read(carUuid)).thenReturn(unavailableCar);
+
+        Exception ex = assertThrows(CarNotAvailableException.class, () -> bookingService.create(bookingDetails));
+        assertEquals("Car with UUID: " + carUuid + " is not available for booking.", ex.getMessage());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(carBookingLocks).releaseAtCompletion(any());
+    }
+
     @Test
     void create_shouldThrowCarNotAvailable_whenCarIsDoubleBooked() {
         Booking bookingDetails = new Booking.Builder().setUser(sampleUser).setCar(sampleCar).setStartDate(startTime).setEndDate(endTime).build();
         when(userService.read(userUuid)).thenReturn(sampleUser);
         when(carService.read(carUuid)).thenReturn(sampleCar);
-        when(bookingRepository.findOverlappingBookings(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(startTime), eq(endTime)))
-                .thenReturn(List.of(sampleBooking));
+        when(bookingRepository.existsOverlappingBooking(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(startTime), eq(endTime), isNull()))
+                .thenReturn(true);
 
         Exception ex = assertThrows(CarNotAvailableException.class, () -> bookingService.create(bookingDetails));
         assertTrue(ex.getMessage().contains("is not available for the selected dates."));
     }
 
+    @Test
+    void create_shouldUseAvailabilityIndex_whenIndexReady() {
+        Booking bookingDetails = new Booking.Builder().setUser(sampleUser).setCar(sampleCar).setStartDate(startTime).setEndDate(endTime).build();
+        when(userService.read(userUuid)).thenReturn(sampleUser);
+        when(carService.read(carUuid)).thenReturn(sampleCar);
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.hasConflict(sampleCar.getId(), startTime, endTime, null)).thenReturn(true);
+
+        assertThrows(CarNotAvailableException.class, () -> bookingService.create(bookingDetails));
+        verify(bookingRepository, never()).existsOverlappingBooking(anyInt(), any(), any(), any(), any());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void create_shouldSyncAvailabilityIndex_whenSaved() {
+        Booking bookingDetails = new Booking.Builder().setUser(sampleUser).setCar(sampleCar).setStartDate(startTime).setEndDate(endTime).build();
+        Booking savedBookingMock = new Booking.Builder().copy(bookingDetails).setId(2).setUuid(UUID.randomUUID()).build();
+        when(userService.read(userUuid)).thenReturn(sampleUser);
+        when(carService.read(carUuid)).thenReturn(sampleCar);
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(bookingRepository.save(any(Booking.class))).thenReturn(savedBookingMock);
+
+        bookingService.create(bookingDetails);
+        verify(availabilityIndex).syncAfterCommit(savedBookingMock);
+    }
+
+    @Test
+    void create_shouldNotHydrateOverlappingBookings_whenCheckingConflicts() {
+        Booking bookingDetails = new Booking.Builder().setUser(sampleUser).setCar(sampleCar).setStartDate(startTime).setEndDate(endTime).build();
+        when(userService.read(userUuid)).thenReturn(sampleUser);
+        when(carService.read(carUuid)).thenReturn(sampleCar);
+        when(bookingRepository.save(any(Booking.class))).thenReturn(sampleBooking);
+
+        bookingService.create(bookingDetails);
+        verify(bookingRepository).existsOverlappingBooking(sampleCar.getId(), BookingStatus.CONFIRMED, startTime, endTime, null);
+        verify(bookingRepository, never()).findOverlappingBookings(anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void findConflictingBookingIds_shouldUseIdProjection_whenIndexNotReady() {
+        when(bookingRepository.findOverlappingBookingIds(sampleCar.getId(), BookingStatus.CONFIRMED, startTime, endTime, 1))
+                .thenReturn(List.of(4, 9));
+
+        assertArrayEquals(new int[]{4, 9}, bookingService.findConflictingBookingIds(sampleCar.getId(), startTime, endTime, 1));
+    }
+
+    @Test
+    void findConflictingBookingIds_shouldUseIndex_whenIndexReady() {
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.findConflicts(sampleCar.getId(), startTime, endTime, null)).thenReturn(new int[]{7});
+
+        assertArrayEquals(new int[]{7}, bookingService.findConflictingBookingIds(sampleCar.getId(), startTime, endTime, null));
+        verify(bookingRepository, never()).findOverlappingBookingIds(anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    void create_shouldReleaseCarLock_whenCarIsDoubleBooked() {
+        Booking bookingDetails = new Booking.Builder().setUser(sampleUser).setCar(sampleCar).setStartDate(startTime).setEndDate(endTime).build();
+        when(userService.read(userUuid)).thenReturn(sampleUser);
+        when(carService.read(carUuid)).thenReturn(sampleCar);
+        when(bookingRepository.existsOverlappingBooking(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(startTime), eq(endTime), isNull()))
+                .thenReturn(true);
+
+        assertThrows(CarNotAvailableException.class, () -> bookingService.create(bookingDetails));
+        verify(carBookingLocks).acquire(carUuid);
+        verify(carBookingLocks).releaseAtCompletion(any());
+    }
+
     // --- createBooking(Booking booking) Simplified ---
     @Test
     void createBookingSimplified_shouldSucceed() {
@@ -183,8 +293,8 @@ class BookingServiceImplTest {
 
         when(userService.read(userUuid)).thenReturn(sampleUser);
         when(carService.read(carUuid)).thenReturn(sampleCar);
-        when(bookingRepository.findOverlappingBookings(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(startTime), eq(endTime)))
-                .thenReturn(Collections.emptyList());
+        when(bookingRepository.existsOverlappingBooking(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(startTime), eq(endTime), isNull()))
+                .thenReturn(false);
         when(bookingRepository.save(any(Booking.class))).thenReturn(savedBooking);
 
         Booking created = bookingService.createBooking(bookingDetails);
@@ -223,6 +333,29 @@ class BookingServiceImplTest {
     }
 
 
+    @Test
+    void confirmBooking_shouldThrowCarNotAvailable_whenPendingPeriodWasTaken() {
+        Booking pendingBooking = new Booking.Builder().copy(sampleBooking).setStatus(BookingStatus.PENDING).build();
+        when(bookingRepository.findByIdAndDeletedFalse(1)).thenReturn(Optional.of(pendingBooking));
+        when(bookingRepository.existsOverlappingBooking(sampleCar.getId(), BookingStatus.CONFIRMED, startTime, endTime, 1)).thenReturn(true);
+
+        assertThrows(CarNotAvailableException.class, () -> bookingService.confirmBooking(1));
+        verify(carBookingLocks).acquireAll(Set.of(carUuid));
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void cancelBookingAndDelete_shouldHoldCarLock() {
+        when(bookingRepository.findByIdAndDeletedFalse(1)).thenReturn(Optional.of(sampleBooking));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        bookingService.cancelBooking(1);
+        assertTrue(bookingService.delete(1));
+
+        verify(carBookingLocks, times(2)).acquireAll(Set.of(carUuid));
+        verify(carBookingLocks, times(2)).releaseAllAtCompletion(argThat(locks -> locks.size() == 1));
+    }
+
     // --- cancelBooking Tests ---
     @Test
     void cancelBooking_shouldSucceedAndSetUserCancelled_whenStatusIsConfirmed() {
@@ -295,6 +428,7 @@ class BookingServiceImplTest {
                 .setUser(sampleBooking.getUser()).setCreatedAt(sampleBooking.getCreatedAt())
                 .setDeleted(sampleBooking.isDeleted()).build();
 
+        when(bookingRepository.findCarUuidByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(carUuid));
         when(bookingRepository.findByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(sampleBooking));
         when(bookingRepository.save(any(Booking.class))).thenReturn(expectedSavedBooking);
 
@@ -319,10 +453,11 @@ class BookingServiceImplTest {
                 .setUser(sampleBooking.getUser()).setCar(sampleCar) // Assuming car doesn't change, or is re-verified
                 .setCreatedAt(sampleBooking.getCreatedAt()).setDeleted(sampleBooking.isDeleted()).build();
 
+        when(bookingRepository.findCarUuidByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(carUuid));
         when(bookingRepository.findByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(sampleBooking));
         when(carService.read(sampleCar.getUuid())).thenReturn(sampleCar);
-        lenient().when(bookingRepository.findOverlappingBookings(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(newStartTime), eq(newEndTime)))
-                .thenReturn(Collections.emptyList());
+        lenient().when(bookingRepository.existsOverlappingBooking(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(newStartTime), eq(newEndTime), eq(sampleBooking.getId())))
+                .thenReturn(false);
         when(bookingRepository.save(any(Booking.class))).thenReturn(expectedEntityToSave);
 
         Booking updated = bookingService.update(bookingWithUpdates);
@@ -334,8 +469,46 @@ class BookingServiceImplTest {
     @Test
     void update_shouldThrowResourceNotFound_whenBookingNotFound() {
         Booking updates = new Booking.Builder().copy(sampleBooking).setId(99).build();
-        when(bookingRepository.findByIdAndDeletedFalse(99)).thenReturn(Optional.empty());
+        when(bookingRepository.findCarUuidByIdAndDeletedFalse(99)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> bookingService.update(updates));
+        verify(carBookingLocks, never()).acquireAll(any());
+        verify(bookingRepository, never()).findByIdAndDeletedFalse(anyInt());
+    }
+
+    @Test
+    void update_shouldLockCarBeforeTransactionStarts() {
+        Booking updates = new Booking.Builder().copy(sampleBooking).setStatus(BookingStatus.ADMIN_CANCELLED).build();
+        when(bookingRepository.findCarUuidByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(carUuid));
+        when(bookingRepository.findByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(sampleBooking));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        bookingService.update(updates);
+
+        InOrder inOrder = inOrder(carBookingLocks, transactionTemplate, bookingRepository);
+        inOrder.verify(bookingRepository).findCarUuidByIdAndDeletedFalse(sampleBooking.getId());
+        inOrder.verify(carBookingLocks).acquireAll(Set.of(carUuid));
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(bookingRepository).findByIdAndDeletedFalse(sampleBooking.getId());
+        inOrder.verify(bookingRepository).save(any(Booking.class));
+        inOrder.verify(carBookingLocks).releaseAllAtCompletion(anyList());
+    }
+
+    @Test
+    void update_shouldAlsoLockNewCar_whenBookingMovedBeforeLock() {
+        UUID movedToCarUuid = UUID.randomUUID();
+        Car movedToCar = new Car.Builder().setId(2).setUuid(movedToCarUuid).setMake("VW").setModel("Polo").build();
+        Booking movedBooking = new Booking.Builder().copy(sampleBooking).setCar(movedToCar).build();
+        Booking updates = new Booking.Builder().copy(movedBooking).setCar(null).setStatus(BookingStatus.ADMIN_CANCELLED).build();
+        when(bookingRepository.findCarUuidByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(carUuid));
+        when(bookingRepository.findByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(movedBooking));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking updated = bookingService.update(updates);
+
+        assertEquals(movedToCarUuid, updated.getCar().getUuid());
+        verify(carBookingLocks).acquireAll(Set.of(carUuid));
+        verify(carBookingLocks).acquire(movedToCarUuid);
+        verify(carBookingLocks).releaseAllAtCompletion(argThat(locks -> locks.size() == 2));
     }
 
     @Test
@@ -350,12 +523,12 @@ class BookingServiceImplTest {
         LocalDateTime newEndTime = endTime.plusDays(1).withNano(0);
         Booking updates = new Booking.Builder().copy(sampleBooking)
                 .setStartDate(newStartTime).setEndDate(newEndTime).build();
-        Booking overlappingExistingBooking = new Booking.Builder().copy(sampleBooking).setId(55).setCar(sampleCar).build();
 
+        when(bookingRepository.findCarUuidByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(carUuid));
         when(bookingRepository.findByIdAndDeletedFalse(sampleBooking.getId())).thenReturn(Optional.of(sampleBooking));
         when(carService.read(sampleCar.getUuid())).thenReturn(sampleCar);
-        lenient().when(bookingRepository.findOverlappingBookings(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(newStartTime), eq(newEndTime)))
-                .thenReturn(List.of(overlappingExistingBooking));
+        lenient().when(bookingRepository.existsOverlappingBooking(eq(sampleCar.getId()), eq(BookingStatus.CONFIRMED), eq(newStartTime), eq(newEndTime), eq(sampleBooking.getId())))
+                .thenReturn(true);
 
         assertThrows(CarNotAvailableException.class, () -> bookingService.update(updates));
     }
@@ -394,6 +567,16 @@ class BookingServiceImplTest {
         assertFalse(result.isEmpty());
     }
 
+    @Test
+    void getPage_shouldUseKeysetQuery() {
+        when(bookingRepository.findByIdGreaterThanAndDeletedFalseOrderByIdAsc(10, Limit.of(25))).thenReturn(List.of(sampleBooking));
+
+        List<Booking> result = bookingService.getPage(10, 25);
+
+        assertEquals(List.of(sampleBooking), result);
+        verify(bookingRepository, never()).findByDeletedFalse();
+    }
+
     @Test
     void findBookingsForCollectionToday_shouldCallRepository() {
         LocalDate today = LocalDate.now();
@@ -406,4 +589,124 @@ class BookingServiceImplTest {
         assertFalse(result.isEmpty());
         verify(bookingRepository).findByStatusAndStartDateBetweenAndDeletedFalse(BookingStatus.CONFIRMED, startOfDay, endOfDay);
     }
-}
\ No newline at end of file
+
+    // --- createAll(List<Booking>) Tests ---
+    private Car availableCar(int id) {
+        return new Car.Builder().setId(id).setUuid(UUID.randomUUID()).setMake("Toyota").setModel("Corolla").setAvailable(true).build();
+    }
+
+    private Booking batchItem(Car car, LocalDateTime start, LocalDateTime end) {
+        return new Booking.Builder().setUser(sampleUser).setCar(new Car.Builder().setUuid(car.getUuid()).build())
+                .setStartDate(start).setEndDate(end).build();
+    }
+
+    private void stubSaveAllWithIds() {
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> toSave = invocation.getArgument(0);
+            List<Booking> saved = new ArrayList<>();
+            for (int i = 0; i < toSave.size(); i++) {
+                saved.add(new Booking.Builder().copy(toSave.get(i)).setId(100 + i).build());
+            }
+            return saved;
+        });
+    }
+
+    @Test
+    void createAll_shouldResolveReferencesInBulkAndSaveOnce() {
+        Car carA = availableCar(10);
+        Car carB = availableCar(11);
+        when(carRepository.findByUuidInAndDeletedFalse(anyCollection())).thenReturn(List.of(carA, carB));
+        when(userRepository.findByUuidInAndDeletedFalse(anyCollection())).thenReturn(List.of(sampleUser));
+        when(bookingRepository.findIntervalsByCarIdsOverlapping(anyCollection(), eq(BookingStatus.CONFIRMED), any(), any()))
+                .thenReturn(List.of());
+        stubSaveAllWithIds();
+
+        List<IBookingService.BatchItemResult> results = bookingService.createAll(List.of(
+                batchItem(carA, startTime, endTime), batchItem(carB, startTime, endTime)));
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(IBookingService.BatchItemResult::isSuccess));
+        assertEquals(carB.getId(), results.get(1).booking().getCar().getId());
+        verify(carRepository, times(1)).findByUuidInAndDeletedFalse(anyCollection());
+        verify(userRepository, times(1)).findByUuidInAndDeletedFalse(anyCollection());
+        verify(bookingRepository, times(1)).findIntervalsByCarIdsOverlapping(anyCollection(), any(), any(), any());
+        verify(bookingRepository, times(1)).saveAll(anyList());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(carService, never()).read(any(UUID.class));
+        verify(availabilityIndex, times(2)).syncAfterCommit(any(Booking.class));
+    }
+
+    @Test
+    void createAll_shouldRejectItemsOverlappingEarlierItemsOfSameBatch() {
+        Car car = availableCar(10);
+        when(carRepository.findByUuidInAndDeletedFalse(anyCollection())).thenReturn(List.of(car));
+        when(userRepository.findByUuidInAndDeletedFalse(anyCollection())).thenReturn(List.of(sampleUser));
+        stubSaveAllWithIds();
+
+        List<IBookingService.BatchItemResult> results = bookingService.createAll(List.of(
+                batchItem(car, startTime, endTime),
+                batchItem(car, startTime.plusDays(1), endTime.plusDays(1)),
+                batchItem(car, endTime, endTime.plusDays(1))));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).error().contains("item 0"));
+        assertTrue(results.get(2).isSuccess()); // Touching periods do not overlap
+        verify(bookingRepository).saveAll(argThat(list -> ((List<Booking>) list).size() == 2));
+    }
+
+    @Test
+    void createAll_shouldReportPerItemFailures() {
+        Car bookedCar = availableCar(10);
+        Car unavailableCar = new Car.Builder().copy(availableCar(11)).setAvailable(false).build();
+        Car missingCar = availableCar(12);
+        BookingRepository.BookingInterval existing = new BookingRepository.BookingInterval() {
+            public Integer getId() { return 1; }
+            public Integer getCarId() { return bookedCar.getId(); }
+            public LocalDateTime getStartDate() { return startTime; }
+            public LocalDateTime getEndDate() { return endTime; }
+        };
+        when(carRepository.findByUuidInAndDeletedFalse(anyCollection())).thenReturn(List.of(bookedCar, unavailableCar));
+        when(userRepository.findByUuidInAndDeletedFalse(anyCollection())).thenReturn(List.of(sampleUser));
+        when(bookingRepository.findIntervalsByCarIdsOverlapping(anyCollection(), eq(BookingStatus.CONFIRMED), any(), any()))
+                .thenReturn(List.of(existing));
+
+        List<IBookingService.BatchItemResult> results = bookingService.createAll(List.of(
+                batchItem(bookedCar, startTime, endTime),
+                batchItem(unavailableCar, startTime, endTime),
+                batchItem(missingCar, startTime, endTime),
+                batchItem(bookedCar, endTime, startTime)));
+
+        assertTrue(results.get(0).error().contains("not available for the selected dates"));
+        assertTrue(results.get(1).error().contains("is not available for booking"));
+        assertTrue(results.get(2).error().contains("not found"));
+        assertTrue(results.get(3).error().contains("end date must be after"));
+        assertEquals(List.of(0, 1, 2, 3), results.stream().map(IBookingService.BatchItemResult::index).toList());
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createAll_shouldUseAvailabilityIndex_whenReady() {
+        Car car = availableCar(10);
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.hasConflict(car.getId(), startTime, endTime, null)).thenReturn(true);
+        when(carRepository.findByUuidInAndDeletedFalse(anyCollection())).thenReturn(List.of(car));
+        when(userRepository.findByUuidInAndDeletedFalse(anyCollection())).thenReturn(List.of(sampleUser));
+
+        List<IBookingService.BatchItemResult> results = bookingService.createAll(List.of(batchItem(car, startTime, endTime)));
+
+        assertFalse(results.get(0).isSuccess());
+        verify(bookingRepository, never()).findIntervalsByCarIdsOverlapping(anyCollection(), any(), any(), any());
+    }
+
+    @Test
+    void createAll_shouldReleaseCarLocks_whenLookupFails() {
+        Car car = availableCar(10);
+        when(carRepository.findByUuidInAndDeletedFalse(anyCollection())).thenThrow(new RuntimeException("db down"));
+
+        assertThrows(RuntimeException.class, () -> bookingService.createAll(List.of(batchItem(car, startTime, endTime))));
+        ArgumentCaptor<List<Lock>> released = ArgumentCaptor.forClass(List.class);
+        verify(carBookingLocks).releaseAllAtCompletion(released.capture());
+        assertTrue(released.getValue().stream().noneMatch(lock -> ((ReentrantLock) lock).isLocked()));
+    }
+}
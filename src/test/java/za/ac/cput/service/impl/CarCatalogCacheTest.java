@@ -0,0 +1,72 @@
+package za.ac.cput.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import za.ac.cput.domain.event.CarCatalogChangedEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarCatalogCacheTest {
+
+    private CarCatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CarCatalogCache(new ObjectMapper(), true, 100);
+    }
+
+    @Test
+    @DisplayName("A response is serialized once, wrapped in the API envelope, and served with a stable ETag")
+    void get_shouldServeCachedBytes() {
+        AtomicInteger loads = new AtomicInteger();
+
+        CarCatalogCache.CachedResponse first = cache.get("all", () -> {
+            loads.incrementAndGet();
+            return List.of("Toyota");
+        });
+        CarCatalogCache.CachedResponse second = cache.get("all", () -> {
+            loads.incrementAndGet();
+            return List.of("Ford");
+        });
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertTrue(first.eTag().startsWith("\"") && first.eTag().endsWith("\""));
+        String json = new String(first.body(), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"data\":[\"Toyota\"]"), json);
+        assertTrue(json.contains("\"status\":\"success\""), json);
+    }
+
+    @Test
+    @DisplayName("An empty result is cached as empty and yields no body")
+    void get_shouldCacheEmptyResult() {
+        CarCatalogCache.CachedResponse response = cache.get("price-group:LUXURY", () -> null);
+
+        assertTrue(response.isEmpty());
+        assertNull(response.eTag());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("A catalog change drops all entries and a load that raced the change is not stored")
+    void onCarCatalogChanged_shouldInvalidate() {
+        cache.get("all", () -> List.of("Toyota"));
+
+        CarCatalogCache.CachedResponse raced = cache.get("car:1", () -> {
+            cache.onCarCatalogChanged(new CarCatalogChangedEvent(UUID.randomUUID()));
+            return "stale";
+        });
+
+        assertNotNull(raced.body());
+        assertEquals(0, cache.size());
+        CarCatalogCache.CachedResponse reloaded = cache.get("all", () -> List.of("Ford"));
+        assertTrue(new String(reloaded.body(), StandardCharsets.UTF_8).contains("Ford"));
+    }
+}
@@ -0,0 +1,131 @@
+package za.ac.cput.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+import za.ac.cput.service.IFileStorageService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CarImageUploaderTest {
+
+    private IFileStorageService fileStorageService;
+    private SimpleMeterRegistry meterRegistry;
+    private CarImageUploader uploader;
+
+    private static MultipartFile image(String name) {
+        return new MockMultipartFile("files", name, "image/jpeg", new byte[]{1, 2, 3});
+    }
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = mock(IFileStorageService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        uploader = new CarImageUploader(fileStorageService, meterRegistry, 3, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploader.shutdown();
+    }
+
+    @Test
+    @DisplayName("Files are uploaded concurrently, empty ones are skipped, and keys keep the request order")
+    void uploadAll_shouldUploadInParallel() {
+        CountDownLatch allStarted = new CountDownLatch(3);
+        when(fileStorageService.save(any(), eq("cars"))).thenAnswer(invocation -> {
+            allStarted.countDown();
+            // Only returns once all three uploads are running at the same time.
+            assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+            return "cars/" + invocation.<MultipartFile>getArgument(0).getOriginalFilename();
+        });
+        List<MultipartFile> files = new ArrayList<>(List.of(image("a.jpg"), image("b.jpg"),
+                new MockMultipartFile("files", "empty.jpg", "image/jpeg", new byte[0]), image("c.jpg")));
+        files.add(null);
+
+        List<String> keys = uploader.uploadAll(files);
+
+        assertEquals(List.of("cars/a.jpg", "cars/b.jpg", "cars/c.jpg"), keys);
+        assertEquals(3, meterRegistry.get("car.image.upload").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("car.image.upload.batch").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("A failed upload removes the rest of its batch from storage and is rethrown")
+    void uploadAll_shouldCompensate_whenAnUploadFails() {
+        when(fileStorageService.save(any(), eq("cars"))).thenAnswer(invocation -> {
+            String name = invocation.<MultipartFile>getArgument(0).getOriginalFilename();
+            if (name.equals("bad.jpg")) throw new RuntimeException("Error uploading file to MinIO");
+            return "cars/" + name;
+        });
+        when(fileStorageService.delete(any(), anyLong())).thenReturn(true);
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> uploader.uploadAll(List.of(image("a.jpg"), image("bad.jpg"), image("c.jpg"))));
+
+        assertEquals("Error uploading file to MinIO", thrown.getMessage());
+        verify(fileStorageService).delete("cars/a.jpg", 3L);
+        verify(fileStorageService).delete("cars/c.jpg", 3L);
+        assertEquals(2, meterRegistry.get("car.image.upload.compensated").counter().count());
+        assertEquals(1, meterRegistry.get("car.image.upload").tag("outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("car.image.upload.batch").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    @DisplayName("An interrupted batch cancels queued uploads and removes the running one once it finishes")
+    void uploadAll_shouldCompensate_whenInterrupted() throws Exception {
+        CarImageUploader singleThreaded = new CarImageUploader(fileStorageService, meterRegistry, 1, 16);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fileStorageService.save(any(), eq("cars"))).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return "cars/" + invocation.<MultipartFile>getArgument(0).getOriginalFilename();
+        });
+        when(fileStorageService.delete(any(), anyLong())).thenReturn(true);
+        AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+        AtomicBoolean stillInterrupted = new AtomicBoolean();
+        Thread caller = new Thread(() -> {
+            try {
+                singleThreaded.uploadAll(List.of(image("a.jpg"), image("b.jpg")));
+            } catch (RuntimeException e) {
+                thrown.set(e);
+            }
+            stillInterrupted.set(Thread.currentThread().isInterrupted());
+        });
+        try {
+            caller.start();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            caller.interrupt();
+            // Lets the caller take the interrupt and go back to waiting before a.jpg is allowed to finish.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((caller.isInterrupted() || caller.getState() != Thread.State.WAITING) && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            caller.join(5_000);
+        } finally {
+            singleThreaded.shutdown();
+        }
+
+        assertInstanceOf(IllegalStateException.class, thrown.get());
+        assertTrue(stillInterrupted.get());
+        verify(fileStorageService, times(1)).save(any(), eq("cars"));
+        verify(fileStorageService).delete("cars/a.jpg", 3L);
+        assertEquals(1, meterRegistry.get("car.image.upload.compensated").counter().count());
+    }
+}
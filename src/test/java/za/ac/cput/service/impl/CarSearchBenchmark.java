@@ -0,0 +1,111 @@
+package za.ac.cput.service.impl;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import za.ac.cput.domain.dto.request.CarSearchRequestDTO;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.enums.PriceGroup;
+import za.ac.cput.repository.CarRepository;
+import za.ac.cput.repository.CarSpecifications;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CarSearchBenchmark.java
+ * Compares a car search answered by {@link CarSearchIndex} (bitset matching, facet counts from the bitsets and
+ * one page of cars loaded by ID) with the equivalent {@link CarSpecifications#matching} query, which loads every
+ * match to count the facets. Both run against the in-memory H2 database of the tests, seeded with a fleet of
+ * {@code fleetSize} cars.
+ * <p>
+ * Run with: mvn -Pjmh test -Djmh.include=CarSearchBenchmark
+ * <p>
+ * Author: Peter Buckingham (220165289)
+ * Date: 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final String[] MAKES = {"Toyota", "VW", "Ford", "BMW", "Audi", "Honda", "Kia", "Mazda"};
+    private static final String[] CATEGORIES = {"Sedan", "SUV", "Hatchback", "Bakkie"};
+
+    @Param({"1000", "10000"})
+    private int fleetSize;
+
+    private ConfigurableApplicationContext context;
+    private CarRepository carRepository;
+    private CarSearchIndex index;
+    private CarSearchRequestDTO criteria;
+
+    /**
+     * Just enough of the application to use {@link CarRepository}: a data source, JPA and its repositories.
+     */
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = Car.class)
+    @EnableJpaRepositories(basePackageClasses = CarRepository.class)
+    static class JpaOnly {
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaOnly.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--spring.datasource.url=jdbc:h2:mem:car-search-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER,YEAR,VALUE");
+        carRepository = context.getBean(CarRepository.class);
+        Random random = new Random(42);
+        List<Car> fleet = new ArrayList<>(fleetSize);
+        for (int i = 0; i < fleetSize; i++) {
+            String make = MAKES[random.nextInt(MAKES.length)];
+            fleet.add(new Car.Builder().setMake(make).setModel(make + " " + random.nextInt(10))
+                    .setYear(2015 + random.nextInt(10)).setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                    .setPriceGroup(PriceGroup.values()[random.nextInt(PriceGroup.values().length)])
+                    .setLicensePlate("BM" + i).setAvailable(random.nextInt(10) > 0).build());
+        }
+        carRepository.saveAll(fleet);
+        index = new CarSearchIndex(carRepository, true);
+        index.rebuild(carRepository.findAllByAvailableTrueAndDeletedFalse());
+        criteria = CarSearchRequestDTO.builder().make("toyota").yearFrom(2018).yearTo(2022).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Integer>> searchIndex() {
+        BitSet matches = index.search(criteria, null);
+        List<Integer> pageIds = matches.stream().limit(PAGE_SIZE).boxed().toList();
+        List<Car> page = carRepository.findByIdInAndAvailableTrueAndDeletedFalseOrderByIdAsc(pageIds);
+        return page.isEmpty() ? Map.of() : index.countFacets(matches);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Integer>> specificationQuery() {
+        List<Car> matches = carRepository.findAll(CarSpecifications.matching(criteria, List.of()), Sort.by("id"));
+        List<Car> page = matches.subList(0, Math.min(PAGE_SIZE, matches.size()));
+        return page.isEmpty() ? Map.of() : CarSearchIndex.countFacets(matches);
+    }
+}
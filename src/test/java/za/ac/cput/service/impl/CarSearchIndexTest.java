@@ -0,0 +1,135 @@
+package za.ac.cput.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import za.ac.cput.domain.dto.request.CarSearchRequestDTO;
+import za.ac.cput.domain.entity.Car;
+import za.ac.cput.domain.enums.PriceGroup;
+import za.ac.cput.domain.event.CarCatalogChangedEvent;
+import za.ac.cput.repository.CarRepository;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CarSearchIndexTest {
+
+    private CarSearchIndex index;
+
+    private static Car car(int id, String make, String model, int year, String category, PriceGroup priceGroup, boolean available) {
+        return new Car.Builder().setId(id).setMake(make).setModel(model).setYear(year)
+                .setCategory(category).setPriceGroup(priceGroup).setAvailable(available).build();
+    }
+
+    private static BitSet ids(int... ids) {
+        BitSet bits = new BitSet();
+        for (int id : ids) bits.set(id);
+        return bits;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new CarSearchIndex(null, true);
+        index.rebuild(List.of(
+                car(1, "Toyota", "Corolla", 2020, "Sedan", PriceGroup.ECONOMY, true),
+                car(2, "Toyota", "Fortuner", 2023, "SUV", PriceGroup.LUXURY, true),
+                car(3, "VW", "Polo", 2022, "Hatchback", PriceGroup.ECONOMY, true),
+                car(4, "Toyota", "Yaris", 2021, "Hatchback", PriceGroup.ECONOMY, false)));
+    }
+
+    @Test
+    @DisplayName("Only rentable cars are indexed and all criteria must match")
+    void search_shouldIntersectCriteria() {
+        assertTrue(index.isReady());
+        assertEquals(ids(1, 2, 3), index.search(new CarSearchRequestDTO(), null));
+        assertEquals(ids(1, 2), index.search(CarSearchRequestDTO.builder().make(" toyota ").build(), null));
+        assertEquals(ids(1), index.search(CarSearchRequestDTO.builder().make("Toyota").priceGroup(PriceGroup.ECONOMY).build(), null));
+        assertEquals(ids(2, 3), index.search(CarSearchRequestDTO.builder().yearFrom(2022).build(), null));
+        assertEquals(ids(1, 3), index.search(CarSearchRequestDTO.builder().yearFrom(2019).yearTo(2022).priceGroup(PriceGroup.ECONOMY).build(), null));
+        assertEquals(ids(3), index.search(CarSearchRequestDTO.builder().priceGroup(PriceGroup.ECONOMY).build(), ids(1)));
+        assertTrue(index.search(CarSearchRequestDTO.builder().model("Beetle").build(), null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Facet counts come from the index bitsets with text values normalized like matching")
+    void countFacets_shouldCountMatchesPerNormalizedValue() {
+        index.update(car(5, " TOYOTA", "corolla", 2020, "sedan", PriceGroup.ECONOMY, true));
+        BitSet matches = index.search(CarSearchRequestDTO.builder().make("toyota").build(), null);
+
+        Map<String, Map<String, Integer>> facets = index.countFacets(matches);
+
+        assertEquals(Map.of("toyota", 3), facets.get("make"));
+        assertEquals(Map.of("corolla", 2, "fortuner", 1), facets.get("model"));
+        assertEquals(Map.of("sedan", 2, "suv", 1), facets.get("category"));
+        assertEquals(Map.of("ECONOMY", 2, "LUXURY", 1), facets.get("priceGroup"));
+        assertEquals(Map.of("2020", 2, "2023", 1), facets.get("year"));
+        assertEquals(facets, CarSearchIndex.countFacets(List.of(
+                car(1, "Toyota", "Corolla", 2020, "Sedan", PriceGroup.ECONOMY, true),
+                car(2, "Toyota", "Fortuner", 2023, "SUV", PriceGroup.LUXURY, true),
+                car(5, " TOYOTA", "corolla", 2020, "sedan", PriceGroup.ECONOMY, true))));
+    }
+
+    @Test
+    @DisplayName("Updating a car moves it between facet values and removes it once it is no longer rentable")
+    void update_shouldReindexSingleCar() {
+        BitSet before = index.search(CarSearchRequestDTO.builder().category("Sedan").build(), null);
+
+        index.update(car(1, "Toyota", "Corolla", 2020, "Hatchback", PriceGroup.ECONOMY, true));
+        index.update(car(4, "Toyota", "Yaris", 2021, "Hatchback", PriceGroup.ECONOMY, true));
+        index.update(car(3, "VW", "Polo", 2022, "Hatchback", PriceGroup.ECONOMY, false));
+
+        assertEquals(ids(1), before, "published results must not change under later updates");
+        assertTrue(index.search(CarSearchRequestDTO.builder().category("Sedan").build(), null).isEmpty());
+        assertEquals(ids(1, 4), index.search(CarSearchRequestDTO.builder().category("hatchback").build(), null));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("Cars changed before or while the fleet is loaded are re-read over the built index")
+    void onApplicationReady_shouldReReadCarsChangedDuringLoad() {
+        CarRepository carRepository = mock(CarRepository.class);
+        CarSearchIndex loading = new CarSearchIndex(carRepository, true);
+        UUID polo = UUID.randomUUID();
+        UUID yaris = UUID.randomUUID();
+        when(carRepository.findByUuid(polo)).thenReturn(Optional.of(car(3, "VW", "Polo", 2022, "Hatchback", PriceGroup.ECONOMY, false)));
+        when(carRepository.findByUuid(yaris)).thenReturn(Optional.of(car(4, "Toyota", "Yaris", 2021, "Hatchback", PriceGroup.ECONOMY, true)));
+        loading.onCarCatalogChanged(new CarCatalogChangedEvent(polo));
+        when(carRepository.findAllByAvailableTrueAndDeletedFalse()).thenAnswer(invocation -> {
+            // Committed after the query read the fleet, so the returned list does not have it yet.
+            loading.onCarCatalogChanged(new CarCatalogChangedEvent(yaris));
+            return List.of(car(3, "VW", "Polo", 2022, "Hatchback", PriceGroup.ECONOMY, true));
+        });
+
+        loading.onApplicationReady();
+
+        assertTrue(loading.isReady());
+        assertEquals(ids(4), loading.search(CarSearchRequestDTO.builder().category("hatchback").build(), null));
+    }
+
+    @Test
+    @DisplayName("A failed update takes the index out of service until the scheduled rebuild succeeds")
+    void rebuildIfStale_shouldRestoreIndexAfterFailedUpdate() {
+        CarRepository carRepository = mock(CarRepository.class);
+        CarSearchIndex failing = new CarSearchIndex(carRepository, true);
+        UUID polo = UUID.randomUUID();
+        when(carRepository.findAllByAvailableTrueAndDeletedFalse())
+                .thenReturn(List.of(car(3, "VW", "Polo", 2022, "Hatchback", PriceGroup.ECONOMY, true)));
+        failing.onApplicationReady();
+        failing.rebuildIfStale();
+        when(carRepository.findByUuid(polo)).thenThrow(new IllegalStateException("database unavailable"));
+
+        failing.onCarCatalogChanged(new CarCatalogChangedEvent(polo));
+        assertFalse(failing.isReady());
+        failing.rebuildIfStale();
+
+        assertTrue(failing.isReady());
+        assertEquals(1, failing.size());
+        verify(carRepository, times(2)).findAllByAvailableTrueAndDeletedFalse();
+    }
+}
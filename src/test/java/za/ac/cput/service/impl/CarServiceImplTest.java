@@ -4,15 +4,34 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import za.ac.cput.domain.dto.request.CarSearchRequestDTO;
+import za.ac.cput.domain.dto.response.CursorPageDTO;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.enums.PriceGroup;
+import za.ac.cput.domain.event.CarCatalogChangedEvent;
+import za.ac.cput.exception.BadRequestException;
 import za.ac.cput.exception.ResourceNotFoundException;
+import za.ac.cput.repository.BookingRepository;
 import za.ac.cput.repository.CarRepository;
+import za.ac.cput.service.ICarService;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -31,6 +50,18 @@ class CarServiceImplTest {
 
     @Mock
     private CarRepository carRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+    @Mock
+    private CarSearchIndex searchIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private CarImageUploader imageUploader;
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private CarServiceImpl carService;
@@ -96,6 +127,7 @@ class CarServiceImplTest {
         assertNotNull(createdCar.getUuid());
         assertEquals("Ford", createdCar.getMake());
         verify(carRepository).save(any(Car.class));
+        verify(eventPublisher).publishEvent(new CarCatalogChangedEvent(createdCar.getUuid()));
     }
 
 
@@ -267,5 +299,188 @@ class CarServiceImplTest {
         assertTrue(availableCars.get(0).isAvailable());
     }
 
-    // ... (other finder tests like getCarsByPriceGroup etc.)
-}
\ No newline at end of file
+    // --- date-range availability Tests ---
+    @Test
+    void findAvailableCarsByDateRange_shouldExcludeBookedCarsUsingIndex_whenIndexReady() {
+        LocalDate start = LocalDate.now().plusDays(1);
+        LocalDate end = start.plusDays(2);
+        BitSet booked = new BitSet();
+        booked.set(sampleCar1.getId());
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.findBookedCarIds(start, end)).thenReturn(booked);
+        when(carRepository.findAllByAvailableTrueAndDeletedFalse()).thenReturn(List.of(sampleCar1, sampleCar2));
+
+        List<Car> result = carService.findAvailableCarsByDateRange(start, end);
+
+        assertEquals(List.of(sampleCar2), result);
+        verifyNoInteractions(bookingRepository);
+        verify(carRepository, never()).findByAvailableTrueAndDeletedFalseAndIdNotIn(any());
+    }
+
+    @Test
+    void getAvailableCarsByPrice_shouldUseIndex_whenIndexReady() {
+        LocalDate start = LocalDate.now().plusDays(1);
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.findBookedCarIds(start, start)).thenReturn(new BitSet());
+        when(carRepository.findAllByAvailableTrueAndDeletedFalseAndPriceGroup(PriceGroup.ECONOMY)).thenReturn(List.of(sampleCar1));
+
+        assertEquals(List.of(sampleCar1), carService.getAvailableCarsByPrice(PriceGroup.ECONOMY, start, start));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void findAllAvailableByCategory_shouldFallBackToDatabase_whenIndexNotReady() {
+        LocalDate start = LocalDate.now().plusDays(1);
+        LocalDate end = start.plusDays(2);
+        when(availabilityIndex.isReady()).thenReturn(false);
+        when(bookingRepository.findBookedCarIdsByDateRange(any(), any())).thenReturn(List.of(2));
+        when(carRepository.findByAvailableTrueAndDeletedFalseAndCategoryAndIdNotIn("Sedan", List.of(2))).thenReturn(List.of(sampleCar1));
+
+        assertEquals(List.of(sampleCar1), carService.findAllAvailableByCategory("Sedan", start, end));
+    }
+
+    @Test
+    void findAvailableCarsByDateRange_shouldThrowBadRequest_whenStartAfterEnd() {
+        LocalDate start = LocalDate.now().plusDays(3);
+        assertThrows(BadRequestException.class, () -> carService.findAvailableCarsByDateRange(start, start.minusDays(1)));
+    }
+
+    // --- search Tests ---
+    @Test
+    void search_shouldLoadOnlyPageOfIndexMatchesAndCountFacetsOnIndex_whenIndexReady() {
+        LocalDate start = LocalDate.now().plusDays(1);
+        CarSearchRequestDTO criteria = CarSearchRequestDTO.builder().make("toyota").startDate(start).endDate(start).build();
+        BitSet booked = new BitSet();
+        booked.set(4);
+        BitSet matches = new BitSet();
+        matches.set(1);
+        matches.set(2);
+        matches.set(3);
+        Map<String, Map<String, Integer>> facets = Map.of("make", Map.of("toyota", 3));
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.findBookedCarIds(start, start)).thenReturn(booked);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search(criteria, booked)).thenReturn(matches);
+        when(searchIndex.countFacets(matches)).thenReturn(facets);
+        when(carRepository.findByIdInAndAvailableTrueAndDeletedFalseOrderByIdAsc(List.of(2))).thenReturn(List.of(sampleCar2));
+
+        ICarService.SearchResult result = carService.search(criteria, 1, 1);
+
+        assertEquals(List.of(sampleCar2), result.cars());
+        assertEquals(facets, result.facets());
+        assertEquals(2, result.nextCursor());
+        assertTrue(result.hasMore());
+        assertEquals(3, result.totalItems());
+        verify(carRepository, never()).findAll(any(Specification.class), any(Sort.class));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void search_shouldQuerySpecificationAndCountNormalizedFacets_whenIndexNotReady() {
+        CarSearchRequestDTO criteria = CarSearchRequestDTO.builder().category("Sedan").yearFrom(2020).build();
+        Car shoutedToyota = new Car.Builder().copy(sampleCar2).setId(3).setMake(" TOYOTA").build();
+        when(searchIndex.isReady()).thenReturn(false);
+        when(carRepository.findAll(any(Specification.class), any(Sort.class))).thenReturn(List.of(sampleCar1, sampleCar2, shoutedToyota));
+
+        ICarService.SearchResult first = carService.search(criteria, null, 2);
+        ICarService.SearchResult last = carService.search(criteria, first.nextCursor(), 2);
+
+        assertEquals(List.of(sampleCar1, sampleCar2), first.cars());
+        assertTrue(first.hasMore());
+        assertEquals(List.of(shoutedToyota), last.cars());
+        assertFalse(last.hasMore());
+        assertNull(last.nextCursor());
+        assertEquals(3, last.totalItems());
+        assertEquals(Map.of("honda", 1, "toyota", 2), first.facets().get("make"));
+        verify(searchIndex, never()).search(any(), any());
+    }
+
+    @Test
+    void search_shouldThrowBadRequest_whenOnlyOneDateOrInvertedYears() {
+        CarSearchRequestDTO oneDate = CarSearchRequestDTO.builder().startDate(LocalDate.now()).build();
+        CarSearchRequestDTO invertedYears = CarSearchRequestDTO.builder().yearFrom(2024).yearTo(2020).build();
+
+        assertThrows(BadRequestException.class, () -> carService.search(oneDate, null, 20));
+        assertThrows(BadRequestException.class, () -> carService.search(invertedYears, null, 20));
+    }
+
+    // --- paging Tests ---
+    @Test
+    void getPage_shouldReadOffsetSliceWithoutCount_whenNoCursor() {
+        PageRequest request = PageRequest.of(0, 1, Sort.by(Sort.Order.desc("year"), Sort.Order.asc("id")));
+        when(carRepository.findByDeletedFalse(request)).thenReturn(new SliceImpl<>(List.of(sampleCar1), request, true));
+
+        CursorPageDTO<Car> page = carService.getPage(false, PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "year")), null, false);
+
+        assertEquals(List.of(sampleCar1), page.getItems());
+        assertTrue(page.isHasMore());
+        assertEquals(sampleCar1.getId(), page.getNextCursor());
+        assertNull(page.getTotalItems());
+        verify(carRepository, never()).countByDeletedFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void getPage_shouldReadKeysetAfterCursorAndCount_whenRequested() {
+        when(carRepository.findById(1)).thenReturn(Optional.of(sampleCar1));
+        when(carRepository.findBy(any(Specification.class), any())).thenReturn(List.of(sampleCar2));
+        when(carRepository.countByAvailableTrueAndDeletedFalse()).thenReturn(2L);
+
+        CursorPageDTO<Car> page = carService.getPage(true, PageRequest.of(7, 1, Sort.by("make")), 1, true);
+
+        assertEquals(List.of(sampleCar2), page.getItems());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        assertEquals(2L, page.getTotalItems());
+    }
+
+    @Test
+    void getPage_shouldThrowBadRequest_forUnsupportedSortOrDeepOffset() {
+        assertThrows(BadRequestException.class, () -> carService.getPage(false, PageRequest.of(0, 10, Sort.by("licensePlate")), null, false));
+        assertThrows(BadRequestException.class, () -> carService.getPage(false, PageRequest.of(500, 10), null, false));
+        verifyNoInteractions(carRepository);
+    }
+
+    // --- image upload Tests ---
+    @Test
+    void addImagesToCar_shouldUploadBeforeAttachingInShortTransaction() {
+        List<MultipartFile> files = List.of(new MockMultipartFile("files", "a.jpg", "image/jpeg", new byte[]{1}),
+                new MockMultipartFile("files", "b.jpg", "image/jpeg", new byte[]{2}));
+        when(carRepository.findByUuid(sampleUuid1)).thenReturn(Optional.of(sampleCar1));
+        when(imageUploader.uploadAll(files)).thenReturn(List.of("cars/a-key.jpg", "cars/b-key.jpg"));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Car>>getArgument(0).doInTransaction(null));
+        when(carRepository.save(sampleCar1)).thenReturn(sampleCar1);
+
+        Car result = carService.addImagesToCar(sampleUuid1, files);
+
+        assertEquals(List.of("a-key.jpg", "b-key.jpg"), result.getImages().stream().map(image -> image.getFileName()).toList());
+        InOrder order = inOrder(imageUploader, transactionTemplate);
+        order.verify(imageUploader).uploadAll(files);
+        order.verify(transactionTemplate).execute(any());
+        verify(eventPublisher).publishEvent(new CarCatalogChangedEvent(sampleUuid1));
+        verify(imageUploader, never()).deleteAll(any());
+    }
+
+    @Test
+    void addImagesToCar_shouldDeleteUploadedFiles_whenAttachingFails() {
+        List<MultipartFile> files = List.of(new MockMultipartFile("files", "a.jpg", "image/jpeg", new byte[]{1}));
+        when(carRepository.findByUuid(sampleUuid1)).thenReturn(Optional.of(sampleCar1));
+        when(imageUploader.uploadAll(files)).thenReturn(List.of("cars/a-key.jpg"));
+        when(transactionTemplate.execute(any())).thenThrow(new IllegalStateException("database unavailable"));
+
+        assertThrows(IllegalStateException.class, () -> carService.addImagesToCar(sampleUuid1, files));
+
+        verify(imageUploader).deleteAll(List.of("cars/a-key.jpg"));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void addImagesToCar_shouldNotUpload_whenCarDoesNotExist() {
+        when(carRepository.findByUuid(sampleUuid1)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> carService.addImagesToCar(sampleUuid1, List.of()));
+
+        verifyNoInteractions(imageUploader, transactionTemplate);
+    }
+}
@@ -0,0 +1,121 @@
+package za.ac.cput.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import za.ac.cput.exception.BadRequestException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ImageVariantServiceImplTest {
+
+    @TempDir
+    Path baseDir;
+
+    private LocalFileStorageService storageService;
+    private ImageVariantServiceImpl variantService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageService = spy(new LocalFileStorageService(mock(StorageUsageLedger.class)));
+        ReflectionTestUtils.setField(storageService, "baseDir", baseDir.toString());
+        storageService.init();
+        Files.createDirectories(baseDir.resolve("cars"));
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "jpg", baseDir.resolve("cars/car.jpg").toFile());
+        variantService = new ImageVariantServiceImpl(storageService, new int[]{320, 160}, 0.8f, 2, 8, 5_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        variantService.shutdown();
+    }
+
+    @Test
+    @DisplayName("A variant is resized, stored under a derived key, and served from storage afterwards")
+    void resolveVariant_shouldGenerateOnceAndReuse() throws IOException {
+        String key = variantService.resolveVariant("cars/car.jpg", 320, "png");
+
+        assertEquals("variants/cars/car-w320.png", key);
+        BufferedImage variant = ImageIO.read(baseDir.resolve(key).toFile());
+        assertEquals(320, variant.getWidth());
+        assertEquals(160, variant.getHeight());
+
+        assertEquals(key, variantService.resolveVariant("cars/car.jpg", 320, "PNG"));
+        verify(storageService, times(1)).loadAsResource("cars/car.jpg");
+        assertEquals("variants/cars/car-full.jpg", variantService.resolveVariant("cars/car.jpg", null, "jpeg"));
+        assertEquals("cars/car.jpg", variantService.resolveVariant("cars/car.jpg", null, null));
+    }
+
+    @Test
+    @DisplayName("Unsupported widths, formats and folders are rejected; a missing original falls back to its key")
+    void resolveVariant_shouldValidateRequest() {
+        assertThrows(BadRequestException.class, () -> variantService.resolveVariant("cars/car.jpg", 321, null));
+        assertThrows(BadRequestException.class, () -> variantService.resolveVariant("cars/car.jpg", 320, "webp"));
+        assertThrows(BadRequestException.class, () -> variantService.resolveVariant("selfies/me.jpg", 320, null));
+
+        assertEquals("cars/missing.jpg", variantService.resolveVariant("cars/missing.jpg", 160, null));
+    }
+
+    @Test
+    @DisplayName("Concurrent requests for the same variant share a single encode")
+    void resolveVariant_shouldDeduplicateConcurrentRequests() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(storageService).loadAsResource("cars/car.jpg");
+
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(clients.submit(() -> variantService.resolveVariant("cars/car.jpg", 160, null)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(clients.submit(() -> variantService.resolveVariant("cars/car.jpg", 160, null)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("variants/cars/car-w160.jpg", result.get(5, TimeUnit.SECONDS));
+            }
+            verify(storageService, times(1)).loadAsResource("cars/car.jpg");
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deleting variants lists them once and removes only the stored sizes and formats of the image")
+    void deleteVariants_shouldRemoveStoredVariants() {
+        variantService.resolveVariant("cars/car.jpg", 160, null);
+        variantService.resolveVariant("cars/car.jpg", 320, "png");
+
+        storageService.store("variants/cars/car-wide.jpg", new byte[]{1}, "image/jpeg");
+
+        variantService.deleteVariants("cars/car.jpg");
+
+        verify(storageService, times(1)).listFiles("variants/cars/car-");
+        verify(storageService, times(2)).delete(anyString(), anyLong());
+        assertTrue(storageService.fileExists("variants/cars/car-wide.jpg"));
+        assertFalse(storageService.fileExists("variants/cars/car-w160.jpg"));
+        assertFalse(storageService.fileExists("variants/cars/car-w320.png"));
+        assertTrue(storageService.fileExists("cars/car.jpg"));
+    }
+}
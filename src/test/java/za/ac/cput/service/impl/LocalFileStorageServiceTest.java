@@ -0,0 +1,117 @@
+package za.ac.cput.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import za.ac.cput.service.IFileStorageService.FileMetadata;
+import za.ac.cput.service.IFileStorageService.FolderUsage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LocalFileStorageServiceTest {
+
+    @TempDir
+    Path baseDir;
+
+    private StorageUsageLedger usageLedger;
+    private LocalFileStorageService storageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        usageLedger = mock(StorageUsageLedger.class);
+        storageService = new LocalFileStorageService(usageLedger);
+        ReflectionTestUtils.setField(storageService, "baseDir", baseDir.toString());
+        storageService.init();
+        Files.createDirectories(baseDir.resolve("cars"));
+        Files.writeString(baseDir.resolve("cars/car.jpg"), "0123456789", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Metadata comes from the filesystem and the ETag changes when the file does")
+    void getMetadata_shouldReadFileAttributes() throws IOException {
+        FileMetadata metadata = storageService.getMetadata("cars/car.jpg").orElseThrow();
+
+        assertEquals(10, metadata.contentLength());
+        assertEquals(Files.getLastModifiedTime(baseDir.resolve("cars/car.jpg")).toInstant(), metadata.lastModified());
+        assertEquals(metadata, storageService.getMetadata("cars/car.jpg").orElseThrow());
+
+        Files.setLastModifiedTime(baseDir.resolve("cars/car.jpg"), FileTime.from(Instant.parse("2026-01-01T00:00:00Z")));
+        assertNotEquals(metadata.eTag(), storageService.getMetadata("cars/car.jpg").orElseThrow().eTag());
+
+        assertTrue(storageService.getMetadata("cars/missing.jpg").isEmpty());
+        assertTrue(storageService.getMetadata("cars").isEmpty());
+        assertTrue(storageService.getMetadata("../outside.jpg").isEmpty());
+    }
+
+    @Test
+    @DisplayName("A byte range of the file is transferred to the stream")
+    void copyTo_shouldWriteRequestedRange() throws IOException {
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        ByteArrayOutputStream part = new ByteArrayOutputStream();
+
+        storageService.copyTo("cars/car.jpg", 0, 10, whole);
+        storageService.copyTo("cars/car.jpg", 3, 4, part);
+
+        assertEquals("0123456789", whole.toString(StandardCharsets.UTF_8));
+        assertEquals("3456", part.toString(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> storageService.copyTo("cars/car.jpg", 8, 5, new ByteArrayOutputStream()));
+        assertThrows(IOException.class, () -> storageService.copyTo("../outside.jpg", 0, 1, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    @DisplayName("Only regular files inside the base directory have a local path for sendfile")
+    void localPath_shouldResolveFilesWithinBase() {
+        assertEquals(baseDir.resolve("cars/car.jpg").toAbsolutePath().normalize(), storageService.localPath("cars/car.jpg").orElseThrow());
+        assertTrue(storageService.localPath("cars/missing.jpg").isEmpty());
+        assertTrue(storageService.localPath("cars").isEmpty());
+        assertTrue(storageService.localPath("../outside.jpg").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Files under a prefix are listed relative to the base directory with their sizes")
+    void listFiles_shouldWalkPrefix() throws IOException {
+        Files.createDirectories(baseDir.resolve("cars/nested"));
+        Files.writeString(baseDir.resolve("cars/nested/other.jpg"), "x", StandardCharsets.UTF_8);
+
+        assertEquals(Map.of("cars/car.jpg", 10L, "cars/nested/other.jpg", 1L), storageService.listFiles("cars/"));
+        assertEquals(Map.of("cars/nested/other.jpg", 1L), storageService.listFiles("cars/nested/o"));
+        assertTrue(storageService.listFiles("selfies/").isEmpty());
+        assertTrue(storageService.listFiles("../").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Writes and deletes are recorded in the usage ledger, and a replaced file is uncounted first")
+    void storeAndDelete_shouldRecordUsage() {
+        storageService.store("variants/cars/car-w320.jpg", new byte[4], "image/jpeg");
+        storageService.store("variants/cars/car-w320.jpg", new byte[6], "image/jpeg");
+        assertTrue(storageService.delete("cars/car.jpg"));
+        storageService.delete("cars/car.jpg");
+
+        verify(usageLedger).recordStored("variants/cars/car-w320.jpg", 4);
+        verify(usageLedger).recordDeleted("variants/cars/car-w320.jpg", 4);
+        verify(usageLedger).recordStored("variants/cars/car-w320.jpg", 6);
+        verify(usageLedger, times(1)).recordDeleted("cars/car.jpg", 10);
+    }
+
+    @Test
+    @DisplayName("Usage is counted per top-level folder in one walk")
+    void scanUsage_shouldTotalPerFolder() throws IOException {
+        Files.createDirectories(baseDir.resolve("variants/cars"));
+        Files.writeString(baseDir.resolve("variants/cars/car-w160.jpg"), "abc", StandardCharsets.UTF_8);
+        Files.writeString(baseDir.resolve("cars/.upload-123.tmp"), "partial", StandardCharsets.UTF_8);
+
+        assertEquals(Map.of("cars", new FolderUsage(1, 10), "variants", new FolderUsage(1, 3)), storageService.scanUsage());
+    }
+}
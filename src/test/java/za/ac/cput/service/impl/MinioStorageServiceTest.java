@@ -0,0 +1,269 @@
+package za.ac.cput.service.impl;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import za.ac.cput.service.IFileStorageService.FolderUsage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs {@link MinioStorageService} against a minimal in-process S3 endpoint that records every request,
+ * to count the round trips uploads, lookups and deletes cost.
+ */
+class MinioStorageServiceTest {
+
+    private static final long MIB = 1024 * 1024;
+    private static final long STAT_TTL_MS = 60_000L;
+
+    /** A clock whose time the test can move forward. */
+    private static class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2026-10-17T10:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    private HttpServer server;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final Set<String> objects = ConcurrentHashMap.newKeySet();
+    private volatile boolean bucketExists = true;
+    private final MutableClock clock = new MutableClock();
+    private StorageUsageLedger usageLedger;
+    private SimpleMeterRegistry meterRegistry;
+    private MinioStorageService storageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            requests.add(method + " " + path);
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            if (method.equals("HEAD") && path.equals("/rentals")) {
+                exchange.sendResponseHeaders(bucketExists ? 200 : 404, -1);
+            } else if (method.equals("HEAD")) {
+                if (objects.contains(path)) {
+                    exchange.getResponseHeaders().add("ETag", "\"d41d8cd98f00b204e9800998ecf8427e\"");
+                    exchange.getResponseHeaders().add("Last-Modified", "Fri, 16 Oct 2026 10:00:00 GMT");
+                    exchange.getResponseHeaders().add("Content-Length", "16");
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                }
+            } else if (method.equals("PUT")) {
+                bucketExists = true; // Creating the bucket or an object in it.
+                if (!path.equals("/rentals")) objects.add(path);
+                exchange.getResponseHeaders().add("ETag", "\"d41d8cd98f00b204e9800998ecf8427e\"");
+                exchange.sendResponseHeaders(200, -1);
+            } else if (method.equals("DELETE")) {
+                objects.remove(path);
+                exchange.sendResponseHeaders(204, -1);
+            } else if (method.equals("GET") && path.equals("/rentals")) {
+                StringBuilder xml = new StringBuilder("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                        + "<Name>rentals</Name><IsTruncated>false</IsTruncated>");
+                for (String object : objects) {
+                    xml.append("<Contents><Key>").append(object.substring("/rentals/".length())).append("</Key>")
+                            .append("<Size>16</Size><LastModified>2026-10-16T10:00:00.000Z</LastModified></Contents>");
+                }
+                byte[] response = xml.append("</ListBucketResult>").toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/xml");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+            } else {
+                exchange.sendResponseHeaders(405, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        MinioClient client = MinioClient.builder()
+                .endpoint("http://127.0.0.1:" + server.getAddress().getPort())
+                .credentials("access-key", "secret-key")
+                .region("us-east-1")
+                .build();
+        meterRegistry = new SimpleMeterRegistry();
+        usageLedger = mock(StorageUsageLedger.class);
+        storageService = new MinioStorageService(client, "rentals", "http://localhost:9000", 8 * MIB,
+                STAT_TTL_MS, 100, usageLedger, meterRegistry, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("The bucket is checked on the first upload only, so each further upload is a single request")
+    void save_shouldCheckBucketOnce() {
+        for (int i = 0; i < 5; i++) {
+            storageService.save(new MockMultipartFile("file", "car" + i + ".jpg", "image/jpeg", new byte[1024]), "cars");
+        }
+
+        assertEquals(1, requests.stream().filter(request -> request.equals("HEAD /rentals")).count());
+        assertEquals(5, requests.stream().filter(request -> request.startsWith("PUT /rentals/cars/")).count());
+        assertEquals(6, requests.size(), "Before: 10 requests (bucket check + upload per file); now: " + requests);
+        assertEquals(5, meterRegistry.get("storage.upload").tag("outcome", "success").timer().count());
+        assertEquals(5 * 1024, meterRegistry.get("storage.upload.bytes").summary().totalAmount());
+        verify(usageLedger, times(5)).recordStored(startsWith("cars/"), eq(1024L));
+    }
+
+    @Test
+    @DisplayName("A missing bucket is created once before the first upload")
+    void save_shouldCreateMissingBucket() {
+        bucketExists = false;
+
+        storageService.save(new MockMultipartFile("file", "a.jpg", "image/jpeg", new byte[16]), "cars");
+        storageService.store("variants/cars/a-w320.jpg", new byte[16], "image/jpeg");
+
+        assertEquals("HEAD /rentals", requests.get(0));
+        assertEquals("PUT /rentals", requests.get(1));
+        assertEquals(List.of("HEAD /rentals/variants/cars/a-w320.jpg", "PUT /rentals/variants/cars/a-w320.jpg"),
+                requests.subList(3, requests.size()));
+    }
+
+    @Test
+    @DisplayName("Stat results of existing objects are reused until they expire; missing objects are looked up each time")
+    void getMetadata_shouldCacheExistingObjects() {
+        objects.add("/rentals/cars/a.jpg");
+
+        assertTrue(storageService.fileExists("cars/a.jpg"));
+        assertEquals(16, storageService.getMetadata("cars/a.jpg").orElseThrow().contentLength());
+        assertTrue(storageService.fileExists("cars/a.jpg"));
+        assertEquals(1, requests.stream().filter(request -> request.equals("HEAD /rentals/cars/a.jpg")).count());
+
+        clock.instant = clock.instant.plusMillis(STAT_TTL_MS);
+        assertTrue(storageService.fileExists("cars/a.jpg"));
+        assertEquals(2, requests.stream().filter(request -> request.equals("HEAD /rentals/cars/a.jpg")).count());
+
+        assertFalse(storageService.fileExists("cars/missing.jpg"));
+        assertFalse(storageService.fileExists("cars/missing.jpg"));
+        assertEquals(2, requests.stream().filter(request -> request.equals("HEAD /rentals/cars/missing.jpg")).count());
+    }
+
+    @Test
+    @DisplayName("A delete of a recently seen object is a single request and drops the cached stat, and a write replaces it")
+    void delete_shouldUseCachedStat_andEvictCache() {
+        objects.add("/rentals/cars/a.jpg");
+        assertTrue(storageService.fileExists("cars/a.jpg"));
+        requests.clear();
+
+        assertTrue(storageService.delete("cars/a.jpg"));
+        assertEquals(List.of("DELETE /rentals/cars/a.jpg"), requests);
+        verify(usageLedger).recordDeleted("cars/a.jpg", 16);
+        assertFalse(storageService.fileExists("cars/a.jpg"));
+
+        storageService.store("cars/a.jpg", new byte[16], "image/jpeg");
+        assertTrue(storageService.fileExists("cars/a.jpg"));
+    }
+
+    @Test
+    @DisplayName("Pre-signed URLs are reused for six days and point at the public URL")
+    void getUrl_shouldReuseSignedUrl() {
+        URL url = storageService.getUrl("cars/a.jpg");
+
+        assertTrue(url.toString().startsWith("http://localhost:9000/rentals/cars/a.jpg?"));
+        assertTrue(url.getQuery().contains("X-Amz-Expires=604800"));
+        assertSame(url, storageService.getUrl("cars/a.jpg"));
+
+        clock.instant = clock.instant.plus(Duration.ofDays(6));
+        assertNotSame(url, storageService.getUrl("cars/a.jpg"));
+        assertTrue(requests.isEmpty(), "Signing is local: " + requests);
+    }
+
+    @Test
+    @DisplayName("Objects under a prefix are listed with their sizes in a single request")
+    void listFiles_shouldListPrefixOnce() {
+        objects.addAll(List.of("/rentals/cars/a.jpg", "/rentals/cars/b.jpg"));
+
+        assertEquals(Map.of("cars/a.jpg", 16L, "cars/b.jpg", 16L), storageService.listFiles("cars/"));
+        assertEquals(List.of("GET /rentals"), requests);
+    }
+
+    @Test
+    @DisplayName("A delete with a known size is a single request that records that size")
+    void delete_shouldNotStat_whenSizeIsKnown() {
+        objects.add("/rentals/variants/cars/a-w320.jpg");
+
+        assertTrue(storageService.delete("variants/cars/a-w320.jpg", 16));
+
+        assertEquals(List.of("DELETE /rentals/variants/cars/a-w320.jpg"), requests);
+        verify(usageLedger).recordDeleted("variants/cars/a-w320.jpg", 16);
+    }
+
+    @Test
+    @DisplayName("Overwriting an object takes the replaced object's size off the usage ledger")
+    void store_shouldUncountReplacedObject() {
+        storageService.store("variants/cars/a-w320.jpg", new byte[16], "image/jpeg");
+        verify(usageLedger, never()).recordDeleted(anyString(), anyLong());
+
+        storageService.store("variants/cars/a-w320.jpg", new byte[24], "image/jpeg");
+
+        verify(usageLedger).recordStored("variants/cars/a-w320.jpg", 16);
+        verify(usageLedger).recordDeleted("variants/cars/a-w320.jpg", 16);
+        verify(usageLedger).recordStored("variants/cars/a-w320.jpg", 24);
+    }
+
+    @Test
+    @DisplayName("A delete of a missing object succeeds without touching the usage ledger")
+    void delete_shouldNotRecordMissingObject() {
+        assertTrue(storageService.delete("cars/missing.jpg"));
+
+        assertEquals(List.of("HEAD /rentals/cars/missing.jpg", "DELETE /rentals/cars/missing.jpg"), requests);
+        verify(usageLedger, never()).recordDeleted(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Usage is counted per top-level folder from one listing of the bucket")
+    void scanUsage_shouldTotalPerFolder() {
+        objects.addAll(List.of("/rentals/cars/a.jpg", "/rentals/cars/b.jpg", "/rentals/variants/cars/a-w160.jpg"));
+
+        assertEquals(Map.of("cars", new FolderUsage(2, 32), "variants", new FolderUsage(1, 16)), storageService.scanUsage());
+        assertEquals(List.of("GET /rentals"), requests);
+    }
+
+    @Test
+    @DisplayName("The part size honours the configured size and the S3 limits")
+    void partSizeFor_shouldStayWithinS3Limits() {
+        assertEquals(8 * MIB, MinioStorageService.partSizeFor(1024, 8 * MIB));
+        assertEquals(8 * MIB, MinioStorageService.partSizeFor(-1, 8 * MIB));
+        assertEquals(8 * MIB, MinioStorageService.partSizeFor(50_000 * MIB, 8 * MIB));
+        long huge = 200_000 * MIB;
+        long partSize = MinioStorageService.partSizeFor(huge, 8 * MIB);
+        assertTrue(partSize * MinioStorageService.MAX_PARTS >= huge);
+        assertTrue(partSize <= MinioStorageService.MAX_PART_SIZE);
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.util.ReflectionTestUtils;
 import za.ac.cput.domain.entity.security.RefreshToken;
 import za.ac.cput.domain.entity.security.User;
@@ -13,13 +14,18 @@ import za.ac.cput.exception.ResourceNotFoundException;
 import za.ac.cput.exception.TokenRefreshException;
 import za.ac.cput.repository.IRefreshTokenRepository;
 import za.ac.cput.repository.UserRepository;
+import za.ac.cput.security.TokenDenyList;
+import za.ac.cput.utils.SecurityUtils;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -38,53 +44,101 @@ class RefreshTokenServiceImplTest {
     private IRefreshTokenRepository refreshTokenRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private TokenDenyList tokenDenyList;
     @InjectMocks
     private RefreshTokenServiceImpl refreshTokenService;
     private User sampleUser;
     private RefreshToken sampleRefreshToken;
+    private String sampleRawToken;
 
     @BeforeEach
     void setUp() {
         // Set the @Value field using ReflectionTestUtils
         ReflectionTestUtils.setField(refreshTokenService, "refreshTokenDurationMs", refreshTokenDurationMs);
+        ReflectionTestUtils.setField(refreshTokenService, "cacheSize", 100);
+        ReflectionTestUtils.setField(refreshTokenService, "purgeBatchSize", 2);
+        ReflectionTestUtils.setField(refreshTokenService, "maxDevicesPerUser", 2);
+        ReflectionTestUtils.setField(refreshTokenService, "reuseGraceMs", 10_000L);
 
         sampleUser = User.builder().id(1).email("test@example.com").uuid(UUID.randomUUID()).deleted(false).build();
 
         sampleRefreshToken = new RefreshToken();
         sampleRefreshToken.setId(1L);
         sampleRefreshToken.setUser(sampleUser);
-        sampleRefreshToken.setToken(UUID.randomUUID().toString());
+        sampleRefreshToken.setFamilyId(UUID.randomUUID());
+        sampleRawToken = UUID.randomUUID().toString();
+        sampleRefreshToken.setTokenHash(SecurityUtils.sha256Hex(sampleRawToken));
         sampleRefreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
     }
 
     // --- findByToken Tests ---
     @Test
     void findByToken_shouldReturnToken_whenTokenExists() {
-        String tokenString = sampleRefreshToken.getToken();
-        when(refreshTokenRepository.findByToken(tokenString)).thenReturn(Optional.of(sampleRefreshToken));
+        when(refreshTokenRepository.findByTokenHash(sampleRefreshToken.getTokenHash())).thenReturn(Optional.of(sampleRefreshToken));
 
-        Optional<RefreshToken> foundToken = refreshTokenService.findByToken(tokenString);
+        Optional<RefreshToken> foundToken = refreshTokenService.findByToken(sampleRawToken);
 
         assertTrue(foundToken.isPresent());
         assertEquals(sampleRefreshToken, foundToken.get());
-        verify(refreshTokenRepository, times(1)).findByToken(tokenString);
+        verify(refreshTokenRepository, times(1)).findByTokenHash(SecurityUtils.sha256Hex(sampleRawToken));
+    }
+
+    @Test
+    void findByToken_shouldServeRecentlyIssuedTokenFromCache() {
+        when(userRepository.findByIdAndDeletedFalse(sampleUser.getId())).thenReturn(Optional.of(sampleUser));
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.getReferenceById(sampleUser.getId())).thenReturn(sampleUser);
+        RefreshToken issued = refreshTokenService.createRefreshToken(sampleUser.getId());
+
+        Optional<RefreshToken> foundToken = refreshTokenService.findByToken(issued.getToken());
+
+        assertTrue(foundToken.isPresent());
+        assertEquals(issued.getTokenHash(), foundToken.get().getTokenHash());
+        assertEquals(sampleUser, foundToken.get().getUser());
+        verify(refreshTokenRepository, never()).findByTokenHash(anyString());
     }
 
     @Test
     void findByToken_shouldReturnEmptyOptional_whenTokenDoesNotExist() {
         String tokenString = "nonExistentToken";
-        when(refreshTokenRepository.findByToken(tokenString)).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByTokenHash(SecurityUtils.sha256Hex(tokenString))).thenReturn(Optional.empty());
 
         Optional<RefreshToken> foundToken = refreshTokenService.findByToken(tokenString);
 
         assertFalse(foundToken.isPresent());
     }
 
+    @Test
+    void findByToken_shouldRevokeFamily_whenRotatedAwayTokenIsReplayed() {
+        RefreshToken successor = new RefreshToken(sampleUser, sampleRefreshToken.getFamilyId(), "successor",
+                Instant.now().plusMillis(refreshTokenDurationMs).minusSeconds(60)); // rotated a minute ago
+        when(refreshTokenRepository.findByTokenHash(sampleRefreshToken.getTokenHash())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByPreviousTokenHash(sampleRefreshToken.getTokenHash())).thenReturn(Optional.of(successor));
+
+        Optional<RefreshToken> foundToken = refreshTokenService.findByToken(sampleRawToken);
+
+        assertFalse(foundToken.isPresent());
+        verify(refreshTokenRepository).deleteByFamilyId(sampleRefreshToken.getFamilyId());
+        verify(tokenDenyList).deny(sampleUser.getUuid());
+    }
+
+    @Test
+    void findByToken_shouldNotRevokeFamily_whenReplayIsWithinGracePeriod() {
+        RefreshToken successor = new RefreshToken(sampleUser, sampleRefreshToken.getFamilyId(), "successor",
+                Instant.now().plusMillis(refreshTokenDurationMs)); // rotated just now by a concurrent request
+        when(refreshTokenRepository.findByTokenHash(sampleRefreshToken.getTokenHash())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByPreviousTokenHash(sampleRefreshToken.getTokenHash())).thenReturn(Optional.of(successor));
+
+        assertFalse(refreshTokenService.findByToken(sampleRawToken).isPresent());
+        verify(refreshTokenRepository, never()).deleteByFamilyId(any(UUID.class));
+        verify(tokenDenyList, never()).deny(any(UUID.class));
+    }
+
     // --- createRefreshToken Tests ---
     @Test
-    void createRefreshToken_shouldCreateNewToken_whenUserExistsAndNoExistingToken() {
+    void createRefreshToken_shouldStartNewFamily_whenUserExists() {
         when(userRepository.findByIdAndDeletedFalse(sampleUser.getId())).thenReturn(Optional.of(sampleUser));
-        when(refreshTokenRepository.findByUser(sampleUser)).thenReturn(Optional.empty());
         // Capture the argument passed to save to verify its properties
         when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
             RefreshToken tokenToSave = invocation.getArgument(0);
@@ -93,33 +147,68 @@ class RefreshTokenServiceImplTest {
         });
 
         RefreshToken createdToken = refreshTokenService.createRefreshToken(sampleUser.getId());
+        RefreshToken secondDevice = refreshTokenService.createRefreshToken(sampleUser.getId());
 
         assertNotNull(createdToken);
-        assertNotNull(createdToken.getId());
+        assertEquals(2L, createdToken.getId());
         assertEquals(sampleUser, createdToken.getUser());
         assertNotNull(createdToken.getToken());
+        assertEquals(SecurityUtils.sha256Hex(createdToken.getToken()), createdToken.getTokenHash(), "Only the hash is persisted");
         assertTrue(createdToken.getExpiryDate().isAfter(Instant.now()));
-        verify(refreshTokenRepository, times(1)).save(any(RefreshToken.class));
+        assertNotNull(createdToken.getFamilyId());
+        assertNotEquals(createdToken.getFamilyId(), secondDevice.getFamilyId(), "Each login starts its own family");
+        verify(refreshTokenRepository, times(2)).save(any(RefreshToken.class));
+        verify(refreshTokenRepository, never()).deleteByUser(any(User.class)); // Other devices stay signed in
     }
 
     @Test
-    void createRefreshToken_shouldUpdateExistingToken_whenUserExistsAndTokenExists() {
-        String oldTokenString = sampleRefreshToken.getToken();
-        Instant oldExpiry = sampleRefreshToken.getExpiryDate();
-
+    void createRefreshToken_shouldSignOutOldestDevices_whenLimitIsExceeded() {
+        RefreshToken newest = new RefreshToken(sampleUser, UUID.randomUUID(), "newest", Instant.now().plusSeconds(60));
+        RefreshToken older = new RefreshToken(sampleUser, UUID.randomUUID(), "older", Instant.now().plusSeconds(60));
         when(userRepository.findByIdAndDeletedFalse(sampleUser.getId())).thenReturn(Optional.of(sampleUser));
-        when(refreshTokenRepository.findByUser(sampleUser)).thenReturn(Optional.of(sampleRefreshToken));
         when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(refreshTokenRepository.findByUserOrderByIdDesc(sampleUser)).thenReturn(List.of(newest, older, sampleRefreshToken));
 
-        RefreshToken updatedToken = refreshTokenService.createRefreshToken(sampleUser.getId());
+        refreshTokenService.createRefreshToken(sampleUser.getId());
 
-        assertNotNull(updatedToken);
-        assertEquals(sampleRefreshToken.getId(), updatedToken.getId()); // ID should be the same
-        assertEquals(sampleUser, updatedToken.getUser());
-        assertNotEquals(oldTokenString, updatedToken.getToken(), "Token string should be rotated (new UUID)");
-        assertTrue(updatedToken.getExpiryDate().isAfter(oldExpiry), "New expiry date should be later");
-        assertTrue(updatedToken.getExpiryDate().isAfter(Instant.now()));
-        verify(refreshTokenRepository, times(1)).save(sampleRefreshToken); // Verifies the existing token object was saved
+        verify(refreshTokenRepository).deleteAllInBatch(List.of(sampleRefreshToken));
+    }
+
+    // --- rotateRefreshToken Tests ---
+    @Test
+    void rotateRefreshToken_shouldReplaceHashInOneUpdate() {
+        when(refreshTokenRepository.rotate(eq(sampleRefreshToken.getTokenHash()), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        RefreshToken rotated = refreshTokenService.rotateRefreshToken(sampleRefreshToken);
+
+        assertNotEquals(sampleRefreshToken.getTokenHash(), rotated.getTokenHash());
+        assertEquals(SecurityUtils.sha256Hex(rotated.getToken()), rotated.getTokenHash());
+        assertEquals(sampleUser, rotated.getUser());
+        assertEquals(sampleRefreshToken.getFamilyId(), rotated.getFamilyId());
+        assertEquals(sampleRefreshToken.getTokenHash(), rotated.getPreviousTokenHash());
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+        verify(refreshTokenRepository, never()).deleteByTokenHash(anyString());
+    }
+
+    @Test
+    void rotateRefreshToken_shouldThrow_whenTokenWasAlreadyRotated() {
+        when(refreshTokenRepository.rotate(eq(sampleRefreshToken.getTokenHash()), anyString(), any(Instant.class), any(Instant.class))).thenReturn(0);
+
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.rotateRefreshToken(sampleRefreshToken));
+        verify(refreshTokenRepository, never()).deleteByFamilyId(any(UUID.class));
+    }
+
+    @Test
+    void rotateRefreshToken_shouldRevokeFamily_whenTokenWasRotatedByAnotherClient() {
+        RefreshToken successor = new RefreshToken(sampleUser, sampleRefreshToken.getFamilyId(), "successor",
+                Instant.now().plusMillis(refreshTokenDurationMs).minusSeconds(60));
+        when(refreshTokenRepository.rotate(eq(sampleRefreshToken.getTokenHash()), anyString(), any(Instant.class), any(Instant.class))).thenReturn(0);
+        when(refreshTokenRepository.findByPreviousTokenHash(sampleRefreshToken.getTokenHash())).thenReturn(Optional.of(successor));
+
+        TokenRefreshException exception = assertThrows(TokenRefreshException.class, () -> refreshTokenService.rotateRefreshToken(sampleRefreshToken));
+
+        assertTrue(exception.getMessage().contains("reused"));
+        verify(refreshTokenRepository).deleteByFamilyId(sampleRefreshToken.getFamilyId());
     }
 
     @Test
@@ -142,20 +231,19 @@ class RefreshTokenServiceImplTest {
 
         assertNotNull(verifiedToken);
         assertEquals(sampleRefreshToken, verifiedToken);
-        verify(refreshTokenRepository, never()).delete(any(RefreshToken.class)); // Delete should not be called
+        verify(refreshTokenRepository, never()).deleteByTokenHash(anyString()); // Delete should not be called
     }
 
     @Test
     void verifyDeviceAndExpiration_shouldThrowTokenRefreshExceptionAndDeletingToken_whenTokenIsExpired() {
         sampleRefreshToken.setExpiryDate(Instant.now().minusSeconds(3600)); // Set expiry to 1 hour ago
-        doNothing().when(refreshTokenRepository).delete(sampleRefreshToken); // Mock deletion
 
         TokenRefreshException exception = assertThrows(TokenRefreshException.class, () -> {
             refreshTokenService.verifyDeviceAndExpiration(sampleRefreshToken);
         });
 
         assertTrue(exception.getMessage().contains("Refresh token was expired."));
-        verify(refreshTokenRepository, times(1)).delete(sampleRefreshToken);
+        verify(refreshTokenRepository, times(1)).deleteByTokenHash(sampleRefreshToken.getTokenHash());
     }
 
     // --- deleteByUserId Tests ---
@@ -200,14 +288,34 @@ class RefreshTokenServiceImplTest {
 
     // --- deleteByToken Tests ---
     @Test
-    void deleteByToken_shouldCallRepositoryDeleteByToken() {
-        String tokenString = sampleRefreshToken.getToken();
-        // Assuming deleteByToken in repository returns void or an int we don't check here
-        doNothing().when(refreshTokenRepository).deleteByToken(tokenString); // if void
-        // when(refreshTokenRepository.deleteByToken(tokenString)).thenReturn(1); // if returns int
+    void deleteByToken_shouldCallRepositoryDeleteByTokenHash() {
+        refreshTokenService.deleteByToken(sampleRawToken);
+
+        verify(refreshTokenRepository, times(1)).deleteByTokenHash(sampleRefreshToken.getTokenHash());
+    }
+
+    // --- revokeFamily Tests ---
+    @Test
+    void revokeFamily_shouldDeleteOnlyTheFamilyOfTheToken() {
+        when(refreshTokenRepository.findByTokenHash(sampleRefreshToken.getTokenHash())).thenReturn(Optional.of(sampleRefreshToken));
+
+        refreshTokenService.revokeFamily(sampleRawToken);
+
+        verify(refreshTokenRepository).deleteByFamilyId(sampleRefreshToken.getFamilyId());
+        verify(refreshTokenRepository, never()).deleteByUser(any(User.class));
+    }
+
+    // --- purgeExpiredTokens Tests ---
+    @Test
+    void purgeExpiredTokens_shouldDeleteInChunksUntilNoneRemain() {
+        when(refreshTokenRepository.findExpiredIds(any(Instant.class), eq(Limit.of(2))))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
 
-        refreshTokenService.deleteByToken(tokenString);
+        int purged = refreshTokenService.purgeExpiredTokens();
 
-        verify(refreshTokenRepository, times(1)).deleteByToken(tokenString);
+        assertEquals(5, purged);
+        verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(3L, 4L));
+        verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(5L));
     }
 }
\ No newline at end of file
@@ -7,6 +7,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import za.ac.cput.domain.entity.Booking;
 import za.ac.cput.domain.entity.Car;
 import za.ac.cput.domain.entity.Driver;
@@ -51,6 +53,8 @@ class RentalServiceImplTest {
     private IDriverService driverService;
     @Mock
     private RentalFactory rentalFactory;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private RentalServiceImpl rentalService;
@@ -203,4 +207,24 @@ class RentalServiceImplTest {
         // Verify rental was saved as deleted and CANCELLED
         verify(rentalRepository, times(1)).save(argThat(r -> r.isDeleted() && r.getStatus() == RentalStatus.CANCELLED));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should fetch a keyset page of rentals after the given ID")
+    void getPage_ShouldDelegateToKeysetQuery() {
+        when(rentalRepository.findByIdGreaterThanAndDeletedFalseOrderByIdAsc(5, Limit.of(50))).thenReturn(List.of(sampleRental));
+
+        List<Rental> page = rentalService.getPage(5, 50);
+
+        assertEquals(List.of(sampleRental), page);
+        verify(rentalRepository, never()).findAllByDeletedFalse();
+    }
+
+    @Test
+    @DisplayName("Should page rentals whose car or user is missing")
+    void getPage_ShouldSkipMissingCarOrUser() {
+        Rental orphan = new Rental.Builder().copy(sampleRental).setCar(null).setUser(null).build();
+        when(rentalRepository.findByIdGreaterThanAndDeletedFalseOrderByIdAsc(0, Limit.of(50))).thenReturn(List.of(orphan));
+
+        assertEquals(List.of(orphan), rentalService.getPage(0, 50));
+    }
+}
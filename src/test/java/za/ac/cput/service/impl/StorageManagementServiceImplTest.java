@@ -0,0 +1,82 @@
+package za.ac.cput.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import za.ac.cput.domain.entity.StorageUsage;
+import za.ac.cput.repository.ICarImageRepository;
+import za.ac.cput.repository.UserRepository;
+import za.ac.cput.service.IFileStorageService;
+import za.ac.cput.service.IFileStorageService.FolderUsage;
+import za.ac.cput.service.IImageVariantService;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the storage statistics of {@link StorageManagementServiceImpl}.
+ */
+@ExtendWith(MockitoExtension.class)
+class StorageManagementServiceImplTest {
+
+    @Mock
+    private ICarImageRepository carImageRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private IFileStorageService fileStorageService;
+    @Mock
+    private IImageVariantService imageVariantService;
+    @Mock
+    private StorageUsageLedger usageLedger;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private StorageManagementServiceImpl storageManagementService;
+
+    @Test
+    @DisplayName("Statistics are read from the usage ledger without touching storage")
+    void getFileSystemStats_shouldReadLedger() {
+        Instant reconciledAt = Instant.parse("2026-10-17T06:00:00Z");
+        when(usageLedger.usage()).thenReturn(List.of(
+                new StorageUsage("cars", 3, 2048, reconciledAt),
+                new StorageUsage("variants", 2, 1024, null)));
+
+        Map<String, Object> stats = storageManagementService.getFileSystemStats();
+        Map<String, Long> perFolder = storageManagementService.getStorageUsagePerFolder();
+
+        assertEquals(5L, stats.get("totalFileCount"));
+        assertEquals("3 KB", stats.get("totalSizeFormatted"));
+        assertEquals(reconciledAt, stats.get("reconciledAt"));
+        assertEquals(Map.of("cars", 2048L, "variants", 1024L, "selfies", 0L, "docs", 0L), perFolder);
+        verifyNoInteractions(fileStorageService);
+    }
+
+    @Test
+    @DisplayName("Reconciliation reads the ledger before the recount and corrects it, and a failed recount leaves it alone")
+    void reconcileStorageUsage_shouldCorrectLedgerFromSnapshotTakenBeforeScan() {
+        Map<String, FolderUsage> before = Map.of("cars", new FolderUsage(2, 1024));
+        Map<String, FolderUsage> scanned = Map.of("cars", new FolderUsage(3, 2048));
+        when(usageLedger.snapshot()).thenReturn(before);
+        when(fileStorageService.scanUsage()).thenReturn(scanned).thenThrow(new RuntimeException("MinIO unavailable"));
+
+        storageManagementService.reconcileStorageUsage();
+        storageManagementService.reconcileStorageUsage();
+
+        InOrder inOrder = inOrder(usageLedger, fileStorageService);
+        inOrder.verify(usageLedger).snapshot();
+        inOrder.verify(fileStorageService).scanUsage();
+        inOrder.verify(usageLedger).reconcile(before, scanned);
+        verify(usageLedger, times(1)).reconcile(any(), any());
+    }
+}
@@ -0,0 +1,57 @@
+package za.ac.cput.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import za.ac.cput.domain.entity.StorageUsage;
+import za.ac.cput.repository.StorageUsageRepository;
+import za.ac.cput.service.IFileStorageService.FolderUsage;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link StorageUsageLedger} against an in-memory H2 database in MySQL mode.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StorageUsageLedger.class)
+class StorageUsageLedgerTest {
+
+    @Autowired
+    private StorageUsageLedger usageLedger;
+    @Autowired
+    private StorageUsageRepository storageUsageRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Reconciliation corrects the ledger to the recount and keeps changes recorded during the scan")
+    void reconcile_shouldKeepChangesRecordedDuringScan() {
+        usageLedger.recordStored("cars/a.jpg", 100);
+        usageLedger.recordStored("cars/b.jpg", 100);
+        usageLedger.recordStored("cars/c.jpg", 100);
+        usageLedger.recordStored("docs/old.pdf", 50);
+        Map<String, FolderUsage> before = usageLedger.snapshot();
+
+        // While the scan runs, a car image is uploaded after the scan has passed its folder.
+        usageLedger.recordStored("cars/d.jpg", 40);
+        // The scan finds that one car image and the docs folder were removed outside the application.
+        Map<String, FolderUsage> scanned = Map.of("cars", new FolderUsage(2, 200), "selfies", new FolderUsage(1, 10));
+        usageLedger.reconcile(before, scanned);
+        entityManager.clear();
+
+        StorageUsage cars = storageUsageRepository.findById("cars").orElseThrow();
+        assertEquals(3, cars.getFileCount());
+        assertEquals(240, cars.getTotalBytes());
+        assertNotNull(cars.getReconciledAt());
+        assertEquals(0, storageUsageRepository.findById("docs").orElseThrow().getTotalBytes());
+        assertEquals(10, storageUsageRepository.findById("selfies").orElseThrow().getTotalBytes());
+        assertNotNull(storageUsageRepository.findById("selfies").orElseThrow().getReconciledAt());
+    }
+}
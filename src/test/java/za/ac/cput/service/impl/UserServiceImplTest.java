@@ -14,6 +14,7 @@ import za.ac.cput.domain.enums.AuthProvider;
 import za.ac.cput.exception.EmailAlreadyExistsException;
 import za.ac.cput.repository.IRoleRepository;
 import za.ac.cput.repository.UserRepository;
+import za.ac.cput.security.TokenDenyList;
 import za.ac.cput.service.IRefreshTokenService;
 
 import java.time.LocalDateTime;
@@ -43,6 +44,8 @@ class UserServiceImplTest {
     private PasswordEncoder passwordEncoder;
     @Mock
     private IRefreshTokenService refreshTokenService;
+    @Mock
+    private TokenDenyList tokenDenyList;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -247,6 +250,20 @@ class UserServiceImplTest {
         assertTrue(result);
         verify(userRepository).save(argThat(User::isDeleted));
         verify(refreshTokenService).deleteByUserId(sampleUser.getId());
+        verify(tokenDenyList).deny(sampleUser.getUuid());
+    }
+
+    @Test
+    void update_shouldDenyOutstandingTokens_whenRolesChange() {
+        when(userRepository.findByIdAndDeletedFalse(sampleUser.getId())).thenReturn(Optional.of(sampleUser));
+        when(roleRepository.findByRoleName(RoleName.ADMIN)).thenReturn(sampleRoleAdmin);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        User updates = User.builder().roles(List.of(new Role(RoleName.ADMIN))).build();
+        User updated = userService.update(sampleUser.getId(), updates);
+
+        assertEquals(List.of(sampleRoleAdmin), updated.getRoles());
+        verify(tokenDenyList).deny(sampleUser.getUuid());
     }
     // ... other delete tests ...
 